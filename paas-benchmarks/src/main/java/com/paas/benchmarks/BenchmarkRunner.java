@@ -0,0 +1,28 @@
+package com.paas.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 按 1/8/64 线程依次运行基准, 结果写入 target/jmh-result-{threads}t.txt。
+ * <p>
+ * 用法: java -cp target/benchmarks.jar com.paas.benchmarks.BenchmarkRunner [include正则]
+ */
+public class BenchmarkRunner {
+
+    private static final int[] THREADS = {1, 8, 64};
+
+    public static void main(String[] args) throws Exception {
+        String include = args.length > 0 ? args[0] : "com.paas.benchmarks.*";
+        for (int threads : THREADS) {
+            ChainedOptionsBuilder options = new OptionsBuilder()
+                    .include(include)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.TEXT)
+                    .result("target/jmh-result-" + threads + "t.txt");
+            new Runner(options.build()).run();
+        }
+    }
+}
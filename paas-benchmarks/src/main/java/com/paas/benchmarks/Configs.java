@@ -0,0 +1,42 @@
+package com.paas.benchmarks;
+
+import com.paas.cache.jedis.JedisConfig;
+
+/**
+ * 基准测试的客户端配置, 连接池足够64个线程同时使用, 避免测成池等待
+ */
+final class Configs {
+
+    static final int KEY_COUNT = 1024;
+
+    private Configs() {
+    }
+
+    static JedisConfig jedisConfig(String servers) {
+        JedisConfig config = new JedisConfig();
+        config.setServers(servers);
+        JedisConfig.PoolConfig pool = new JedisConfig.PoolConfig();
+        pool.setMinIdle(8);
+        pool.setMaxIdle(128);
+        pool.setMaxActive(128);
+        pool.setTestOnBorrow(false);
+        config.setConf(pool);
+        return config;
+    }
+
+    static String[] keys(String prefix) {
+        String[] keys = new String[KEY_COUNT];
+        for (int i = 0; i < KEY_COUNT; i++) {
+            keys[i] = prefix + i;
+        }
+        return keys;
+    }
+
+    static String value(int size) {
+        StringBuilder sb = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            sb.append((char) ('a' + i % 26));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,374 @@
+package com.paas.benchmarks;
+
+import redis.clients.util.JedisClusterCRC16;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 基准测试用的内嵌redis替身, 实现RESP协议及SDK基准用到的命令, 无需外部redis即可离线运行。
+ * <p>
+ * 每个连接一个线程, 支持pipeline(输入读空时才刷出响应)。集群模式下多个节点平分slot,
+ * 应答 CLUSTER SLOTS, 访问不属于本节点的key时返回 MOVED。
+ * 只用于衡量客户端开销, 服务端性能与真实redis不可比。
+ */
+public class EmbeddedRedis implements Closeable {
+
+    private static final byte[] CRLF = {'\r', '\n'};
+    private static final byte[] OK = "+OK\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PONG = "+PONG\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NIL = "$-1\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final ServerSocket server;
+    private final ConcurrentHashMap<String, Entry> store = new ConcurrentHashMap<>();
+    private final List<Socket> connections = new CopyOnWriteArrayList<>();
+    private final int slotFrom;
+    private final int slotTo;
+    private volatile List<EmbeddedRedis> cluster = Collections.emptyList();
+    private volatile boolean closed;
+
+    private EmbeddedRedis(int slotFrom, int slotTo) throws IOException {
+        this.slotFrom = slotFrom;
+        this.slotTo = slotTo;
+        this.server = new ServerSocket(0, 512, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "embedded-redis-" + server.getLocalPort());
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * 启动单机节点
+     */
+    public static EmbeddedRedis start() throws IOException {
+        return new EmbeddedRedis(0, 16383);
+    }
+
+    /**
+     * 启动集群, 各节点平分slot
+     */
+    public static List<EmbeddedRedis> startCluster(int nodes) throws IOException {
+        List<EmbeddedRedis> list = new ArrayList<>(nodes);
+        int per = 16384 / nodes;
+        for (int i = 0; i < nodes; i++) {
+            int to = i == nodes - 1 ? 16383 : (i + 1) * per - 1;
+            list.add(new EmbeddedRedis(i * per, to));
+        }
+        List<EmbeddedRedis> view = Collections.unmodifiableList(list);
+        for (EmbeddedRedis node : list) {
+            node.cluster = view;
+        }
+        return view;
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    public String getAddress() {
+        return "127.0.0.1:" + getPort();
+    }
+
+    public static String addresses(List<EmbeddedRedis> nodes) {
+        StringBuilder sb = new StringBuilder();
+        for (EmbeddedRedis node : nodes) {
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            sb.append(node.getAddress());
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            server.close();
+        } catch (IOException ignore) {
+        }
+        for (Socket socket : connections) {
+            try {
+                socket.close();
+            } catch (IOException ignore) {
+            }
+        }
+    }
+
+    private void accept() {
+        while (!closed) {
+            try {
+                final Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                connections.add(socket);
+                Thread worker = new Thread(() -> serve(socket), "embedded-redis-conn-" + socket.getPort());
+                worker.setDaemon(true);
+                worker.start();
+            } catch (IOException e) {
+                if (!closed) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (InputStream in = new BufferedInputStream(socket.getInputStream(), 16 * 1024);
+             OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 16 * 1024)) {
+            while (true) {
+                List<byte[]> command = readCommand(in);
+                if (command == null) {
+                    return;
+                }
+                handle(command, out);
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException ignore) {
+            // 连接关闭
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    private static List<byte[]> readCommand(InputStream in) throws IOException {
+        int b = in.read();
+        if (b == -1) {
+            return null;
+        }
+        if (b != '*') {
+            throw new IOException("unsupported request: " + (char) b);
+        }
+        int count = (int) readLong(in);
+        List<byte[]> args = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (in.read() != '$') {
+                throw new IOException("bulk string expected");
+            }
+            int len = (int) readLong(in);
+            byte[] arg = new byte[len];
+            int read = 0;
+            while (read < len) {
+                int n = in.read(arg, read, len - read);
+                if (n < 0) {
+                    throw new EOFException();
+                }
+                read += n;
+            }
+            in.read();
+            in.read();
+            args.add(arg);
+        }
+        return args;
+    }
+
+    private static long readLong(InputStream in) throws IOException {
+        long value = 0;
+        boolean negative = false;
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b == -1) {
+                throw new EOFException();
+            }
+            if (b == '-') {
+                negative = true;
+            } else {
+                value = value * 10 + (b - '0');
+            }
+        }
+        in.read();
+        return negative ? -value : value;
+    }
+
+    private void handle(List<byte[]> args, OutputStream out) throws IOException {
+        String name = new String(args.get(0), StandardCharsets.US_ASCII).toUpperCase();
+        switch (name) {
+            case "PING":
+                out.write(PONG);
+                return;
+            case "AUTH":
+            case "SELECT":
+                out.write(OK);
+                return;
+            case "CLUSTER":
+                clusterSlots(out);
+                return;
+            default:
+        }
+        if (args.size() > 1 && moved(args, name, out)) {
+            return;
+        }
+        switch (name) {
+            case "GET":
+                bulk(out, value(key(args.get(1))));
+                break;
+            case "SET":
+                store.put(key(args.get(1)), new Entry(args.get(2), 0));
+                out.write(OK);
+                break;
+            case "SETEX":
+                store.put(key(args.get(1)), new Entry(args.get(3), expireAt(args.get(2))));
+                out.write(OK);
+                break;
+            case "DEL": {
+                long removed = 0;
+                for (int i = 1; i < args.size(); i++) {
+                    if (store.remove(key(args.get(i))) != null) {
+                        removed++;
+                    }
+                }
+                integer(out, removed);
+                break;
+            }
+            case "EXISTS":
+                integer(out, value(key(args.get(1))) == null ? 0 : 1);
+                break;
+            case "EXPIRE": {
+                String key = key(args.get(1));
+                byte[] value = value(key);
+                if (value != null) {
+                    store.put(key, new Entry(value, expireAt(args.get(2))));
+                }
+                integer(out, value == null ? 0 : 1);
+                break;
+            }
+            case "TTL": {
+                Entry entry = store.get(key(args.get(1)));
+                if (entry == null || entry.expired()) {
+                    integer(out, -2);
+                } else {
+                    integer(out, entry.expireAt == 0 ? -1 : (entry.expireAt - System.currentTimeMillis()) / 1000);
+                }
+                break;
+            }
+            case "INCR":
+                integer(out, incr(key(args.get(1))));
+                break;
+            case "MGET":
+                out.write(('*' + String.valueOf(args.size() - 1) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+                for (int i = 1; i < args.size(); i++) {
+                    bulk(out, value(key(args.get(i))));
+                }
+                break;
+            case "MSET":
+                for (int i = 1; i + 1 < args.size(); i += 2) {
+                    store.put(key(args.get(i)), new Entry(args.get(i + 1), 0));
+                }
+                out.write(OK);
+                break;
+            default:
+                error(out, "ERR unknown command '" + name + "'");
+        }
+    }
+
+    // 集群模式下第一个key不属于本节点时返回MOVED
+    private boolean moved(List<byte[]> args, String name, OutputStream out) throws IOException {
+        if (cluster.isEmpty()) {
+            return false;
+        }
+        int slot = JedisClusterCRC16.getSlot(args.get(1));
+        if (slot >= slotFrom && slot <= slotTo) {
+            return false;
+        }
+        for (EmbeddedRedis node : cluster) {
+            if (slot >= node.slotFrom && slot <= node.slotTo) {
+                error(out, "MOVED " + slot + " " + node.getAddress());
+                return true;
+            }
+        }
+        error(out, "CLUSTERDOWN Hash slot not served");
+        return true;
+    }
+
+    private void clusterSlots(OutputStream out) throws IOException {
+        List<EmbeddedRedis> nodes = cluster.isEmpty() ? Collections.singletonList(this) : cluster;
+        out.write(('*' + String.valueOf(nodes.size()) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        for (EmbeddedRedis node : nodes) {
+            out.write("*3\r\n".getBytes(StandardCharsets.US_ASCII));
+            integer(out, node.slotFrom);
+            integer(out, node.slotTo);
+            out.write("*3\r\n".getBytes(StandardCharsets.US_ASCII));
+            bulk(out, "127.0.0.1".getBytes(StandardCharsets.US_ASCII));
+            integer(out, node.getPort());
+            bulk(out, ("node-" + node.getPort()).getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private long incr(String key) {
+        while (true) {
+            Entry entry = store.get(key);
+            long next = (entry == null || entry.expired() ? 0 : Long.parseLong(new String(entry.value, StandardCharsets.US_ASCII))) + 1;
+            Entry updated = new Entry(String.valueOf(next).getBytes(StandardCharsets.US_ASCII), entry == null ? 0 : entry.expireAt);
+            if (entry == null ? store.putIfAbsent(key, updated) == null : store.replace(key, entry, updated)) {
+                return next;
+            }
+        }
+    }
+
+    private byte[] value(String key) {
+        Entry entry = store.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.expired()) {
+            store.remove(key, entry);
+            return null;
+        }
+        return entry.value;
+    }
+
+    // ISO-8859-1 与字节一一对应, 可无损作为map的key
+    private static String key(byte[] key) {
+        return new String(key, StandardCharsets.ISO_8859_1);
+    }
+
+    private static long expireAt(byte[] seconds) {
+        return System.currentTimeMillis() + Long.parseLong(new String(seconds, StandardCharsets.US_ASCII)) * 1000;
+    }
+
+    private static void bulk(OutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.write(NIL);
+            return;
+        }
+        out.write(('$' + String.valueOf(value.length) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+        out.write(value);
+        out.write(CRLF);
+    }
+
+    private static void integer(OutputStream out, long value) throws IOException {
+        out.write((':' + String.valueOf(value) + "\r\n").getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static void error(OutputStream out, String message) throws IOException {
+        out.write(('-' + message + "\r\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static final class Entry {
+        final byte[] value;
+        final long expireAt;
+
+        Entry(byte[] value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        boolean expired() {
+            return expireAt != 0 && expireAt <= System.currentTimeMillis();
+        }
+    }
+}
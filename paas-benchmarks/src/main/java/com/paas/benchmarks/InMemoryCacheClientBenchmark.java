@@ -0,0 +1,68 @@
+package com.paas.benchmarks;
+
+import com.paas.cache.memory.InMemoryCacheClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 内存实现的读写, 不经过网络, 结果稳定, 可作为其它客户端的对照
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InMemoryCacheClientBenchmark {
+
+    @Param({"100", "4096"})
+    public int valueSize;
+
+    private InMemoryCacheClient client;
+    private String[] keys;
+    private String value;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        client = new InMemoryCacheClient("bench");
+        keys = Configs.keys("bench:memory:");
+        value = Configs.value(valueSize);
+        for (String key : keys) {
+            client.setex(key, 3600, value);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.destroy();
+    }
+
+    @Benchmark
+    public String get() {
+        return client.get(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+
+    @Benchmark
+    public String setex() {
+        return client.setex(keys[ThreadLocalRandom.current().nextInt(keys.length)], 3600, value);
+    }
+
+    @Benchmark
+    public Long hincrBy() {
+        return client.hincrBy("bench:memory:hash", keys[ThreadLocalRandom.current().nextInt(keys.length)], 1);
+    }
+}
@@ -0,0 +1,67 @@
+package com.paas.benchmarks;
+
+import com.paas.cache.jedis.JedisClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 单机 JedisClient 读写, 包含连接池借还及一次网络往返。
+ * 多线程下可观察连接池竞争, 线程数通过 -t 或 BenchmarkRunner 指定
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JedisClientBenchmark {
+
+    @Param({"100", "4096"})
+    public int valueSize;
+
+    private EmbeddedRedis redis;
+    private JedisClient client;
+    private String[] keys;
+    private String value;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        redis = EmbeddedRedis.start();
+        client = new JedisClient(Configs.jedisConfig(redis.getAddress()));
+        keys = Configs.keys("bench:jedis:");
+        value = Configs.value(valueSize);
+        for (String key : keys) {
+            client.setex(key, 3600, value);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.destroy();
+        redis.close();
+    }
+
+    @Benchmark
+    public String get() {
+        return client.get(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+
+    @Benchmark
+    public String setex() {
+        return client.setex(keys[ThreadLocalRandom.current().nextInt(keys.length)], 3600, value);
+    }
+}
@@ -0,0 +1,79 @@
+package com.paas.benchmarks;
+
+import com.paas.cache.jedis.JedisClusterClient;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JedisClusterClient 读写, 内嵌3节点集群平分slot。mget 的key分布在各节点, 测量按节点并行拆分的开销
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JedisClusterClientBenchmark {
+
+    private static final int MGET_KEYS = 16;
+
+    @Param({"100"})
+    public int valueSize;
+
+    private List<EmbeddedRedis> nodes;
+    private JedisClusterClient client;
+    private String[] keys;
+    private String value;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        nodes = EmbeddedRedis.startCluster(3);
+        client = new JedisClusterClient(Configs.jedisConfig(EmbeddedRedis.addresses(nodes)));
+        keys = Configs.keys("bench:cluster:");
+        value = Configs.value(valueSize);
+        for (String key : keys) {
+            client.setex(key, 3600, value);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.destroy();
+        for (EmbeddedRedis node : nodes) {
+            node.close();
+        }
+    }
+
+    @Benchmark
+    public String get() {
+        return client.get(keys[ThreadLocalRandom.current().nextInt(keys.length)]);
+    }
+
+    @Benchmark
+    public String setex() {
+        return client.setex(keys[ThreadLocalRandom.current().nextInt(keys.length)], 3600, value);
+    }
+
+    @Benchmark
+    public List<String> mget() {
+        int from = ThreadLocalRandom.current().nextInt(keys.length - MGET_KEYS);
+        String[] batch = new String[MGET_KEYS];
+        System.arraycopy(keys, from, batch, 0, MGET_KEYS);
+        return client.mget(batch);
+    }
+}
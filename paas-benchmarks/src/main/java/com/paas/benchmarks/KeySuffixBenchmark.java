@@ -0,0 +1,89 @@
+package com.paas.benchmarks;
+
+import com.paas.cache.ICacheClient;
+import com.paas.cache.jedis.ClientProxy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClientProxy 为key添加业务后缀的开销, 与直接调用桩客户端对比, 包含字符串key、二进制key、ByteBuffer key及多key命令
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeySuffixBenchmark {
+
+    @Param({"16", "128"})
+    public int keyLength;
+
+    private ICacheClient stub;
+    private ClientProxy proxy;
+    private String key;
+    private byte[] binaryKey;
+    private ByteBuffer bufferKey;
+    private String[] keys;
+
+    @Setup
+    public void setUp() {
+        stub = StubClients.stub("value");
+        proxy = new ClientProxy(stub, "bench");
+        key = Configs.value(keyLength);
+        binaryKey = key.getBytes(StandardCharsets.UTF_8);
+        bufferKey = ByteBuffer.wrap(binaryKey);
+        keys = new String[16];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = key + i;
+        }
+    }
+
+    @Benchmark
+    public String direct() {
+        return stub.get(key);
+    }
+
+    @Benchmark
+    public String suffixed() {
+        return proxy.get(key);
+    }
+
+    @Benchmark
+    public byte[] directBinary() {
+        return stub.get(binaryKey);
+    }
+
+    @Benchmark
+    public byte[] suffixedBinary() {
+        return proxy.get(binaryKey);
+    }
+
+    @Benchmark
+    public byte[] suffixedByteBuffer() {
+        return proxy.get(bufferKey);
+    }
+
+    @Benchmark
+    public Long directMulti() {
+        return stub.del(keys);
+    }
+
+    @Benchmark
+    public Long suffixedMulti() {
+        return proxy.del(keys);
+    }
+}
@@ -0,0 +1,58 @@
+package com.paas.benchmarks;
+
+import com.paas.cache.ICacheClient;
+import com.paas.cache.jedis.ClientProxy;
+import com.paas.cache.jedis.ClientTimeProxy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ClientTimeProxy 统计代理的开销: 桩客户端、仅加后缀的 ClientProxy、带耗时直方图的代理三者对比。
+ * 多线程下可观察直方图计数的竞争
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProxyOverheadBenchmark {
+
+    private static final String KEY = "bench:proxy:key";
+
+    private ICacheClient stub;
+    private ICacheClient proxy;
+    private ICacheClient timeProxy;
+
+    @Setup
+    public void setUp() {
+        stub = StubClients.stub("value");
+        proxy = new ClientProxy(stub, "bench");
+        timeProxy = ClientTimeProxy.getProxy(stub, "bench", 1000);
+    }
+
+    @Benchmark
+    public String direct() {
+        return stub.get(KEY);
+    }
+
+    @Benchmark
+    public String clientProxy() {
+        return proxy.get(KEY);
+    }
+
+    @Benchmark
+    public String timeProxy() {
+        return timeProxy.get(KEY);
+    }
+}
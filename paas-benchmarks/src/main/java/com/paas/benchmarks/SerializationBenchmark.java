@@ -0,0 +1,125 @@
+package com.paas.benchmarks;
+
+import com.paas.cache.codec.ObjectCodecs;
+import com.paas.cache.jedis.JedisClient;
+import com.paas.cache.jedis.JedisConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * setObjectEx/getObject 的对象序列化开销, 分别测量纯序列化、反序列化及含网络往返的完整调用, 按编码对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private static final byte[] KEY = "bench:object".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * 对象中列表元素个数
+     */
+    @Param({"10", "500"})
+    public int items;
+
+    @Param({"java", "kryo", "fastjson"})
+    public String codec;
+
+    private EmbeddedRedis redis;
+    private JedisClient client;
+    private ObjectCodecs codecs;
+    private Payload payload;
+    private byte[] serialized;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        redis = EmbeddedRedis.start();
+        JedisConfig config = Configs.jedisConfig(redis.getAddress());
+        config.setCodec(codec);
+        config.setCodecClasses(Arrays.asList(Payload.class.getName(), Item.class.getName(), ArrayList.class.getName()));
+        client = new JedisClient(config);
+        codecs = client.getCodecs();
+        payload = Payload.create(items);
+        serialized = codecs.encode(payload);
+        client.setObjectEx(KEY, 3600, payload);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        client.destroy();
+        redis.close();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return codecs.encode(payload);
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return codecs.decode(serialized);
+    }
+
+    @Benchmark
+    public String setObjectEx() {
+        return client.setObjectEx(KEY, 3600, payload);
+    }
+
+    @Benchmark
+    public Object getObject() {
+        return client.getObject(KEY);
+    }
+
+    public static class Payload implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        // 公开字段, fastjson 按字段编码
+        public long id;
+        public String name;
+        public List<Item> items;
+
+        static Payload create(int count) {
+            Payload payload = new Payload();
+            payload.id = 42L;
+            payload.name = "bench-payload";
+            payload.items = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Item item = new Item();
+                item.code = "item-" + i;
+                item.amount = i * 1.5d;
+                item.quantity = i;
+                payload.items.add(item);
+            }
+            return payload;
+        }
+    }
+
+    public static class Item implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        public String code;
+        public double amount;
+        public int quantity;
+    }
+}
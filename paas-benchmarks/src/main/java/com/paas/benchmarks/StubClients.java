@@ -0,0 +1,40 @@
+package com.paas.benchmarks;
+
+import com.paas.cache.ICacheClient;
+
+import java.lang.reflect.Proxy;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 不访问网络的 ICacheClient 桩, 用于单独测量代理层开销。
+ * 桩本身为动态代理, 其固定开销同样计入直接调用的基准, 比较时看差值
+ */
+final class StubClients {
+
+    private StubClients() {
+    }
+
+    static ICacheClient stub(String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return (ICacheClient) Proxy.newProxyInstance(ICacheClient.class.getClassLoader(),
+                new Class<?>[]{ICacheClient.class}, (proxy, method, args) -> {
+                    Class<?> type = method.getReturnType();
+                    if (type == String.class) {
+                        return value;
+                    }
+                    if (type == byte[].class) {
+                        return bytes;
+                    }
+                    if (type == Long.class) {
+                        return 1L;
+                    }
+                    if (type == boolean.class || type == Boolean.class) {
+                        return Boolean.TRUE;
+                    }
+                    if (method.getName().equals("toString")) {
+                        return "StubCacheClient";
+                    }
+                    return null;
+                });
+    }
+}
@@ -1,11 +1,19 @@
 package com.paas.cache;
 
 import com.alibaba.fastjson.JSON;
+import com.paas.cache.async.AsyncCacheClient;
+import com.paas.cache.async.AsyncClientProxy;
+import com.paas.cache.async.NioAsyncCacheClient;
+import com.paas.cache.exception.CacheClientException;
 import com.paas.cache.jedis.*;
+import com.paas.cache.memory.InMemoryCacheClient;
+import com.paas.cache.metrics.CacheMetrics;
+import com.paas.cache.metrics.MetricsRegistry;
 import com.paas.auth.service.AuthClientFactory;
 import com.paas.auth.service.IAuthClient;
 import com.paas.auth.vo.AuthDescriptor;
 import com.paas.auth.vo.AuthResult;
+import com.paas.commons.env.EnvBean;
 import com.paas.zk.zookeeper.ZKClient;
 import org.apache.zookeeper.WatchedEvent;
 import org.apache.zookeeper.Watcher;
@@ -13,6 +21,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -21,9 +30,14 @@ import java.util.concurrent.ConcurrentHashMap;
 public class CacheClientFactory {
     private static final String PATH_PRE = "/bbtree/ts/";
     private static final String SEPARATOR = "/";
+    /**
+     * 本地环境下设置为true时使用内存缓存, 不连接认证中心及zookeeper
+     */
+    public static final String MEMORY_PROPERTY = "paas.cache.memory";
     protected final static Logger log = LoggerFactory.getLogger(CacheClientFactory.class);
 
     private static Map<String, ICacheClient> caches = new ConcurrentHashMap<>();
+    private static Map<String, AsyncClientProxy> asyncCaches = new ConcurrentHashMap<>();
     private static Map<String, CacheConfig> configs = new ConcurrentHashMap<>();
     private static Map<String, ZKClient> zkClients = new ConcurrentHashMap<>();
 
@@ -45,6 +59,9 @@ public class CacheClientFactory {
     private static synchronized ICacheClient initClient(String bizKey, String authUrl){
         log.info(" ---> init cache client ...");
         ICacheClient client = caches.get(bizKey);
+        if(client == null && isMemoryMode()){
+            client = createMemoryClient(bizKey);
+        }
         if(client == null){
             CacheConfig config = getCacheConfig(bizKey, authUrl);
             client = createClient(config);
@@ -53,22 +70,97 @@ public class CacheClientFactory {
         return client;
     }
 
+    /**
+     * 获取异步缓存客户端, 与同步客户端共用配置
+     * @param serviceId 服务ID
+     * @param authUrl 认证中心地址
+     * @return AsyncCacheClient 异步缓存客户端
+     */
+    public static AsyncCacheClient getAsyncClient(String serviceId, String authUrl){
+        AsyncCacheClient client = asyncCaches.get(serviceId);
+        if(client == null){
+            client = initAsyncClient(serviceId, authUrl);
+        }
+        return client;
+    }
+
+    private static synchronized AsyncCacheClient initAsyncClient(String bizKey, String authUrl){
+        log.info(" ---> init async cache client ...");
+        AsyncCacheClient client = asyncCaches.get(bizKey);
+        if(client == null){
+            CacheConfig config = getCacheConfig(bizKey, authUrl);
+            AsyncCacheClient backend = createAsyncBackend(config);
+            if(backend != null){
+                AsyncClientProxy proxy = new AsyncClientProxy(backend);
+                asyncCaches.put(bizKey, proxy);
+                client = proxy;
+            }
+        }
+        log.info(" ---> init async cache client down: {}", client);
+        return client;
+    }
+
+    // 实际执行命令的异步客户端, 由 AsyncClientProxy 持有
+    private static AsyncCacheClient createAsyncBackend(CacheConfig config){
+        if(config == null){
+            return null;
+        }
+        if(Boolean.TRUE.equals(config.getJedisConfig().getSharded())){
+            throw new CacheClientException("分片模式不支持异步客户端: " + config.getBusinessKey());
+        }
+        return new NioAsyncCacheClient(config.getJedisConfig(), new BizKeyMapper(config.getBizCode()));
+    }
+
     private static ICacheClient createClient(CacheConfig config){
         ICacheClient client = null;
         if(config != null){
-            if(config.getJedisConfig().getServerArray().length > 1){
-                client = new JedisClusterClient(config.getJedisConfig());
-            }else{
-                client = new JedisClient(config.getJedisConfig());
-            }
+            client = createBackend(config);
 //            caches.put(config.getBusinessKey(), client);
 //            ICacheClient proxy = new ClientProxy(client, config.getBizCode());
             client = ClientTimeProxy.getProxy(client, config.getBizCode(), config.getJedisConfig().getWarnTime());
+            JedisConfig.NearCacheConfig nearCache = config.getJedisConfig().getNearCache();
+            if(nearCache != null && Boolean.TRUE.equals(nearCache.getEnabled())){
+                ((ClientProxy) client).enableNearCache(nearCache);
+            }
+            ((ClientProxy) client).enableCompression(config.getJedisConfig().getCompression());
+            ((ClientProxy) client).enableChunking(config.getJedisConfig().getChunk());
+            ((ClientProxy) client).enableRefresh(config.getJedisConfig().getRefresh());
+            ((ClientProxy) client).enableHotKeys(config.getJedisConfig().getHotKey());
             caches.put(config.getBusinessKey(), client);
         }
         return client;
     }
 
+    private static boolean isMemoryMode(){
+        return EnvBean.ENV_LOCAL.equals(EnvBean.getEnv()) && Boolean.getBoolean(MEMORY_PROPERTY);
+    }
+
+    private static ICacheClient createMemoryClient(String bizKey){
+        String bizCode = bizKey.split("-")[0];
+        ICacheClient client = ClientTimeProxy.getProxy(new InMemoryCacheClient(bizKey), bizCode, 1000);
+        caches.put(bizKey, client);
+        log.info(" ---> local env, use in-memory cache: {}", bizKey);
+        return client;
+    }
+
+    // 实际执行命令的客户端, 不含key后缀及统计代理
+    private static ICacheClient createBackend(CacheConfig config){
+        CacheMetrics metrics = MetricsRegistry.get(config.getBizCode());
+        if(Boolean.TRUE.equals(config.getJedisConfig().getSharded())){
+            ShardedJedisClient shardedClient = new ShardedJedisClient(config.getJedisConfig());
+            shardedClient.setMetrics(metrics);
+            return shardedClient;
+        }
+        if(config.getJedisConfig().getServerArray().length > 1){
+            JedisClusterClient clusterClient = new JedisClusterClient(config.getJedisConfig());
+            clusterClient.setMetrics(metrics);
+            return clusterClient;
+        }
+        JedisClient jedisClient = new JedisClient(config.getJedisConfig());
+        jedisClient.setMetrics(metrics);
+        return jedisClient;
+    }
+
     private static CacheConfig getCacheConfig(String bizKey, String authUrl){
         log.info(" ---> init cache config ...");
         CacheConfig config = configs.get(bizKey);
@@ -107,15 +199,8 @@ public class CacheClientFactory {
 
         ZKClient zkClient = new ZKClient(result, 3000);
         zkClients.put(cacheConfig.getBusinessKey(), zkClient);
-        String zkConfig = zkClient.getNodeData(cacheConfig.getConfigPath(), new Watcher(){
-            @Override
-            public void process(WatchedEvent event) {
-                log.info(" --->  watch zk process.{};{};{}", event.getPath(), event.getState(), event.getType());
-                if(event.getPath().equals(cacheConfig.getConfigPath()) && Event.EventType.NodeDataChanged.equals(event.getType())){
-                    resetCache(cacheConfig);
-                }
-            }
-        });
+        String zkConfig = zkClient.getNodeData(cacheConfig.getConfigPath(), new ConfigChangeWatcher(cacheConfig));
+        cacheConfig.setRawConfig(zkConfig);
         log.info(" ---> jedis zk config: {}", zkConfig);
         return parseConfig(zkConfig);
 
@@ -146,32 +231,124 @@ public class CacheClientFactory {
         return conf;
     }
 
-    private static void resetCache(CacheConfig cacheConfig){
-        CacheConfig cc = configs.get(cacheConfig.getBusinessKey());
-        if(cc == null){
+    /**
+     * 配置变更后热切换客户端, 在生命周期线程中执行。
+     * 重新读取配置的同时注册监听; 新客户端预热成功后替换代理中的客户端, 调用方持有的实例不变,
+     * 旧客户端排空后关闭。新配置无效或无法连接时保留原客户端。
+     */
+    private static void resetCache(CacheConfig cacheConfig, Watcher watcher){
+        String bizKey = cacheConfig.getBusinessKey();
+        ZKClient zkClient = zkClients.get(bizKey);
+        if(zkClient == null || configs.get(bizKey) == null){
             return;
         }
+        String zkConfig;
         try {
-            ZKClient zkClient = zkClients.get(cacheConfig.getBusinessKey());
-            String zkConfig = zkClient.getNodeData(cacheConfig.getConfigPath());
-            log.info(" ---> reset jedis zk config: {}", zkConfig);
-            JedisConfig oldJc = cc.getJedisConfig();
+            zkConfig = zkClient.getNodeData(cacheConfig.getConfigPath(), watcher);
+        } catch (Exception e) {
+            log.error(" ---> reset cache, read zk config error, keep current client. ", e);
+            rewatch(zkClient, cacheConfig, watcher);
+            return;
+        }
+        log.info(" ---> reset jedis zk config: {}", zkConfig);
+        if(zkConfig == null){
+            log.warn(" ---> jedis zk config is empty, keep current client: {}", bizKey);
+            return;
+        }
+        if(Objects.equals(zkConfig, cacheConfig.getRawConfig())){
+            log.info(" ---> jedis zk config not changed, skip reset: {}", bizKey);
+            return;
+        }
 
+        JedisConfig oldJc = cacheConfig.getJedisConfig();
+        CacheConfig newConfig = new CacheConfig(bizKey, cacheConfig.getAuthUrl(), cacheConfig.getConfigPath());
+        newConfig.setBizCode(cacheConfig.getBizCode());
+        ICacheClient backend = null;
+        try {
             JedisConfig jc = parseConfig(zkConfig);
-            cacheConfig.setJedisConfig(jc);
-            log.info(" ---> reset jedis config, new: [{}], old: [{}]", jc, oldJc);
+            newConfig.setJedisConfig(jc);
+            backend = createBackend(newConfig);
+            ClientLifecycle.warmUp(backend);
+        } catch (Exception e) {
+            log.error(" ---> reset cache, new client unavailable, keep current client. ", e);
+            ClientLifecycle.destroy(backend);
+            return;
+        }
+        JedisConfig jc = newConfig.getJedisConfig();
+        cacheConfig.setJedisConfig(jc);
+        cacheConfig.setRawConfig(zkConfig);
+        log.info(" ---> reset jedis config, new: [{}], old: [{}]", jc, oldJc);
 
-            ICacheClient oldClient = caches.get(cacheConfig.getBusinessKey());
-            ICacheClient client = createClient(cacheConfig);
+        ICacheClient current = caches.get(bizKey);
+        if(current instanceof ClientProxy){
+            ((ClientProxy) current).enableCompression(jc.getCompression());
+            ((ClientProxy) current).enableChunking(jc.getChunk());
+            // 配置未变化时保留原实例, 不丢失热点统计及刷新记录
+            if(!Objects.equals(jc.getRefresh(), oldJc.getRefresh())){
+                ((ClientProxy) current).enableRefresh(jc.getRefresh());
+            }
+            if(!Objects.equals(jc.getHotKey(), oldJc.getHotKey())){
+                ((ClientProxy) current).enableHotKeys(jc.getHotKey());
+            }
+            ICacheClient oldClient = ((ClientProxy) current).swapClient(backend, jc.getNearCache());
+            log.info(" ---> reset jedis client, new: [{}], old: [{}]", backend, oldClient);
+            ClientLifecycle.retire(oldClient, jc.getSwapGracePeriod());
+        }else{
+            ClientLifecycle.destroy(backend);
+        }
 
-            log.info(" ---> reset jedis client, new: [{}], old: [{}]", client, oldClient);
-            if(client != null && oldClient != null){
-                if(oldClient instanceof JedisClient){
-                    ((JedisClient)oldClient).destroy();
-                }
+        AsyncClientProxy asyncProxy = asyncCaches.get(bizKey);
+        if(asyncProxy != null && Boolean.TRUE.equals(jc.getSharded())){
+            log.warn(" ---> sharded mode does not support async client, keep current async client: {}", bizKey);
+        }else if(asyncProxy != null){
+            AsyncCacheClient asyncBackend;
+            try {
+                asyncBackend = createAsyncBackend(cacheConfig);
+            } catch (Exception e) {
+                log.error(" ---> reset cache, new async client unavailable, keep current async client. ", e);
+                return;
             }
+            AsyncCacheClient oldAsyncClient = asyncProxy.swapClient(asyncBackend);
+            log.info(" ---> reset async client, new: [{}], old: [{}]", asyncProxy.getClient(), oldAsyncClient);
+            int soTimeout = oldJc.getConf() == null ? 3000 : oldJc.getConf().getSoTimeout();
+            ClientLifecycle.retire(oldAsyncClient, Math.max(soTimeout * 2L, 1000L));
+        }
+    }
+
+    // 配置节点不存在时读取不会注册监听, 改为监听节点创建
+    private static void rewatch(ZKClient zkClient, CacheConfig cacheConfig, Watcher watcher){
+        if(zkClient == null){
+            return;
+        }
+        try {
+            zkClient.exists(cacheConfig.getConfigPath(), watcher);
         } catch (Exception e) {
-            log.error(" ---> reset cache error. ", e);
+            log.error(" ---> rewatch zk config error: {}", cacheConfig.getConfigPath(), e);
+        }
+    }
+
+    /**
+     * 配置节点监听。zk监听只触发一次, 每次处理时重新注册; 处理放到生命周期线程, 不阻塞zk事件线程
+     */
+    private static class ConfigChangeWatcher implements Watcher {
+        private final CacheConfig cacheConfig;
+
+        ConfigChangeWatcher(CacheConfig cacheConfig) {
+            this.cacheConfig = cacheConfig;
+        }
+
+        @Override
+        public void process(WatchedEvent event) {
+            log.info(" --->  watch zk process.{};{};{}", event.getPath(), event.getState(), event.getType());
+            if(!cacheConfig.getConfigPath().equals(event.getPath())){
+                return;
+            }
+            if(Event.EventType.NodeDataChanged.equals(event.getType()) || Event.EventType.NodeCreated.equals(event.getType())){
+                ClientLifecycle.execute(() -> resetCache(cacheConfig, this));
+            }else if(Event.EventType.NodeDeleted.equals(event.getType())){
+                log.warn(" ---> jedis zk config deleted, keep current client: {}", event.getPath());
+                ClientLifecycle.execute(() -> rewatch(zkClients.get(cacheConfig.getBusinessKey()), cacheConfig, this));
+            }
         }
     }
 
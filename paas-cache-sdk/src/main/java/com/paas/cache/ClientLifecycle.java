@@ -0,0 +1,154 @@
+package com.paas.cache;
+
+import com.paas.cache.async.AsyncCacheClient;
+import com.paas.cache.jedis.JedisClient;
+import com.paas.cache.jedis.JedisClusterClient;
+import com.paas.cache.jedis.ShardedJedisClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 客户端热切换的生命周期管理。
+ * <p>
+ * 配置变更后新客户端的创建及预热在独立线程中串行执行, 不占用zk事件线程, 多次变更也不会交错;
+ * 被替换的旧客户端等待借出的连接全部归还(即正在执行的命令结束)后关闭, 超过宽限时间则强制关闭。
+ */
+class ClientLifecycle {
+    protected final static Logger log = LoggerFactory.getLogger(ClientLifecycle.class);
+
+    private static final long DRAIN_CHECK_INTERVAL = 200;
+
+    private static final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "paas-cache-lifecycle");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private ClientLifecycle() {
+    }
+
+    /**
+     * 在生命周期线程中执行, 异常只记录日志
+     */
+    static void execute(final Runnable task) {
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    task.run();
+                } catch (Throwable t) {
+                    log.error(" ---> cache lifecycle task error. ", t);
+                }
+            }
+        });
+    }
+
+    /**
+     * 预热新客户端, 失败时抛出异常
+     */
+    static void warmUp(ICacheClient client) {
+        if (client instanceof JedisClient) {
+            ((JedisClient) client).warmUp();
+        } else if (client instanceof JedisClusterClient) {
+            ((JedisClusterClient) client).warmUp();
+        } else if (client instanceof ShardedJedisClient) {
+            ((ShardedJedisClient) client).warmUp();
+        }
+    }
+
+    /**
+     * 关闭未投入使用的客户端
+     */
+    static void destroy(ICacheClient client) {
+        try {
+            if (client instanceof JedisClient) {
+                ((JedisClient) client).destroy();
+            } else if (client instanceof JedisClusterClient) {
+                ((JedisClusterClient) client).destroy();
+            } else if (client instanceof ShardedJedisClient) {
+                ((ShardedJedisClient) client).destroy();
+            }
+        } catch (Exception e) {
+            log.warn(" ---> destroy cache client fail: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 排空后关闭被替换的客户端
+     *
+     * @param client      被替换的客户端
+     * @param gracePeriod 最长等待时间(毫秒)
+     */
+    static void retire(ICacheClient client, long gracePeriod) {
+        if (client == null) {
+            return;
+        }
+        long deadline = System.currentTimeMillis() + gracePeriod;
+        executor.schedule(new Drain(client, deadline), DRAIN_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 延迟关闭被替换的异步客户端, 延迟不小于命令超时时间, 此后已发出的命令均已完成或超时
+     */
+    static void retire(final AsyncCacheClient client, long delay) {
+        if (client == null) {
+            return;
+        }
+        executor.schedule(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    client.close();
+                    log.info(" ---> retired async cache client: {}", client);
+                } catch (Exception e) {
+                    log.warn(" ---> close async cache client fail: {}", e.getMessage());
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private static int activeConnections(ICacheClient client) {
+        if (client instanceof JedisClient) {
+            return ((JedisClient) client).getActiveConnections();
+        }
+        if (client instanceof JedisClusterClient) {
+            return ((JedisClusterClient) client).getActiveConnections();
+        }
+        if (client instanceof ShardedJedisClient) {
+            return ((ShardedJedisClient) client).getActiveConnections();
+        }
+        return 0;
+    }
+
+    private static class Drain implements Runnable {
+        private final ICacheClient client;
+        private final long deadline;
+
+        Drain(ICacheClient client, long deadline) {
+            this.client = client;
+            this.deadline = deadline;
+        }
+
+        @Override
+        public void run() {
+            int active = activeConnections(client);
+            if (active > 0 && System.currentTimeMillis() < deadline) {
+                executor.schedule(this, DRAIN_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
+                return;
+            }
+            if (active > 0) {
+                log.warn(" ---> grace period expired, force close cache client with {} active connections: {}", active, client);
+            }
+            destroy(client);
+            log.info(" ---> retired cache client: {}", client);
+        }
+    }
+}
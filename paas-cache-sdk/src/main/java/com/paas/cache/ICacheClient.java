@@ -1,10 +1,17 @@
 package com.paas.cache;
 
+import com.paas.cache.batch.CacheBatch;
+import com.paas.cache.codec.Codec;
+import com.paas.cache.load.CacheLoader;
+import com.paas.cache.script.CacheScript;
+import redis.clients.jedis.BinaryJedisPubSub;
+import redis.clients.jedis.ScanResult;
 import redis.clients.jedis.Tuple;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Created on 2016/9/26.
@@ -1119,4 +1126,230 @@ public interface ICacheClient {
      * @return
      */
     Long zcard(String key);
+
+    /**
+     * 批量获取多个key的值, 不存在的key对应null。集群模式下按slot拆分后各节点并行获取。
+     *
+     * @param keys cache中存储数据的key
+     * @return 与keys顺序一致的值
+     */
+    List<String> mget(String... keys);
+
+    /**
+     * 批量获取多个key的值, 不存在的key对应null。集群模式下按slot拆分后各节点并行获取。
+     *
+     * @param keys cache中存储数据的key
+     * @return 与keys顺序一致的值
+     */
+    List<byte[]> mget(byte[]... keys);
+
+    /**
+     * 批量设置多个key的值。集群模式下按slot拆分后各节点并行写入, 跨slot时不保证原子性。
+     *
+     * @param keyValues key与value
+     * @return 总是OK
+     */
+    String mset(Map<String, String> keyValues);
+
+    /**
+     * 批量设置多个key的值并设置相同的有效期, 使用pipeline提交, 不保证原子性。
+     *
+     * @param keyValues key与value
+     * @param seconds   秒 有效期
+     * @return 总是OK
+     */
+    String msetex(Map<String, String> keyValues, int seconds);
+
+    /**
+     * 批量执行命令。单机模式下整批使用一个连接的pipeline, 集群模式下按节点分组, 每个节点一次往返。
+     * 执行完成后可通过批量中各命令返回的 CacheResponse 获取结果。
+     *
+     * @param batch 批量命令
+     * @return 按添加顺序排列的结果, 失败的命令对应异常对象
+     */
+    List<Object> executeBatch(CacheBatch batch);
+
+    /**
+     * 向频道发布消息, 频道名不添加业务后缀
+     *
+     * @param channel 频道
+     * @param message 消息
+     * @return 收到消息的订阅者数量
+     */
+    Long publish(byte[] channel, byte[] message);
+
+    /**
+     * 订阅频道, 阻塞当前线程直到取消订阅或连接断开, 频道名不添加业务后缀
+     *
+     * @param jedisPubSub 消息处理
+     * @param channels    频道
+     */
+    void subscribe(BinaryJedisPubSub jedisPubSub, byte[]... channels);
+
+    /**
+     * 使用HSCAN分页读取hash, 每次只返回一页, 避免大hash一次性阻塞redis
+     *
+     * @param key    cache中存储数据的key
+     * @param cursor 游标, 首次为"0", 返回游标为"0"时结束
+     * @param count  每页建议数量
+     * @return 本页数据及下次游标
+     */
+    ScanResult<Map.Entry<String, String>> hscan(String key, String cursor, int count);
+
+    /**
+     * 使用SSCAN分页读取集合
+     *
+     * @param key    cache中存储数据的key
+     * @param cursor 游标, 首次为"0", 返回游标为"0"时结束
+     * @param count  每页建议数量
+     * @return 本页数据及下次游标
+     */
+    ScanResult<String> sscan(String key, String cursor, int count);
+
+    /**
+     * 使用ZSCAN分页读取有序集合, 返回顺序与分数无关
+     *
+     * @param key    cache中存储数据的key
+     * @param cursor 游标, 首次为"0", 返回游标为"0"时结束
+     * @param count  每页建议数量
+     * @return 本页数据及下次游标
+     */
+    ScanResult<Tuple> zscan(String key, String cursor, int count);
+
+    /**
+     * 流式读取hash, 消费时逐页HSCAN, 客户端内存只保留一页。元素可能重复返回。
+     *
+     * @param key      cache中存储数据的key
+     * @param pageSize 每页数量
+     * @return hash中的field与value
+     */
+    Stream<Map.Entry<String, String>> hscanStream(String key, int pageSize);
+
+    /**
+     * 流式读取集合, 消费时逐页SSCAN。元素可能重复返回。
+     *
+     * @param key      cache中存储数据的key
+     * @param pageSize 每页数量
+     * @return 集合元素
+     */
+    Stream<String> sscanStream(String key, int pageSize);
+
+    /**
+     * 流式读取有序集合, 消费时逐页ZSCAN。元素可能重复返回, 顺序与分数无关。
+     *
+     * @param key      cache中存储数据的key
+     * @param pageSize 每页数量
+     * @return 元素及分数
+     */
+    Stream<Tuple> zscanStream(String key, int pageSize);
+
+    /**
+     * 流式读取列表, 消费时按下标逐页LRANGE
+     *
+     * @param key      cache中存储数据的key
+     * @param pageSize 每页数量
+     * @return 列表元素, 从表头开始
+     */
+    Stream<String> lrangeStream(String key, int pageSize);
+
+    /**
+     * 读取缓存, 未命中时通过loader加载并写入缓存。
+     * 同一客户端内同一个key同时只有一个线程执行加载, 其它线程等待其结果; 加载异常同样抛给所有等待的线程
+     *
+     * @param key     cache中存储数据的key
+     * @param seconds 缓存有效期(秒)
+     * @param loader  数据加载
+     * @return 缓存或加载的值
+     */
+    String getOrLoad(String key, int seconds, CacheLoader<String> loader);
+
+    /**
+     * 同 getOrLoad, 加载结果为null时缓存空结果nullSeconds秒, 期间不再加载; 空结果以"\u0000"存储
+     *
+     * @param nullSeconds 空结果缓存时间(秒), 小于等于0时不缓存
+     */
+    String getOrLoad(String key, int seconds, int nullSeconds, CacheLoader<String> loader);
+
+    /**
+     * 二进制值的 getOrLoad
+     */
+    byte[] getOrLoad(byte[] key, int seconds, CacheLoader<byte[]> loader);
+
+    /**
+     * 二进制值的 getOrLoad, 空结果以单个0字节存储
+     */
+    byte[] getOrLoad(byte[] key, int seconds, int nullSeconds, CacheLoader<byte[]> loader);
+
+    /**
+     * 对象的 getOrLoad, 读写使用 getObject/setObjectEx
+     */
+    <T> T getObjectOrLoad(byte[] key, int seconds, CacheLoader<T> loader);
+
+    /**
+     * 对象的 getOrLoad, 空结果以 NullValue 存储, getObject 直接读取时返回 NullValue.INSTANCE
+     */
+    <T> T getObjectOrLoad(byte[] key, int seconds, int nullSeconds, CacheLoader<T> loader);
+
+    /**
+     * 按 codec 读取值, 字节直接解码为对象, 不经过中间字符串
+     *
+     * @param key   cache中存储数据的key
+     * @param codec 值的编码, 常用实现见 Codecs
+     * @return 值, key不存在时为null
+     */
+    <T> T get(String key, Codec<T> codec);
+
+    /**
+     * 按 codec 编码后写入值, 并设置有效期
+     *
+     * @param key     cache中存储数据的key
+     * @param seconds 有效期(秒)
+     * @param value   值, 不能为null
+     * @param codec   值的编码
+     */
+    <T> String setex(String key, int seconds, T value, Codec<T> codec);
+
+    /**
+     * 按 codec 批量读取, 不存在的key对应位置为null
+     */
+    <T> List<T> mget(Codec<T> codec, String... keys);
+
+    /**
+     * 按 codec 读取hash中field的值
+     */
+    <T> T hget(String key, String field, Codec<T> codec);
+
+    /**
+     * 按 codec 编码后写入hash中field的值
+     */
+    <T> Long hset(String key, String field, T value, Codec<T> codec);
+
+    /**
+     * 按 codec 读取hash的全部field
+     */
+    <T> Map<String, T> hgetAll(String key, Codec<T> codec);
+
+    /**
+     * 执行lua脚本。先发送 EVALSHA, 节点上没有该脚本时 SCRIPT LOAD 后重试。
+     * 单机模式下keys可以为空; 集群和分片模式下按key选择节点, 至少需要一个key且所有key须在同一slot或分片
+     *
+     * @param script 脚本
+     * @param keys   脚本的 KEYS, 添加业务后缀
+     * @param args   脚本的 ARGV
+     * @return 脚本返回值, 字符串以String返回, 整数以Long返回, 数组以List返回
+     */
+    Object eval(CacheScript script, String[] keys, String... args);
+
+    /**
+     * 二进制参数的 eval, 字符串返回值为byte[]
+     */
+    Object eval(CacheScript script, byte[][] keys, byte[]... args);
+
+    /**
+     * 将脚本加载到所有节点, 之后执行时不再出现 NOSCRIPT 重试
+     *
+     * @param script 脚本
+     * @return 脚本的SHA1
+     */
+    String scriptLoad(CacheScript script);
 }
@@ -0,0 +1,190 @@
+package com.paas.cache.async;
+
+import redis.clients.jedis.Tuple;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步缓存客户端, 所有操作立即返回 CompletableFuture, 不占用调用线程等待redis回复。
+ * 各方法语义与 {@link com.paas.cache.ICacheClient} 中同名方法一致, key同样会添加业务后缀。
+ * 命令失败时future以 CacheClientException 异常完成。
+ * <p>
+ * 通过 CacheClientFactory.getAsyncClient 获取。
+ */
+public interface AsyncCacheClient {
+
+    CompletableFuture<String> setex(String key, int seconds, String value);
+
+    CompletableFuture<String> get(String key);
+
+    CompletableFuture<Long> del(String key);
+
+    /**
+     * 集群模式下按slot拆分后合并删除数量
+     */
+    CompletableFuture<Long> del(String... keys);
+
+    CompletableFuture<Long> expire(String key, int seconds);
+
+    CompletableFuture<Long> expireAt(String key, long timestamp);
+
+    CompletableFuture<Long> pexpire(String key, long milliseconds);
+
+    CompletableFuture<Long> ttl(String key);
+
+    CompletableFuture<Boolean> exists(String key);
+
+    CompletableFuture<Long> setnx(String key, String value);
+
+    CompletableFuture<Long> incr(String key);
+
+    CompletableFuture<Long> incrBy(String key, long increment);
+
+    CompletableFuture<Double> incrByFloat(String key, double value);
+
+    CompletableFuture<Long> decr(String key);
+
+    CompletableFuture<Long> decrBy(String key, long decrement);
+
+    /**
+     * 集群模式下按slot拆分后合并结果, 顺序与keys一致
+     */
+    CompletableFuture<List<String>> mget(String... keys);
+
+    CompletableFuture<String> mset(Map<String, String> keyValues);
+
+    CompletableFuture<String> msetex(Map<String, String> keyValues, int seconds);
+
+    CompletableFuture<Long> lpush(String key, String... strings);
+
+    CompletableFuture<Long> rpush(String key, String... strings);
+
+    CompletableFuture<Long> lrem(String key, long count, String value);
+
+    CompletableFuture<Long> llen(String key);
+
+    CompletableFuture<String> lpop(String key);
+
+    CompletableFuture<String> rpop(String key);
+
+    CompletableFuture<List<String>> lrange(String key, long start, long end);
+
+    CompletableFuture<List<String>> lrangeAll(String key);
+
+    CompletableFuture<Boolean> ltrim(String key, long start, long stop);
+
+    CompletableFuture<Long> hset(String key, String field, String value);
+
+    CompletableFuture<Long> hsetnx(String key, String field, String value);
+
+    CompletableFuture<String> hmset(String key, Map<String, String> hash);
+
+    CompletableFuture<String> hget(String key, String field);
+
+    CompletableFuture<List<String>> hmget(String key, String... fields);
+
+    CompletableFuture<Boolean> hexists(String key, String field);
+
+    CompletableFuture<Long> hdel(String key, String... fields);
+
+    CompletableFuture<Long> hlen(String key);
+
+    CompletableFuture<Map<String, String>> hgetAll(String key);
+
+    CompletableFuture<Long> hincrBy(String key, String field, long value);
+
+    CompletableFuture<Double> hincrByFloat(String key, String field, double value);
+
+    CompletableFuture<Long> sadd(String key, String... members);
+
+    CompletableFuture<Set<String>> smembers(String key);
+
+    CompletableFuture<Long> srem(String key, String... members);
+
+    CompletableFuture<Long> scard(String key);
+
+    CompletableFuture<Boolean> sismember(String key, String member);
+
+    /**
+     * 集群模式下所有key须在同一slot
+     */
+    CompletableFuture<Set<String>> sunion(String... keys);
+
+    /**
+     * 集群模式下所有key须在同一slot
+     */
+    CompletableFuture<Set<String>> sdiff(String... keys);
+
+    /**
+     * 集群模式下所有key须在同一slot
+     */
+    CompletableFuture<Long> sdiffstore(String dstkey, String... keys);
+
+    CompletableFuture<Long> zadd(String key, double score, String member);
+
+    CompletableFuture<Long> zadd(String key, Map<String, Double> scoreMembers);
+
+    CompletableFuture<Long> zcount(String key, double min, double max);
+
+    CompletableFuture<Long> zcount(String key, String min, String max);
+
+    CompletableFuture<Double> zincrby(String key, double score, String member);
+
+    CompletableFuture<Set<String>> zrange(String key, long start, long end);
+
+    CompletableFuture<Set<String>> zrangeByScore(String key, double min, double max);
+
+    CompletableFuture<Set<String>> zrangeByScore(String key, String min, String max);
+
+    CompletableFuture<Set<String>> zrangeByScore(String key, double min, double max, int offset, int count);
+
+    CompletableFuture<Set<String>> zrevrange(String key, long start, long end);
+
+    CompletableFuture<Set<String>> zrevrangeByScore(String key, double max, double min);
+
+    CompletableFuture<Set<String>> zrevrangeByScore(String key, String max, String min);
+
+    CompletableFuture<Set<String>> zrevrangeByScore(String key, double max, double min, int offset, int count);
+
+    CompletableFuture<Set<String>> zrevrangeByScore(String key, String max, String min, int offset, int count);
+
+    CompletableFuture<Set<Tuple>> zrevrangeByScoreWithScores(String key, double max, double min, int offset, int count);
+
+    CompletableFuture<Set<Tuple>> zrevrangeByScoreWithScores(String key, String max, String min, int offset, int count);
+
+    CompletableFuture<Set<Tuple>> zrevrangeByScoreWithScores(String key, String max, String min);
+
+    CompletableFuture<Long> zrevrank(String key, String member);
+
+    CompletableFuture<Long> zrem(String key, String... members);
+
+    CompletableFuture<Long> zremrangeByRank(String key, long start, long end);
+
+    CompletableFuture<Long> zremrangeByScore(String key, double start, double end);
+
+    CompletableFuture<Long> zremrangeByScore(String key, String start, String end);
+
+    CompletableFuture<Long> zcard(String key);
+
+    CompletableFuture<String> setex(byte[] key, int seconds, byte[] value);
+
+    CompletableFuture<byte[]> get(byte[] key);
+
+    CompletableFuture<Long> del(byte[] key);
+
+    CompletableFuture<Long> hset(byte[] key, byte[] field, byte[] value);
+
+    CompletableFuture<byte[]> hget(byte[] key, byte[] field);
+
+    CompletableFuture<String> setObjectEx(byte[] key, int seconds, Object serializable);
+
+    CompletableFuture<Object> getObject(byte[] key);
+
+    /**
+     * 关闭连接及事件循环线程
+     */
+    void close();
+}
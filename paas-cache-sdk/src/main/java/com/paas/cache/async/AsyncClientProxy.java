@@ -0,0 +1,428 @@
+package com.paas.cache.async;
+
+import redis.clients.jedis.Tuple;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 异步客户端的固定句柄, CacheClientFactory 返回的即为该实例。
+ * 配置变更时替换其中的实际客户端, 调用方持有的句柄不变; 被替换的客户端在已发出的命令完成后关闭
+ */
+public class AsyncClientProxy implements AsyncCacheClient {
+
+    private volatile AsyncCacheClient client;
+
+    public AsyncClientProxy(AsyncCacheClient client) {
+        this.client = client;
+    }
+
+    /**
+     * 替换实际客户端, 之后的调用使用新客户端
+     *
+     * @return 被替换的客户端, 由调用方关闭
+     */
+    public synchronized AsyncCacheClient swapClient(AsyncCacheClient newClient) {
+        AsyncCacheClient oldClient = this.client;
+        this.client = newClient;
+        return oldClient;
+    }
+
+    public AsyncCacheClient getClient() {
+        return client;
+    }
+
+    @Override
+    public CompletableFuture<String> setex(String key, int seconds, String value) {
+        return client.setex(key, seconds, value);
+    }
+
+    @Override
+    public CompletableFuture<String> get(String key) {
+        return client.get(key);
+    }
+
+    @Override
+    public CompletableFuture<Long> del(String key) {
+        return client.del(key);
+    }
+
+    @Override
+    public CompletableFuture<Long> del(String... keys) {
+        return client.del(keys);
+    }
+
+    @Override
+    public CompletableFuture<Long> expire(String key, int seconds) {
+        return client.expire(key, seconds);
+    }
+
+    @Override
+    public CompletableFuture<Long> expireAt(String key, long timestamp) {
+        return client.expireAt(key, timestamp);
+    }
+
+    @Override
+    public CompletableFuture<Long> pexpire(String key, long milliseconds) {
+        return client.pexpire(key, milliseconds);
+    }
+
+    @Override
+    public CompletableFuture<Long> ttl(String key) {
+        return client.ttl(key);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(String key) {
+        return client.exists(key);
+    }
+
+    @Override
+    public CompletableFuture<Long> setnx(String key, String value) {
+        return client.setnx(key, value);
+    }
+
+    @Override
+    public CompletableFuture<Long> incr(String key) {
+        return client.incr(key);
+    }
+
+    @Override
+    public CompletableFuture<Long> incrBy(String key, long increment) {
+        return client.incrBy(key, increment);
+    }
+
+    @Override
+    public CompletableFuture<Double> incrByFloat(String key, double value) {
+        return client.incrByFloat(key, value);
+    }
+
+    @Override
+    public CompletableFuture<Long> decr(String key) {
+        return client.decr(key);
+    }
+
+    @Override
+    public CompletableFuture<Long> decrBy(String key, long decrement) {
+        return client.decrBy(key, decrement);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> mget(String... keys) {
+        return client.mget(keys);
+    }
+
+    @Override
+    public CompletableFuture<String> mset(Map<String, String> keyValues) {
+        return client.mset(keyValues);
+    }
+
+    @Override
+    public CompletableFuture<String> msetex(Map<String, String> keyValues, int seconds) {
+        return client.msetex(keyValues, seconds);
+    }
+
+    @Override
+    public CompletableFuture<Long> lpush(String key, String... strings) {
+        return client.lpush(key, strings);
+    }
+
+    @Override
+    public CompletableFuture<Long> rpush(String key, String... strings) {
+        return client.rpush(key, strings);
+    }
+
+    @Override
+    public CompletableFuture<Long> lrem(String key, long count, String value) {
+        return client.lrem(key, count, value);
+    }
+
+    @Override
+    public CompletableFuture<Long> llen(String key) {
+        return client.llen(key);
+    }
+
+    @Override
+    public CompletableFuture<String> lpop(String key) {
+        return client.lpop(key);
+    }
+
+    @Override
+    public CompletableFuture<String> rpop(String key) {
+        return client.rpop(key);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> lrange(String key, long start, long end) {
+        return client.lrange(key, start, end);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> lrangeAll(String key) {
+        return client.lrangeAll(key);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> ltrim(String key, long start, long stop) {
+        return client.ltrim(key, start, stop);
+    }
+
+    @Override
+    public CompletableFuture<Long> hset(String key, String field, String value) {
+        return client.hset(key, field, value);
+    }
+
+    @Override
+    public CompletableFuture<Long> hsetnx(String key, String field, String value) {
+        return client.hsetnx(key, field, value);
+    }
+
+    @Override
+    public CompletableFuture<String> hmset(String key, Map<String, String> hash) {
+        return client.hmset(key, hash);
+    }
+
+    @Override
+    public CompletableFuture<String> hget(String key, String field) {
+        return client.hget(key, field);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> hmget(String key, String... fields) {
+        return client.hmget(key, fields);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> hexists(String key, String field) {
+        return client.hexists(key, field);
+    }
+
+    @Override
+    public CompletableFuture<Long> hdel(String key, String... fields) {
+        return client.hdel(key, fields);
+    }
+
+    @Override
+    public CompletableFuture<Long> hlen(String key) {
+        return client.hlen(key);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> hgetAll(String key) {
+        return client.hgetAll(key);
+    }
+
+    @Override
+    public CompletableFuture<Long> hincrBy(String key, String field, long value) {
+        return client.hincrBy(key, field, value);
+    }
+
+    @Override
+    public CompletableFuture<Double> hincrByFloat(String key, String field, double value) {
+        return client.hincrByFloat(key, field, value);
+    }
+
+    @Override
+    public CompletableFuture<Long> sadd(String key, String... members) {
+        return client.sadd(key, members);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> smembers(String key) {
+        return client.smembers(key);
+    }
+
+    @Override
+    public CompletableFuture<Long> srem(String key, String... members) {
+        return client.srem(key, members);
+    }
+
+    @Override
+    public CompletableFuture<Long> scard(String key) {
+        return client.scard(key);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> sismember(String key, String member) {
+        return client.sismember(key, member);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> sunion(String... keys) {
+        return client.sunion(keys);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> sdiff(String... keys) {
+        return client.sdiff(keys);
+    }
+
+    @Override
+    public CompletableFuture<Long> sdiffstore(String dstkey, String... keys) {
+        return client.sdiffstore(dstkey, keys);
+    }
+
+    @Override
+    public CompletableFuture<Long> zadd(String key, double score, String member) {
+        return client.zadd(key, score, member);
+    }
+
+    @Override
+    public CompletableFuture<Long> zadd(String key, Map<String, Double> scoreMembers) {
+        return client.zadd(key, scoreMembers);
+    }
+
+    @Override
+    public CompletableFuture<Long> zcount(String key, double min, double max) {
+        return client.zcount(key, min, max);
+    }
+
+    @Override
+    public CompletableFuture<Long> zcount(String key, String min, String max) {
+        return client.zcount(key, min, max);
+    }
+
+    @Override
+    public CompletableFuture<Double> zincrby(String key, double score, String member) {
+        return client.zincrby(key, score, member);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrange(String key, long start, long end) {
+        return client.zrange(key, start, end);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrangeByScore(String key, double min, double max) {
+        return client.zrangeByScore(key, min, max);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrangeByScore(String key, String min, String max) {
+        return client.zrangeByScore(key, min, max);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrangeByScore(String key, double min, double max, int offset, int count) {
+        return client.zrangeByScore(key, min, max, offset, count);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrevrange(String key, long start, long end) {
+        return client.zrevrange(key, start, end);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrevrangeByScore(String key, double max, double min) {
+        return client.zrevrangeByScore(key, max, min);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrevrangeByScore(String key, String max, String min) {
+        return client.zrevrangeByScore(key, max, min);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrevrangeByScore(String key, double max, double min, int offset, int count) {
+        return client.zrevrangeByScore(key, max, min, offset, count);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrevrangeByScore(String key, String max, String min, int offset, int count) {
+        return client.zrevrangeByScore(key, max, min, offset, count);
+    }
+
+    @Override
+    public CompletableFuture<Set<Tuple>> zrevrangeByScoreWithScores(String key, double max, double min, int offset, int count) {
+        return client.zrevrangeByScoreWithScores(key, max, min, offset, count);
+    }
+
+    @Override
+    public CompletableFuture<Set<Tuple>> zrevrangeByScoreWithScores(String key, String max, String min, int offset, int count) {
+        return client.zrevrangeByScoreWithScores(key, max, min, offset, count);
+    }
+
+    @Override
+    public CompletableFuture<Set<Tuple>> zrevrangeByScoreWithScores(String key, String max, String min) {
+        return client.zrevrangeByScoreWithScores(key, max, min);
+    }
+
+    @Override
+    public CompletableFuture<Long> zrevrank(String key, String member) {
+        return client.zrevrank(key, member);
+    }
+
+    @Override
+    public CompletableFuture<Long> zrem(String key, String... members) {
+        return client.zrem(key, members);
+    }
+
+    @Override
+    public CompletableFuture<Long> zremrangeByRank(String key, long start, long end) {
+        return client.zremrangeByRank(key, start, end);
+    }
+
+    @Override
+    public CompletableFuture<Long> zremrangeByScore(String key, double start, double end) {
+        return client.zremrangeByScore(key, start, end);
+    }
+
+    @Override
+    public CompletableFuture<Long> zremrangeByScore(String key, String start, String end) {
+        return client.zremrangeByScore(key, start, end);
+    }
+
+    @Override
+    public CompletableFuture<Long> zcard(String key) {
+        return client.zcard(key);
+    }
+
+    @Override
+    public CompletableFuture<String> setex(byte[] key, int seconds, byte[] value) {
+        return client.setex(key, seconds, value);
+    }
+
+    @Override
+    public CompletableFuture<byte[]> get(byte[] key) {
+        return client.get(key);
+    }
+
+    @Override
+    public CompletableFuture<Long> del(byte[] key) {
+        return client.del(key);
+    }
+
+    @Override
+    public CompletableFuture<Long> hset(byte[] key, byte[] field, byte[] value) {
+        return client.hset(key, field, value);
+    }
+
+    @Override
+    public CompletableFuture<byte[]> hget(byte[] key, byte[] field) {
+        return client.hget(key, field);
+    }
+
+    @Override
+    public CompletableFuture<String> setObjectEx(byte[] key, int seconds, Object serializable) {
+        return client.setObjectEx(key, seconds, serializable);
+    }
+
+    @Override
+    public CompletableFuture<Object> getObject(byte[] key) {
+        return client.getObject(key);
+    }
+
+    @Override
+    public void close() {
+        client.close();
+    }
+
+    @Override
+    public String toString() {
+        return "AsyncClientProxy{" +
+                "client=" + client +
+                '}';
+    }
+}
@@ -0,0 +1,901 @@
+package com.paas.cache.async;
+
+import com.paas.cache.batch.KeyMapper;
+import com.paas.cache.codec.ObjectCodecs;
+import com.paas.cache.exception.CacheClientException;
+import com.paas.cache.jedis.ClusterTopology;
+import com.paas.cache.jedis.JedisConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.Tuple;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 基于NIO连接多路复用的异步客户端。
+ * 每个节点保持少量长连接, 所有线程的命令在连接上以pipeline方式发送, 回复由单个事件循环线程读取后完成future,
+ * 调用线程不再阻塞在连接池借还连接及等待回复上。
+ * 集群模式下按key所在slot路由, 收到 MOVED/ASK 时更新slot并重发。
+ * <p>
+ * 创建时预先建立各节点的连接; 断线后的新连接以非阻塞方式建立, 认证及选库命令排在其它命令之前发送,
+ * 调用线程不等待连接及认证完成。
+ */
+public class NioAsyncCacheClient implements AsyncCacheClient, NioRedisConnection.ReplyHandler {
+    protected static Logger log = LoggerFactory.getLogger(NioAsyncCacheClient.class);
+
+    private static final int MAX_REDIRECTIONS = 5;
+    private static final int DEFAULT_CONNECT_TIMEOUT = 5000;
+    private static final int DEFAULT_COMMAND_TIMEOUT = 3000;
+
+    private final JedisConfig config;
+    private final KeyMapper keyMapper;
+    private final ObjectCodecs codecs;
+    private final boolean cluster;
+    private final int connectTimeout;
+    private final int commandTimeout;
+    private final int connectionsPerNode;
+    private final NioEventLoop loop;
+    private final ScheduledThreadPoolExecutor timer;
+    private final Map<String, AtomicReferenceArray<NioRedisConnection>> connections = new ConcurrentHashMap<>();
+    private final AtomicInteger roundRobin = new AtomicInteger();
+    private volatile String[] slotNodes;
+
+    public NioAsyncCacheClient(JedisConfig config, KeyMapper keyMapper) {
+        this.config = config;
+        this.keyMapper = keyMapper == null ? KeyMapper.IDENTITY : keyMapper;
+        this.codecs = new ObjectCodecs(config);
+        this.cluster = config.getServerArray().length > 1;
+        JedisConfig.PoolConfig conf = config.getConf();
+        this.connectTimeout = conf != null && conf.getTimeout() != null ? conf.getTimeout() : DEFAULT_CONNECT_TIMEOUT;
+        this.commandTimeout = conf != null && conf.getSoTimeout() != null ? conf.getSoTimeout() : DEFAULT_COMMAND_TIMEOUT;
+        this.connectionsPerNode = Math.max(1, config.getAsyncConnections());
+        this.loop = new NioEventLoop("paas-cache-nio");
+        final AtomicInteger index = new AtomicInteger();
+        this.timer = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "paas-cache-nio-timer-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.timer.setRemoveOnCancelPolicy(true);
+        if (cluster) {
+            refreshSlots();
+        }
+        connectAll();
+        log.info(" ---> create async cache client: {}", config.getServers());
+    }
+
+    public JedisConfig getConfig() {
+        return config;
+    }
+
+    // ---------------- 连接与路由 ----------------
+
+    private void refreshSlots() {
+        Exception last = null;
+        for (String node : config.getServerArray()) {
+            try {
+                PendingCommand<List<?>> command = new PendingCommand<>(args("CLUSTER", "SLOTS"), -1, LIST);
+                connection(node.trim()).send(command);
+                slotNodes = parseSlots(command.future.get(commandTimeout, TimeUnit.MILLISECONDS),
+                        node.trim().split(":")[0]);
+                return;
+            } catch (Exception e) {
+                last = e;
+                log.warn(" ---> load cluster slots from {} fail: {}", node, e.getMessage());
+            }
+        }
+        throw new CacheClientException(last);
+    }
+
+    private static String[] parseSlots(List<?> reply, String defaultHost) {
+        String[] table = new String[ClusterTopology.SLOT_COUNT];
+        for (Object item : reply) {
+            List<?> range = (List<?>) item;
+            if (range.size() < 3) {
+                continue;
+            }
+            List<?> master = (List<?>) range.get(2);
+            String host = new String((byte[]) master.get(0), StandardCharsets.UTF_8);
+            String node = (host.length() == 0 ? defaultHost : host) + ":" + master.get(1);
+            for (int slot = ((Long) range.get(0)).intValue(); slot <= ((Long) range.get(1)).intValue(); slot++) {
+                table[slot] = node;
+            }
+        }
+        return table;
+    }
+
+    private String nodeFor(int slot) {
+        if (!cluster) {
+            return config.getServers().trim();
+        }
+        String node = slot < 0 ? null : slotNodes[slot];
+        return node != null ? node : config.getServerArray()[0].trim();
+    }
+
+    // 预先建立各节点的连接, 首次调用不需要等待连接建立
+    private void connectAll() {
+        Set<String> nodes = new LinkedHashSet<>();
+        if (cluster) {
+            for (String node : slotNodes) {
+                if (node != null) {
+                    nodes.add(node);
+                }
+            }
+        } else {
+            nodes.add(config.getServers().trim());
+        }
+        for (String node : nodes) {
+            for (int i = 0; i < connectionsPerNode; i++) {
+                try {
+                    connection(node, i);
+                } catch (CacheClientException e) {
+                    log.warn(" ---> connect {} fail: {}", node, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private NioRedisConnection connection(String node) {
+        return connection(node, (roundRobin.getAndIncrement() & Integer.MAX_VALUE) % connectionsPerNode);
+    }
+
+    private NioRedisConnection connection(String node, int index) {
+        AtomicReferenceArray<NioRedisConnection> nodeConnections = connections.get(node);
+        if (nodeConnections == null) {
+            connections.putIfAbsent(node, new AtomicReferenceArray<NioRedisConnection>(connectionsPerNode));
+            nodeConnections = connections.get(node);
+        }
+        NioRedisConnection connection = nodeConnections.get(index);
+        if (connection == null || connection.isClosed()) {
+            synchronized (nodeConnections) {
+                connection = nodeConnections.get(index);
+                if (connection == null || connection.isClosed()) {
+                    connection = connect(node);
+                    nodeConnections.set(index, connection);
+                }
+            }
+        }
+        return connection;
+    }
+
+    private NioRedisConnection connect(String node) {
+        String[] hostAndPort = node.split(":");
+        NioRedisConnection connection;
+        try {
+            connection = NioRedisConnection.open(loop, timer, hostAndPort[0], Integer.parseInt(hostAndPort[1]),
+                    connectTimeout, this);
+        } catch (Exception e) {
+            throw new CacheClientException(e);
+        }
+        if (config.isRedisNeedAuth()) {
+            handshake(connection, args("AUTH", config.getServerInfo().getPassword()));
+        }
+        if (!cluster && config.getDb() != null && config.getDb() > 0) {
+            handshake(connection, args("SELECT", String.valueOf(config.getDb())));
+        }
+        log.info(" ---> async redis connection created: {}", node);
+        return connection;
+    }
+
+    // 连接建立前发送, 不等待回复; 失败时关闭连接, 其后的命令随之失败
+    private static void handshake(final NioRedisConnection connection, byte[][] args) {
+        final PendingCommand<Object> command = new PendingCommand<>(args, -1, RAW);
+        command.future.whenComplete((reply, e) -> {
+            if (e != null) {
+                connection.close(new CacheClientException(command.name() + " fail: " + e.getMessage()));
+            }
+        });
+        connection.send(command);
+    }
+
+    private <T> CompletableFuture<T> execute(PendingCommand<T> command) {
+        final CompletableFuture<T> future = command.future;
+        command.timeout = timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                future.completeExceptionally(new CacheClientException("redis command timeout"));
+            }
+        }, commandTimeout, TimeUnit.MILLISECONDS);
+        dispatch(command, nodeFor(command.slot), false);
+        return future;
+    }
+
+    private void dispatch(PendingCommand<?> command, String node, boolean asking) {
+        try {
+            NioRedisConnection connection = connection(node);
+            if (asking) {
+                connection.send(new PendingCommand<>(args("ASKING"), -1, RAW), command);
+            } else {
+                connection.send(command);
+            }
+        } catch (CacheClientException e) {
+            command.fail(e);
+        } catch (Exception e) {
+            command.fail(new CacheClientException(e));
+        }
+    }
+
+    /**
+     * 事件循环线程回调, 集群重定向交给定时线程重发, 避免在事件循环中建立连接
+     */
+    @Override
+    public void onReply(NioRedisConnection connection, final PendingCommand<?> command, Object reply) {
+        if (cluster && reply instanceof RespParser.RedisError && command.redirects < MAX_REDIRECTIONS) {
+            String message = reply.toString();
+            final boolean moved = message.startsWith("MOVED ");
+            if (moved || message.startsWith("ASK ")) {
+                String[] parts = message.split(" ");
+                final String node = parts[2];
+                if (moved) {
+                    slotNodes[Integer.parseInt(parts[1])] = node;
+                }
+                command.redirects++;
+                timer.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        dispatch(command, node, !moved);
+                    }
+                });
+                return;
+            }
+        }
+        command.complete(reply);
+    }
+
+    @Override
+    public void close() {
+        for (AtomicReferenceArray<NioRedisConnection> nodeConnections : connections.values()) {
+            for (int i = 0; i < nodeConnections.length(); i++) {
+                NioRedisConnection connection = nodeConnections.get(i);
+                if (connection != null) {
+                    connection.close(new CacheClientException("客户端已关闭"));
+                }
+            }
+        }
+        connections.clear();
+        loop.shutdown();
+        timer.shutdown();
+    }
+
+    // ---------------- 命令 ----------------
+
+    private <T> CompletableFuture<T> keyed(PendingCommand.Decoder<T> decoder, String command, String key, Object... params) {
+        byte[] mappedKey = keyMapper.map(key).getBytes(StandardCharsets.UTF_8);
+        return execute(new PendingCommand<>(build(command, mappedKey, params), slot(mappedKey), decoder));
+    }
+
+    private <T> CompletableFuture<T> keyed(PendingCommand.Decoder<T> decoder, String command, byte[] key, Object... params) {
+        byte[] mappedKey = keyMapper.map(key);
+        return execute(new PendingCommand<>(build(command, mappedKey, params), slot(mappedKey), decoder));
+    }
+
+    // 多key命令, 集群模式下所有key须在同一slot
+    private <T> CompletableFuture<T> multiKey(PendingCommand.Decoder<T> decoder, String command, String... keys) {
+        byte[][] args = new byte[keys.length + 1][];
+        args[0] = command.getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < keys.length; i++) {
+            args[i + 1] = keyMapper.map(keys[i]).getBytes(StandardCharsets.UTF_8);
+        }
+        return execute(new PendingCommand<>(args, keys.length > 0 ? slot(args[1]) : -1, decoder));
+    }
+
+    private int slot(byte[] key) {
+        return cluster ? ClusterTopology.slot(key) : -1;
+    }
+
+    private static byte[][] build(String command, byte[] key, Object... params) {
+        List<byte[]> args = new ArrayList<>(params.length + 2);
+        args.add(command.getBytes(StandardCharsets.UTF_8));
+        args.add(key);
+        for (Object param : params) {
+            if (param instanceof String[]) {
+                for (String s : (String[]) param) {
+                    args.add(s.getBytes(StandardCharsets.UTF_8));
+                }
+            } else {
+                args.add(arg(param));
+            }
+        }
+        return args.toArray(new byte[args.size()][]);
+    }
+
+    private static byte[] arg(Object param) {
+        if (param instanceof byte[]) {
+            return (byte[]) param;
+        }
+        if (param instanceof Double) {
+            return Protocol.toByteArray((Double) param);
+        }
+        return String.valueOf(param).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[][] args(String... args) {
+        byte[][] bytes = new byte[args.length][];
+        for (int i = 0; i < args.length; i++) {
+            bytes[i] = args[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return bytes;
+    }
+
+    @Override
+    public CompletableFuture<String> setex(String key, int seconds, String value) {
+        if (seconds <= 0 || key == null || key.length() == 0) {
+            return failed("参数无效");
+        }
+        return keyed(STRING, "SETEX", key, seconds, value);
+    }
+
+    @Override
+    public CompletableFuture<String> get(String key) {
+        return keyed(STRING, "GET", key);
+    }
+
+    @Override
+    public CompletableFuture<Long> del(String key) {
+        return keyed(LONG, "DEL", key);
+    }
+
+    @Override
+    public CompletableFuture<Long> del(String... keys) {
+        if (!cluster) {
+            return multiKey(LONG, "DEL", keys);
+        }
+        final List<CompletableFuture<Long>> futures = new ArrayList<>();
+        for (List<String> group : groupBySlot(keys).values()) {
+            futures.add(multiKey(LONG, "DEL", group.toArray(new String[group.size()])));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenApply(v -> {
+            long count = 0;
+            for (CompletableFuture<Long> future : futures) {
+                count += future.join();
+            }
+            return count;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Long> expire(String key, int seconds) {
+        return keyed(LONG, "EXPIRE", key, seconds);
+    }
+
+    @Override
+    public CompletableFuture<Long> expireAt(String key, long timestamp) {
+        return keyed(LONG, "EXPIREAT", key, timestamp);
+    }
+
+    @Override
+    public CompletableFuture<Long> pexpire(String key, long milliseconds) {
+        if (milliseconds < 1) {
+            return failed("非法参数!");
+        }
+        return keyed(LONG, "PEXPIRE", key, milliseconds);
+    }
+
+    @Override
+    public CompletableFuture<Long> ttl(String key) {
+        return keyed(LONG, "TTL", key);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> exists(String key) {
+        return keyed(BOOLEAN, "EXISTS", key);
+    }
+
+    @Override
+    public CompletableFuture<Long> setnx(String key, String value) {
+        return keyed(LONG, "SETNX", key, value);
+    }
+
+    @Override
+    public CompletableFuture<Long> incr(String key) {
+        return keyed(LONG, "INCR", key);
+    }
+
+    @Override
+    public CompletableFuture<Long> incrBy(String key, long increment) {
+        return keyed(LONG, "INCRBY", key, increment);
+    }
+
+    @Override
+    public CompletableFuture<Double> incrByFloat(String key, double value) {
+        return keyed(DOUBLE, "INCRBYFLOAT", key, value);
+    }
+
+    @Override
+    public CompletableFuture<Long> decr(String key) {
+        return keyed(LONG, "DECR", key);
+    }
+
+    @Override
+    public CompletableFuture<Long> decrBy(String key, long decrement) {
+        return keyed(LONG, "DECRBY", key, decrement);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> mget(final String... keys) {
+        if (!cluster) {
+            return multiKey(STRING_LIST, "MGET", keys);
+        }
+        final Map<Integer, List<String>> groups = groupBySlot(keys);
+        final Map<Integer, CompletableFuture<List<String>>> futures = new LinkedHashMap<>();
+        for (Map.Entry<Integer, List<String>> group : groups.entrySet()) {
+            futures.put(group.getKey(), multiKey(STRING_LIST, "MGET", group.getValue().toArray(new String[group.getValue().size()])));
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[futures.size()])).thenApply(v -> {
+            Map<String, String> values = new ConcurrentHashMap<>();
+            Map<String, Boolean> present = new LinkedHashMap<>();
+            for (Map.Entry<Integer, CompletableFuture<List<String>>> entry : futures.entrySet()) {
+                List<String> groupKeys = groups.get(entry.getKey());
+                List<String> groupValues = entry.getValue().join();
+                for (int i = 0; i < groupKeys.size(); i++) {
+                    present.put(groupKeys.get(i), Boolean.TRUE);
+                    if (groupValues.get(i) != null) {
+                        values.put(groupKeys.get(i), groupValues.get(i));
+                    }
+                }
+            }
+            List<String> result = new ArrayList<>(keys.length);
+            for (String key : keys) {
+                result.add(values.get(key));
+            }
+            return result;
+        });
+    }
+
+    @Override
+    public CompletableFuture<String> mset(Map<String, String> keyValues) {
+        if (keyValues == null || keyValues.isEmpty()) {
+            return failed("参数无效");
+        }
+        Map<Integer, List<String>> groups = groupBySlot(keyValues.keySet().toArray(new String[keyValues.size()]));
+        List<CompletableFuture<String>> futures = new ArrayList<>();
+        for (List<String> group : groups.values()) {
+            String[] keysvalues = new String[group.size() * 2];
+            for (int i = 0; i < group.size(); i++) {
+                keysvalues[i * 2] = keyMapper.map(group.get(i));
+                keysvalues[i * 2 + 1] = keyValues.get(group.get(i));
+            }
+            byte[][] args = new byte[keysvalues.length + 1][];
+            args[0] = "MSET".getBytes(StandardCharsets.UTF_8);
+            for (int i = 0; i < keysvalues.length; i++) {
+                args[i + 1] = keysvalues[i].getBytes(StandardCharsets.UTF_8);
+            }
+            futures.add(execute(new PendingCommand<>(args, slot(args[1]), STRING)));
+        }
+        return allOk(futures);
+    }
+
+    @Override
+    public CompletableFuture<String> msetex(Map<String, String> keyValues, int seconds) {
+        if (seconds <= 0 || keyValues == null || keyValues.isEmpty()) {
+            return failed("参数无效");
+        }
+        List<CompletableFuture<String>> futures = new ArrayList<>(keyValues.size());
+        for (Map.Entry<String, String> entry : keyValues.entrySet()) {
+            futures.add(keyed(STRING, "SETEX", entry.getKey(), seconds, entry.getValue()));
+        }
+        return allOk(futures);
+    }
+
+    @Override
+    public CompletableFuture<Long> lpush(String key, String... strings) {
+        return keyed(LONG, "LPUSH", key, (Object) strings);
+    }
+
+    @Override
+    public CompletableFuture<Long> rpush(String key, String... strings) {
+        return keyed(LONG, "RPUSH", key, (Object) strings);
+    }
+
+    @Override
+    public CompletableFuture<Long> lrem(String key, long count, String value) {
+        return keyed(LONG, "LREM", key, count, value);
+    }
+
+    @Override
+    public CompletableFuture<Long> llen(String key) {
+        return keyed(LONG, "LLEN", key);
+    }
+
+    @Override
+    public CompletableFuture<String> lpop(String key) {
+        return keyed(STRING, "LPOP", key);
+    }
+
+    @Override
+    public CompletableFuture<String> rpop(String key) {
+        return keyed(STRING, "RPOP", key);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> lrange(String key, long start, long end) {
+        return keyed(STRING_LIST, "LRANGE", key, start, end);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> lrangeAll(String key) {
+        return lrange(key, 0, -1);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> ltrim(String key, long start, long stop) {
+        if (start < 1) {
+            return failed("非法参数!");
+        }
+        return keyed(OK, "LTRIM", key, start, stop);
+    }
+
+    @Override
+    public CompletableFuture<Long> hset(String key, String field, String value) {
+        return keyed(LONG, "HSET", key, field, value);
+    }
+
+    @Override
+    public CompletableFuture<Long> hsetnx(String key, String field, String value) {
+        return keyed(LONG, "HSETNX", key, field, value);
+    }
+
+    @Override
+    public CompletableFuture<String> hmset(String key, Map<String, String> hash) {
+        String[] fieldValues = new String[hash.size() * 2];
+        int index = 0;
+        for (Map.Entry<String, String> entry : hash.entrySet()) {
+            fieldValues[index++] = entry.getKey();
+            fieldValues[index++] = entry.getValue();
+        }
+        return keyed(STRING, "HMSET", key, (Object) fieldValues);
+    }
+
+    @Override
+    public CompletableFuture<String> hget(String key, String field) {
+        return keyed(STRING, "HGET", key, field);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> hmget(String key, String... fields) {
+        return keyed(STRING_LIST, "HMGET", key, (Object) fields);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> hexists(String key, String field) {
+        return keyed(BOOLEAN, "HEXISTS", key, field);
+    }
+
+    @Override
+    public CompletableFuture<Long> hdel(String key, String... fields) {
+        return keyed(LONG, "HDEL", key, (Object) fields);
+    }
+
+    @Override
+    public CompletableFuture<Long> hlen(String key) {
+        return keyed(LONG, "HLEN", key);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, String>> hgetAll(String key) {
+        return keyed(STRING_MAP, "HGETALL", key);
+    }
+
+    @Override
+    public CompletableFuture<Long> hincrBy(String key, String field, long value) {
+        return keyed(LONG, "HINCRBY", key, field, value);
+    }
+
+    @Override
+    public CompletableFuture<Double> hincrByFloat(String key, String field, double value) {
+        return keyed(DOUBLE, "HINCRBYFLOAT", key, field, value);
+    }
+
+    @Override
+    public CompletableFuture<Long> sadd(String key, String... members) {
+        return keyed(LONG, "SADD", key, (Object) members);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> smembers(String key) {
+        return keyed(STRING_SET, "SMEMBERS", key);
+    }
+
+    @Override
+    public CompletableFuture<Long> srem(String key, String... members) {
+        return keyed(LONG, "SREM", key, (Object) members);
+    }
+
+    @Override
+    public CompletableFuture<Long> scard(String key) {
+        return keyed(LONG, "SCARD", key);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> sismember(String key, String member) {
+        return keyed(BOOLEAN, "SISMEMBER", key, member);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> sunion(String... keys) {
+        return multiKey(STRING_SET, "SUNION", keys);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> sdiff(String... keys) {
+        return multiKey(STRING_SET, "SDIFF", keys);
+    }
+
+    @Override
+    public CompletableFuture<Long> sdiffstore(String dstkey, String... keys) {
+        String[] all = new String[keys.length + 1];
+        all[0] = dstkey;
+        System.arraycopy(keys, 0, all, 1, keys.length);
+        return multiKey(LONG, "SDIFFSTORE", all);
+    }
+
+    @Override
+    public CompletableFuture<Long> zadd(String key, double score, String member) {
+        return keyed(LONG, "ZADD", key, score, member);
+    }
+
+    @Override
+    public CompletableFuture<Long> zadd(String key, Map<String, Double> scoreMembers) {
+        List<Object> params = new ArrayList<>(scoreMembers.size() * 2);
+        for (Map.Entry<String, Double> entry : scoreMembers.entrySet()) {
+            params.add(entry.getValue());
+            params.add(entry.getKey());
+        }
+        return keyed(LONG, "ZADD", key, params.toArray());
+    }
+
+    @Override
+    public CompletableFuture<Long> zcount(String key, double min, double max) {
+        return keyed(LONG, "ZCOUNT", key, min, max);
+    }
+
+    @Override
+    public CompletableFuture<Long> zcount(String key, String min, String max) {
+        return keyed(LONG, "ZCOUNT", key, min, max);
+    }
+
+    @Override
+    public CompletableFuture<Double> zincrby(String key, double score, String member) {
+        return keyed(DOUBLE, "ZINCRBY", key, score, member);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrange(String key, long start, long end) {
+        return keyed(STRING_SET, "ZRANGE", key, start, end);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrangeByScore(String key, double min, double max) {
+        return keyed(STRING_SET, "ZRANGEBYSCORE", key, min, max);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrangeByScore(String key, String min, String max) {
+        return keyed(STRING_SET, "ZRANGEBYSCORE", key, min, max);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrangeByScore(String key, double min, double max, int offset, int count) {
+        return keyed(STRING_SET, "ZRANGEBYSCORE", key, min, max, "LIMIT", offset, count);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrevrange(String key, long start, long end) {
+        return keyed(STRING_SET, "ZREVRANGE", key, start, end);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrevrangeByScore(String key, double max, double min) {
+        return keyed(STRING_SET, "ZREVRANGEBYSCORE", key, max, min);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrevrangeByScore(String key, String max, String min) {
+        return keyed(STRING_SET, "ZREVRANGEBYSCORE", key, max, min);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrevrangeByScore(String key, double max, double min, int offset, int count) {
+        return keyed(STRING_SET, "ZREVRANGEBYSCORE", key, max, min, "LIMIT", offset, count);
+    }
+
+    @Override
+    public CompletableFuture<Set<String>> zrevrangeByScore(String key, String max, String min, int offset, int count) {
+        return keyed(STRING_SET, "ZREVRANGEBYSCORE", key, max, min, "LIMIT", offset, count);
+    }
+
+    @Override
+    public CompletableFuture<Set<Tuple>> zrevrangeByScoreWithScores(String key, double max, double min, int offset, int count) {
+        return keyed(TUPLE_SET, "ZREVRANGEBYSCORE", key, max, min, "WITHSCORES", "LIMIT", offset, count);
+    }
+
+    @Override
+    public CompletableFuture<Set<Tuple>> zrevrangeByScoreWithScores(String key, String max, String min, int offset, int count) {
+        return keyed(TUPLE_SET, "ZREVRANGEBYSCORE", key, max, min, "WITHSCORES", "LIMIT", offset, count);
+    }
+
+    @Override
+    public CompletableFuture<Set<Tuple>> zrevrangeByScoreWithScores(String key, String max, String min) {
+        return keyed(TUPLE_SET, "ZREVRANGEBYSCORE", key, max, min, "WITHSCORES");
+    }
+
+    @Override
+    public CompletableFuture<Long> zrevrank(String key, String member) {
+        return keyed(LONG, "ZREVRANK", key, member);
+    }
+
+    @Override
+    public CompletableFuture<Long> zrem(String key, String... members) {
+        return keyed(LONG, "ZREM", key, (Object) members);
+    }
+
+    @Override
+    public CompletableFuture<Long> zremrangeByRank(String key, long start, long end) {
+        return keyed(LONG, "ZREMRANGEBYRANK", key, start, end);
+    }
+
+    @Override
+    public CompletableFuture<Long> zremrangeByScore(String key, double start, double end) {
+        return keyed(LONG, "ZREMRANGEBYSCORE", key, start, end);
+    }
+
+    @Override
+    public CompletableFuture<Long> zremrangeByScore(String key, String start, String end) {
+        return keyed(LONG, "ZREMRANGEBYSCORE", key, start, end);
+    }
+
+    @Override
+    public CompletableFuture<Long> zcard(String key) {
+        return keyed(LONG, "ZCARD", key);
+    }
+
+    @Override
+    public CompletableFuture<String> setex(byte[] key, int seconds, byte[] value) {
+        if (seconds <= 0 || key == null || key.length == 0) {
+            return failed("参数无效");
+        }
+        return keyed(STRING, "SETEX", key, seconds, value);
+    }
+
+    @Override
+    public CompletableFuture<byte[]> get(byte[] key) {
+        return keyed(BYTES, "GET", key);
+    }
+
+    @Override
+    public CompletableFuture<Long> del(byte[] key) {
+        return keyed(LONG, "DEL", key);
+    }
+
+    @Override
+    public CompletableFuture<Long> hset(byte[] key, byte[] field, byte[] value) {
+        return keyed(LONG, "HSET", key, field, value);
+    }
+
+    @Override
+    public CompletableFuture<byte[]> hget(byte[] key, byte[] field) {
+        return keyed(BYTES, "HGET", key, field);
+    }
+
+    @Override
+    public CompletableFuture<String> setObjectEx(byte[] key, int seconds, Object serializable) {
+        if (!(serializable instanceof Serializable)) {
+            return failed("对象不可序列化");
+        }
+        return setex(key, seconds, codecs.encode(serializable));
+    }
+
+    /**
+     * 反序列化在公共线程池中执行, 不占用事件循环线程
+     */
+    @Override
+    public CompletableFuture<Object> getObject(byte[] key) {
+        return get(key).thenApplyAsync(bytes -> bytes == null ? null : codecs.decode(bytes));
+    }
+
+    private Map<Integer, List<String>> groupBySlot(String... keys) {
+        Map<Integer, List<String>> groups = new LinkedHashMap<>();
+        for (String key : keys) {
+            int slot = slot(keyMapper.map(key).getBytes(StandardCharsets.UTF_8));
+            List<String> group = groups.get(slot);
+            if (group == null) {
+                group = new ArrayList<>();
+                groups.put(slot, group);
+            }
+            group.add(key);
+        }
+        return groups;
+    }
+
+    private static CompletableFuture<String> allOk(final List<CompletableFuture<String>> futures) {
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenApply(v -> "OK");
+    }
+
+    private static <T> CompletableFuture<T> failed(String message) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(new CacheClientException(message));
+        return future;
+    }
+
+    // ---------------- 回复转换 ----------------
+
+    private static final PendingCommand.Decoder<Object> RAW = reply -> reply;
+
+    private static final PendingCommand.Decoder<String> STRING = reply -> {
+        if (reply instanceof byte[]) {
+            return new String((byte[]) reply, StandardCharsets.UTF_8);
+        }
+        return (String) reply;
+    };
+
+    private static final PendingCommand.Decoder<byte[]> BYTES = reply -> (byte[]) reply;
+
+    private static final PendingCommand.Decoder<Long> LONG = reply -> (Long) reply;
+
+    private static final PendingCommand.Decoder<Boolean> BOOLEAN = reply -> reply != null && (Long) reply == 1L;
+
+    private static final PendingCommand.Decoder<Boolean> OK = reply -> "OK".equals(reply);
+
+    private static final PendingCommand.Decoder<Double> DOUBLE = reply ->
+            reply == null ? null : Double.valueOf(new String((byte[]) reply, StandardCharsets.UTF_8));
+
+    private static final PendingCommand.Decoder<List<?>> LIST = reply -> (List<?>) reply;
+
+    private static final PendingCommand.Decoder<List<String>> STRING_LIST = reply -> {
+        List<?> items = (List<?>) reply;
+        List<String> list = new ArrayList<>(items.size());
+        for (Object item : items) {
+            list.add(STRING.decode(item));
+        }
+        return list;
+    };
+
+    private static final PendingCommand.Decoder<Set<String>> STRING_SET = reply ->
+            new LinkedHashSet<>(STRING_LIST.decode(reply));
+
+    private static final PendingCommand.Decoder<Map<String, String>> STRING_MAP = reply -> {
+        List<String> items = STRING_LIST.decode(reply);
+        Map<String, String> map = new LinkedHashMap<>(items.size());
+        for (int i = 0; i + 1 < items.size(); i += 2) {
+            map.put(items.get(i), items.get(i + 1));
+        }
+        return map;
+    };
+
+    private static final PendingCommand.Decoder<Set<Tuple>> TUPLE_SET = reply -> {
+        List<String> items = STRING_LIST.decode(reply);
+        Set<Tuple> tuples = new LinkedHashSet<>(items.size());
+        for (int i = 0; i + 1 < items.size(); i += 2) {
+            tuples.add(new Tuple(items.get(i), Double.valueOf(items.get(i + 1))));
+        }
+        return tuples;
+    };
+
+    @Override
+    public String toString() {
+        return "NioAsyncCacheClient{" +
+                "servers=" + config.getServers() +
+                ", cluster=" + cluster +
+                ", connections=" + Arrays.toString(connections.keySet().toArray()) +
+                '}';
+    }
+}
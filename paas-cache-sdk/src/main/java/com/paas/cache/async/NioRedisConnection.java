@@ -0,0 +1,255 @@
+package com.paas.cache.async;
+
+import com.paas.cache.exception.CacheClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多路复用的非阻塞redis连接。
+ * 调用线程在锁内按顺序写出命令并登记待回复队列, 回复由事件循环线程按顺序读取并交给对应命令,
+ * 多个线程的命令在同一连接上以pipeline方式交错执行。
+ * 连接以非阻塞方式建立, 建立完成前发送的命令先缓存, 连接完成后由事件循环写出。
+ */
+final class NioRedisConnection {
+    private static final Logger log = LoggerFactory.getLogger(NioRedisConnection.class);
+
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 回复处理, 由客户端处理集群重定向
+     */
+    interface ReplyHandler {
+        void onReply(NioRedisConnection connection, PendingCommand<?> command, Object reply);
+    }
+
+    private final NioEventLoop loop;
+    private final SocketChannel channel;
+    private final String node;
+    private final ReplyHandler handler;
+    private final Object lock = new Object();
+    private final ArrayDeque<ByteBuffer> writes = new ArrayDeque<>();
+    private final Queue<PendingCommand<?>> pending = new ConcurrentLinkedQueue<>();
+    private final RespParser parser = new RespParser();
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+    private SelectionKey key;
+    private volatile boolean connected;
+    private volatile boolean closed;
+
+    private NioRedisConnection(NioEventLoop loop, SocketChannel channel, String node, ReplyHandler handler,
+                               boolean connected) {
+        this.loop = loop;
+        this.channel = channel;
+        this.node = node;
+        this.handler = handler;
+        this.connected = connected;
+    }
+
+    /**
+     * 发起连接后立即返回, 超过 connectTimeout 未建立时关闭连接
+     */
+    static NioRedisConnection open(NioEventLoop loop, ScheduledExecutorService timer, String host, int port,
+                                   int connectTimeout, ReplyHandler handler) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        boolean connected;
+        try {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            channel.socket().setKeepAlive(true);
+            connected = channel.connect(new InetSocketAddress(host, port));
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+        final NioRedisConnection connection = new NioRedisConnection(loop, channel, host + ":" + port, handler,
+                connected);
+        if (!connected) {
+            timer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (!connection.connected) {
+                        connection.close(new CacheClientException("连接超时: " + connection.node));
+                    }
+                }
+            }, connectTimeout, TimeUnit.MILLISECONDS);
+        }
+        loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                connection.register();
+            }
+        });
+        return connection;
+    }
+
+    String node() {
+        return node;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * 发送命令, 能直接写完时不经过事件循环。多条命令保证在连接上连续发送
+     */
+    void send(PendingCommand<?>... commands) {
+        ByteBuffer[] buffers = new ByteBuffer[commands.length];
+        for (int i = 0; i < commands.length; i++) {
+            buffers[i] = commands[i].encode();
+        }
+        synchronized (lock) {
+            if (closed) {
+                for (PendingCommand<?> command : commands) {
+                    command.fail(new CacheClientException("连接已关闭: " + node));
+                }
+                return;
+            }
+            for (int i = 0; i < commands.length; i++) {
+                pending.add(commands[i]);
+                ByteBuffer buffer = buffers[i];
+                if (writes.isEmpty() && connected) {
+                    try {
+                        channel.write(buffer);
+                    } catch (IOException e) {
+                        close(new CacheClientException(e));
+                        return;
+                    }
+                    if (!buffer.hasRemaining()) {
+                        continue;
+                    }
+                    writes.add(buffer);
+                    requestWrite();
+                } else {
+                    writes.add(buffer);
+                }
+            }
+        }
+    }
+
+    private void requestWrite() {
+        loop.execute(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (lock) {
+                    if (key != null && key.isValid() && !writes.isEmpty()) {
+                        key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                    }
+                }
+            }
+        });
+    }
+
+    private void register() {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            try {
+                int ops = !connected ? SelectionKey.OP_CONNECT
+                        : writes.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE;
+                key = channel.register(loop.selector(), ops, this);
+            } catch (ClosedChannelException e) {
+                close(new CacheClientException(e));
+            }
+        }
+    }
+
+    void onConnectable() {
+        synchronized (lock) {
+            try {
+                if (!channel.finishConnect()) {
+                    return;
+                }
+                connected = true;
+                key.interestOps(writes.isEmpty() ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            } catch (IOException e) {
+                close(new CacheClientException("连接失败: " + node, e));
+            }
+        }
+    }
+
+    void onWritable() {
+        synchronized (lock) {
+            try {
+                ByteBuffer buffer;
+                while ((buffer = writes.peek()) != null) {
+                    channel.write(buffer);
+                    if (buffer.hasRemaining()) {
+                        return;
+                    }
+                    writes.poll();
+                }
+                key.interestOps(SelectionKey.OP_READ);
+            } catch (IOException e) {
+                close(new CacheClientException(e));
+            }
+        }
+    }
+
+    void onReadable() {
+        try {
+            int read;
+            do {
+                readBuffer.clear();
+                read = channel.read(readBuffer);
+                if (read < 0) {
+                    close(new CacheClientException("连接被服务端关闭: " + node));
+                    return;
+                }
+                readBuffer.flip();
+                parser.feed(readBuffer);
+            } while (read == READ_BUFFER_SIZE);
+            parser.drain(new RespParser.ReplyConsumer() {
+                @Override
+                public void accept(Object reply) {
+                    PendingCommand<?> command = pending.poll();
+                    if (command == null) {
+                        log.warn(" ---> unexpected reply from {}: {}", node, reply);
+                        return;
+                    }
+                    handler.onReply(NioRedisConnection.this, command, reply);
+                }
+            });
+        } catch (Exception e) {
+            close(new CacheClientException(e));
+        }
+    }
+
+    /**
+     * 关闭连接, 所有未回复的命令以 cause 失败
+     */
+    void close(CacheClientException cause) {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            writes.clear();
+        }
+        log.warn(" ---> close async redis connection {}: {}", node, cause.getMessage());
+        if (key != null) {
+            key.cancel();
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn(" ---> close channel fail.", e);
+        }
+        PendingCommand<?> command;
+        while ((command = pending.poll()) != null) {
+            command.fail(cause);
+        }
+    }
+}
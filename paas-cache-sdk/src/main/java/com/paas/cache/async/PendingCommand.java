@@ -0,0 +1,95 @@
+package com.paas.cache.async;
+
+import com.paas.cache.exception.CacheClientException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * 已发出等待回复的命令
+ */
+final class PendingCommand<T> {
+
+    /**
+     * 回复转换
+     */
+    interface Decoder<T> {
+        T decode(Object reply);
+    }
+
+    private static final byte[] CRLF = {'\r', '\n'};
+
+    final byte[][] args;
+    final int slot;
+    final Decoder<T> decoder;
+    final CompletableFuture<T> future = new CompletableFuture<>();
+    int redirects;
+    volatile ScheduledFuture<?> timeout;
+
+    PendingCommand(byte[][] args, int slot, Decoder<T> decoder) {
+        this.args = args;
+        this.slot = slot;
+        this.decoder = decoder;
+    }
+
+    /**
+     * 编码为 RESP 多条批量请求
+     */
+    ByteBuffer encode() {
+        int size = 1 + digits(args.length) + 2;
+        for (byte[] arg : args) {
+            size += 1 + digits(arg.length) + 2 + arg.length + 2;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.put((byte) '*').put(ascii(args.length)).put(CRLF);
+        for (byte[] arg : args) {
+            buffer.put((byte) '$').put(ascii(arg.length)).put(CRLF).put(arg).put(CRLF);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    String name() {
+        return new String(args[0], StandardCharsets.UTF_8);
+    }
+
+    void complete(Object reply) {
+        cancelTimeout();
+        if (reply instanceof RespParser.RedisError) {
+            future.completeExceptionally(new CacheClientException(reply.toString()));
+            return;
+        }
+        try {
+            future.complete(decoder.decode(reply));
+        } catch (RuntimeException e) {
+            future.completeExceptionally(new CacheClientException(e));
+        }
+    }
+
+    void fail(CacheClientException e) {
+        cancelTimeout();
+        future.completeExceptionally(e);
+    }
+
+    private void cancelTimeout() {
+        ScheduledFuture<?> t = timeout;
+        if (t != null) {
+            t.cancel(false);
+        }
+    }
+
+    private static int digits(int value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private static byte[] ascii(int value) {
+        return Integer.toString(value).getBytes(StandardCharsets.US_ASCII);
+    }
+}
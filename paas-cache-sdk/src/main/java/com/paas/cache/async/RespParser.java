@@ -0,0 +1,227 @@
+package com.paas.cache.async;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * 增量解析redis协议(RESP)回复。
+ * 读到的字节先追加到内部缓冲, 每次解析一个完整元素, 数据不完整时等待下次读取。
+ * 多条批量回复中已解析的元素保存在栈中, 其字节随即释放, 下次读取从未完成的元素继续, 不重复解析。
+ * <p>
+ * 回复类型对应: 状态回复 -> String, 错误回复 -> {@link RedisError}, 整数 -> Long,
+ * 批量回复 -> byte[] (nil为null), 多条批量回复 -> List&lt;Object&gt;
+ * <p>
+ * 仅在事件循环线程中使用, 非线程安全。
+ */
+final class RespParser {
+
+    private static final Object INCOMPLETE = new Object();
+    private static final Object ARRAY_START = new Object();
+
+    // 未解析完的多条批量回复, 栈顶为最内层
+    private final Deque<Frame> frames = new ArrayDeque<>();
+
+    private byte[] buf = new byte[8192];
+    private int start;
+    private int end;
+    private int pos;
+
+    /**
+     * 追加读取到的数据
+     */
+    void feed(ByteBuffer data) {
+        int len = data.remaining();
+        ensureCapacity(len);
+        data.get(buf, end, len);
+        end += len;
+    }
+
+    /**
+     * 解析下一个完整回复
+     *
+     * @param consumer 回复处理
+     * @return 解析出的回复数量
+     */
+    int drain(ReplyConsumer consumer) {
+        int count = 0;
+        while (start < end) {
+            pos = start;
+            Object reply = parse();
+            if (reply == INCOMPLETE) {
+                break;
+            }
+            start = pos;
+            if (reply == ARRAY_START) {
+                continue;
+            }
+            // 逐层放入未完成的数组, 外层数组完整时才交给 consumer
+            boolean complete = true;
+            while (!frames.isEmpty()) {
+                Frame frame = frames.peek();
+                frame.items.add(reply);
+                if (frame.items.size() < frame.size) {
+                    complete = false;
+                    break;
+                }
+                frames.pop();
+                reply = frame.items;
+            }
+            if (complete) {
+                count++;
+                consumer.accept(reply);
+            }
+        }
+        if (start == end) {
+            start = 0;
+            end = 0;
+        }
+        return count;
+    }
+
+    private void ensureCapacity(int len) {
+        if (end + len <= buf.length) {
+            return;
+        }
+        int used = end - start;
+        if (used + len <= buf.length / 2) {
+            System.arraycopy(buf, start, buf, 0, used);
+        } else {
+            byte[] larger = new byte[Math.max(buf.length * 2, used + len)];
+            System.arraycopy(buf, start, larger, 0, used);
+            buf = larger;
+        }
+        end = used;
+        start = 0;
+    }
+
+    // 解析一个元素: 多条批量回复只解析头部并入栈, 返回 ARRAY_START
+    private Object parse() {
+        if (pos >= end) {
+            return INCOMPLETE;
+        }
+        byte type = buf[pos++];
+        switch (type) {
+            case '+': {
+                int lineEnd = lineEnd();
+                if (lineEnd < 0) {
+                    return INCOMPLETE;
+                }
+                String status = new String(buf, pos, lineEnd - pos, StandardCharsets.UTF_8);
+                pos = lineEnd + 2;
+                return status;
+            }
+            case '-': {
+                int lineEnd = lineEnd();
+                if (lineEnd < 0) {
+                    return INCOMPLETE;
+                }
+                String message = new String(buf, pos, lineEnd - pos, StandardCharsets.UTF_8);
+                pos = lineEnd + 2;
+                return new RedisError(message);
+            }
+            case ':': {
+                int lineEnd = lineEnd();
+                if (lineEnd < 0) {
+                    return INCOMPLETE;
+                }
+                long value = parseLong(pos, lineEnd);
+                pos = lineEnd + 2;
+                return value;
+            }
+            case '$': {
+                int lineEnd = lineEnd();
+                if (lineEnd < 0) {
+                    return INCOMPLETE;
+                }
+                int len = (int) parseLong(pos, lineEnd);
+                if (len < 0) {
+                    pos = lineEnd + 2;
+                    return null;
+                }
+                int dataStart = lineEnd + 2;
+                if (dataStart + len + 2 > end) {
+                    return INCOMPLETE;
+                }
+                byte[] data = new byte[len];
+                System.arraycopy(buf, dataStart, data, 0, len);
+                pos = dataStart + len + 2;
+                return data;
+            }
+            case '*': {
+                int lineEnd = lineEnd();
+                if (lineEnd < 0) {
+                    return INCOMPLETE;
+                }
+                int size = (int) parseLong(pos, lineEnd);
+                pos = lineEnd + 2;
+                if (size < 0) {
+                    return null;
+                }
+                if (size == 0) {
+                    return new ArrayList<>(0);
+                }
+                frames.push(new Frame(size));
+                return ARRAY_START;
+            }
+            default:
+                throw new IllegalStateException("unknown reply type: " + (char) type);
+        }
+    }
+
+    // 返回\r的位置, 不完整返回-1
+    private int lineEnd() {
+        for (int i = pos; i < end - 1; i++) {
+            if (buf[i] == '\r' && buf[i + 1] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private long parseLong(int from, int to) {
+        boolean negative = buf[from] == '-';
+        long value = 0;
+        for (int i = negative ? from + 1 : from; i < to; i++) {
+            value = value * 10 + (buf[i] - '0');
+        }
+        return negative ? -value : value;
+    }
+
+    private static final class Frame {
+        final int size;
+        final List<Object> items;
+
+        Frame(int size) {
+            this.size = size;
+            this.items = new ArrayList<>(Math.min(size, 1024));
+        }
+    }
+
+    interface ReplyConsumer {
+        void accept(Object reply);
+    }
+
+    /**
+     * 错误回复
+     */
+    static final class RedisError {
+        private final String message;
+
+        RedisError(String message) {
+            this.message = message;
+        }
+
+        String getMessage() {
+            return message;
+        }
+
+        @Override
+        public String toString() {
+            return message;
+        }
+    }
+}
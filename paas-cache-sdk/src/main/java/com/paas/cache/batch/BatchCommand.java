@@ -0,0 +1,138 @@
+package com.paas.cache.batch;
+
+import com.paas.cache.exception.CacheClientException;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.util.SafeEncoder;
+
+/**
+ * 批量中的一条命令, 保存原始key及写入pipeline的方式, key在执行时才经过 KeyMapper 转换
+ */
+public final class BatchCommand<T> {
+
+    /**
+     * 字符串key命令
+     */
+    public interface StringCommand<T> {
+        Response<T> apply(Pipeline pipeline, String key);
+    }
+
+    /**
+     * 二进制key命令
+     */
+    public interface BinaryCommand<T> {
+        Response<T> apply(Pipeline pipeline, byte[] key);
+    }
+
+    private final String key;
+    private final byte[] binaryKey;
+    private final StringCommand<T> stringCommand;
+    private final BinaryCommand<T> binaryCommand;
+    private final boolean readOnly;
+    private final boolean valueRead;
+    private final boolean chunkable;
+    private final CacheResponse<T> response = new CacheResponse<>();
+
+    BatchCommand(String key, StringCommand<T> command, boolean readOnly) {
+        this.key = key;
+        this.binaryKey = null;
+        this.stringCommand = command;
+        this.binaryCommand = null;
+        this.readOnly = readOnly;
+        this.valueRead = false;
+        this.chunkable = false;
+    }
+
+    BatchCommand(byte[] key, BinaryCommand<T> command, boolean readOnly) {
+        this(key, command, readOnly, false, false);
+    }
+
+    BatchCommand(byte[] key, BinaryCommand<T> command, boolean readOnly, boolean valueRead, boolean chunkable) {
+        this.key = null;
+        this.binaryKey = key;
+        this.stringCommand = null;
+        this.binaryCommand = command;
+        this.readOnly = readOnly;
+        this.valueRead = valueRead;
+        this.chunkable = chunkable;
+    }
+
+    public CacheResponse<T> getResponse() {
+        return response;
+    }
+
+    /**
+     * 是否只读命令, 自定义命令一律视为写命令
+     */
+    public boolean isReadOnly() {
+        return readOnly;
+    }
+
+    /**
+     * 是否读取二进制值(get/hget), ClientProxy 据此解压结果
+     */
+    public boolean isValueRead() {
+        return valueRead;
+    }
+
+    /**
+     * 值是否可能分块存储(get), ClientProxy 据此合并分块
+     */
+    public boolean isChunkable() {
+        return chunkable;
+    }
+
+    /**
+     * 转换后的key, 集群模式下用于计算slot
+     */
+    public byte[] routingKey(KeyMapper mapper) {
+        if (binaryCommand != null) {
+            return mapper.map(binaryKey);
+        }
+        return SafeEncoder.encode(mapper.map(key));
+    }
+
+    /**
+     * 将命令写入pipeline
+     */
+    public Response<T> pipe(Pipeline pipeline, KeyMapper mapper) {
+        if (binaryCommand != null) {
+            return binaryCommand.apply(pipeline, mapper.map(binaryKey));
+        }
+        return stringCommand.apply(pipeline, mapper.map(key));
+    }
+
+    /**
+     * pipeline同步后读取结果, 返回结果或异常对象
+     */
+    @SuppressWarnings("unchecked")
+    public Object complete(Response<?> pipelined) {
+        try {
+            T value = ((Response<T>) pipelined).get();
+            response.set(value);
+            return value;
+        } catch (CacheClientException e) {
+            response.setError(e);
+            return e;
+        } catch (RuntimeException e) {
+            CacheClientException error = new CacheClientException(e);
+            response.setError(error);
+            return error;
+        }
+    }
+
+    /**
+     * 替换成功执行的结果, 用于代理对结果的后处理
+     */
+    @SuppressWarnings("unchecked")
+    public void replace(Object value) {
+        response.set((T) value);
+    }
+
+    /**
+     * 整批失败时标记单条命令失败
+     */
+    public void fail(RuntimeException e) {
+        response.setError(e);
+    }
+}
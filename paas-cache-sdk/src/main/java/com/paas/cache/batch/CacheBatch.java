@@ -0,0 +1,226 @@
+package com.paas.cache.batch;
+
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 批量命令, 通过 ICacheClient.executeBatch 一次性提交。
+ * 单机模式下整批在一个连接的pipeline中执行, 集群模式下按节点分组, 每个节点一次往返。
+ * <pre>
+ *     CacheBatch batch = new CacheBatch();
+ *     CacheResponse&lt;String&gt; name = batch.get("name");
+ *     batch.setex("age", 60, "18");
+ *     client.executeBatch(batch);
+ *     name.get();
+ * </pre>
+ * 非线程安全, 每个批次由一个线程构建并执行。
+ */
+public class CacheBatch {
+
+    private final List<BatchCommand<?>> commands;
+    private final KeyMapper keyMapper;
+
+    public CacheBatch() {
+        this(new ArrayList<BatchCommand<?>>(), KeyMapper.IDENTITY);
+    }
+
+    private CacheBatch(List<BatchCommand<?>> commands, KeyMapper keyMapper) {
+        this.commands = commands;
+        this.keyMapper = keyMapper;
+    }
+
+    /**
+     * 共享命令与结果, 仅替换key转换方式, 供代理层添加key前后缀
+     */
+    public CacheBatch withKeyMapper(KeyMapper keyMapper) {
+        return new CacheBatch(commands, keyMapper);
+    }
+
+    public KeyMapper getKeyMapper() {
+        return keyMapper;
+    }
+
+    public List<BatchCommand<?>> getCommands() {
+        return Collections.unmodifiableList(commands);
+    }
+
+    public int size() {
+        return commands.size();
+    }
+
+    public boolean isEmpty() {
+        return commands.isEmpty();
+    }
+
+    /**
+     * 添加自定义命令
+     */
+    public <T> CacheResponse<T> add(String key, BatchCommand.StringCommand<T> command) {
+        BatchCommand<T> bc = new BatchCommand<>(key, command, false);
+        commands.add(bc);
+        return bc.getResponse();
+    }
+
+    /**
+     * 添加自定义二进制命令
+     */
+    public <T> CacheResponse<T> add(byte[] key, BatchCommand.BinaryCommand<T> command) {
+        BatchCommand<T> bc = new BatchCommand<>(key, command, false);
+        commands.add(bc);
+        return bc.getResponse();
+    }
+
+    private <T> CacheResponse<T> read(String key, BatchCommand.StringCommand<T> command) {
+        BatchCommand<T> bc = new BatchCommand<>(key, command, true);
+        commands.add(bc);
+        return bc.getResponse();
+    }
+
+    private <T> CacheResponse<T> read(byte[] key, BatchCommand.BinaryCommand<T> command) {
+        BatchCommand<T> bc = new BatchCommand<>(key, command, true);
+        commands.add(bc);
+        return bc.getResponse();
+    }
+
+    public CacheResponse<String> setex(String key, int seconds, String value) {
+        return add(key, (p, k) -> p.setex(k, seconds, value));
+    }
+
+    public CacheResponse<String> get(String key) {
+        return read(key, (p, k) -> p.get(k));
+    }
+
+    public CacheResponse<Long> del(String key) {
+        return add(key, (p, k) -> p.del(k));
+    }
+
+    public CacheResponse<Long> expire(String key, int seconds) {
+        return add(key, (p, k) -> p.expire(k, seconds));
+    }
+
+    public CacheResponse<Long> pexpire(String key, long milliseconds) {
+        return add(key, (p, k) -> p.pexpire(k, milliseconds));
+    }
+
+    public CacheResponse<Long> ttl(String key) {
+        return read(key, (p, k) -> p.ttl(k));
+    }
+
+    public CacheResponse<Boolean> exists(String key) {
+        return read(key, (p, k) -> p.exists(k));
+    }
+
+    public CacheResponse<Long> incrBy(String key, long increment) {
+        return add(key, (p, k) -> p.incrBy(k, increment));
+    }
+
+    public CacheResponse<Boolean> setbit(String key, long offset, boolean value) {
+        return add(key, (p, k) -> p.setbit(k, offset, value));
+    }
+
+    public CacheResponse<Boolean> getbit(String key, long offset) {
+        return read(key, (p, k) -> p.getbit(k, offset));
+    }
+
+    public CacheResponse<Long> hset(String key, String field, String value) {
+        return add(key, (p, k) -> p.hset(k, field, value));
+    }
+
+    public CacheResponse<String> hget(String key, String field) {
+        return read(key, (p, k) -> p.hget(k, field));
+    }
+
+    public CacheResponse<String> hmset(String key, Map<String, String> hash) {
+        return add(key, (p, k) -> p.hmset(k, hash));
+    }
+
+    public CacheResponse<List<String>> hmget(String key, String... fields) {
+        return read(key, (p, k) -> p.hmget(k, fields));
+    }
+
+    public CacheResponse<Map<String, String>> hgetAll(String key) {
+        return read(key, (p, k) -> p.hgetAll(k));
+    }
+
+    public CacheResponse<Long> hdel(String key, String... fields) {
+        return add(key, (p, k) -> p.hdel(k, fields));
+    }
+
+    public CacheResponse<Long> hincrBy(String key, String field, long value) {
+        return add(key, (p, k) -> p.hincrBy(k, field, value));
+    }
+
+    public CacheResponse<Double> hincrByFloat(String key, String field, double value) {
+        return add(key, (p, k) -> p.hincrByFloat(k, field, value));
+    }
+
+    public CacheResponse<Long> lpush(String key, String... strings) {
+        return add(key, (p, k) -> p.lpush(k, strings));
+    }
+
+    public CacheResponse<Long> rpush(String key, String... strings) {
+        return add(key, (p, k) -> p.rpush(k, strings));
+    }
+
+    public CacheResponse<List<String>> lrange(String key, long start, long end) {
+        return read(key, (p, k) -> p.lrange(k, start, end));
+    }
+
+    public CacheResponse<Long> sadd(String key, String... members) {
+        return add(key, (p, k) -> p.sadd(k, members));
+    }
+
+    public CacheResponse<Set<String>> smembers(String key) {
+        return read(key, (p, k) -> p.smembers(k));
+    }
+
+    public CacheResponse<Boolean> sismember(String key, String member) {
+        return read(key, (p, k) -> p.sismember(k, member));
+    }
+
+    public CacheResponse<Long> zadd(String key, double score, String member) {
+        return add(key, (p, k) -> p.zadd(k, score, member));
+    }
+
+    public CacheResponse<Double> zincrby(String key, double score, String member) {
+        return add(key, (p, k) -> p.zincrby(k, score, member));
+    }
+
+    public CacheResponse<Set<String>> zrange(String key, long start, long end) {
+        return read(key, (p, k) -> p.zrange(k, start, end));
+    }
+
+    public CacheResponse<Set<String>> zrevrange(String key, long start, long end) {
+        return read(key, (p, k) -> p.zrevrange(k, start, end));
+    }
+
+    public CacheResponse<String> setex(byte[] key, int seconds, byte[] value) {
+        return add(key, (p, k) -> p.setex(k, seconds, value));
+    }
+
+    public CacheResponse<byte[]> get(byte[] key) {
+        BatchCommand<byte[]> bc = new BatchCommand<>(key, (p, k) -> p.get(k), true, true, true);
+        commands.add(bc);
+        return bc.getResponse();
+    }
+
+    public CacheResponse<Long> del(byte[] key) {
+        return add(key, (p, k) -> p.del(k));
+    }
+
+    public CacheResponse<Long> hset(byte[] key, byte[] field, byte[] value) {
+        return add(key, (p, k) -> p.hset(k, field, value));
+    }
+
+    public CacheResponse<byte[]> hget(byte[] key, byte[] field) {
+        BatchCommand<byte[]> bc = new BatchCommand<>(key, (p, k) -> p.hget(k, field), true, true, false);
+        commands.add(bc);
+        return bc.getResponse();
+    }
+}
@@ -0,0 +1,56 @@
+package com.paas.cache.batch;
+
+import com.paas.cache.exception.CacheClientException;
+
+/**
+ * 批量命令中单条命令的结果, 在 ICacheClient.executeBatch 返回后可用
+ */
+public class CacheResponse<T> {
+
+    private volatile boolean done;
+    private T value;
+    private RuntimeException error;
+
+    /**
+     * 获取命令结果, 命令执行失败时抛出对应异常
+     * @return 命令结果
+     */
+    public T get() {
+        if (!done) {
+            throw new CacheClientException("批量命令尚未执行");
+        }
+        if (error != null) {
+            throw error;
+        }
+        return value;
+    }
+
+    public boolean isDone() {
+        return done;
+    }
+
+    public boolean isError() {
+        return done && error != null;
+    }
+
+    void set(T value) {
+        this.value = value;
+        this.error = null;
+        this.done = true;
+    }
+
+    void setError(RuntimeException error) {
+        this.value = null;
+        this.error = error;
+        this.done = true;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheResponse{" +
+                "done=" + done +
+                ", value=" + value +
+                ", error=" + error +
+                '}';
+    }
+}
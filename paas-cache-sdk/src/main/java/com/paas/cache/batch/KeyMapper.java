@@ -0,0 +1,23 @@
+package com.paas.cache.batch;
+
+/**
+ * 批量命令执行前对key的转换, 例如ClientProxy的业务后缀
+ */
+public interface KeyMapper {
+
+    KeyMapper IDENTITY = new KeyMapper() {
+        @Override
+        public String map(String key) {
+            return key;
+        }
+
+        @Override
+        public byte[] map(byte[] key) {
+            return key;
+        }
+    };
+
+    String map(String key);
+
+    byte[] map(byte[] key);
+}
@@ -0,0 +1,228 @@
+package com.paas.cache.bloom;
+
+import com.paas.cache.ICacheClient;
+import com.paas.cache.batch.CacheBatch;
+import com.paas.cache.batch.CacheResponse;
+import com.paas.cache.exception.CacheClientException;
+import redis.clients.util.Hashing;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 基于redis位图的布隆过滤器, 用于拦截不存在的数据的查询, 判断为不存在时一定不存在, 判断为存在时有 fpp 的误判概率。
+ * <p>
+ * 位图按 shards 拆分为 name + ":" + 序号 的多个key, 集群或分片模式下分散到不同节点, 单个key不超过 DEFAULT_SHARD_BITS 位时不会形成大key;
+ * 每个元素只落在一个分片, 其 numHashFunctions 个位通过 executeBatch 一次往返读写(SETBIT/GETBIT)。
+ * addAll 按 BULK_SIZE 个元素一批提交, 集群模式下各节点并行。
+ * <p>
+ * 相同 name、expectedInsertions、fpp 和 shards 的实例共用同一个过滤器; 只能添加不能删除, 数据变化较多时应按新的 name 重建
+ */
+public class CacheBloomFilter {
+
+    /**
+     * 默认每个分片的位数, 即每个key 2MB
+     */
+    public static final long DEFAULT_SHARD_BITS = 1L << 24;
+
+    private static final long MAX_SHARD_BITS = 1L << 32;
+    private static final int BULK_SIZE = 1000;
+    private static final Hashing HASHING = Hashing.MURMUR_HASH;
+
+    private final ICacheClient client;
+    private final String name;
+    private final long numBits;
+    private final int numHashFunctions;
+    private final int shards;
+    private final long shardBits;
+
+    /**
+     * 按 DEFAULT_SHARD_BITS 计算分片数
+     *
+     * @param client             缓存客户端
+     * @param name               过滤器名称, 位图key的前缀
+     * @param expectedInsertions 预计元素数量
+     * @param fpp                误判率, 0到1之间
+     */
+    public CacheBloomFilter(ICacheClient client, String name, long expectedInsertions, double fpp) {
+        this(client, name, expectedInsertions, fpp, 0);
+    }
+
+    /**
+     * @param shards 分片数, 小于等于0时按 DEFAULT_SHARD_BITS 计算
+     */
+    public CacheBloomFilter(ICacheClient client, String name, long expectedInsertions, double fpp, int shards) {
+        if (name == null || expectedInsertions <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new CacheClientException("参数无效");
+        }
+        this.client = client;
+        this.name = name;
+        long bits = optimalNumOfBits(expectedInsertions, fpp);
+        this.numHashFunctions = optimalNumOfHashFunctions(expectedInsertions, bits);
+        this.shards = shards > 0 ? shards : (int) Math.max(1, (bits + DEFAULT_SHARD_BITS - 1) / DEFAULT_SHARD_BITS);
+        this.shardBits = (bits + this.shards - 1) / this.shards;
+        if (shardBits > MAX_SHARD_BITS) {
+            throw new CacheClientException("布隆过滤器单个分片超过redis位图上限, 请增加分片数: " + shardBits);
+        }
+        this.numBits = shardBits * this.shards;
+    }
+
+    /**
+     * 添加元素
+     *
+     * @return 是否有位由0变为1, 为false时元素可能已添加过
+     */
+    public boolean add(String element) {
+        return add(bytes(element));
+    }
+
+    public boolean add(byte[] element) {
+        CacheBatch batch = new CacheBatch();
+        List<CacheResponse<Boolean>> responses = setBits(batch, element);
+        client.executeBatch(batch);
+        boolean changed = false;
+        for (CacheResponse<Boolean> response : responses) {
+            if (!Boolean.TRUE.equals(response.get())) {
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * 批量添加, 用于初始化过滤器
+     *
+     * @return 添加的元素数量
+     */
+    public int addAll(Collection<String> elements) {
+        CacheBatch batch = new CacheBatch();
+        List<CacheResponse<Boolean>> responses = new ArrayList<>();
+        int count = 0;
+        for (String element : elements) {
+            responses.addAll(setBits(batch, bytes(element)));
+            if (++count % BULK_SIZE == 0) {
+                execute(batch, responses);
+                batch = new CacheBatch();
+                responses.clear();
+            }
+        }
+        execute(batch, responses);
+        return count;
+    }
+
+    /**
+     * 元素是否可能存在, 返回false时一定不存在
+     */
+    public boolean mightContain(String element) {
+        return mightContain(bytes(element));
+    }
+
+    public boolean mightContain(byte[] element) {
+        long hash = HASHING.hash(element);
+        String key = shardKey(hash);
+        CacheBatch batch = new CacheBatch();
+        List<CacheResponse<Boolean>> responses = new ArrayList<>(numHashFunctions);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashFunctions; i++) {
+            responses.add(batch.getbit(key, offset(h1, h2, i)));
+        }
+        client.executeBatch(batch);
+        for (CacheResponse<Boolean> response : responses) {
+            if (!Boolean.TRUE.equals(response.get())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 设置全部分片的有效期, 过滤器需定期重建时使用
+     */
+    public void expire(int seconds) {
+        CacheBatch batch = new CacheBatch();
+        for (int i = 0; i < shards; i++) {
+            batch.expire(name + ":" + i, seconds);
+        }
+        client.executeBatch(batch);
+    }
+
+    /**
+     * 删除全部分片
+     */
+    public void delete() {
+        CacheBatch batch = new CacheBatch();
+        for (int i = 0; i < shards; i++) {
+            batch.del(name + ":" + i);
+        }
+        client.executeBatch(batch);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getNumBits() {
+        return numBits;
+    }
+
+    public int getNumHashFunctions() {
+        return numHashFunctions;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    // 双重哈希: 第i个位置为 h1 + i * h2
+    private List<CacheResponse<Boolean>> setBits(CacheBatch batch, byte[] element) {
+        long hash = HASHING.hash(element);
+        String key = shardKey(hash);
+        List<CacheResponse<Boolean>> responses = new ArrayList<>(numHashFunctions);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= numHashFunctions; i++) {
+            responses.add(batch.setbit(key, offset(h1, h2, i), true));
+        }
+        return responses;
+    }
+
+    private long offset(int h1, int h2, int i) {
+        return Math.floorMod(h1 + (long) i * h2, shardBits);
+    }
+
+    // 分片使用与位置无关的哈希位, 避免同一分片内的位置集中
+    private String shardKey(long hash) {
+        if (shards == 1) {
+            return name + ":0";
+        }
+        long mixed = hash ^ (hash >>> 33);
+        mixed *= 0xff51afd7ed558ccdL;
+        mixed ^= mixed >>> 33;
+        return name + ":" + Math.floorMod(mixed, (long) shards);
+    }
+
+    private void execute(CacheBatch batch, List<CacheResponse<Boolean>> responses) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        client.executeBatch(batch);
+        for (CacheResponse<Boolean> response : responses) {
+            response.get();
+        }
+    }
+
+    private static byte[] bytes(String element) {
+        return element.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long optimalNumOfBits(long n, double p) {
+        return (long) (-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+    }
+
+    private static int optimalNumOfHashFunctions(long n, long m) {
+        return Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+    }
+}
@@ -0,0 +1,270 @@
+package com.paas.cache.chunk;
+
+import com.paas.cache.ICacheClient;
+import com.paas.cache.batch.CacheBatch;
+import com.paas.cache.batch.CacheResponse;
+import com.paas.cache.exception.CacheClientException;
+import com.paas.cache.jedis.JedisConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.zip.CRC32;
+
+/**
+ * 大值分块存储, 超过阀值的二进制值拆分为 chunkSize 字节的分块, 分块key分散到不同的slot或分片。
+ * <p>
+ * 原key保存分块信息: 魔数(4字节) + 总长度(4字节) + 分块数(4字节) + 分块大小(4字节) + CRC32(4字节) + 版本(8字节)。
+ * 分块key为 原key + "#chunk:" + 版本 + ":" + 序号, 每次写入使用新的随机版本, 读取时只读取分块信息指向的版本, 不会读到并发写入的分块。
+ * 写入时先通过 executeBatch 写入全部分块, 再写入分块信息; 读取时通过 executeBatch 一次读取全部分块到按总长度分配的数组并校验CRC32,
+ * 分块缺失或校验失败时视为不存在。
+ * <p>
+ * 分块的有效期比原key长 GRACE_SECONDS 秒, 覆盖或删除原key后旧分块在有效期后过期, 不单独删除;
+ * 通过 expire/expireAt 修改有效期时同时修改全部分块的有效期。
+ * 读取时只按魔数识别, 关闭分块后已写入的分块值仍可读取
+ */
+public class ValueChunker {
+    protected static Logger log = LoggerFactory.getLogger(ValueChunker.class);
+
+    /**
+     * 只读取不分块, 未开启分块时使用
+     */
+    public static final ValueChunker DISABLED = new ValueChunker(null);
+
+    private static final byte[] MAGIC = {0x00, 'P', 'C', 0x01};
+    private static final int HEADER_LENGTH = MAGIC.length + 24;
+    private static final int GRACE_SECONDS = 10;
+    private static final int DEFAULT_THRESHOLD = 1048576;
+    private static final int DEFAULT_CHUNK_SIZE = 262144;
+
+    private final boolean enabled;
+    private final int threshold;
+    private final int chunkSize;
+
+    /**
+     * @param config 分块配置, 为空或未开启时只读取
+     */
+    public ValueChunker(JedisConfig.ChunkConfig config) {
+        this.enabled = config != null && Boolean.TRUE.equals(config.getEnabled());
+        this.threshold = config == null || config.getThreshold() == null ? DEFAULT_THRESHOLD : config.getThreshold();
+        this.chunkSize = config == null || config.getChunkSize() == null ? DEFAULT_CHUNK_SIZE : Math.max(1024, config.getChunkSize());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 写入值, 超过阀值时分块写入
+     *
+     * @param client  实际客户端
+     * @param key     已加后缀的key
+     * @param seconds 有效期(秒)
+     * @param value   值
+     */
+    public String setex(ICacheClient client, byte[] key, int seconds, byte[] value) {
+        if (!enabled || value == null || value.length <= threshold) {
+            return client.setex(key, seconds, value);
+        }
+        int count = (value.length + chunkSize - 1) / chunkSize;
+        long version = ThreadLocalRandom.current().nextLong();
+        CacheBatch batch = new CacheBatch();
+        List<CacheResponse<String>> responses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int from = i * chunkSize;
+            byte[] chunk = Arrays.copyOfRange(value, from, Math.min(value.length, from + chunkSize));
+            responses.add(batch.setex(chunkKey(key, version, i), seconds + GRACE_SECONDS, chunk));
+        }
+        client.executeBatch(batch);
+        // 任一分块失败时抛出其异常, 不写入分块信息
+        for (CacheResponse<String> response : responses) {
+            response.get();
+        }
+        CRC32 crc = new CRC32();
+        crc.update(value, 0, value.length);
+        byte[] header = new byte[HEADER_LENGTH];
+        System.arraycopy(MAGIC, 0, header, 0, MAGIC.length);
+        writeInt(header, MAGIC.length, value.length);
+        writeInt(header, MAGIC.length + 4, count);
+        writeInt(header, MAGIC.length + 8, chunkSize);
+        writeInt(header, MAGIC.length + 12, (int) crc.getValue());
+        writeLong(header, MAGIC.length + 16, version);
+        return client.setex(key, seconds, header);
+    }
+
+    /**
+     * 原key的值为分块信息时读取全部分块并合并, 否则原样返回
+     *
+     * @param client 实际客户端
+     * @param key    已加后缀的key
+     * @param stored 原key的值
+     * @return 合并后的值, 分块缺失或校验失败时为null
+     */
+    public byte[] resolve(ICacheClient client, byte[] key, byte[] stored) {
+        if (!isChunked(stored)) {
+            return stored;
+        }
+        int length = readInt(stored, MAGIC.length);
+        int count = readInt(stored, MAGIC.length + 4);
+        int size = readInt(stored, MAGIC.length + 8);
+        int checksum = readInt(stored, MAGIC.length + 12);
+        long version = readLong(stored, MAGIC.length + 16);
+        if (length < 0 || count <= 0 || size <= 0 || (long) count * size < length) {
+            throw new CacheClientException("分块信息格式错误");
+        }
+        CacheBatch batch = new CacheBatch();
+        List<CacheResponse<byte[]>> responses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            responses.add(batch.get(chunkKey(key, version, i)));
+        }
+        client.executeBatch(batch);
+        byte[] value = new byte[length];
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            byte[] chunk = responses.get(i).get();
+            if (chunk == null || offset + chunk.length > length) {
+                log.warn(" ---> chunk {}/{} of key {} missing or oversize, treat as miss.", i, count, string(key));
+                return null;
+            }
+            System.arraycopy(chunk, 0, value, offset, chunk.length);
+            offset += chunk.length;
+        }
+        CRC32 crc = new CRC32();
+        crc.update(value, 0, value.length);
+        if (offset != length || (int) crc.getValue() != checksum) {
+            log.warn(" ---> chunks of key {} corrupted, treat as miss.", string(key));
+            return null;
+        }
+        return value;
+    }
+
+    /**
+     * 批量读取结果中的分块信息替换为合并后的值
+     *
+     * @param keys   已加后缀的key
+     * @param values 与keys对应的值, 原地替换
+     */
+    public List<byte[]> resolve(ICacheClient client, byte[][] keys, List<byte[]> values) {
+        if (values != null) {
+            for (int i = 0; i < values.size(); i++) {
+                byte[] value = values.get(i);
+                if (isChunked(value)) {
+                    values.set(i, resolve(client, keys[i], value));
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * 设置有效期, 原key为分块信息时同时设置全部分块。
+     * 与读取长度在一次往返中完成, 只有长度等于分块信息长度时才再读取分块信息。
+     * 未开启分块时直接设置, 不读取长度
+     *
+     * @param key 已加后缀的key
+     */
+    public Long expire(ICacheClient client, byte[] key, int seconds) {
+        if (!enabled) {
+            return client.expire(key, seconds);
+        }
+        CacheBatch batch = new CacheBatch();
+        CacheResponse<Long> length = batch.add(key, (p, k) -> p.strlen(k));
+        CacheResponse<Long> result = batch.add(key, (p, k) -> p.expire(k, seconds));
+        client.executeBatch(batch);
+        Long expired = result.get();
+        expireChunks(client, key, length, seconds + GRACE_SECONDS, false);
+        return expired;
+    }
+
+    /**
+     * 设置过期时间点(秒), 原key为分块信息时同时设置全部分块
+     */
+    public Long expireAt(ICacheClient client, byte[] key, long unixTime) {
+        if (!enabled) {
+            return client.expireAt(key, unixTime);
+        }
+        CacheBatch batch = new CacheBatch();
+        CacheResponse<Long> length = batch.add(key, (p, k) -> p.strlen(k));
+        CacheResponse<Long> result = batch.add(key, (p, k) -> p.expireAt(k, unixTime));
+        client.executeBatch(batch);
+        Long expired = result.get();
+        expireChunks(client, key, length, unixTime + GRACE_SECONDS, true);
+        return expired;
+    }
+
+    // 非字符串类型的key读取长度失败, 视为未分块
+    private void expireChunks(ICacheClient client, byte[] key, CacheResponse<Long> length, long time, boolean at) {
+        if (length.isError() || !Long.valueOf(HEADER_LENGTH).equals(length.get())) {
+            return;
+        }
+        byte[] stored = client.get(key);
+        if (!isChunked(stored)) {
+            return;
+        }
+        int count = readInt(stored, MAGIC.length + 4);
+        long version = readLong(stored, MAGIC.length + 16);
+        CacheBatch batch = new CacheBatch();
+        for (int i = 0; i < count; i++) {
+            byte[] chunkKey = chunkKey(key, version, i);
+            if (at) {
+                batch.add(chunkKey, (p, k) -> p.expireAt(k, time));
+            } else {
+                batch.add(chunkKey, (p, k) -> p.expire(k, (int) time));
+            }
+        }
+        for (Object result : client.executeBatch(batch)) {
+            if (result instanceof Throwable) {
+                log.warn(" ---> expire chunks of key {} fail: {}", string(key), ((Throwable) result).getMessage());
+                return;
+            }
+        }
+    }
+
+    public static boolean isChunked(byte[] value) {
+        if (value == null || value.length != HEADER_LENGTH) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (value[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] chunkKey(byte[] key, long version, int index) {
+        byte[] suffix = ("#chunk:" + Long.toHexString(version) + ":" + index).getBytes(StandardCharsets.UTF_8);
+        byte[] chunkKey = Arrays.copyOf(key, key.length + suffix.length);
+        System.arraycopy(suffix, 0, chunkKey, key.length, suffix.length);
+        return chunkKey;
+    }
+
+    private static String string(byte[] key) {
+        return new String(key, StandardCharsets.UTF_8);
+    }
+
+    private static void writeInt(byte[] buffer, int offset, int value) {
+        buffer[offset] = (byte) (value >>> 24);
+        buffer[offset + 1] = (byte) (value >>> 16);
+        buffer[offset + 2] = (byte) (value >>> 8);
+        buffer[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] buffer, int offset) {
+        return ((buffer[offset] & 0xFF) << 24) | ((buffer[offset + 1] & 0xFF) << 16)
+                | ((buffer[offset + 2] & 0xFF) << 8) | (buffer[offset + 3] & 0xFF);
+    }
+
+    private static void writeLong(byte[] buffer, int offset, long value) {
+        writeInt(buffer, offset, (int) (value >>> 32));
+        writeInt(buffer, offset + 4, (int) value);
+    }
+
+    private static long readLong(byte[] buffer, int offset) {
+        return ((long) readInt(buffer, offset) << 32) | (readInt(buffer, offset + 4) & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,19 @@
+package com.paas.cache.codec;
+
+/**
+ * 类型化读写(get/setex/hget/hset 等带 Codec 参数的方法)使用的值编码, 实现必须线程安全。
+ * <p>
+ * 与 ObjectCodec 不同, 编码结果不含标识字节和类名, 读写双方按同一个 Codec 约定类型; 常用实现见 Codecs
+ */
+public interface Codec<T> {
+
+    /**
+     * 编码值, value 不为null
+     */
+    byte[] encode(T value);
+
+    /**
+     * 解码redis返回的字节, data 不为null
+     */
+    T decode(byte[] data);
+}
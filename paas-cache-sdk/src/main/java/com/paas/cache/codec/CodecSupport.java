@@ -0,0 +1,9 @@
+package com.paas.cache.codec;
+
+/**
+ * 持有对象编码的客户端, ClientProxy 的本地缓存据此解码缓存的字节
+ */
+public interface CodecSupport {
+
+    ObjectCodecs getCodecs();
+}
@@ -0,0 +1,173 @@
+package com.paas.cache.codec;
+
+import com.alibaba.fastjson.TypeReference;
+import com.paas.cache.exception.CacheClientException;
+import redis.clients.util.SafeEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 常用的 Codec 及类型化读写的编解码方法。
+ * <p>
+ * LONG、INTEGER 直接在十进制ASCII字节和数值之间转换, 不创建中间字符串, 与 incr/incrBy 写入的计数格式相同;
+ * STRING 为UTF-8, BYTES 原样读写
+ */
+public final class Codecs {
+
+    public static final Codec<Long> LONG = new Codec<Long>() {
+        @Override
+        public byte[] encode(Long value) {
+            return toDigits(value);
+        }
+
+        @Override
+        public Long decode(byte[] data) {
+            return parseLong(data);
+        }
+    };
+
+    public static final Codec<Integer> INTEGER = new Codec<Integer>() {
+        @Override
+        public byte[] encode(Integer value) {
+            return toDigits(value);
+        }
+
+        @Override
+        public Integer decode(byte[] data) {
+            long value = parseLong(data);
+            if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+                throw new CacheClientException("值超出int范围: " + value);
+            }
+            return (int) value;
+        }
+    };
+
+    public static final Codec<String> STRING = new Codec<String>() {
+        @Override
+        public byte[] encode(String value) {
+            return value.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public String decode(byte[] data) {
+            return new String(data, StandardCharsets.UTF_8);
+        }
+    };
+
+    public static final Codec<byte[]> BYTES = new Codec<byte[]>() {
+        @Override
+        public byte[] encode(byte[] value) {
+            return value;
+        }
+
+        @Override
+        public byte[] decode(byte[] data) {
+            return data;
+        }
+    };
+
+    private static final byte[] MIN_LONG = SafeEncoder.encode(String.valueOf(Long.MIN_VALUE));
+
+    private Codecs() {
+    }
+
+    public static <T> Codec<T> fastjson(Class<T> type) {
+        return new FastjsonCodec<>(type);
+    }
+
+    public static <T> Codec<T> fastjson(TypeReference<T> type) {
+        return new FastjsonCodec<>(type);
+    }
+
+    public static <T> Codec<T> kryo(Class<T> type) {
+        return new KryoCodec<>(type);
+    }
+
+    public static <T> byte[] encode(Codec<T> codec, T value) {
+        if (value == null) {
+            throw new CacheClientException("value sent to redis cannot be null");
+        }
+        return codec.encode(value);
+    }
+
+    public static <T> T decode(Codec<T> codec, byte[] data) {
+        return data == null ? null : codec.decode(data);
+    }
+
+    /**
+     * 解码 mget/hmget 的结果, 不存在的位置为null
+     */
+    public static <T> List<T> decode(Codec<T> codec, List<byte[]> data) {
+        if (data == null) {
+            return null;
+        }
+        List<T> values = new ArrayList<>(data.size());
+        for (byte[] bytes : data) {
+            values.add(decode(codec, bytes));
+        }
+        return values;
+    }
+
+    /**
+     * 解码 hgetAll 的结果, field 按UTF-8转换为字符串
+     */
+    public static <T> Map<String, T> decode(Codec<T> codec, Map<byte[], byte[]> data) {
+        if (data == null) {
+            return null;
+        }
+        Map<String, T> values = new LinkedHashMap<>(data.size() * 4 / 3 + 1);
+        for (Map.Entry<byte[], byte[]> entry : data.entrySet()) {
+            values.put(SafeEncoder.encode(entry.getKey()), decode(codec, entry.getValue()));
+        }
+        return values;
+    }
+
+    private static byte[] toDigits(long value) {
+        if (value == Long.MIN_VALUE) {
+            return MIN_LONG.clone();
+        }
+        boolean negative = value < 0;
+        long remaining = negative ? -value : value;
+        int length = negative ? 2 : 1;
+        for (long v = remaining; v >= 10; v /= 10) {
+            length++;
+        }
+        byte[] data = new byte[length];
+        int i = length;
+        do {
+            data[--i] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining > 0);
+        if (negative) {
+            data[0] = '-';
+        }
+        return data;
+    }
+
+    // 按负数累加, 与 Long.parseLong 相同, 可以表示 Long.MIN_VALUE
+    private static long parseLong(byte[] data) {
+        boolean negative = data.length > 0 && data[0] == '-';
+        int i = negative ? 1 : 0;
+        if (i == data.length) {
+            throw new CacheClientException("值不是整数");
+        }
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long result = 0;
+        for (; i < data.length; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9 || result < limit / 10) {
+                throw new CacheClientException("值不是整数或超出long范围");
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw new CacheClientException("值不是整数或超出long范围");
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+}
@@ -0,0 +1,49 @@
+package com.paas.cache.codec;
+
+import com.alibaba.fastjson.JSON;
+import com.alibaba.fastjson.TypeReference;
+import com.paas.cache.exception.CacheClientException;
+
+import java.lang.reflect.Type;
+
+/**
+ * fastjson 类型化编码, 直接在UTF-8字节和对象之间转换, 不经过中间的json字符串。
+ * <p>
+ * 值为纯json, 与调用方自行 JSON.toJSONString 后 setex 写入的值兼容; 按声明的类型解码, 不使用autoType
+ */
+public class FastjsonCodec<T> implements Codec<T> {
+
+    private final Type type;
+
+    public FastjsonCodec(Class<T> type) {
+        this.type = type;
+    }
+
+    /**
+     * 泛型类型, 如 new TypeReference&lt;List&lt;User&gt;&gt;() {}
+     */
+    public FastjsonCodec(TypeReference<T> type) {
+        this.type = type.getType();
+    }
+
+    @Override
+    public byte[] encode(T value) {
+        return JSON.toJSONBytes(value);
+    }
+
+    @Override
+    public T decode(byte[] data) {
+        try {
+            return JSON.parseObject(data, type);
+        } catch (RuntimeException e) {
+            throw new CacheClientException("fastjson解码失败: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FastjsonCodec{" +
+                "type=" + type.getTypeName() +
+                '}';
+    }
+}
@@ -0,0 +1,105 @@
+package com.paas.cache.codec;
+
+import com.alibaba.fastjson.JSON;
+import com.paas.cache.exception.CacheClientException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * fastjson 编码, 格式为: 类名长度(2字节) + 类名 + json。
+ * <p>
+ * 读取时只接受允许列表中的类(完整类名, 或以"."结尾的包名前缀), 不使用fastjson的autoType;
+ * 只还原顶层类型, 适用于属性类型明确的普通java bean
+ */
+public class FastjsonObjectCodec implements ObjectCodec {
+
+    public static final String NAME = "fastjson";
+    public static final byte ID = 0x02;
+
+    private final List<String> allowed;
+    private final Map<String, Class<?>> classes = new ConcurrentHashMap<>();
+
+    /**
+     * @param allowed 允许解码的类名或包名前缀
+     */
+    public FastjsonObjectCodec(List<String> allowed) {
+        List<String> names = new ArrayList<>();
+        if (allowed != null) {
+            for (String name : allowed) {
+                names.add(name.trim());
+            }
+        }
+        this.allowed = Collections.unmodifiableList(names);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        if (value == null) {
+            throw new CacheClientException("value sent to redis cannot be null");
+        }
+        byte[] type = value.getClass().getName().getBytes(StandardCharsets.UTF_8);
+        byte[] json = JSON.toJSONBytes(value);
+        byte[] data = new byte[2 + type.length + json.length];
+        data[0] = (byte) (type.length >>> 8);
+        data[1] = (byte) type.length;
+        System.arraycopy(type, 0, data, 2, type.length);
+        System.arraycopy(json, 0, data, 2 + type.length, json.length);
+        return data;
+    }
+
+    @Override
+    public Object decode(byte[] data, int offset, int length) {
+        if (length < 2) {
+            throw new CacheClientException("fastjson数据格式错误");
+        }
+        int typeLength = ((data[offset] & 0xFF) << 8) | (data[offset + 1] & 0xFF);
+        if (length < 2 + typeLength) {
+            throw new CacheClientException("fastjson数据格式错误");
+        }
+        String typeName = new String(data, offset + 2, typeLength, StandardCharsets.UTF_8);
+        int start = offset + 2 + typeLength;
+        String json = new String(data, start, offset + length - start, StandardCharsets.UTF_8);
+        return JSON.parseObject(json, resolve(typeName));
+    }
+
+    private Class<?> resolve(String typeName) {
+        Class<?> type = classes.get(typeName);
+        if (type != null) {
+            return type;
+        }
+        if (!isAllowed(typeName)) {
+            throw new CacheClientException("fastjson解码类型未注册: " + typeName);
+        }
+        try {
+            type = Class.forName(typeName, false, Thread.currentThread().getContextClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new CacheClientException("fastjson解码类型不存在: " + typeName, e);
+        }
+        classes.put(typeName, type);
+        return type;
+    }
+
+    private boolean isAllowed(String typeName) {
+        for (String name : allowed) {
+            if (name.endsWith(".") ? typeName.startsWith(name) : typeName.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,46 @@
+package com.paas.cache.codec;
+
+import com.paas.cache.exception.CacheClientException;
+import com.paas.commons.serialize.SerializerUtil;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * java.io 序列化, 即原 setObjectEx 的格式。
+ * 序列化流本身以 0xACED 开头, 不再额外写标识字节, 与旧版本读写的数据互相兼容
+ */
+public class JavaObjectCodec implements ObjectCodec {
+
+    public static final String NAME = "java";
+    /**
+     * java序列化流的首字节(STREAM_MAGIC 0xACED)
+     */
+    public static final byte ID = (byte) 0xAC;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        if (!(value instanceof Serializable)) {
+            throw new CacheClientException("对象未实现Serializable: " + (value == null ? null : value.getClass().getName()));
+        }
+        return SerializerUtil.defaultSerialize((Serializable) value);
+    }
+
+    @Override
+    public Object decode(byte[] data, int offset, int length) {
+        if (offset == 0 && length == data.length) {
+            return SerializerUtil.defaultDeserialize(data);
+        }
+        return SerializerUtil.defaultDeserialize(Arrays.copyOfRange(data, offset, offset + length));
+    }
+}
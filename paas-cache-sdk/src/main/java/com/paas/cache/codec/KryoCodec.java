@@ -0,0 +1,51 @@
+package com.paas.cache.codec;
+
+import java.util.List;
+
+/**
+ * kryo 类型化编码, 按声明的类型读写, 值中不写入类信息; 与 setObjectEx 的kryo编码格式不同, 不能混用。
+ * <p>
+ * 不指定注册列表的实例共用 {@link ObjectCodecs#DEFAULT} 的 KryoObjectCodec, 每个线程只有一个 Kryo 实例;
+ * 指定注册列表时各自创建, 需要共用时传入同一个 KryoObjectCodec(如 {@link ObjectCodecs#getKryo()})
+ */
+public class KryoCodec<T> implements Codec<T> {
+
+    private final Class<T> type;
+    private final KryoObjectCodec kryo;
+
+    public KryoCodec(Class<T> type) {
+        this(type, ObjectCodecs.DEFAULT.getKryo());
+    }
+
+    /**
+     * @param classNames 需要注册的类名, 规则同 KryoObjectCodec
+     */
+    public KryoCodec(Class<T> type, List<String> classNames) {
+        this(type, new KryoObjectCodec(classNames));
+    }
+
+    /**
+     * @param kryo 共用的kryo编码
+     */
+    public KryoCodec(Class<T> type, KryoObjectCodec kryo) {
+        this.type = type;
+        this.kryo = kryo;
+    }
+
+    @Override
+    public byte[] encode(T value) {
+        return kryo.writeObject(value);
+    }
+
+    @Override
+    public T decode(byte[] data) {
+        return kryo.readObject(data, type);
+    }
+
+    @Override
+    public String toString() {
+        return "KryoCodec{" +
+                "type=" + type.getName() +
+                '}';
+    }
+}
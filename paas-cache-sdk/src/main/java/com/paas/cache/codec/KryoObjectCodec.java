@@ -0,0 +1,149 @@
+package com.paas.cache.codec;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import com.paas.cache.exception.CacheClientException;
+import org.objenesis.strategy.StdInstantiatorStrategy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * kryo 编码, 每个线程一个 Kryo 实例及输出缓冲区(Kryo本身非线程安全)。
+ * <p>
+ * 配置的类按顺序以固定id注册, 注册后只写id不写类名; 读写双方的注册列表必须一致, 只能在末尾追加。
+ * 未注册的类仍可编码, 此时写入完整类名
+ */
+public class KryoObjectCodec implements ObjectCodec {
+    protected static Logger log = LoggerFactory.getLogger(KryoObjectCodec.class);
+
+    public static final String NAME = "kryo";
+    public static final byte ID = 0x01;
+
+    // 注册id起始值, 小于该值的id为kryo内置类型保留
+    private static final int FIRST_REGISTRATION_ID = 100;
+    private static final int BUFFER_SIZE = 4096;
+    // 超过该大小的输出缓冲区用完即丢弃, 避免线程长期持有大数组
+    private static final int MAX_CACHED_BUFFER = 256 * 1024;
+
+    private final List<Class<?>> registrations;
+    private final ThreadLocal<Kryo> kryos = new ThreadLocal<Kryo>() {
+        @Override
+        protected Kryo initialValue() {
+            return newKryo();
+        }
+    };
+    private final ThreadLocal<Output> outputs = new ThreadLocal<Output>() {
+        @Override
+        protected Output initialValue() {
+            return new Output(BUFFER_SIZE, -1);
+        }
+    };
+
+    public KryoObjectCodec() {
+        this(null);
+    }
+
+    /**
+     * @param classNames 需要注册的类名, 找不到的类跳过且不影响其它类的id
+     */
+    public KryoObjectCodec(List<String> classNames) {
+        List<Class<?>> classes = new ArrayList<>();
+        if (classNames != null) {
+            ClassLoader loader = Thread.currentThread().getContextClassLoader();
+            for (String className : classNames) {
+                // 以"."结尾的为fastjson使用的包名前缀, 保留位置以免影响其后类的id
+                if (className.endsWith(".")) {
+                    classes.add(null);
+                    continue;
+                }
+                try {
+                    classes.add(Class.forName(className.trim(), false, loader));
+                } catch (ClassNotFoundException | LinkageError e) {
+                    log.warn(" ---> kryo register class not found: {}", className);
+                    classes.add(null);
+                }
+            }
+        }
+        this.registrations = Collections.unmodifiableList(classes);
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public byte getId() {
+        return ID;
+    }
+
+    @Override
+    public byte[] encode(Object value) {
+        return write(value, true);
+    }
+
+    @Override
+    public Object decode(byte[] data, int offset, int length) {
+        try {
+            return kryos.get().readClassAndObject(new Input(data, offset, length));
+        } catch (RuntimeException e) {
+            throw new CacheClientException("kryo解码失败: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * 按已知类型编码, 不写入类信息, 由 KryoCodec 使用
+     */
+    byte[] writeObject(Object value) {
+        return write(value, false);
+    }
+
+    <T> T readObject(byte[] data, Class<T> type) {
+        try {
+            return kryos.get().readObject(new Input(data), type);
+        } catch (RuntimeException e) {
+            throw new CacheClientException("kryo解码失败: " + e.getMessage(), e);
+        }
+    }
+
+    private byte[] write(Object value, boolean withClass) {
+        Output output = outputs.get();
+        output.clear();
+        try {
+            if (withClass) {
+                kryos.get().writeClassAndObject(output, value);
+            } else {
+                kryos.get().writeObject(output, value);
+            }
+            return output.toBytes();
+        } catch (RuntimeException e) {
+            throw new CacheClientException("kryo编码失败: " + e.getMessage(), e);
+        } finally {
+            if (output.getBuffer().length > MAX_CACHED_BUFFER) {
+                outputs.remove();
+            }
+        }
+    }
+
+    private Kryo newKryo() {
+        Kryo kryo = new Kryo();
+        kryo.setReferences(true);
+        kryo.setRegistrationRequired(false);
+        // 没有无参构造函数的类直接创建实例, 与java序列化的适用范围一致
+        Kryo.DefaultInstantiatorStrategy strategy = new Kryo.DefaultInstantiatorStrategy();
+        strategy.setFallbackInstantiatorStrategy(new StdInstantiatorStrategy());
+        kryo.setInstantiatorStrategy(strategy);
+        for (int i = 0; i < registrations.size(); i++) {
+            Class<?> type = registrations.get(i);
+            if (type != null) {
+                kryo.register(type, FIRST_REGISTRATION_ID + i);
+            }
+        }
+        return kryo;
+    }
+}
@@ -0,0 +1,24 @@
+package com.paas.cache.codec;
+
+import java.io.Serializable;
+
+/**
+ * 缓存的空结果, 编码为单个0字节, 与具体编码无关
+ */
+public final class NullValue implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final NullValue INSTANCE = new NullValue();
+
+    private NullValue() {
+    }
+
+    private Object readResolve() {
+        return INSTANCE;
+    }
+
+    @Override
+    public String toString() {
+        return "NullValue";
+    }
+}
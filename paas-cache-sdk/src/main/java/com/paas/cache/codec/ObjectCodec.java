@@ -0,0 +1,27 @@
+package com.paas.cache.codec;
+
+/**
+ * setObjectEx/getObject 使用的对象编码, 实现必须线程安全
+ */
+public interface ObjectCodec {
+
+    /**
+     * 编码名称, 与 JedisConfig.codec 配置对应
+     */
+    String getName();
+
+    /**
+     * 写入值首字节的编码标识, 读取时据此选择编码
+     */
+    byte getId();
+
+    /**
+     * 编码对象, 结果不含标识字节
+     */
+    byte[] encode(Object value);
+
+    /**
+     * 解码 data 中 offset 开始的 length 个字节
+     */
+    Object decode(byte[] data, int offset, int length);
+}
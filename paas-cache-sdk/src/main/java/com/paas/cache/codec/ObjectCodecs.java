@@ -0,0 +1,94 @@
+package com.paas.cache.codec;
+
+import com.paas.cache.exception.CacheClientException;
+import com.paas.cache.jedis.JedisConfig;
+
+/**
+ * 客户端使用的对象编码: 按配置选择写入编码, 读取时按首字节识别任一支持的编码。
+ * <p>
+ * 除java编码外, 写入的值为 标识字节 + 编码结果; java编码保持原格式,
+ * 因此切换编码期间已有的java序列化数据仍可读取, 新旧版本客户端可以混合部署(旧版本只能读取java编码)
+ */
+public class ObjectCodecs {
+
+    /**
+     * java编码, 未配置时使用
+     */
+    public static final ObjectCodecs DEFAULT = new ObjectCodecs(null);
+
+    // NullValue 的编码
+    private static final byte NULL_ID = 0x00;
+
+    private final JavaObjectCodec java = new JavaObjectCodec();
+    private final KryoObjectCodec kryo;
+    private final FastjsonObjectCodec fastjson;
+    private final ObjectCodec writer;
+
+    public ObjectCodecs(JedisConfig config) {
+        String name = config == null || config.getCodec() == null ? JavaObjectCodec.NAME : config.getCodec().trim();
+        this.kryo = new KryoObjectCodec(config == null ? null : config.getCodecClasses());
+        this.fastjson = new FastjsonObjectCodec(config == null ? null : config.getCodecClasses());
+        if (JavaObjectCodec.NAME.equalsIgnoreCase(name)) {
+            this.writer = java;
+        } else if (KryoObjectCodec.NAME.equalsIgnoreCase(name)) {
+            this.writer = kryo;
+        } else if (FastjsonObjectCodec.NAME.equalsIgnoreCase(name)) {
+            this.writer = fastjson;
+        } else {
+            throw new CacheClientException("不支持的编码: " + name);
+        }
+    }
+
+    public ObjectCodec getWriter() {
+        return writer;
+    }
+
+    /**
+     * kryo 编码, 使用相同注册列表的 KryoCodec 可共用, 避免每个线程重复创建 Kryo 实例
+     */
+    public KryoObjectCodec getKryo() {
+        return kryo;
+    }
+
+    public byte[] encode(Object value) {
+        if (value instanceof NullValue) {
+            return new byte[]{NULL_ID};
+        }
+        if (writer == java) {
+            return java.encode(value);
+        }
+        byte[] encoded = writer.encode(value);
+        byte[] data = new byte[encoded.length + 1];
+        data[0] = writer.getId();
+        System.arraycopy(encoded, 0, data, 1, encoded.length);
+        return data;
+    }
+
+    public Object decode(byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (data.length == 0) {
+            throw new CacheClientException("对象数据为空");
+        }
+        switch (data[0]) {
+            case NULL_ID:
+                return NullValue.INSTANCE;
+            case JavaObjectCodec.ID:
+                return java.decode(data, 0, data.length);
+            case KryoObjectCodec.ID:
+                return kryo.decode(data, 1, data.length - 1);
+            case FastjsonObjectCodec.ID:
+                return fastjson.decode(data, 1, data.length - 1);
+            default:
+                throw new CacheClientException("未知的对象编码: " + data[0]);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ObjectCodecs{" +
+                "writer=" + writer.getName() +
+                '}';
+    }
+}
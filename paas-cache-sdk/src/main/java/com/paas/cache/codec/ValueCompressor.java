@@ -0,0 +1,203 @@
+package com.paas.cache.codec;
+
+import com.paas.cache.exception.CacheClientException;
+import com.paas.cache.jedis.JedisConfig;
+import com.paas.cache.metrics.CompressionMetrics;
+
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 二进制值压缩, 超过阀值的值使用 deflate 压缩, 格式为: 魔数(4字节) + 原始长度(4字节) + deflate数据。
+ * <p>
+ * 读取时按魔数识别, 与是否开启压缩无关, 关闭压缩后已写入的压缩值仍可读取;
+ * 未压缩的值恰好以魔数开头时写入前加转义前缀, 读取时去掉, 因此经代理写入的值只有压缩值会被解压。
+ * 解压前校验原始长度的上限, 解压后校验长度与记录一致。
+ * 压缩后未减少至少1/8时按原值写入。Deflater/Inflater 每个线程一个, 复用其本地内存
+ */
+public class ValueCompressor {
+
+    /**
+     * 只解压不压缩, 未开启压缩时使用
+     */
+    public static final ValueCompressor DISABLED = new ValueCompressor(null, null);
+
+    private static final byte[] MAGIC = {0x00, 'P', 'Z', 0x01};
+    // 以魔数开头的未压缩值的转义前缀
+    private static final byte[] RAW_MAGIC = {0x00, 'P', 'Z', 0x00};
+    private static final int HEADER_LENGTH = MAGIC.length + 4;
+    // redis字符串的最大长度
+    private static final int MAX_ORIGINAL_LENGTH = 512 * 1024 * 1024;
+    // deflate 的最大压缩比
+    private static final int MAX_RATIO = 1032;
+    private static final int DEFAULT_THRESHOLD = 4096;
+    private static final ThreadLocal<Inflater> INFLATERS = new ThreadLocal<Inflater>() {
+        @Override
+        protected Inflater initialValue() {
+            return new Inflater(true);
+        }
+    };
+
+    private final boolean enabled;
+    private final int threshold;
+    private final int level;
+    private final CompressionMetrics metrics;
+    private final ThreadLocal<Deflater> deflaters = new ThreadLocal<Deflater>() {
+        @Override
+        protected Deflater initialValue() {
+            return new Deflater(level, true);
+        }
+    };
+
+    /**
+     * @param config  压缩配置, 为空或未开启时只解压
+     * @param metrics 压缩统计, 可为空
+     */
+    public ValueCompressor(JedisConfig.CompressionConfig config, CompressionMetrics metrics) {
+        this.enabled = config != null && Boolean.TRUE.equals(config.getEnabled());
+        this.threshold = config == null || config.getThreshold() == null ? DEFAULT_THRESHOLD : config.getThreshold();
+        this.level = config == null || config.getLevel() == null ? Deflater.BEST_SPEED : config.getLevel();
+        this.metrics = metrics;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public byte[] compress(byte[] value) {
+        if (!enabled || value == null || value.length < threshold) {
+            return escape(value);
+        }
+        long begin = System.nanoTime();
+        Deflater deflater = deflaters.get();
+        // 只接受压缩到原长度7/8以内的结果
+        int limit = HEADER_LENGTH + value.length - (value.length >>> 3);
+        byte[] buffer = new byte[limit];
+        int length = HEADER_LENGTH;
+        try {
+            deflater.setInput(value);
+            deflater.finish();
+            while (!deflater.finished() && length < limit) {
+                length += deflater.deflate(buffer, length, limit - length);
+            }
+            if (!deflater.finished()) {
+                if (metrics != null) {
+                    metrics.recordSkip(System.nanoTime() - begin);
+                }
+                return escape(value);
+            }
+        } finally {
+            deflater.reset();
+        }
+        System.arraycopy(MAGIC, 0, buffer, 0, MAGIC.length);
+        writeInt(buffer, MAGIC.length, value.length);
+        byte[] compressed = new byte[length];
+        System.arraycopy(buffer, 0, compressed, 0, length);
+        if (metrics != null) {
+            metrics.recordCompress(value.length, length, System.nanoTime() - begin);
+        }
+        return compressed;
+    }
+
+    public byte[] decompress(byte[] value) {
+        if (isEscaped(value)) {
+            return Arrays.copyOfRange(value, RAW_MAGIC.length, value.length);
+        }
+        if (!isCompressed(value)) {
+            return value;
+        }
+        long begin = System.nanoTime();
+        int originalLength = readInt(value, MAGIC.length);
+        if (originalLength < 0 || originalLength > MAX_ORIGINAL_LENGTH
+                || originalLength > (long) (value.length - HEADER_LENGTH) * MAX_RATIO) {
+            throw new CacheClientException("压缩数据长度无效: " + originalLength);
+        }
+        byte[] original = new byte[originalLength];
+        Inflater inflater = INFLATERS.get();
+        try {
+            inflater.setInput(value, HEADER_LENGTH, value.length - HEADER_LENGTH);
+            int length = 0;
+            while (length < originalLength) {
+                int n = inflater.inflate(original, length, originalLength - length);
+                if (n == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                length += n;
+            }
+            if (length != originalLength) {
+                throw new CacheClientException("压缩数据不完整: " + length + "/" + originalLength);
+            }
+            // 输出缓冲区恰好填满时结束标记可能尚未处理, 再解压一次确认没有多余数据
+            boolean overflow = !inflater.finished() && inflater.inflate(new byte[1]) > 0;
+            if (overflow || !inflater.finished() || inflater.getRemaining() > 0) {
+                throw new CacheClientException("压缩数据长度与记录不一致: " + originalLength);
+            }
+        } catch (DataFormatException e) {
+            throw new CacheClientException("压缩数据格式错误", e);
+        } finally {
+            inflater.reset();
+        }
+        if (metrics != null) {
+            metrics.recordDecompress(System.nanoTime() - begin);
+        }
+        return original;
+    }
+
+    public static boolean isCompressed(byte[] value) {
+        return value != null && value.length >= HEADER_LENGTH && startsWith(value, MAGIC);
+    }
+
+    /**
+     * 是否为压缩值或转义的原值, 读取时需经过 {@link #decompress(byte[])}
+     */
+    public static boolean isEncoded(byte[] value) {
+        return isCompressed(value) || isEscaped(value);
+    }
+
+    private static boolean isEscaped(byte[] value) {
+        return value != null && value.length >= RAW_MAGIC.length && startsWith(value, RAW_MAGIC);
+    }
+
+    // 原值会被读取方误认为压缩值或转义值时加转义前缀
+    private static byte[] escape(byte[] value) {
+        if (!isEncoded(value)) {
+            return value;
+        }
+        byte[] escaped = new byte[RAW_MAGIC.length + value.length];
+        System.arraycopy(RAW_MAGIC, 0, escaped, 0, RAW_MAGIC.length);
+        System.arraycopy(value, 0, escaped, RAW_MAGIC.length, value.length);
+        return escaped;
+    }
+
+    private static boolean startsWith(byte[] value, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (value[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeInt(byte[] data, int offset, int value) {
+        data[offset] = (byte) (value >>> 24);
+        data[offset + 1] = (byte) (value >>> 16);
+        data[offset + 2] = (byte) (value >>> 8);
+        data[offset + 3] = (byte) value;
+    }
+
+    private static int readInt(byte[] data, int offset) {
+        return ((data[offset] & 0xFF) << 24) | ((data[offset + 1] & 0xFF) << 16)
+                | ((data[offset + 2] & 0xFF) << 8) | (data[offset + 3] & 0xFF);
+    }
+
+    @Override
+    public String toString() {
+        return "ValueCompressor{" +
+                "enabled=" + enabled +
+                ", threshold=" + threshold +
+                ", level=" + level +
+                '}';
+    }
+}
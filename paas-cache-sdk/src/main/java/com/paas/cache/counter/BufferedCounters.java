@@ -0,0 +1,339 @@
+package com.paas.cache.counter;
+
+import com.paas.cache.ICacheClient;
+import com.paas.cache.batch.CacheBatch;
+import com.paas.cache.exception.CacheClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 合并写入的计数器, 用于高频且允许短暂延迟的计数(曝光、PV等)。
+ * <p>
+ * 增量先累加到进程内以 key(及field/member)区分的 LongAdder/DoubleAdder, 每 flushInterval 毫秒或累计约 maxPending 次更新后,
+ * 由后台线程将每个计数的合计以一条 incrBy/hincrBy/hincrByFloat/zincrby 通过 executeBatch 批量提交。
+ * 提交失败的增量加回本地, 下次重试, 因此redis中的计数最终准确(响应丢失时可能重复计入)。
+ * <p>
+ * 连续两次没有更新的计数从本地移除, 下一次提交时再取一次余量。
+ * shutdown 或进程正常退出时提交剩余增量, 之后的写入直接发送到redis
+ */
+public class BufferedCounters {
+    protected static Logger log = LoggerFactory.getLogger(BufferedCounters.class);
+
+    private static final int FLUSH_BATCH_SIZE = 500;
+    private static final int IDLE_FLUSHES = 2;
+    private static final int MAX_CHECK_INTERVAL = 64;
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    private final ICacheClient client;
+    private final long maxPending;
+    private final int checkInterval;
+    private final ConcurrentHashMap<CounterKey, Cell> cells = new ConcurrentHashMap<>();
+    // 上次提交时移除的计数, 只在 flush 中访问
+    private List<Cell> retired = new ArrayList<>();
+    private final LongAdder pending = new LongAdder();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final ScheduledExecutorService flusher;
+    private final Thread shutdownHook;
+    private volatile boolean closed;
+
+    /**
+     * @param client              缓存客户端
+     * @param flushIntervalMillis 提交间隔(毫秒)
+     * @param maxPending          累计更新次数达到该值时提前提交
+     */
+    public BufferedCounters(ICacheClient client, long flushIntervalMillis, long maxPending) {
+        if (flushIntervalMillis <= 0 || maxPending <= 0) {
+            throw new CacheClientException("参数无效");
+        }
+        this.client = client;
+        this.maxPending = maxPending;
+        this.checkInterval = (int) Math.min(MAX_CHECK_INTERVAL, maxPending);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "paas-cache-counter-" + SEQUENCE.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        flusher.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                flushQuietly();
+            }
+        }, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        this.shutdownHook = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                shutdown();
+            }
+        }, "paas-cache-counter-shutdown");
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    public void incrBy(String key, long delta) {
+        if (closed) {
+            client.incrBy(key, delta);
+            return;
+        }
+        cell(new CounterKey(Type.INCR_BY, key, null)).longs.add(delta);
+        updated();
+    }
+
+    public void hincrBy(String key, String field, long delta) {
+        if (closed) {
+            client.hincrBy(key, field, delta);
+            return;
+        }
+        cell(new CounterKey(Type.HINCR_BY, key, field)).longs.add(delta);
+        updated();
+    }
+
+    public void hincrByFloat(String key, String field, double delta) {
+        if (closed) {
+            client.hincrByFloat(key, field, delta);
+            return;
+        }
+        cell(new CounterKey(Type.HINCR_BY_FLOAT, key, field)).doubles.add(delta);
+        updated();
+    }
+
+    public void zincrby(String key, double score, String member) {
+        if (closed) {
+            client.zincrby(key, score, member);
+            return;
+        }
+        cell(new CounterKey(Type.ZINCRBY, key, member)).doubles.add(score);
+        updated();
+    }
+
+    /**
+     * 立即提交本地累计的增量, 与后台提交串行执行
+     */
+    public synchronized void flush() {
+        pending.reset();
+        CacheBatch batch = new CacheBatch();
+        List<Delta> deltas = new ArrayList<>();
+        List<Cell> previous = retired;
+        retired = new ArrayList<>();
+        for (Cell cell : previous) {
+            drain(cell, batch, deltas);
+        }
+        for (Cell cell : cells.values()) {
+            if (drain(cell, batch, deltas)) {
+                cell.idle = 0;
+            } else if (++cell.idle >= IDLE_FLUSHES && cells.remove(cell.key, cell)) {
+                retired.add(cell);
+            }
+            if (batch.size() >= FLUSH_BATCH_SIZE) {
+                execute(batch, deltas);
+                batch = new CacheBatch();
+                deltas = new ArrayList<>();
+            }
+        }
+        execute(batch, deltas);
+    }
+
+    /**
+     * 停止后台提交并提交剩余增量, 之后的写入直接发送到redis
+     */
+    public void shutdown() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                // 进程正在退出
+            }
+        }
+    }
+
+    /**
+     * 本地计数的数量
+     */
+    public int getCellCount() {
+        return cells.size();
+    }
+
+    private Cell cell(CounterKey key) {
+        Cell cell = cells.get(key);
+        return cell != null ? cell : cells.computeIfAbsent(key, Cell::new);
+    }
+
+    // 抽样检查累计次数, 避免每次更新都汇总 LongAdder
+    private void updated() {
+        pending.increment();
+        if (ThreadLocalRandom.current().nextInt(checkInterval) == 0 && pending.sum() >= maxPending
+                && flushRequested.compareAndSet(false, true)) {
+            try {
+                flusher.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        flushRequested.set(false);
+                        flushQuietly();
+                    }
+                });
+            } catch (RuntimeException e) {
+                // 已关闭, 由 shutdown 提交
+                flushRequested.set(false);
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Throwable t) {
+            log.error(" ---> flush buffered counters error. ", t);
+        }
+    }
+
+    // 取出增量加入批量, 无增量时返回false
+    private boolean drain(Cell cell, CacheBatch batch, List<Delta> deltas) {
+        CounterKey key = cell.key;
+        if (cell.longs != null) {
+            long delta = cell.longs.sumThenReset();
+            if (delta == 0) {
+                return false;
+            }
+            if (key.type == Type.INCR_BY) {
+                batch.incrBy(key.key, delta);
+            } else {
+                batch.hincrBy(key.key, key.field, delta);
+            }
+            deltas.add(new Delta(key, delta, 0));
+        } else {
+            double delta = cell.doubles.sumThenReset();
+            if (delta == 0) {
+                return false;
+            }
+            if (key.type == Type.HINCR_BY_FLOAT) {
+                batch.hincrByFloat(key.key, key.field, delta);
+            } else {
+                batch.zincrby(key.key, delta, key.field);
+            }
+            deltas.add(new Delta(key, 0, delta));
+        }
+        return true;
+    }
+
+    private void execute(CacheBatch batch, List<Delta> deltas) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<Object> results;
+        try {
+            results = client.executeBatch(batch);
+        } catch (RuntimeException e) {
+            log.warn(" ---> flush {} counters fail, retry next time. cause: {}", deltas.size(), e.getMessage());
+            for (Delta delta : deltas) {
+                restore(delta);
+            }
+            return;
+        }
+        int failed = 0;
+        for (int i = 0; i < deltas.size(); i++) {
+            if (results.get(i) instanceof Throwable) {
+                restore(deltas.get(i));
+                failed++;
+            }
+        }
+        if (failed > 0) {
+            log.warn(" ---> flush {} of {} counters fail, retry next time.", failed, deltas.size());
+        }
+    }
+
+    private void restore(Delta delta) {
+        Cell cell = cell(delta.key);
+        if (cell.longs != null) {
+            cell.longs.add(delta.longs);
+        } else {
+            cell.doubles.add(delta.doubles);
+        }
+    }
+
+    private enum Type {
+        INCR_BY, HINCR_BY, HINCR_BY_FLOAT, ZINCRBY
+    }
+
+    private static final class CounterKey {
+        final Type type;
+        final String key;
+        // hash的field或有序集合的member
+        final String field;
+
+        CounterKey(Type type, String key, String field) {
+            this.type = type;
+            this.key = key;
+            this.field = field;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof CounterKey)) {
+                return false;
+            }
+            CounterKey that = (CounterKey) o;
+            return type == that.type && key.equals(that.key) && Objects.equals(field, that.field);
+        }
+
+        @Override
+        public int hashCode() {
+            return (type.hashCode() * 31 + key.hashCode()) * 31 + Objects.hashCode(field);
+        }
+    }
+
+    private static final class Cell {
+        final CounterKey key;
+        final LongAdder longs;
+        final DoubleAdder doubles;
+        // 连续没有增量的提交次数, 只在 flush 中访问
+        int idle;
+
+        Cell(CounterKey key) {
+            this.key = key;
+            boolean integer = key.type == Type.INCR_BY || key.type == Type.HINCR_BY;
+            this.longs = integer ? new LongAdder() : null;
+            this.doubles = integer ? null : new DoubleAdder();
+        }
+    }
+
+    private static final class Delta {
+        final CounterKey key;
+        final long longs;
+        final double doubles;
+
+        Delta(CounterKey key, long longs, double doubles) {
+            this.key = key;
+            this.longs = longs;
+            this.doubles = doubles;
+        }
+    }
+}
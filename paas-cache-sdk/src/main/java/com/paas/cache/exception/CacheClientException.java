@@ -7,6 +7,9 @@ import redis.clients.jedis.exceptions.JedisConnectionException;
  */
 public class CacheClientException extends RuntimeException {
 
+    // 与添加 (String, Throwable) 构造方法前默认计算的值一致, 兼容已序列化的异常
+    private static final long serialVersionUID = 8971894747829872451L;
+
     public CacheClientException() {
         super();
     }
@@ -15,6 +18,10 @@ public class CacheClientException extends RuntimeException {
         super(msg);
     }
 
+    public CacheClientException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+
     public CacheClientException(Exception e) {
         super(e);
     }
@@ -0,0 +1,69 @@
+package com.paas.cache.hot;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * 计数的近似统计, 每行按不同的哈希定位计数器, 取各行最小值作为估算值, 只会高估不会低估。
+ * 内存固定为 depth * width 个int, 与key数量无关
+ */
+public class CountMinSketch {
+
+    private static final int DEPTH = 4;
+
+    private final AtomicIntegerArray counters;
+    private final int mask;
+
+    /**
+     * @param width 每行计数器个数, 向上取2的幂
+     */
+    public CountMinSketch(int width) {
+        int w = Integer.highestOneBit(Math.max(16, width - 1) << 1);
+        this.mask = w - 1;
+        this.counters = new AtomicIntegerArray(DEPTH * w);
+    }
+
+    /**
+     * 计数加1, 返回加1后的估算值
+     */
+    public int add(int hash) {
+        int h2 = spread(hash);
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            int index = i * (mask + 1) + ((hash + i * h2) & mask);
+            int count = counters.get(index);
+            // 已饱和的计数器不再增加
+            if (count < Integer.MAX_VALUE) {
+                count = counters.incrementAndGet(index);
+            }
+            min = Math.min(min, count);
+        }
+        return min;
+    }
+
+    public int estimate(int hash) {
+        int h2 = spread(hash);
+        int min = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            min = Math.min(min, counters.get(i * (mask + 1) + ((hash + i * h2) & mask)));
+        }
+        return min;
+    }
+
+    /**
+     * 全部计数减半, 使统计偏向最近的访问
+     */
+    public void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            int count = counters.get(i);
+            if (count != 0) {
+                counters.set(i, count >>> 1);
+            }
+        }
+    }
+
+    // 第二个哈希为奇数, 各行位置不同
+    private static int spread(int hash) {
+        int h = hash * 0x9E3779B9;
+        return (h ^ (h >>> 16)) | 1;
+    }
+}
@@ -0,0 +1,33 @@
+package com.paas.cache.hot;
+
+/**
+ * 热点key及其在当前衰减周期内的估算读取次数
+ */
+public class HotKey {
+    private final String key;
+    private final long count;
+
+    public HotKey(String key, long count) {
+        this.key = key;
+        this.count = count;
+    }
+
+    /**
+     * redis中实际的key(已加业务后缀)
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "HotKey{" +
+                "key='" + key + '\'' +
+                ", count=" + count +
+                '}';
+    }
+}
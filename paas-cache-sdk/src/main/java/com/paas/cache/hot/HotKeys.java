@@ -0,0 +1,223 @@
+package com.paas.cache.hot;
+
+import com.paas.cache.jedis.JedisConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 进程内的热点key统计, 位于 ClientProxy 中, 每个业务编码一个。
+ * <p>
+ * 读取按采样率记入 CountMinSketch, 估算次数较大的key进入前K个; 每个衰减周期全部计数减半, 只反映最近的访问。
+ * 开启 promote 后, 前K个中估算次数达到阀值的key在本地保存 localTtl 秒的副本, 期间不再访问redis。
+ * 经同一代理的写操作立即失效本地副本, 其它进程的写入在副本过期后可见。
+ * <p>
+ * key以加后缀后UTF-8字节的ISO-8859-1形式作为标识, 字符串key与二进制key一致
+ */
+public class HotKeys {
+
+    private static final Object NULL = new Object();
+    private static final int SKETCH_WIDTH_PER_KEY = 64;
+
+    private final int sampling;
+    private final long threshold;
+    private final long decayMillis;
+    private final boolean promote;
+    private final long ttlMillis;
+    private final int maxCopies;
+    private final CountMinSketch sketch;
+    private final TopK topK;
+    private final AtomicLong nextDecay;
+    private final ConcurrentHashMap<String, Copy> copies = new ConcurrentHashMap<>();
+    // 每次失效加1(先于移除副本), 读取期间发生失效时不保存读取结果
+    private final AtomicLong version = new AtomicLong();
+    private final LongAdder localHits = new LongAdder();
+
+    public HotKeys(JedisConfig.HotKeyConfig config) {
+        this.sampling = Math.max(1, config.getSampling());
+        this.threshold = config.getThreshold();
+        this.decayMillis = Math.max(1, config.getDecayInterval()) * 1000L;
+        this.promote = Boolean.TRUE.equals(config.getPromote());
+        this.ttlMillis = config.getLocalTtl() * 1000L;
+        this.maxCopies = config.getTopK() * 2;
+        this.sketch = new CountMinSketch(config.getTopK() * SKETCH_WIDTH_PER_KEY);
+        this.topK = new TopK(config.getTopK());
+        this.nextDecay = new AtomicLong(System.currentTimeMillis() + decayMillis);
+    }
+
+    /**
+     * 记录一次读取, 热点key有本地副本时直接返回, 否则通过reader读取
+     *
+     * @param key    已加后缀的key
+     * @param view   读取方式, 区分同一key的不同读取结果
+     * @param reader 从redis读取
+     */
+    public <T> T get(String key, String view, Supplier<T> reader) {
+        return read(id(key), view, reader);
+    }
+
+    public <T> T get(byte[] key, String view, Supplier<T> reader) {
+        return read(new String(key, StandardCharsets.ISO_8859_1), view, reader);
+    }
+
+    /**
+     * 写操作后调用, 失效本地副本
+     *
+     * @param key 已加后缀的key
+     */
+    public void invalidate(String key) {
+        if (promote) {
+            version.incrementAndGet();
+            copies.remove(id(key));
+        }
+    }
+
+    public void invalidate(byte[] key) {
+        if (promote) {
+            version.incrementAndGet();
+            copies.remove(new String(key, StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    /**
+     * 估算读取次数达到阀值的key, 按次数从大到小排列
+     */
+    public List<HotKey> getHotKeys() {
+        List<HotKey> hotKeys = new ArrayList<>();
+        for (HotKey hotKey : getTopKeys()) {
+            if (hotKey.getCount() >= threshold) {
+                hotKeys.add(hotKey);
+            }
+        }
+        return hotKeys;
+    }
+
+    /**
+     * 读取最多的前K个key, 按次数从大到小排列, 次数为按采样率换算后的估算值
+     */
+    public List<HotKey> getTopKeys() {
+        List<TopK.Candidate> candidates = topK.snapshot();
+        List<HotKey> topKeys = new ArrayList<>(candidates.size());
+        for (TopK.Candidate candidate : candidates) {
+            String key = new String(candidate.id.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.UTF_8);
+            topKeys.add(new HotKey(key, candidate.count * sampling));
+        }
+        return topKeys;
+    }
+
+    /**
+     * @param key 已加后缀的key
+     */
+    public boolean isHot(String key) {
+        return isHotId(id(key));
+    }
+
+    /**
+     * 从本地副本返回的次数
+     */
+    public long getLocalHitCount() {
+        return localHits.sum();
+    }
+
+    public int getLocalCopyCount() {
+        return copies.size();
+    }
+
+    public void clear() {
+        version.incrementAndGet();
+        copies.clear();
+        topK.clear();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T read(String id, String view, Supplier<T> reader) {
+        record(id);
+        if (!promote || !isHotId(id)) {
+            return reader.get();
+        }
+        long now = System.currentTimeMillis();
+        Copy copy = copies.get(id);
+        if (copy != null && copy.expireAt > now) {
+            Object value = copy.views.get(view);
+            if (value != null) {
+                localHits.increment();
+                return value == NULL ? null : (T) value;
+            }
+        }
+        long current = version.get();
+        T loaded = reader.get();
+        if (version.get() == current) {
+            if (copy == null || copy.expireAt <= now) {
+                copy = new Copy(now + ttlMillis);
+                copies.put(id, copy);
+                purge(now);
+            }
+            copy.views.put(view, loaded == null ? NULL : loaded);
+            // 检查与保存之间发生的写操作可能已先失效, 保存后再检查一次
+            if (version.get() != current) {
+                copies.remove(id, copy);
+            }
+        }
+        return loaded;
+    }
+
+    private boolean isHotId(String id) {
+        return topK.count(id) * sampling >= threshold;
+    }
+
+    private void record(String id) {
+        if (sampling > 1 && ThreadLocalRandom.current().nextInt(sampling) != 0) {
+            return;
+        }
+        decayIfDue();
+        topK.offer(id, sketch.add(id.hashCode()));
+    }
+
+    private void decayIfDue() {
+        long now = System.currentTimeMillis();
+        long next = nextDecay.get();
+        if (now >= next && nextDecay.compareAndSet(next, now + decayMillis)) {
+            sketch.halve();
+            topK.halve();
+        }
+    }
+
+    // 已不是热点的key的副本过期后移除
+    private void purge(long now) {
+        if (copies.size() <= maxCopies) {
+            return;
+        }
+        Iterator<Map.Entry<String, Copy>> it = copies.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getValue().expireAt <= now) {
+                it.remove();
+            }
+        }
+    }
+
+    private static String id(String key) {
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) >= 0x80) {
+                return new String(key.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+            }
+        }
+        return key;
+    }
+
+    private static final class Copy {
+        final long expireAt;
+        final ConcurrentHashMap<String, Object> views = new ConcurrentHashMap<>(4);
+
+        Copy(long expireAt) {
+            this.expireAt = expireAt;
+        }
+    }
+}
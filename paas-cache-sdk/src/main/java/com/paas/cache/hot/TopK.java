@@ -0,0 +1,141 @@
+package com.paas.cache.hot;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * 估算次数最大的K个key, 以最小堆维护。
+ * <p>
+ * 已在前K个中的key只以CAS增大次数, 不加锁也不调整堆; 堆按入堆时的次数排序, 次数只增不减, 堆顶次数是真实最小值的下限。
+ * 新key次数不超过该下限时不加锁直接忽略, 否则加锁入堆: 先把次数已变化的堆顶重新入堆, 堆顶次数与真实一致后再比较淘汰
+ */
+class TopK {
+
+    private final int k;
+    private final PriorityQueue<Candidate> heap;
+    private final ConcurrentHashMap<String, Candidate> members = new ConcurrentHashMap<>();
+    // 已满时为堆顶的入堆次数, 未满时为0
+    private volatile long floor;
+
+    TopK(int k) {
+        this.k = Math.max(1, k);
+        this.heap = new PriorityQueue<>(this.k, Comparator.comparingLong(c -> c.heapCount));
+    }
+
+    void offer(String id, long count) {
+        Candidate candidate = members.get(id);
+        if (candidate != null) {
+            candidate.raise(count);
+            return;
+        }
+        if (count <= floor) {
+            return;
+        }
+        admit(id, count);
+    }
+
+    /**
+     * 不在前K个中时返回0
+     */
+    long count(String id) {
+        Candidate candidate = members.get(id);
+        return candidate == null ? 0 : candidate.count;
+    }
+
+    synchronized void halve() {
+        List<Candidate> all = new ArrayList<>(heap);
+        heap.clear();
+        for (Candidate candidate : all) {
+            long count = Candidate.COUNT.updateAndGet(candidate, c -> c >>> 1);
+            if (count > 0) {
+                candidate.heapCount = count;
+                heap.add(candidate);
+            } else {
+                members.remove(candidate.id);
+            }
+        }
+        updateFloor();
+    }
+
+    /**
+     * 按次数从大到小排列
+     */
+    synchronized List<Candidate> snapshot() {
+        List<Candidate> all = new ArrayList<>(heap.size());
+        for (Candidate candidate : heap) {
+            all.add(new Candidate(candidate.id, candidate.count));
+        }
+        all.sort(Comparator.comparingLong((Candidate c) -> c.count).reversed());
+        return all;
+    }
+
+    synchronized void clear() {
+        heap.clear();
+        members.clear();
+        floor = 0;
+    }
+
+    private synchronized void admit(String id, long count) {
+        Candidate candidate = members.get(id);
+        if (candidate != null) {
+            candidate.raise(count);
+            return;
+        }
+        if (heap.size() >= k) {
+            Candidate min = freshMin();
+            if (min.heapCount >= count) {
+                floor = min.heapCount;
+                return;
+            }
+            members.remove(heap.poll().id);
+        }
+        candidate = new Candidate(id, count);
+        heap.add(candidate);
+        members.put(id, candidate);
+        updateFloor();
+    }
+
+    // 堆顶次数已增大时重新入堆, 直到堆顶为真实最小值
+    private Candidate freshMin() {
+        Candidate min = heap.peek();
+        while (min.count != min.heapCount) {
+            heap.poll();
+            min.heapCount = min.count;
+            heap.add(min);
+            min = heap.peek();
+        }
+        return min;
+    }
+
+    private void updateFloor() {
+        floor = heap.size() < k ? 0 : heap.peek().heapCount;
+    }
+
+    static final class Candidate {
+        static final AtomicLongFieldUpdater<Candidate> COUNT = AtomicLongFieldUpdater.newUpdater(Candidate.class, "count");
+
+        final String id;
+        volatile long count;
+        // 在堆中排序用的次数, 只在持有锁时修改
+        long heapCount;
+
+        Candidate(String id, long count) {
+            this.id = id;
+            this.count = count;
+            this.heapCount = count;
+        }
+
+        void raise(long value) {
+            long current;
+            while (value > (current = count)) {
+                if (COUNT.compareAndSet(this, current, value)) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.paas.cache.jedis;
+
+import com.paas.cache.batch.KeyMapper;
+import com.paas.commons.env.EnvBean;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 按业务编码为key添加后缀, 规则与 ClientProxy 一致: 生产环境为 key + bizCode, 其它环境为 key + bizCode + env
+ * <p>
+ * 后缀字节在构造时计算一次, 每个key只分配一次结果数组(jedis要求key为完整的byte[]),
+ * 不再每次调用编码后缀; CharSequence key 按最终长度预分配 StringBuilder 拼接, 不需要扩容
+ */
+public class BizKeyMapper implements KeyMapper {
+
+    private static String env = EnvBean.getEnv();
+    private static boolean isProd = EnvBean.ENV_PROD.equals(env);
+
+    private final String suffix;
+    private final byte[] suffixBytes;
+
+    public BizKeyMapper(String bizCode) {
+        this.suffix = isProd ? bizCode : bizCode + env;
+        this.suffixBytes = suffix.getBytes();
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    @Override
+    public String map(String key) {
+        return key + suffix;
+    }
+
+    @Override
+    public byte[] map(byte[] key) {
+        byte[] target = new byte[key.length + suffixBytes.length];
+        System.arraycopy(key, 0, target, 0, key.length);
+        System.arraycopy(suffixBytes, 0, target, key.length, suffixBytes.length);
+        return target;
+    }
+
+    public String map(CharSequence key) {
+        if (key instanceof String) {
+            return map((String) key);
+        }
+        return new StringBuilder(key.length() + suffix.length()).append(key).append(suffix).toString();
+    }
+
+    /**
+     * 从buffer剩余部分直接复制到结果数组, 不改变buffer的position
+     */
+    public byte[] map(ByteBuffer key) {
+        int length = key.remaining();
+        byte[] target = new byte[length + suffixBytes.length];
+        key.duplicate().get(target, 0, length);
+        System.arraycopy(suffixBytes, 0, target, length, suffixBytes.length);
+        return target;
+    }
+
+    public String[] map(String... keys) {
+        String[] targets = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            targets[i] = keys[i] + suffix;
+        }
+        return targets;
+    }
+
+    public byte[][] map(byte[]... keys) {
+        byte[][] targets = new byte[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            targets[i] = map(keys[i]);
+        }
+        return targets;
+    }
+}
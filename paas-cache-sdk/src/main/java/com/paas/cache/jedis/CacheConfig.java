@@ -11,6 +11,10 @@ public class CacheConfig {
     private String configPath;
     private String zkAdress;
     private JedisConfig jedisConfig;
+    /**
+     * zk中的原始配置, 用于判断配置是否变化
+     */
+    private String rawConfig;
 
     public CacheConfig(){}
 
@@ -52,6 +56,14 @@ public class CacheConfig {
         this.configPath = configPath;
     }
 
+    public String getRawConfig() {
+        return rawConfig;
+    }
+
+    public void setRawConfig(String rawConfig) {
+        this.rawConfig = rawConfig;
+    }
+
     public String getZkAdress() {
         return zkAdress;
     }
@@ -1,31 +1,64 @@
 package com.paas.cache.jedis;
 
 import com.paas.cache.ICacheClient;
-import com.paas.commons.env.EnvBean;
+import com.paas.cache.batch.BatchCommand;
+import com.paas.cache.batch.CacheBatch;
+import com.paas.cache.batch.KeyMapper;
+import com.paas.cache.chunk.ValueChunker;
+import com.paas.cache.codec.Codec;
+import com.paas.cache.codec.CodecSupport;
+import com.paas.cache.codec.Codecs;
+import com.paas.cache.codec.ObjectCodecs;
+import com.paas.cache.codec.ValueCompressor;
+import com.paas.cache.exception.CacheClientException;
+import com.paas.cache.hot.HotKeys;
+import com.paas.cache.load.CacheAside;
+import com.paas.cache.load.CacheLoader;
+import com.paas.cache.load.RefreshAhead;
+import com.paas.cache.metrics.MetricsRegistry;
+import com.paas.cache.near.NearCache;
+import com.paas.cache.scan.CacheStreams;
+import com.paas.cache.scan.RangeIterator;
+import com.paas.cache.scan.ScanIterator;
+import com.paas.cache.script.CacheScript;
+import redis.clients.jedis.BinaryJedisPubSub;
+import redis.clients.jedis.ScanResult;
 import redis.clients.jedis.Tuple;
-
-import java.util.Arrays;
+import redis.clients.util.SafeEncoder;
+
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Created on 2016/9/28.
  */
 public class ClientProxy implements ICacheClient {
 
-    private static String env = EnvBean.getEnv();
-    private static boolean isProd = EnvBean.ENV_PROD.equals(env);
+    private static final String NEAR_CACHE_CHANNEL = "__paas_near_cache__";
 
-    private ICacheClient client;
+    private volatile ICacheClient client;
     private String bizCode;
-    private String bizCodeEnv;
+    private BizKeyMapper keys;
     private boolean needSuffix = true;
+    private volatile NearCache nearCache;
+    private volatile HotKeys hotKeys;
+    private volatile ValueCompressor compressor = ValueCompressor.DISABLED;
+    private volatile ValueChunker chunker = ValueChunker.DISABLED;
+    // 读写经过本代理, 因此使用业务后缀、本地缓存、压缩及耗时统计
+    private final CacheAside cacheAside = new CacheAside();
 
     public ClientProxy(ICacheClient client, String bizCode) {
         this.client = client;
         this.bizCode = bizCode;
-        this.bizCodeEnv = bizCode + env;
+        this.keys = new BizKeyMapper(bizCode);
     }
 
     public ClientProxy() {
@@ -46,9 +79,92 @@ public class ClientProxy implements ICacheClient {
         return this.client;
     }
 
+    /**
+     * 开启本地缓存, 失效消息频道按业务后缀区分
+     */
+    public synchronized void enableNearCache(JedisConfig.NearCacheConfig config) {
+        NearCache cache = new NearCache(config, client, pretKey(NEAR_CACHE_CHANNEL));
+        cache.start();
+        this.nearCache = cache;
+    }
+
+    /**
+     * 替换实际执行命令的客户端, 调用方持有的代理不变。
+     * 本地缓存按新配置基于新客户端重建, 旧的本地缓存关闭以释放其订阅连接; 旧客户端由调用方排空后关闭
+     *
+     * @param newClient       已预热的新客户端
+     * @param nearCacheConfig 新的本地缓存配置, 为空或未开启时关闭本地缓存
+     * @return 被替换的旧客户端
+     */
+    public synchronized ICacheClient swapClient(ICacheClient newClient, JedisConfig.NearCacheConfig nearCacheConfig) {
+        ICacheClient oldClient = this.client;
+        NearCache oldNearCache = this.nearCache;
+        this.client = newClient;
+        if (nearCacheConfig != null && Boolean.TRUE.equals(nearCacheConfig.getEnabled())) {
+            enableNearCache(nearCacheConfig);
+        } else {
+            this.nearCache = null;
+        }
+        if (oldNearCache != null) {
+            oldNearCache.close();
+        }
+        return oldClient;
+    }
+
+    public NearCache getNearCache() {
+        return nearCache;
+    }
+
+    /**
+     * 设置二进制值压缩, 配置为空或未开启时只解压已压缩的值; 压缩统计记录到业务编码对应的 CacheMetrics
+     */
+    public void enableCompression(JedisConfig.CompressionConfig config) {
+        this.compressor = new ValueCompressor(config, MetricsRegistry.get(bizCode).getCompression());
+    }
+
+    public ValueCompressor getCompressor() {
+        return compressor;
+    }
+
+    /**
+     * 设置大值分块, 配置为空或未开启时只读取已分块的值; 分块在压缩之后进行
+     */
+    public void enableChunking(JedisConfig.ChunkConfig config) {
+        this.chunker = new ValueChunker(config);
+    }
+
+    public ValueChunker getChunker() {
+        return chunker;
+    }
+
+    /**
+     * 设置热点key统计, 配置为空或未开启时关闭; 重新设置时统计重新开始
+     */
+    public void enableHotKeys(JedisConfig.HotKeyConfig config) {
+        this.hotKeys = config != null && Boolean.TRUE.equals(config.getEnabled()) ? new HotKeys(config) : null;
+    }
+
+    /**
+     * 热点key统计, 未开启时为null
+     */
+    public HotKeys getHotKeys() {
+        return hotKeys;
+    }
+
+    /**
+     * 设置 getOrLoad 的提前刷新, 配置为空或未开启时关闭; 原刷新线程池不再接收任务, 已提交的刷新继续执行
+     */
+    public void enableRefresh(JedisConfig.RefreshConfig config) {
+        RefreshAhead refresh = config != null && Boolean.TRUE.equals(config.getEnabled()) ? new RefreshAhead(config, bizCode) : null;
+        RefreshAhead old = cacheAside.setRefresh(refresh);
+        if (old != null) {
+            old.shutdown();
+        }
+    }
+
     protected void setBizCode(String bizCode) {
         this.bizCode = bizCode;
-        this.bizCodeEnv = bizCode + env;
+        this.keys = new BizKeyMapper(bizCode);
     }
 
     protected void setNeedSuffix(boolean needSuffix) {
@@ -57,59 +173,126 @@ public class ClientProxy implements ICacheClient {
 
     // pretreat key
     private String pretKey(String key) {
-        if (!needSuffix) {
-            return key;
+        return needSuffix ? keys.map(key) : key;
+    }
+
+    private String[] pretKeys(String... keys) {
+        return needSuffix ? this.keys.map(keys) : keys;
+    }
+
+    private byte[] pretKey(byte[] key) {
+        return needSuffix ? keys.map(key) : key;
+    }
+
+    private byte[][] pretKeys(byte[]... keys) {
+        return needSuffix ? this.keys.map(keys) : keys;
+    }
+
+    private Map<String, String> pretKeys(Map<String, String> keyValues) {
+        if (!needSuffix || keyValues == null) {
+            return keyValues;
         }
-        if (isProd) {
-            return key + bizCode;
+        Map<String, String> newKeyValues = new LinkedHashMap<>(keyValues.size() * 2);
+        for (Map.Entry<String, String> entry : keyValues.entrySet()) {
+            newKeyValues.put(keys.map(entry.getKey()), entry.getValue());
         }
-        return key + bizCodeEnv;
+        return newKeyValues;
     }
 
-    private String[] pretKeys(String... keys) {
-        if (!needSuffix) {
-            return keys;
+    // batch key mapper
+    private final KeyMapper keyMapper = new KeyMapper() {
+        @Override
+        public String map(String key) {
+            return pretKey(key);
+        }
+
+        @Override
+        public byte[] map(byte[] key) {
+            return pretKey(key);
+        }
+    };
+
+    private Map<byte[], byte[]> compress(Map<byte[], byte[]> hash) {
+        if (!compressor.isEnabled() || hash == null) {
+            return hash;
         }
-        if (isProd) {
-            return Arrays.stream(keys).map(str -> str + bizCode).toArray(String[]::new);
+        Map<byte[], byte[]> compressed = new LinkedHashMap<>(hash.size() * 2);
+        for (Map.Entry<byte[], byte[]> entry : hash.entrySet()) {
+            compressed.put(entry.getKey(), compressor.compress(entry.getValue()));
         }
-        return Arrays.stream(keys).map(str -> str + bizCodeEnv).toArray(String[]::new);
+        return compressed;
     }
 
-    private byte[] pretKey(byte[] key) {
-        if (!needSuffix) {
-            return key;
+    private List<byte[]> decompress(List<byte[]> values) {
+        if (values != null) {
+            for (int i = 0; i < values.size(); i++) {
+                byte[] value = values.get(i);
+                if (ValueCompressor.isEncoded(value)) {
+                    values.set(i, compressor.decompress(value));
+                }
+            }
         }
-        if (isProd) {
-            return contact(key, bizCode.getBytes());
+        return values;
+    }
+
+    // JedisByteHashMap 的 entrySet 为副本, 需要重新put
+    private Map<byte[], byte[]> decompress(Map<byte[], byte[]> hash) {
+        if (hash != null) {
+            for (Map.Entry<byte[], byte[]> entry : hash.entrySet()) {
+                if (ValueCompressor.isEncoded(entry.getValue())) {
+                    hash.put(entry.getKey(), compressor.decompress(entry.getValue()));
+                }
+            }
         }
-        return contact(key, bizCodeEnv.getBytes());
+        return hash;
     }
 
-    private byte[][] pretKeys(byte[]... keys) {
-        if (!needSuffix) {
-            return keys;
+    // 写操作后失效本地缓存
+    private <T> T afterWrite(String key, T result) {
+        if (nearCache != null && nearCache.accept(key)) {
+            nearCache.invalidate(key);
         }
-        if (isProd) {
-            return foreach(keys, bizCode.getBytes());
+        if (hotKeys != null) {
+            hotKeys.invalidate(key);
+        }
+        return result;
+    }
+
+    private <T> T afterWrite(byte[] key, T result) {
+        if (nearCache != null && nearCache.accept(key)) {
+            nearCache.invalidate(key);
+        }
+        if (hotKeys != null) {
+            hotKeys.invalidate(key);
+        }
+        return result;
+    }
+
+    private <T> T afterWrite(String[] keys, T result) {
+        if (nearCache != null || hotKeys != null) {
+            for (String key : keys) {
+                afterWrite(key, null);
+            }
         }
-        return foreach(keys, bizCodeEnv.getBytes());
+        return result;
     }
 
-    private byte[][] foreach(byte[][] keys, byte[] add) {
-        byte[][] newKeys = new byte[keys.length][];
-        int index = 0;
-        for (byte[] key : keys) {
-            newKeys[index++] = contact(key, add);
+    private <T> T afterWrite(byte[][] keys, T result) {
+        if (nearCache != null || hotKeys != null) {
+            for (byte[] key : keys) {
+                afterWrite(key, null);
+            }
         }
-        return newKeys;
+        return result;
     }
 
-    private byte[] contact(byte[] src1, byte[] src2) {
-        byte[] target = new byte[src1.length + src2.length];
-        System.arraycopy(src1, 0, target, 0, src1.length);
-        System.arraycopy(src2, 0, target, src1.length, src2.length);
-        return target;
+    private <T> T afterWrite(Map<String, String> keyValues, T result) {
+        if (nearCache != null || hotKeys != null) {
+            for (String key : keyValues.keySet()) {
+                afterWrite(key, null);
+            }
+        }
+        return result;
     }
 
 //    @Override
@@ -124,32 +307,42 @@ public class ClientProxy implements ICacheClient {
 
     @Override
     public String setex(String key, int seconds, String value) {
-        return client.setex(pretKey(key), seconds, value);
+        String k = pretKey(key);
+        return afterWrite(k, client.setex(k, seconds, value));
     }
 
     @Override
     public String get(String key) {
-        return client.get(pretKey(key));
+        if (nearCache != null && nearCache.accept(key)) {
+            return nearCache.get(pretKey(key), "get", (p, k) -> p.get(k));
+        }
+        String k = pretKey(key);
+        HotKeys hot = hotKeys;
+        return hot == null ? client.get(k) : hot.get(k, "get", () -> client.get(k));
     }
 
     @Override
     public Long del(String key) {
-        return client.del(pretKey(key));
+        String k = pretKey(key);
+        return afterWrite(k, client.del(k));
     }
 
     @Override
     public Long del(String... keys) {
-        return client.del(pretKeys(keys));
+        String[] ks = pretKeys(keys);
+        return afterWrite(ks, client.del(ks));
     }
 
     @Override
     public Long expire(String key, int seconds) {
-        return client.expire(pretKey(key), seconds);
+        String k = pretKey(key);
+        return afterWrite(k, client.expire(k, seconds));
     }
 
     @Override
     public Long expireAt(String key, long timestamp) {
-        return client.expireAt(pretKey(key), timestamp);
+        String k = pretKey(key);
+        return afterWrite(k, client.expireAt(k, timestamp));
     }
 
     @Override
@@ -164,22 +357,26 @@ public class ClientProxy implements ICacheClient {
 
     @Override
     public Long incr(String key) {
-        return client.incr(pretKey(key));
+        String k = pretKey(key);
+        return afterWrite(k, client.incr(k));
     }
 
     @Override
     public Long incrBy(String key, long increment) {
-        return client.incrBy(pretKey(key), increment);
+        String k = pretKey(key);
+        return afterWrite(k, client.incrBy(k, increment));
     }
 
     @Override
     public Long decr(String key) {
-        return client.decr(pretKey(key));
+        String k = pretKey(key);
+        return afterWrite(k, client.decr(k));
     }
 
     @Override
     public Long decrBy(String key, long decrement) {
-        return client.decrBy(pretKey(key), decrement);
+        String k = pretKey(key);
+        return afterWrite(k, client.decrBy(k, decrement));
     }
 
     @Override
@@ -224,22 +421,30 @@ public class ClientProxy implements ICacheClient {
 
     @Override
     public Long hset(String key, String field, String value) {
-        return client.hset(pretKey(key), field, value);
+        String k = pretKey(key);
+        return afterWrite(k, client.hset(k, field, value));
     }
 
     @Override
     public Long hsetnx(String key, String field, String value) {
-        return client.hsetnx(pretKey(key), field, value);
+        String k = pretKey(key);
+        return afterWrite(k, client.hsetnx(k, field, value));
     }
 
     @Override
     public String hmset(String key, Map<String, String> hash) {
-        return client.hmset(pretKey(key), hash);
+        String k = pretKey(key);
+        return afterWrite(k, client.hmset(k, hash));
     }
 
     @Override
     public String hget(String key, String field) {
-        return client.hget(pretKey(key), field);
+        if (nearCache != null && nearCache.accept(key)) {
+            return nearCache.get(pretKey(key), "hget:" + field, (p, k) -> p.hget(k, field));
+        }
+        String k = pretKey(key);
+        HotKeys hot = hotKeys;
+        return hot == null ? client.hget(k, field) : hot.get(k, "hget:" + field, () -> client.hget(k, field));
     }
 
     @Override
@@ -254,7 +459,8 @@ public class ClientProxy implements ICacheClient {
 
     @Override
     public Long hdel(String key, String... fields) {
-        return client.hdel(pretKey(key), fields);
+        String k = pretKey(key);
+        return afterWrite(k, client.hdel(k, fields));
     }
 
     @Override
@@ -264,22 +470,42 @@ public class ClientProxy implements ICacheClient {
 
     @Override
     public Map<String, String> hgetAll(String key) {
-        return client.hgetAll(pretKey(key));
+        if (nearCache != null && nearCache.accept(key)) {
+            return new HashMap<>(nearCache.get(pretKey(key), "hgetAll", (p, k) -> p.hgetAll(k)));
+        }
+        String k = pretKey(key);
+        HotKeys hot = hotKeys;
+        if (hot != null) {
+            Map<String, String> hash = hot.get(k, "hgetAll", () -> client.hgetAll(k));
+            return hash == null ? null : new HashMap<>(hash);
+        }
+        return client.hgetAll(k);
     }
 
     @Override
     public Long sadd(String key, String... members) {
-        return client.sadd(pretKey(key), members);
+        String k = pretKey(key);
+        return afterWrite(k, client.sadd(k, members));
     }
 
     @Override
     public Set<String> smembers(String key) {
-        return client.smembers(pretKey(key));
+        if (nearCache != null && nearCache.accept(key)) {
+            return new HashSet<>(nearCache.get(pretKey(key), "smembers", (p, k) -> p.smembers(k)));
+        }
+        String k = pretKey(key);
+        HotKeys hot = hotKeys;
+        if (hot != null) {
+            Set<String> members = hot.get(k, "smembers", () -> client.smembers(k));
+            return members == null ? null : new HashSet<>(members);
+        }
+        return client.smembers(k);
     }
 
     @Override
     public Long srem(String key, String... members) {
-        return client.srem(pretKey(key), members);
+        String k = pretKey(key);
+        return afterWrite(k, client.srem(k, members));
     }
 
     @Override
@@ -299,7 +525,8 @@ public class ClientProxy implements ICacheClient {
 
     @Override
     public Long sdiffstore(String dstkey, String... keys) {
-        return client.sdiffstore(pretKey(dstkey), pretKeys(keys));
+        String k = pretKey(dstkey);
+        return afterWrite(k, client.sdiffstore(k, pretKeys(keys)));
     }
 
 
@@ -310,32 +537,54 @@ public class ClientProxy implements ICacheClient {
 
     @Override
     public String setex(byte[] key, int seconds, byte[] value) {
-        return client.setex(pretKey(key), seconds, value);
+        byte[] k = pretKey(key);
+        return afterWrite(k, chunker.setex(client, k, seconds, compressor.compress(value)));
     }
 
     @Override
     public byte[] get(byte[] key) {
-        return client.get(pretKey(key));
+        return getByKey(pretKey(key));
+    }
+
+    // k 为已加后缀的key
+    private byte[] getByKey(byte[] k) {
+        HotKeys hot = hotKeys;
+        if (hot != null) {
+            // 本地副本为原始字节, 每次返回新的数组
+            byte[] bytes = hot.get(k, "getBytes", () -> getBytes(k));
+            return bytes == null ? null : compressor.decompress(bytes.clone());
+        }
+        return compressor.decompress(getBytes(k));
+    }
+
+    // 读取原始字节, 已分块的值读取全部分块后合并
+    private byte[] getBytes(byte[] k) {
+        ICacheClient c = client;
+        return chunker.resolve(c, k, c.get(k));
     }
 
     @Override
     public Long del(byte[] key) {
-        return client.del(pretKey(key));
+        byte[] k = pretKey(key);
+        return afterWrite(k, client.del(k));
     }
 
     @Override
     public Long del(byte[]... keys) {
-        return client.del(pretKeys(keys));
+        byte[][] ks = pretKeys(keys);
+        return afterWrite(ks, client.del(ks));
     }
 
     @Override
     public Long expire(byte[] key, int seconds) {
-        return client.expire(pretKey(key), seconds);
+        byte[] k = pretKey(key);
+        return afterWrite(k, chunker.expire(client, k, seconds));
     }
 
     @Override
     public Long expireAt(byte[] key, long timestamp) {
-        return client.expireAt(pretKey(key), timestamp);
+        byte[] k = pretKey(key);
+        return afterWrite(k, chunker.expireAt(client, k, timestamp));
     }
 
     @Override
@@ -350,22 +599,26 @@ public class ClientProxy implements ICacheClient {
 
     @Override
     public Long incr(byte[] key) {
-        return client.incr(pretKey(key));
+        byte[] k = pretKey(key);
+        return afterWrite(k, client.incr(k));
     }
 
     @Override
     public Long incrBy(byte[] key, long increment) {
-        return client.incrBy(pretKey(key), increment);
+        byte[] k = pretKey(key);
+        return afterWrite(k, client.incrBy(k, increment));
     }
 
     @Override
     public Long decr(byte[] key) {
-        return client.decr(pretKey(key));
+        byte[] k = pretKey(key);
+        return afterWrite(k, client.decr(k));
     }
 
     @Override
     public Long decrBy(byte[] key, long decrement) {
-        return client.decrBy(pretKey(key), decrement);
+        byte[] k = pretKey(key);
+        return afterWrite(k, client.decrBy(k, decrement));
     }
 
     @Override
@@ -410,37 +663,42 @@ public class ClientProxy implements ICacheClient {
 
     @Override
     public Long hset(byte[] key, byte[] field, byte[] value) {
-        return client.hset(pretKey(key), field, value);
+        byte[] k = pretKey(key);
+        return afterWrite(k, client.hset(k, field, compressor.compress(value)));
     }
 
     @Override
     public Long hsetnx(byte[] key, byte[] field, byte[] value) {
-        return client.hsetnx(pretKey(key), field, value);
+        byte[] k = pretKey(key);
+        return afterWrite(k, client.hsetnx(k, field, compressor.compress(value)));
     }
 
     @Override
     public Long setnx(byte[] key, byte[] value) {
-        return client.setnx(pretKey(key), value);
+        byte[] k = pretKey(key);
+        return afterWrite(k, client.setnx(k, compressor.compress(value)));
     }
 
     @Override
     public Long setnx(String key, String value) {
-        return client.setnx(pretKey(key), value);
+        String k = pretKey(key);
+        return afterWrite(k, client.setnx(k, value));
     }
 
     @Override
     public String hmset(byte[] key, Map<byte[], byte[]> hash) {
-        return client.hmset(pretKey(key), hash);
+        byte[] k = pretKey(key);
+        return afterWrite(k, client.hmset(k, compress(hash)));
     }
 
     @Override
     public byte[] hget(byte[] key, byte[] field) {
-        return client.hget(pretKey(key), field);
+        return compressor.decompress(client.hget(pretKey(key), field));
     }
 
     @Override
     public List<byte[]> hmget(byte[] key, byte[]... fields) {
-        return client.hmget(pretKey(key), fields);
+        return decompress(client.hmget(pretKey(key), fields));
     }
 
     @Override
@@ -450,7 +708,8 @@ public class ClientProxy implements ICacheClient {
 
     @Override
     public Long hdel(byte[] key, byte[]... fields) {
-        return client.hdel(pretKey(key), fields);
+        byte[] k = pretKey(key);
+        return afterWrite(k, client.hdel(k, fields));
     }
 
     @Override
@@ -460,12 +719,13 @@ public class ClientProxy implements ICacheClient {
 
     @Override
     public Map<byte[], byte[]> hgetAll(byte[] key) {
-        return client.hgetAll(pretKey(key));
+        return decompress(client.hgetAll(pretKey(key)));
     }
 
     @Override
     public Long sadd(byte[] key, byte[]... members) {
-        return client.sadd(pretKey(key), members);
+        byte[] k = pretKey(key);
+        return afterWrite(k, client.sadd(k, members));
     }
 
     @Override
@@ -475,7 +735,8 @@ public class ClientProxy implements ICacheClient {
 
     @Override
     public Long srem(byte[] key, byte[]... members) {
-        return client.srem(pretKey(key), members);
+        byte[] k = pretKey(key);
+        return afterWrite(k, client.srem(k, members));
     }
 
     @Override
@@ -495,22 +756,26 @@ public class ClientProxy implements ICacheClient {
 
     @Override
     public Long sdiffstore(byte[] dstkey, byte[]... keys) {
-        return client.sdiffstore(pretKey(dstkey), pretKeys(keys));
+        byte[] k = pretKey(dstkey);
+        return afterWrite(k, client.sdiffstore(k, pretKeys(keys)));
     }
 
     @Override
     public Long hincrBy(String key, String field, long value) {
-        return client.hincrBy(pretKey(key), field, value);
+        String k = pretKey(key);
+        return afterWrite(k, client.hincrBy(k, field, value));
     }
 
     @Override
     public Double incrByFloat(String key, double value) {
-        return client.incrByFloat(pretKey(key), value);
+        String k = pretKey(key);
+        return afterWrite(k, client.incrByFloat(k, value));
     }
 
     @Override
     public Double hincrByFloat(String key, String field, double value) {
-        return client.hincrByFloat(pretKey(key), field, value);
+        String k = pretKey(key);
+        return afterWrite(k, client.hincrByFloat(k, field, value));
     }
 
     @Override
@@ -610,12 +875,44 @@ public class ClientProxy implements ICacheClient {
 
     @Override
     public String setObjectEx(byte[] key, int seconds, Object serializable) {
-        return client.setObjectEx(pretKey(key), seconds, serializable);
+        return setObjectByKey(pretKey(key), seconds, serializable);
+    }
+
+    // 开启压缩或分块时在代理中编码, 否则由实际客户端编码
+    private String setObjectByKey(byte[] k, int seconds, Object serializable) {
+        ValueCompressor c = compressor;
+        if (!c.isEnabled() && !chunker.isEnabled()) {
+            return afterWrite(k, client.setObjectEx(k, seconds, serializable));
+        }
+        if (!(serializable instanceof Serializable)) {
+            throw new CacheClientException();
+        }
+        return afterWrite(k, chunker.setex(client, k, seconds, c.compress(codecs().encode(serializable))));
     }
 
     @Override
     public Object getObject(byte[] key) {
-        return client.getObject(pretKey(key));
+        return getObjectByKey(pretKey(key));
+    }
+
+    // 与实际客户端使用相同的编码解码本地缓存的字节
+    private ObjectCodecs codecs() {
+        ICacheClient c = client;
+        return c instanceof CodecSupport ? ((CodecSupport) c).getCodecs() : ObjectCodecs.DEFAULT;
+    }
+
+    // k 为已加后缀的key
+    private Object getObjectByKey(byte[] k) {
+        if (nearCache != null && nearCache.accept(k)) {
+            // 缓存序列化后的字节, 每次返回新反序列化的对象
+            byte[] bytes = nearCache.get(k, "getObject", (p, key) -> p.get(key));
+            bytes = chunker.resolve(client, k, bytes);
+            return bytes == null ? null : codecs().decode(compressor.decompress(bytes));
+        }
+        // 值可能经过压缩, 读取字节后在代理中解压及解码
+        HotKeys hot = hotKeys;
+        byte[] bytes = hot == null ? getBytes(k) : hot.get(k, "getBytes", () -> getBytes(k));
+        return bytes == null ? null : codecs().decode(compressor.decompress(bytes));
     }
 
     @Override
@@ -633,7 +930,8 @@ public class ClientProxy implements ICacheClient {
      */
     @Override
     public Long pexpire(String key, long milliseconds) {
-        return client.pexpire(pretKey(key), milliseconds);
+        String k = pretKey(key);
+        return afterWrite(k, client.pexpire(k, milliseconds));
     }
 
     /**
@@ -670,4 +968,260 @@ public class ClientProxy implements ICacheClient {
         return client.zcard(pretKey(key));
     }
 
+    @Override
+    public List<Object> executeBatch(CacheBatch batch) {
+        ICacheClient c = client;
+        List<Object> results = c.executeBatch(batch.withKeyMapper(keyMapper));
+        List<BatchCommand<?>> commands = batch.getCommands();
+        ValueCompressor vc = compressor;
+        for (int i = 0; i < commands.size(); i++) {
+            BatchCommand<?> command = commands.get(i);
+            Object result = results.get(i);
+            if (!command.isValueRead() || !(result instanceof byte[])) {
+                continue;
+            }
+            // 先合并分块, 再解压, 与 get/hget 的处理顺序一致
+            Object value = result;
+            try {
+                byte[] bytes = (byte[]) result;
+                if (command.isChunkable() && ValueChunker.isChunked(bytes)) {
+                    bytes = chunker.resolve(c, command.routingKey(keyMapper), bytes);
+                }
+                value = bytes == null ? null : vc.decompress(bytes);
+                command.replace(value);
+            } catch (RuntimeException e) {
+                value = e instanceof CacheClientException ? e : new CacheClientException(e);
+                command.fail((RuntimeException) value);
+            }
+            if (value != result) {
+                if (!(results instanceof ArrayList)) {
+                    results = new ArrayList<>(results);
+                }
+                results.set(i, value);
+            }
+        }
+        if (nearCache != null || hotKeys != null) {
+            for (BatchCommand<?> command : batch.getCommands()) {
+                if (!command.isReadOnly()) {
+                    afterWrite(command.routingKey(keyMapper), null);
+                }
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public List<String> mget(String... keys) {
+        return client.mget(pretKeys(keys));
+    }
+
+    @Override
+    public List<byte[]> mget(byte[]... keys) {
+        byte[][] ks = pretKeys(keys);
+        ICacheClient c = client;
+        return decompress(chunker.resolve(c, ks, c.mget(ks)));
+    }
+
+    @Override
+    public String mset(Map<String, String> keyValues) {
+        Map<String, String> kvs = pretKeys(keyValues);
+        return afterWrite(kvs, client.mset(kvs));
+    }
+
+    @Override
+    public String msetex(Map<String, String> keyValues, int seconds) {
+        Map<String, String> kvs = pretKeys(keyValues);
+        return afterWrite(kvs, client.msetex(kvs, seconds));
+    }
+
+    @Override
+    public Long publish(byte[] channel, byte[] message) {
+        return client.publish(channel, message);
+    }
+
+    @Override
+    public void subscribe(BinaryJedisPubSub jedisPubSub, byte[]... channels) {
+        client.subscribe(jedisPubSub, channels);
+    }
+
+    @Override
+    public ScanResult<Map.Entry<String, String>> hscan(String key, String cursor, int count) {
+        return client.hscan(pretKey(key), cursor, count);
+    }
+
+    @Override
+    public ScanResult<String> sscan(String key, String cursor, int count) {
+        return client.sscan(pretKey(key), cursor, count);
+    }
+
+    @Override
+    public ScanResult<Tuple> zscan(String key, String cursor, int count) {
+        return client.zscan(pretKey(key), cursor, count);
+    }
+
+    // 流基于本代理的分页方法, 每页都经过key后缀处理及耗时统计
+    @Override
+    public Stream<Map.Entry<String, String>> hscanStream(String key, int pageSize) {
+        return CacheStreams.of(new ScanIterator<>(cursor -> hscan(key, cursor, pageSize)));
+    }
+
+    @Override
+    public Stream<String> sscanStream(String key, int pageSize) {
+        return CacheStreams.of(new ScanIterator<>(cursor -> sscan(key, cursor, pageSize)));
+    }
+
+    @Override
+    public Stream<Tuple> zscanStream(String key, int pageSize) {
+        return CacheStreams.of(new ScanIterator<>(cursor -> zscan(key, cursor, pageSize)));
+    }
+
+    @Override
+    public Stream<String> lrangeStream(String key, int pageSize) {
+        return CacheStreams.of(new RangeIterator<>(pageSize, (start, end) -> lrange(key, start, end)));
+    }
+
+    // 以下重载直接由 ByteBuffer/CharSequence 生成带后缀的key, 省去调用方先转换为 byte[]/String 的一次复制
+
+    private byte[] pretKey(ByteBuffer key) {
+        if (needSuffix) {
+            return keys.map(key);
+        }
+        byte[] k = new byte[key.remaining()];
+        key.duplicate().get(k);
+        return k;
+    }
+
+    private String pretKey(CharSequence key) {
+        return needSuffix ? keys.map(key) : key.toString();
+    }
+
+    public String get(CharSequence key) {
+        String k = pretKey(key);
+        if (nearCache != null && nearCache.accept(k)) {
+            return nearCache.get(k, "get", (p, mapped) -> p.get(mapped));
+        }
+        HotKeys hot = hotKeys;
+        return hot == null ? client.get(k) : hot.get(k, "get", () -> client.get(k));
+    }
+
+    public String setex(CharSequence key, int seconds, String value) {
+        String k = pretKey(key);
+        return afterWrite(k, client.setex(k, seconds, value));
+    }
+
+    public Long del(CharSequence key) {
+        String k = pretKey(key);
+        return afterWrite(k, client.del(k));
+    }
+
+    /**
+     * key 为buffer中 position 到 limit 的字节, 调用后 position 不变
+     */
+    public byte[] get(ByteBuffer key) {
+        return getByKey(pretKey(key));
+    }
+
+    public String setex(ByteBuffer key, int seconds, byte[] value) {
+        byte[] k = pretKey(key);
+        return afterWrite(k, chunker.setex(client, k, seconds, compressor.compress(value)));
+    }
+
+    public Long del(ByteBuffer key) {
+        byte[] k = pretKey(key);
+        return afterWrite(k, client.del(k));
+    }
+
+    public Long expire(ByteBuffer key, int seconds) {
+        byte[] k = pretKey(key);
+        return afterWrite(k, chunker.expire(client, k, seconds));
+    }
+
+    public String setObjectEx(ByteBuffer key, int seconds, Object serializable) {
+        return setObjectByKey(pretKey(key), seconds, serializable);
+    }
+
+    public Object getObject(ByteBuffer key) {
+        return getObjectByKey(pretKey(key));
+    }
+
+    @Override
+    public String getOrLoad(String key, int seconds, CacheLoader<String> loader) {
+        return cacheAside.getOrLoad(this, key, seconds, 0, loader);
+    }
+
+    @Override
+    public String getOrLoad(String key, int seconds, int nullSeconds, CacheLoader<String> loader) {
+        return cacheAside.getOrLoad(this, key, seconds, nullSeconds, loader);
+    }
+
+    @Override
+    public byte[] getOrLoad(byte[] key, int seconds, CacheLoader<byte[]> loader) {
+        return cacheAside.getOrLoad(this, key, seconds, 0, loader);
+    }
+
+    @Override
+    public byte[] getOrLoad(byte[] key, int seconds, int nullSeconds, CacheLoader<byte[]> loader) {
+        return cacheAside.getOrLoad(this, key, seconds, nullSeconds, loader);
+    }
+
+    @Override
+    public <T> T getObjectOrLoad(byte[] key, int seconds, CacheLoader<T> loader) {
+        return cacheAside.getObjectOrLoad(this, key, seconds, 0, loader);
+    }
+
+    @Override
+    public <T> T getObjectOrLoad(byte[] key, int seconds, int nullSeconds, CacheLoader<T> loader) {
+        return cacheAside.getObjectOrLoad(this, key, seconds, nullSeconds, loader);
+    }
+
+    @Override
+    public <T> T get(String key, Codec<T> codec) {
+        return Codecs.decode(codec, get(SafeEncoder.encode(key)));
+    }
+
+    @Override
+    public <T> String setex(String key, int seconds, T value, Codec<T> codec) {
+        return setex(SafeEncoder.encode(key), seconds, Codecs.encode(codec, value));
+    }
+
+    @Override
+    public <T> List<T> mget(Codec<T> codec, String... keys) {
+        return Codecs.decode(codec, mget(SafeEncoder.encodeMany(keys)));
+    }
+
+    @Override
+    public <T> T hget(String key, String field, Codec<T> codec) {
+        return Codecs.decode(codec, hget(SafeEncoder.encode(key), SafeEncoder.encode(field)));
+    }
+
+    @Override
+    public <T> Long hset(String key, String field, T value, Codec<T> codec) {
+        return hset(SafeEncoder.encode(key), SafeEncoder.encode(field), Codecs.encode(codec, value));
+    }
+
+    @Override
+    public <T> Map<String, T> hgetAll(String key, Codec<T> codec) {
+        return Codecs.decode(codec, hgetAll(SafeEncoder.encode(key)));
+    }
+
+    /**
+     * keys添加业务后缀; 脚本可能修改任一key, 执行后失效这些key的本地缓存
+     */
+    @Override
+    public Object eval(CacheScript script, String[] keys, String... args) {
+        String[] ks = keys == null ? new String[0] : pretKeys(keys);
+        return afterWrite(ks, client.eval(script, ks, args));
+    }
+
+    @Override
+    public Object eval(CacheScript script, byte[][] keys, byte[]... args) {
+        byte[][] ks = keys == null ? new byte[0][] : pretKeys(keys);
+        return afterWrite(ks, client.eval(script, ks, args));
+    }
+
+    @Override
+    public String scriptLoad(CacheScript script) {
+        return client.scriptLoad(script);
+    }
+
 }
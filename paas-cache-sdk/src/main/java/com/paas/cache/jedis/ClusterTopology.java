@@ -0,0 +1,119 @@
+package com.paas.cache.jedis;
+
+import com.paas.cache.exception.CacheClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.util.JedisClusterCRC16;
+import redis.clients.util.SafeEncoder;
+
+import java.util.List;
+
+/**
+ * 集群slot与节点的对应关系, 由 CLUSTER SLOTS 解析得到, 出现重定向时刷新。
+ * 同时记录每个slot的从节点, 供只读命令读从节点
+ */
+public class ClusterTopology {
+    protected static Logger log = LoggerFactory.getLogger(ClusterTopology.class);
+
+    public static final int SLOT_COUNT = 16384;
+
+    private static final HostAndPort[] NO_REPLICAS = new HostAndPort[0];
+
+    private final RoutingJedisCluster cluster;
+    private volatile HostAndPort[] masters;
+    private volatile HostAndPort[][] replicas;
+
+    public ClusterTopology(RoutingJedisCluster cluster) {
+        this.cluster = cluster;
+    }
+
+    public static int slot(byte[] key) {
+        return JedisClusterCRC16.getSlot(key);
+    }
+
+    public static int slot(String key) {
+        return JedisClusterCRC16.getSlot(key);
+    }
+
+    /**
+     * 返回slot所在的主节点
+     */
+    public HostAndPort master(int slot) {
+        HostAndPort[] current = masters;
+        if (current == null) {
+            renew();
+            current = masters;
+        }
+        HostAndPort node = current[slot];
+        if (node == null) {
+            throw new CacheClientException("slot " + slot + " 未分配节点");
+        }
+        return node;
+    }
+
+    /**
+     * 返回slot的从节点, 没有从节点时为空数组
+     */
+    public HostAndPort[] replicas(int slot) {
+        HostAndPort[][] current = replicas;
+        if (current == null) {
+            renew();
+            current = replicas;
+        }
+        HostAndPort[] nodes = current[slot];
+        return nodes == null ? NO_REPLICAS : nodes;
+    }
+
+    public synchronized void renew() {
+        cluster.renewSlotCache();
+        Exception last = null;
+        for (JedisPool pool : cluster.getClusterNodes().values()) {
+            try (Jedis jedis = pool.getResource()) {
+                List<Object> slots = jedis.clusterSlots();
+                String host = jedis.getClient().getHost();
+                HostAndPort[][] replicaTable = new HostAndPort[SLOT_COUNT][];
+                masters = parse(slots, host, replicaTable);
+                replicas = replicaTable;
+                return;
+            } catch (Exception e) {
+                last = e;
+                log.warn(" ---> load cluster slots fail: {}", e.getMessage());
+            }
+        }
+        throw new CacheClientException(last);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static HostAndPort[] parse(List<Object> slots, String defaultHost, HostAndPort[][] replicaTable) {
+        HostAndPort[] table = new HostAndPort[SLOT_COUNT];
+        for (Object item : slots) {
+            List<Object> range = (List<Object>) item;
+            if (range.size() < 3) {
+                continue;
+            }
+            int start = ((Long) range.get(0)).intValue();
+            int end = ((Long) range.get(1)).intValue();
+            HostAndPort master = node((List<Object>) range.get(2), defaultHost);
+            HostAndPort[] rangeReplicas = new HostAndPort[range.size() - 3];
+            for (int i = 3; i < range.size(); i++) {
+                rangeReplicas[i - 3] = node((List<Object>) range.get(i), defaultHost);
+            }
+            for (int slot = start; slot <= end; slot++) {
+                table[slot] = master;
+                replicaTable[slot] = rangeReplicas;
+            }
+        }
+        return table;
+    }
+
+    static HostAndPort node(List<Object> info, String defaultHost) {
+        String host = SafeEncoder.encode((byte[]) info.get(0));
+        if (host.length() == 0) {
+            host = defaultHost;
+        }
+        return new HostAndPort(host, ((Long) info.get(1)).intValue());
+    }
+}
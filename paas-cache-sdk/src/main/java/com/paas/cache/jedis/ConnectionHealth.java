@@ -0,0 +1,232 @@
+package com.paas.cache.jedis;
+
+import com.paas.cache.exception.CacheClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单个客户端的连接健康管理, 替代原先所有客户端共用一把锁、失败后无限递归重试的方式。
+ * <p>
+ * 连续建立连接失败达到阀值后熔断, 熔断期间所有调用立即失败, 不再占用线程等待超时;
+ * 后台探测线程在熔断一段时间后进入半开状态并探测服务端, 探测成功则恢复(必要时重建连接),
+ * 失败则延长熔断时间, 最长不超过配置上限。
+ * 只有建立连接失败计入熔断, 连接池耗尽、命令发出后的超时等不计入。
+ * 未熔断时单次调用按带随机抖动的指数退避重试, 重试次数有上限; 命令发出后的失败只应对幂等命令重试。
+ */
+public class ConnectionHealth {
+    protected static Logger log = LoggerFactory.getLogger(ConnectionHealth.class);
+
+    private static final int CLOSED = 0;
+    private static final int OPEN = 1;
+    private static final int HALF_OPEN = 2;
+
+    /**
+     * 探测及恢复动作, 由具体客户端实现
+     */
+    public interface Probe {
+        /**
+         * 使用新建连接检查服务端, 失败时抛出异常
+         */
+        void probe() throws Exception;
+
+        /**
+         * 探测成功后恢复连接, 如重建已失效的连接池; 不应关闭仍可使用的连接
+         */
+        void recover();
+    }
+
+    private final String name;
+    private final Probe probe;
+    private final int maxRetries;
+    private final long retryBackoff;
+    private final long maxRetryBackoff;
+    private final int failureThreshold;
+    private final long openTime;
+    private final long maxOpenTime;
+    private final AtomicInteger failures = new AtomicInteger();
+    private final ScheduledExecutorService prober;
+    private volatile int state = CLOSED;
+    private volatile long openUntil;
+    private volatile long currentOpenTime;
+
+    public ConnectionHealth(String name, JedisConfig.PoolConfig conf, Probe probe) {
+        this.name = name;
+        this.probe = probe;
+        JedisConfig.PoolConfig c = conf == null ? new JedisConfig.PoolConfig() : conf;
+        this.maxRetries = c.getMaxRetries();
+        this.retryBackoff = c.getRetryBackoff();
+        this.maxRetryBackoff = c.getMaxRetryBackoff();
+        this.failureThreshold = c.getFailureThreshold();
+        this.openTime = c.getCircuitOpenTime();
+        this.maxOpenTime = c.getMaxCircuitOpenTime();
+        this.currentOpenTime = openTime;
+        this.prober = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "paas-cache-health-" + ConnectionHealth.this.name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        long interval = Math.max(100, Math.min(openTime, 1000));
+        prober.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                probeIfDue();
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 熔断时直接抛出异常
+     */
+    public void checkAvailable() {
+        if (state != CLOSED) {
+            throw new CacheClientException("redis连接不可用, 已熔断: " + name);
+        }
+    }
+
+    public boolean isAvailable() {
+        return state == CLOSED;
+    }
+
+    public void onSuccess() {
+        if (failures.get() != 0) {
+            failures.set(0);
+        }
+    }
+
+    /**
+     * 记录一次建立连接失败并判断是否重试, 需要重试时在返回前完成退避等待
+     *
+     * @param attempt 已重试次数
+     * @param e       连接异常
+     * @return 是否重试
+     */
+    public boolean retry(int attempt, RuntimeException e) {
+        onConnectFailure(e);
+        return backoff(attempt);
+    }
+
+    /**
+     * 记录一次建立连接失败, 不等待, 用于自行处理重试的批量及多节点命令
+     */
+    public void onConnectFailure(RuntimeException e) {
+        if (failures.incrementAndGet() >= failureThreshold) {
+            open(e);
+        }
+    }
+
+    /**
+     * 不计入熔断的重试判断, 用于命令未发出(如连接已失效)或幂等命令的失败, 需要重试时在返回前完成退避等待
+     *
+     * @param attempt 已重试次数
+     * @return 是否重试
+     */
+    public boolean retryRequest(int attempt) {
+        return backoff(attempt);
+    }
+
+    /**
+     * 是否为建立连接失败(含连接池新建连接失败), 此时命令尚未发出; 连接池耗尽不属于连接失败
+     */
+    public static boolean isConnectFailure(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof NoSuchElementException) {
+                return false;
+            }
+            if (t instanceof ConnectException || t instanceof NoRouteToHostException || t instanceof UnknownHostException) {
+                return true;
+            }
+            if (t instanceof SocketTimeoutException && "connect timed out".equals(t.getMessage())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 是否为连接池耗尽, 借用连接等待超时
+     */
+    public static boolean isPoolExhausted(Throwable e) {
+        for (Throwable t = e; t != null; t = t.getCause() == t ? null : t.getCause()) {
+            if (t instanceof NoSuchElementException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean backoff(int attempt) {
+        if (attempt >= maxRetries || state != CLOSED) {
+            return false;
+        }
+        long ceiling = Math.min(maxRetryBackoff, retryBackoff << Math.min(attempt, 16));
+        long sleep = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(sleep);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return true;
+    }
+
+    public void shutdown() {
+        prober.shutdownNow();
+    }
+
+    private synchronized void open(RuntimeException e) {
+        if (state == OPEN) {
+            return;
+        }
+        state = OPEN;
+        openUntil = System.currentTimeMillis() + currentOpenTime;
+        log.error(" ---> redis circuit open: {}, {}ms. cause: {}", name, currentOpenTime, e.getMessage());
+    }
+
+    private void probeIfDue() {
+        if (state != OPEN || System.currentTimeMillis() < openUntil) {
+            return;
+        }
+        state = HALF_OPEN;
+        try {
+            probe.probe();
+            probe.recover();
+            synchronized (this) {
+                failures.set(0);
+                currentOpenTime = openTime;
+                state = CLOSED;
+            }
+            log.info(" ---> redis circuit closed: {}", name);
+        } catch (Throwable t) {
+            synchronized (this) {
+                currentOpenTime = Math.min(maxOpenTime, currentOpenTime * 2);
+                openUntil = System.currentTimeMillis() + currentOpenTime;
+                state = OPEN;
+            }
+            log.warn(" ---> redis probe fail: {}, reopen {}ms. cause: {}", name, currentOpenTime, t.getMessage());
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ConnectionHealth{" +
+                "name='" + name + '\'' +
+                ", state=" + state +
+                ", failures=" + failures +
+                '}';
+    }
+}
@@ -0,0 +1,1776 @@
+package com.paas.cache.jedis;
+
+import com.paas.cache.ICacheClient;
+import com.paas.cache.batch.CacheBatch;
+import com.paas.cache.load.CacheLoader;
+import com.paas.cache.metrics.CacheCommand;
+import com.paas.cache.metrics.CacheMetrics;
+import com.paas.cache.metrics.MetricsRegistry;
+import com.paas.cache.script.CacheScript;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.BinaryJedisPubSub;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Tuple;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 统计每个命令耗时及错误的代理, 直接覆写各方法而非反射调用。
+ * 耗时以纳秒记录到 MetricsRegistry 中对应业务编码的直方图, 超过阀值时仍输出告警日志。
+ * subscribe 为长时间阻塞调用, 不做统计; getOrLoad 的耗时包含加载, 其内部的读写另按各命令统计; 各流式读取方法按页统计 hscan/sscan/zscan/lrange。
+ */
+public class InstrumentedClientProxy extends ClientProxy {
+
+    protected static Logger log = LoggerFactory.getLogger(InstrumentedClientProxy.class);
+
+    private final CacheMetrics metrics;
+    private final long thresholdNanos;
+
+    public InstrumentedClientProxy(ICacheClient client, String bizCode, int threshold) {
+        super(client, bizCode);
+        this.metrics = MetricsRegistry.get(bizCode);
+        this.thresholdNanos = threshold * 1000000L;
+    }
+
+    public CacheMetrics getMetrics() {
+        return metrics;
+    }
+
+    private void done(CacheCommand command, long begin) {
+        long time = System.nanoTime() - begin;
+        metrics.command(command).record(time);
+        if (time > thresholdNanos) {
+            log.warn(" ---> jedis invoke {} timeout: {}ms.", command.getCommandName(), time / 1000000);
+        }
+    }
+
+    private void error(CacheCommand command, RuntimeException e) {
+        metrics.command(command).recordError(e);
+    }
+
+    @Override
+    public String setex(String key, int seconds, String value) {
+        long begin = System.nanoTime();
+        try {
+            return super.setex(key, seconds, value);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SETEX, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SETEX, begin);
+        }
+    }
+
+    @Override
+    public String get(String key) {
+        long begin = System.nanoTime();
+        try {
+            return super.get(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.GET, e);
+            throw e;
+        } finally {
+            done(CacheCommand.GET, begin);
+        }
+    }
+
+    @Override
+    public Long del(String key) {
+        long begin = System.nanoTime();
+        try {
+            return super.del(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.DEL, e);
+            throw e;
+        } finally {
+            done(CacheCommand.DEL, begin);
+        }
+    }
+
+    @Override
+    public Long del(String... keys) {
+        long begin = System.nanoTime();
+        try {
+            return super.del(keys);
+        } catch (RuntimeException e) {
+            error(CacheCommand.DEL, e);
+            throw e;
+        } finally {
+            done(CacheCommand.DEL, begin);
+        }
+    }
+
+    @Override
+    public Long expire(String key, int seconds) {
+        long begin = System.nanoTime();
+        try {
+            return super.expire(key, seconds);
+        } catch (RuntimeException e) {
+            error(CacheCommand.EXPIRE, e);
+            throw e;
+        } finally {
+            done(CacheCommand.EXPIRE, begin);
+        }
+    }
+
+    @Override
+    public Long expireAt(String key, long timestamp) {
+        long begin = System.nanoTime();
+        try {
+            return super.expireAt(key, timestamp);
+        } catch (RuntimeException e) {
+            error(CacheCommand.EXPIRE_AT, e);
+            throw e;
+        } finally {
+            done(CacheCommand.EXPIRE_AT, begin);
+        }
+    }
+
+    @Override
+    public Long ttl(String key) {
+        long begin = System.nanoTime();
+        try {
+            return super.ttl(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.TTL, e);
+            throw e;
+        } finally {
+            done(CacheCommand.TTL, begin);
+        }
+    }
+
+    @Override
+    public boolean exists(String key) {
+        long begin = System.nanoTime();
+        try {
+            return super.exists(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.EXISTS, e);
+            throw e;
+        } finally {
+            done(CacheCommand.EXISTS, begin);
+        }
+    }
+
+    @Override
+    public Long incr(String key) {
+        long begin = System.nanoTime();
+        try {
+            return super.incr(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.INCR, e);
+            throw e;
+        } finally {
+            done(CacheCommand.INCR, begin);
+        }
+    }
+
+    @Override
+    public Long incrBy(String key, long increment) {
+        long begin = System.nanoTime();
+        try {
+            return super.incrBy(key, increment);
+        } catch (RuntimeException e) {
+            error(CacheCommand.INCR_BY, e);
+            throw e;
+        } finally {
+            done(CacheCommand.INCR_BY, begin);
+        }
+    }
+
+    @Override
+    public Long decr(String key) {
+        long begin = System.nanoTime();
+        try {
+            return super.decr(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.DECR, e);
+            throw e;
+        } finally {
+            done(CacheCommand.DECR, begin);
+        }
+    }
+
+    @Override
+    public Long decrBy(String key, long decrement) {
+        long begin = System.nanoTime();
+        try {
+            return super.decrBy(key, decrement);
+        } catch (RuntimeException e) {
+            error(CacheCommand.DECR_BY, e);
+            throw e;
+        } finally {
+            done(CacheCommand.DECR_BY, begin);
+        }
+    }
+
+    @Override
+    public Long lpush(String key, String... strings) {
+        long begin = System.nanoTime();
+        try {
+            return super.lpush(key, strings);
+        } catch (RuntimeException e) {
+            error(CacheCommand.LPUSH, e);
+            throw e;
+        } finally {
+            done(CacheCommand.LPUSH, begin);
+        }
+    }
+
+    @Override
+    public Long rpush(String key, String... strings) {
+        long begin = System.nanoTime();
+        try {
+            return super.rpush(key, strings);
+        } catch (RuntimeException e) {
+            error(CacheCommand.RPUSH, e);
+            throw e;
+        } finally {
+            done(CacheCommand.RPUSH, begin);
+        }
+    }
+
+    @Override
+    public Long lrem(String key, long count, String value) {
+        long begin = System.nanoTime();
+        try {
+            return super.lrem(key, count, value);
+        } catch (RuntimeException e) {
+            error(CacheCommand.LREM, e);
+            throw e;
+        } finally {
+            done(CacheCommand.LREM, begin);
+        }
+    }
+
+    @Override
+    public Long llen(String key) {
+        long begin = System.nanoTime();
+        try {
+            return super.llen(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.LLEN, e);
+            throw e;
+        } finally {
+            done(CacheCommand.LLEN, begin);
+        }
+    }
+
+    @Override
+    public String lpop(String key) {
+        long begin = System.nanoTime();
+        try {
+            return super.lpop(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.LPOP, e);
+            throw e;
+        } finally {
+            done(CacheCommand.LPOP, begin);
+        }
+    }
+
+    @Override
+    public String rpop(String key) {
+        long begin = System.nanoTime();
+        try {
+            return super.rpop(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.RPOP, e);
+            throw e;
+        } finally {
+            done(CacheCommand.RPOP, begin);
+        }
+    }
+
+    @Override
+    public List<String> lrange(String key, long start, long end) {
+        long begin = System.nanoTime();
+        try {
+            return super.lrange(key, start, end);
+        } catch (RuntimeException e) {
+            error(CacheCommand.LRANGE, e);
+            throw e;
+        } finally {
+            done(CacheCommand.LRANGE, begin);
+        }
+    }
+
+    @Override
+    public List<String> lrangeAll(String key) {
+        long begin = System.nanoTime();
+        try {
+            return super.lrangeAll(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.LRANGE_ALL, e);
+            throw e;
+        } finally {
+            done(CacheCommand.LRANGE_ALL, begin);
+        }
+    }
+
+    @Override
+    public Long hset(String key, String field, String value) {
+        long begin = System.nanoTime();
+        try {
+            return super.hset(key, field, value);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HSET, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HSET, begin);
+        }
+    }
+
+    @Override
+    public Long hsetnx(String key, String field, String value) {
+        long begin = System.nanoTime();
+        try {
+            return super.hsetnx(key, field, value);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HSETNX, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HSETNX, begin);
+        }
+    }
+
+    @Override
+    public String hmset(String key, Map<String, String> hash) {
+        long begin = System.nanoTime();
+        try {
+            return super.hmset(key, hash);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HMSET, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HMSET, begin);
+        }
+    }
+
+    @Override
+    public String hget(String key, String field) {
+        long begin = System.nanoTime();
+        try {
+            return super.hget(key, field);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HGET, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HGET, begin);
+        }
+    }
+
+    @Override
+    public List<String> hmget(String key, String... fields) {
+        long begin = System.nanoTime();
+        try {
+            return super.hmget(key, fields);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HMGET, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HMGET, begin);
+        }
+    }
+
+    @Override
+    public Boolean hexists(String key, String field) {
+        long begin = System.nanoTime();
+        try {
+            return super.hexists(key, field);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HEXISTS, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HEXISTS, begin);
+        }
+    }
+
+    @Override
+    public Long hdel(String key, String... fields) {
+        long begin = System.nanoTime();
+        try {
+            return super.hdel(key, fields);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HDEL, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HDEL, begin);
+        }
+    }
+
+    @Override
+    public Long hlen(String key) {
+        long begin = System.nanoTime();
+        try {
+            return super.hlen(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HLEN, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HLEN, begin);
+        }
+    }
+
+    @Override
+    public Map<String, String> hgetAll(String key) {
+        long begin = System.nanoTime();
+        try {
+            return super.hgetAll(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HGET_ALL, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HGET_ALL, begin);
+        }
+    }
+
+    @Override
+    public Long sadd(String key, String... members) {
+        long begin = System.nanoTime();
+        try {
+            return super.sadd(key, members);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SADD, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SADD, begin);
+        }
+    }
+
+    @Override
+    public Set<String> smembers(String key) {
+        long begin = System.nanoTime();
+        try {
+            return super.smembers(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SMEMBERS, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SMEMBERS, begin);
+        }
+    }
+
+    @Override
+    public Long srem(String key, String... members) {
+        long begin = System.nanoTime();
+        try {
+            return super.srem(key, members);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SREM, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SREM, begin);
+        }
+    }
+
+    @Override
+    public Long scard(String key) {
+        long begin = System.nanoTime();
+        try {
+            return super.scard(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SCARD, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SCARD, begin);
+        }
+    }
+
+    @Override
+    public Set<String> sunion(String... keys) {
+        long begin = System.nanoTime();
+        try {
+            return super.sunion(keys);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SUNION, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SUNION, begin);
+        }
+    }
+
+    @Override
+    public Set<String> sdiff(String... keys) {
+        long begin = System.nanoTime();
+        try {
+            return super.sdiff(keys);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SDIFF, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SDIFF, begin);
+        }
+    }
+
+    @Override
+    public Long sdiffstore(String dstkey, String... keys) {
+        long begin = System.nanoTime();
+        try {
+            return super.sdiffstore(dstkey, keys);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SDIFFSTORE, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SDIFFSTORE, begin);
+        }
+    }
+
+    @Override
+    public String setex(byte[] key, int seconds, byte[] value) {
+        long begin = System.nanoTime();
+        try {
+            return super.setex(key, seconds, value);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SETEX, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SETEX, begin);
+        }
+    }
+
+    @Override
+    public byte[] get(byte[] key) {
+        long begin = System.nanoTime();
+        try {
+            return super.get(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.GET, e);
+            throw e;
+        } finally {
+            done(CacheCommand.GET, begin);
+        }
+    }
+
+    @Override
+    public Long del(byte[] key) {
+        long begin = System.nanoTime();
+        try {
+            return super.del(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.DEL, e);
+            throw e;
+        } finally {
+            done(CacheCommand.DEL, begin);
+        }
+    }
+
+    @Override
+    public Long del(byte[]... keys) {
+        long begin = System.nanoTime();
+        try {
+            return super.del(keys);
+        } catch (RuntimeException e) {
+            error(CacheCommand.DEL, e);
+            throw e;
+        } finally {
+            done(CacheCommand.DEL, begin);
+        }
+    }
+
+    @Override
+    public Long expire(byte[] key, int seconds) {
+        long begin = System.nanoTime();
+        try {
+            return super.expire(key, seconds);
+        } catch (RuntimeException e) {
+            error(CacheCommand.EXPIRE, e);
+            throw e;
+        } finally {
+            done(CacheCommand.EXPIRE, begin);
+        }
+    }
+
+    @Override
+    public Long expireAt(byte[] key, long timestamp) {
+        long begin = System.nanoTime();
+        try {
+            return super.expireAt(key, timestamp);
+        } catch (RuntimeException e) {
+            error(CacheCommand.EXPIRE_AT, e);
+            throw e;
+        } finally {
+            done(CacheCommand.EXPIRE_AT, begin);
+        }
+    }
+
+    @Override
+    public Long ttl(byte[] key) {
+        long begin = System.nanoTime();
+        try {
+            return super.ttl(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.TTL, e);
+            throw e;
+        } finally {
+            done(CacheCommand.TTL, begin);
+        }
+    }
+
+    @Override
+    public boolean exists(byte[] key) {
+        long begin = System.nanoTime();
+        try {
+            return super.exists(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.EXISTS, e);
+            throw e;
+        } finally {
+            done(CacheCommand.EXISTS, begin);
+        }
+    }
+
+    @Override
+    public Long incr(byte[] key) {
+        long begin = System.nanoTime();
+        try {
+            return super.incr(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.INCR, e);
+            throw e;
+        } finally {
+            done(CacheCommand.INCR, begin);
+        }
+    }
+
+    @Override
+    public Long incrBy(byte[] key, long increment) {
+        long begin = System.nanoTime();
+        try {
+            return super.incrBy(key, increment);
+        } catch (RuntimeException e) {
+            error(CacheCommand.INCR_BY, e);
+            throw e;
+        } finally {
+            done(CacheCommand.INCR_BY, begin);
+        }
+    }
+
+    @Override
+    public Long decr(byte[] key) {
+        long begin = System.nanoTime();
+        try {
+            return super.decr(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.DECR, e);
+            throw e;
+        } finally {
+            done(CacheCommand.DECR, begin);
+        }
+    }
+
+    @Override
+    public Long decrBy(byte[] key, long decrement) {
+        long begin = System.nanoTime();
+        try {
+            return super.decrBy(key, decrement);
+        } catch (RuntimeException e) {
+            error(CacheCommand.DECR_BY, e);
+            throw e;
+        } finally {
+            done(CacheCommand.DECR_BY, begin);
+        }
+    }
+
+    @Override
+    public Long lpush(byte[] key, byte[]... strings) {
+        long begin = System.nanoTime();
+        try {
+            return super.lpush(key, strings);
+        } catch (RuntimeException e) {
+            error(CacheCommand.LPUSH, e);
+            throw e;
+        } finally {
+            done(CacheCommand.LPUSH, begin);
+        }
+    }
+
+    @Override
+    public Long rpush(byte[] key, byte[]... strings) {
+        long begin = System.nanoTime();
+        try {
+            return super.rpush(key, strings);
+        } catch (RuntimeException e) {
+            error(CacheCommand.RPUSH, e);
+            throw e;
+        } finally {
+            done(CacheCommand.RPUSH, begin);
+        }
+    }
+
+    @Override
+    public Long llen(byte[] key) {
+        long begin = System.nanoTime();
+        try {
+            return super.llen(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.LLEN, e);
+            throw e;
+        } finally {
+            done(CacheCommand.LLEN, begin);
+        }
+    }
+
+    @Override
+    public Long lrem(byte[] key, long count, byte[] value) {
+        long begin = System.nanoTime();
+        try {
+            return super.lrem(key, count, value);
+        } catch (RuntimeException e) {
+            error(CacheCommand.LREM, e);
+            throw e;
+        } finally {
+            done(CacheCommand.LREM, begin);
+        }
+    }
+
+    @Override
+    public byte[] lpop(byte[] key) {
+        long begin = System.nanoTime();
+        try {
+            return super.lpop(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.LPOP, e);
+            throw e;
+        } finally {
+            done(CacheCommand.LPOP, begin);
+        }
+    }
+
+    @Override
+    public byte[] rpop(byte[] key) {
+        long begin = System.nanoTime();
+        try {
+            return super.rpop(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.RPOP, e);
+            throw e;
+        } finally {
+            done(CacheCommand.RPOP, begin);
+        }
+    }
+
+    @Override
+    public List<byte[]> lrange(byte[] key, long start, long end) {
+        long begin = System.nanoTime();
+        try {
+            return super.lrange(key, start, end);
+        } catch (RuntimeException e) {
+            error(CacheCommand.LRANGE, e);
+            throw e;
+        } finally {
+            done(CacheCommand.LRANGE, begin);
+        }
+    }
+
+    @Override
+    public List<byte[]> lrangeAll(byte[] key) {
+        long begin = System.nanoTime();
+        try {
+            return super.lrangeAll(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.LRANGE_ALL, e);
+            throw e;
+        } finally {
+            done(CacheCommand.LRANGE_ALL, begin);
+        }
+    }
+
+    @Override
+    public Long hset(byte[] key, byte[] field, byte[] value) {
+        long begin = System.nanoTime();
+        try {
+            return super.hset(key, field, value);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HSET, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HSET, begin);
+        }
+    }
+
+    @Override
+    public Long hsetnx(byte[] key, byte[] field, byte[] value) {
+        long begin = System.nanoTime();
+        try {
+            return super.hsetnx(key, field, value);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HSETNX, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HSETNX, begin);
+        }
+    }
+
+    @Override
+    public Long setnx(byte[] key, byte[] value) {
+        long begin = System.nanoTime();
+        try {
+            return super.setnx(key, value);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SETNX, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SETNX, begin);
+        }
+    }
+
+    @Override
+    public Long setnx(String key, String value) {
+        long begin = System.nanoTime();
+        try {
+            return super.setnx(key, value);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SETNX, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SETNX, begin);
+        }
+    }
+
+    @Override
+    public String hmset(byte[] key, Map<byte[], byte[]> hash) {
+        long begin = System.nanoTime();
+        try {
+            return super.hmset(key, hash);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HMSET, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HMSET, begin);
+        }
+    }
+
+    @Override
+    public byte[] hget(byte[] key, byte[] field) {
+        long begin = System.nanoTime();
+        try {
+            return super.hget(key, field);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HGET, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HGET, begin);
+        }
+    }
+
+    @Override
+    public List<byte[]> hmget(byte[] key, byte[]... fields) {
+        long begin = System.nanoTime();
+        try {
+            return super.hmget(key, fields);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HMGET, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HMGET, begin);
+        }
+    }
+
+    @Override
+    public Boolean hexists(byte[] key, byte[] field) {
+        long begin = System.nanoTime();
+        try {
+            return super.hexists(key, field);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HEXISTS, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HEXISTS, begin);
+        }
+    }
+
+    @Override
+    public Long hdel(byte[] key, byte[]... fields) {
+        long begin = System.nanoTime();
+        try {
+            return super.hdel(key, fields);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HDEL, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HDEL, begin);
+        }
+    }
+
+    @Override
+    public Long hlen(byte[] key) {
+        long begin = System.nanoTime();
+        try {
+            return super.hlen(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HLEN, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HLEN, begin);
+        }
+    }
+
+    @Override
+    public Map<byte[], byte[]> hgetAll(byte[] key) {
+        long begin = System.nanoTime();
+        try {
+            return super.hgetAll(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HGET_ALL, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HGET_ALL, begin);
+        }
+    }
+
+    @Override
+    public Long sadd(byte[] key, byte[]... members) {
+        long begin = System.nanoTime();
+        try {
+            return super.sadd(key, members);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SADD, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SADD, begin);
+        }
+    }
+
+    @Override
+    public Set<byte[]> smembers(byte[] key) {
+        long begin = System.nanoTime();
+        try {
+            return super.smembers(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SMEMBERS, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SMEMBERS, begin);
+        }
+    }
+
+    @Override
+    public Long srem(byte[] key, byte[]... members) {
+        long begin = System.nanoTime();
+        try {
+            return super.srem(key, members);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SREM, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SREM, begin);
+        }
+    }
+
+    @Override
+    public Long scard(byte[] key) {
+        long begin = System.nanoTime();
+        try {
+            return super.scard(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SCARD, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SCARD, begin);
+        }
+    }
+
+    @Override
+    public Set<byte[]> sunion(byte[]... keys) {
+        long begin = System.nanoTime();
+        try {
+            return super.sunion(keys);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SUNION, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SUNION, begin);
+        }
+    }
+
+    @Override
+    public Set<byte[]> sdiff(byte[]... keys) {
+        long begin = System.nanoTime();
+        try {
+            return super.sdiff(keys);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SDIFF, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SDIFF, begin);
+        }
+    }
+
+    @Override
+    public Long sdiffstore(byte[] dstkey, byte[]... keys) {
+        long begin = System.nanoTime();
+        try {
+            return super.sdiffstore(dstkey, keys);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SDIFFSTORE, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SDIFFSTORE, begin);
+        }
+    }
+
+    @Override
+    public Long hincrBy(String key, String field, long value) {
+        long begin = System.nanoTime();
+        try {
+            return super.hincrBy(key, field, value);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HINCR_BY, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HINCR_BY, begin);
+        }
+    }
+
+    @Override
+    public Double incrByFloat(String key, double value) {
+        long begin = System.nanoTime();
+        try {
+            return super.incrByFloat(key, value);
+        } catch (RuntimeException e) {
+            error(CacheCommand.INCR_BY_FLOAT, e);
+            throw e;
+        } finally {
+            done(CacheCommand.INCR_BY_FLOAT, begin);
+        }
+    }
+
+    @Override
+    public Double hincrByFloat(String key, String field, double value) {
+        long begin = System.nanoTime();
+        try {
+            return super.hincrByFloat(key, field, value);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HINCR_BY_FLOAT, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HINCR_BY_FLOAT, begin);
+        }
+    }
+
+    @Override
+    public Long zadd(String key, double score, String member) {
+        long begin = System.nanoTime();
+        try {
+            return super.zadd(key, score, member);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZADD, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZADD, begin);
+        }
+    }
+
+    @Override
+    public Long zadd(String key, Map<String, Double> scoreMembers) {
+        long begin = System.nanoTime();
+        try {
+            return super.zadd(key, scoreMembers);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZADD, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZADD, begin);
+        }
+    }
+
+    @Override
+    public Long zcount(String key, double min, double max) {
+        long begin = System.nanoTime();
+        try {
+            return super.zcount(key, min, max);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZCOUNT, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZCOUNT, begin);
+        }
+    }
+
+    @Override
+    public Long zcount(String key, String min, String max) {
+        long begin = System.nanoTime();
+        try {
+            return super.zcount(key, min, max);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZCOUNT, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZCOUNT, begin);
+        }
+    }
+
+    @Override
+    public Double zincrby(String key, double score, String member) {
+        long begin = System.nanoTime();
+        try {
+            return super.zincrby(key, score, member);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZINCRBY, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZINCRBY, begin);
+        }
+    }
+
+    @Override
+    public Set<String> zrange(String key, long start, long end) {
+        long begin = System.nanoTime();
+        try {
+            return super.zrange(key, start, end);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZRANGE, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZRANGE, begin);
+        }
+    }
+
+    @Override
+    public Set<String> zrangeByScore(String key, double min, double max) {
+        long begin = System.nanoTime();
+        try {
+            return super.zrangeByScore(key, min, max);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZRANGE_BY_SCORE, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZRANGE_BY_SCORE, begin);
+        }
+    }
+
+    @Override
+    public Set<String> zrangeByScore(String key, String min, String max) {
+        long begin = System.nanoTime();
+        try {
+            return super.zrangeByScore(key, min, max);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZRANGE_BY_SCORE, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZRANGE_BY_SCORE, begin);
+        }
+    }
+
+    @Override
+    public Set<String> zrangeByScore(String key, double min, double max, int offset, int count) {
+        long begin = System.nanoTime();
+        try {
+            return super.zrangeByScore(key, min, max, offset, count);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZRANGE_BY_SCORE, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZRANGE_BY_SCORE, begin);
+        }
+    }
+
+    @Override
+    public Set<String> zrevrange(String key, long start, long end) {
+        long begin = System.nanoTime();
+        try {
+            return super.zrevrange(key, start, end);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZREVRANGE, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZREVRANGE, begin);
+        }
+    }
+
+    @Override
+    public Set<String> zrevrangeByScore(String key, double max, double min) {
+        long begin = System.nanoTime();
+        try {
+            return super.zrevrangeByScore(key, max, min);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZREVRANGE_BY_SCORE, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZREVRANGE_BY_SCORE, begin);
+        }
+    }
+
+    @Override
+    public Set<String> zrevrangeByScore(String key, String max, String min) {
+        long begin = System.nanoTime();
+        try {
+            return super.zrevrangeByScore(key, max, min);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZREVRANGE_BY_SCORE, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZREVRANGE_BY_SCORE, begin);
+        }
+    }
+
+    @Override
+    public Set<String> zrevrangeByScore(String key, double max, double min, int offset, int count) {
+        long begin = System.nanoTime();
+        try {
+            return super.zrevrangeByScore(key, max, min, offset, count);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZREVRANGE_BY_SCORE, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZREVRANGE_BY_SCORE, begin);
+        }
+    }
+
+    @Override
+    public Set<String> zrevrangeByScore(String key, String max, String min, int offset, int count) {
+        long begin = System.nanoTime();
+        try {
+            return super.zrevrangeByScore(key, max, min, offset, count);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZREVRANGE_BY_SCORE, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZREVRANGE_BY_SCORE, begin);
+        }
+    }
+
+    @Override
+    public Long zrevrank(String key, String member) {
+        long begin = System.nanoTime();
+        try {
+            return super.zrevrank(key, member);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZREVRANK, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZREVRANK, begin);
+        }
+    }
+
+    @Override
+    public Long zrem(String key, String... members) {
+        long begin = System.nanoTime();
+        try {
+            return super.zrem(key, members);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZREM, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZREM, begin);
+        }
+    }
+
+    @Override
+    public Long zremrangeByRank(String key, long start, long end) {
+        long begin = System.nanoTime();
+        try {
+            return super.zremrangeByRank(key, start, end);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZREMRANGE_BY_RANK, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZREMRANGE_BY_RANK, begin);
+        }
+    }
+
+    @Override
+    public Long zremrangeByScore(String key, double start, double end) {
+        long begin = System.nanoTime();
+        try {
+            return super.zremrangeByScore(key, start, end);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZREMRANGE_BY_SCORE, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZREMRANGE_BY_SCORE, begin);
+        }
+    }
+
+    @Override
+    public Long zremrangeByScore(String key, String start, String end) {
+        long begin = System.nanoTime();
+        try {
+            return super.zremrangeByScore(key, start, end);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZREMRANGE_BY_SCORE, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZREMRANGE_BY_SCORE, begin);
+        }
+    }
+
+    @Override
+    public String setObjectEx(byte[] key, int seconds, Object serializable) {
+        long begin = System.nanoTime();
+        try {
+            return super.setObjectEx(key, seconds, serializable);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SET_OBJECT_EX, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SET_OBJECT_EX, begin);
+        }
+    }
+
+    @Override
+    public Object getObject(byte[] key) {
+        long begin = System.nanoTime();
+        try {
+            return super.getObject(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.GET_OBJECT, e);
+            throw e;
+        } finally {
+            done(CacheCommand.GET_OBJECT, begin);
+        }
+    }
+
+    @Override
+    public Boolean sismember(String key, String object) {
+        long begin = System.nanoTime();
+        try {
+            return super.sismember(key, object);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SISMEMBER, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SISMEMBER, begin);
+        }
+    }
+
+    @Override
+    public Long pexpire(String key, long milliseconds) {
+        long begin = System.nanoTime();
+        try {
+            return super.pexpire(key, milliseconds);
+        } catch (RuntimeException e) {
+            error(CacheCommand.PEXPIRE, e);
+            throw e;
+        } finally {
+            done(CacheCommand.PEXPIRE, begin);
+        }
+    }
+
+    @Override
+    public Boolean ltrim(String listKey, long start, long stop) {
+        long begin = System.nanoTime();
+        try {
+            return super.ltrim(listKey, start, stop);
+        } catch (RuntimeException e) {
+            error(CacheCommand.LTRIM, e);
+            throw e;
+        } finally {
+            done(CacheCommand.LTRIM, begin);
+        }
+    }
+
+    @Override
+    public Set<Tuple> zrevrangeByScoreWithScores(String key, double max, double min, int offset, int count) {
+        long begin = System.nanoTime();
+        try {
+            return super.zrevrangeByScoreWithScores(key, max, min, offset, count);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZREVRANGE_BY_SCORE_WITH_SCORES, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZREVRANGE_BY_SCORE_WITH_SCORES, begin);
+        }
+    }
+
+    @Override
+    public Set<Tuple> zrevrangeByScoreWithScores(String key, String max, String min, int offset, int count) {
+        long begin = System.nanoTime();
+        try {
+            return super.zrevrangeByScoreWithScores(key, max, min, offset, count);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZREVRANGE_BY_SCORE_WITH_SCORES, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZREVRANGE_BY_SCORE_WITH_SCORES, begin);
+        }
+    }
+
+    @Override
+    public Set<Tuple> zrevrangeByScoreWithScores(String key, String max, String min) {
+        long begin = System.nanoTime();
+        try {
+            return super.zrevrangeByScoreWithScores(key, max, min);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZREVRANGE_BY_SCORE_WITH_SCORES, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZREVRANGE_BY_SCORE_WITH_SCORES, begin);
+        }
+    }
+
+    @Override
+    public Long zcard(String key) {
+        long begin = System.nanoTime();
+        try {
+            return super.zcard(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZCARD, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZCARD, begin);
+        }
+    }
+
+    @Override
+    public List<Object> executeBatch(CacheBatch batch) {
+        long begin = System.nanoTime();
+        try {
+            return super.executeBatch(batch);
+        } catch (RuntimeException e) {
+            error(CacheCommand.EXECUTE_BATCH, e);
+            throw e;
+        } finally {
+            done(CacheCommand.EXECUTE_BATCH, begin);
+        }
+    }
+
+    @Override
+    public List<String> mget(String... keys) {
+        long begin = System.nanoTime();
+        try {
+            return super.mget(keys);
+        } catch (RuntimeException e) {
+            error(CacheCommand.MGET, e);
+            throw e;
+        } finally {
+            done(CacheCommand.MGET, begin);
+        }
+    }
+
+    @Override
+    public List<byte[]> mget(byte[]... keys) {
+        long begin = System.nanoTime();
+        try {
+            return super.mget(keys);
+        } catch (RuntimeException e) {
+            error(CacheCommand.MGET, e);
+            throw e;
+        } finally {
+            done(CacheCommand.MGET, begin);
+        }
+    }
+
+    @Override
+    public String mset(Map<String, String> keyValues) {
+        long begin = System.nanoTime();
+        try {
+            return super.mset(keyValues);
+        } catch (RuntimeException e) {
+            error(CacheCommand.MSET, e);
+            throw e;
+        } finally {
+            done(CacheCommand.MSET, begin);
+        }
+    }
+
+    @Override
+    public String msetex(Map<String, String> keyValues, int seconds) {
+        long begin = System.nanoTime();
+        try {
+            return super.msetex(keyValues, seconds);
+        } catch (RuntimeException e) {
+            error(CacheCommand.MSETEX, e);
+            throw e;
+        } finally {
+            done(CacheCommand.MSETEX, begin);
+        }
+    }
+
+    @Override
+    public Long publish(byte[] channel, byte[] message) {
+        long begin = System.nanoTime();
+        try {
+            return super.publish(channel, message);
+        } catch (RuntimeException e) {
+            error(CacheCommand.PUBLISH, e);
+            throw e;
+        } finally {
+            done(CacheCommand.PUBLISH, begin);
+        }
+    }
+
+    @Override
+    public void subscribe(BinaryJedisPubSub jedisPubSub, byte[]... channels) {
+        super.subscribe(jedisPubSub, channels);
+    }
+
+    @Override
+    public ScanResult<Map.Entry<String, String>> hscan(String key, String cursor, int count) {
+        long begin = System.nanoTime();
+        try {
+            return super.hscan(key, cursor, count);
+        } catch (RuntimeException e) {
+            error(CacheCommand.HSCAN, e);
+            throw e;
+        } finally {
+            done(CacheCommand.HSCAN, begin);
+        }
+    }
+
+    @Override
+    public ScanResult<String> sscan(String key, String cursor, int count) {
+        long begin = System.nanoTime();
+        try {
+            return super.sscan(key, cursor, count);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SSCAN, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SSCAN, begin);
+        }
+    }
+
+    @Override
+    public ScanResult<Tuple> zscan(String key, String cursor, int count) {
+        long begin = System.nanoTime();
+        try {
+            return super.zscan(key, cursor, count);
+        } catch (RuntimeException e) {
+            error(CacheCommand.ZSCAN, e);
+            throw e;
+        } finally {
+            done(CacheCommand.ZSCAN, begin);
+        }
+    }
+
+    @Override
+    public String get(CharSequence key) {
+        long begin = System.nanoTime();
+        try {
+            return super.get(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.GET, e);
+            throw e;
+        } finally {
+            done(CacheCommand.GET, begin);
+        }
+    }
+
+    @Override
+    public String setex(CharSequence key, int seconds, String value) {
+        long begin = System.nanoTime();
+        try {
+            return super.setex(key, seconds, value);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SETEX, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SETEX, begin);
+        }
+    }
+
+    @Override
+    public Long del(CharSequence key) {
+        long begin = System.nanoTime();
+        try {
+            return super.del(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.DEL, e);
+            throw e;
+        } finally {
+            done(CacheCommand.DEL, begin);
+        }
+    }
+
+    @Override
+    public byte[] get(ByteBuffer key) {
+        long begin = System.nanoTime();
+        try {
+            return super.get(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.GET, e);
+            throw e;
+        } finally {
+            done(CacheCommand.GET, begin);
+        }
+    }
+
+    @Override
+    public String setex(ByteBuffer key, int seconds, byte[] value) {
+        long begin = System.nanoTime();
+        try {
+            return super.setex(key, seconds, value);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SETEX, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SETEX, begin);
+        }
+    }
+
+    @Override
+    public Long del(ByteBuffer key) {
+        long begin = System.nanoTime();
+        try {
+            return super.del(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.DEL, e);
+            throw e;
+        } finally {
+            done(CacheCommand.DEL, begin);
+        }
+    }
+
+    @Override
+    public Long expire(ByteBuffer key, int seconds) {
+        long begin = System.nanoTime();
+        try {
+            return super.expire(key, seconds);
+        } catch (RuntimeException e) {
+            error(CacheCommand.EXPIRE, e);
+            throw e;
+        } finally {
+            done(CacheCommand.EXPIRE, begin);
+        }
+    }
+
+    @Override
+    public String setObjectEx(ByteBuffer key, int seconds, Object serializable) {
+        long begin = System.nanoTime();
+        try {
+            return super.setObjectEx(key, seconds, serializable);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SET_OBJECT_EX, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SET_OBJECT_EX, begin);
+        }
+    }
+
+    @Override
+    public Object getObject(ByteBuffer key) {
+        long begin = System.nanoTime();
+        try {
+            return super.getObject(key);
+        } catch (RuntimeException e) {
+            error(CacheCommand.GET_OBJECT, e);
+            throw e;
+        } finally {
+            done(CacheCommand.GET_OBJECT, begin);
+        }
+    }
+
+    @Override
+    public String getOrLoad(String key, int seconds, CacheLoader<String> loader) {
+        long begin = System.nanoTime();
+        try {
+            return super.getOrLoad(key, seconds, loader);
+        } catch (RuntimeException e) {
+            error(CacheCommand.GET_OR_LOAD, e);
+            throw e;
+        } finally {
+            done(CacheCommand.GET_OR_LOAD, begin);
+        }
+    }
+
+    @Override
+    public String getOrLoad(String key, int seconds, int nullSeconds, CacheLoader<String> loader) {
+        long begin = System.nanoTime();
+        try {
+            return super.getOrLoad(key, seconds, nullSeconds, loader);
+        } catch (RuntimeException e) {
+            error(CacheCommand.GET_OR_LOAD, e);
+            throw e;
+        } finally {
+            done(CacheCommand.GET_OR_LOAD, begin);
+        }
+    }
+
+    @Override
+    public byte[] getOrLoad(byte[] key, int seconds, CacheLoader<byte[]> loader) {
+        long begin = System.nanoTime();
+        try {
+            return super.getOrLoad(key, seconds, loader);
+        } catch (RuntimeException e) {
+            error(CacheCommand.GET_OR_LOAD, e);
+            throw e;
+        } finally {
+            done(CacheCommand.GET_OR_LOAD, begin);
+        }
+    }
+
+    @Override
+    public byte[] getOrLoad(byte[] key, int seconds, int nullSeconds, CacheLoader<byte[]> loader) {
+        long begin = System.nanoTime();
+        try {
+            return super.getOrLoad(key, seconds, nullSeconds, loader);
+        } catch (RuntimeException e) {
+            error(CacheCommand.GET_OR_LOAD, e);
+            throw e;
+        } finally {
+            done(CacheCommand.GET_OR_LOAD, begin);
+        }
+    }
+
+    @Override
+    public <T> T getObjectOrLoad(byte[] key, int seconds, CacheLoader<T> loader) {
+        long begin = System.nanoTime();
+        try {
+            return super.getObjectOrLoad(key, seconds, loader);
+        } catch (RuntimeException e) {
+            error(CacheCommand.GET_OBJECT_OR_LOAD, e);
+            throw e;
+        } finally {
+            done(CacheCommand.GET_OBJECT_OR_LOAD, begin);
+        }
+    }
+
+    @Override
+    public <T> T getObjectOrLoad(byte[] key, int seconds, int nullSeconds, CacheLoader<T> loader) {
+        long begin = System.nanoTime();
+        try {
+            return super.getObjectOrLoad(key, seconds, nullSeconds, loader);
+        } catch (RuntimeException e) {
+            error(CacheCommand.GET_OBJECT_OR_LOAD, e);
+            throw e;
+        } finally {
+            done(CacheCommand.GET_OBJECT_OR_LOAD, begin);
+        }
+    }
+
+    @Override
+    public Object eval(CacheScript script, String[] keys, String... args) {
+        long begin = System.nanoTime();
+        try {
+            return super.eval(script, keys, args);
+        } catch (RuntimeException e) {
+            error(CacheCommand.EVAL, e);
+            throw e;
+        } finally {
+            done(CacheCommand.EVAL, begin);
+        }
+    }
+
+    @Override
+    public Object eval(CacheScript script, byte[][] keys, byte[]... args) {
+        long begin = System.nanoTime();
+        try {
+            return super.eval(script, keys, args);
+        } catch (RuntimeException e) {
+            error(CacheCommand.EVAL, e);
+            throw e;
+        } finally {
+            done(CacheCommand.EVAL, begin);
+        }
+    }
+
+    @Override
+    public String scriptLoad(CacheScript script) {
+        long begin = System.nanoTime();
+        try {
+            return super.scriptLoad(script);
+        } catch (RuntimeException e) {
+            error(CacheCommand.SCRIPT_LOAD, e);
+            throw e;
+        } finally {
+            done(CacheCommand.SCRIPT_LOAD, begin);
+        }
+    }
+
+}
@@ -1,45 +1,113 @@
 package com.paas.cache.jedis;
 
 import com.paas.cache.ICacheClient;
+import com.paas.cache.batch.BatchCommand;
+import com.paas.cache.batch.CacheBatch;
+import com.paas.cache.codec.Codec;
+import com.paas.cache.codec.CodecSupport;
+import com.paas.cache.codec.Codecs;
+import com.paas.cache.codec.ObjectCodecs;
 import com.paas.cache.exception.CacheClientException;
-import com.paas.commons.serialize.SerializerUtil;
+import com.paas.cache.load.CacheAside;
+import com.paas.cache.load.CacheLoader;
+import com.paas.cache.metrics.CacheMetrics;
+import com.paas.cache.scan.CacheStreams;
+import com.paas.cache.scan.RangeIterator;
+import com.paas.cache.scan.ScanIterator;
+import com.paas.cache.script.CacheScript;
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import redis.clients.jedis.BinaryJedisPubSub;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
 import redis.clients.jedis.Tuple;
 import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.util.SafeEncoder;
 
 import java.io.Serializable;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
 
 /**
  * Created on 2016/9/23.
  */
-public class JedisClient implements ICacheClient {
+public class JedisClient implements ICacheClient, CodecSupport {
     protected static Logger log = LoggerFactory.getLogger(JedisClient.class);
-    private JedisPool cachePool;
+    private volatile JedisPool cachePool;
     private JedisConfig config;
+    private ObjectCodecs codecs;
+    private final CacheAside cacheAside = new CacheAside();
 
     private GenericObjectPoolConfig poolConfig;
-    private static Lock lock = new ReentrantLock();
+    private ConnectionHealth health;
+    private volatile CacheMetrics metrics;
+
+    /**
+     * 使用借用的连接执行命令
+     */
+    interface JedisCallback<T> {
+        T doInJedis(Jedis jedis);
+    }
 
 
     public JedisConfig getConfig() {
         return config;
     }
 
+    /**
+     * 设置后记录连接池借用等待时间
+     */
+    public void setMetrics(CacheMetrics metrics) {
+        this.metrics = metrics;
+    }
+
     public JedisClient(JedisConfig config) {
         this.config = config;
+        this.codecs = new ObjectCodecs(config);
         initPoolConfig();
         initPool();
+        initHealth();
+    }
+
+    private void initHealth() {
+        health = new ConnectionHealth(config.getServers(), config.getConf(), new ConnectionHealth.Probe() {
+            @Override
+            public void probe() throws Exception {
+                String[] hostArr = config.getServers().split(":");
+                int timeout = config.getConf() == null ? 2000 : config.getConf().getTimeout();
+                try (Jedis jedis = new Jedis(hostArr[0], Integer.parseInt(hostArr[1]), timeout)) {
+                    if (config.isRedisNeedAuth()) {
+                        jedis.auth(config.getServerInfo().getPassword());
+                    }
+                    jedis.ping();
+                }
+            }
+
+            @Override
+            public void recover() {
+                // 连接池中的连接仍可用时保留, 不影响正在执行的命令
+                if (!isPoolHealthy()) {
+                    createPool();
+                }
+            }
+        });
+    }
+
+    public ConnectionHealth getHealth() {
+        return health;
     }
 
     private void initPoolConfig() {
@@ -57,33 +125,21 @@ public class JedisClient implements ICacheClient {
         }
     }
 
-    protected final void createPool() {
-        if (!canConnection()) {
-            lock.lock();
-            try {
-                if (!canConnection()) {
-                    log.info(" ---> Create JedisPool Begin ...");
-                    String[] hostArr = config.getServers().split(":");
-                    JedisPool oldPool = cachePool;
-                    if (config.isRedisNeedAuth()) {
-                        cachePool = new JedisPool(poolConfig, hostArr[0], Integer.parseInt(hostArr[1]),
-                                config.getConf().getTimeout(), config.getServerInfo().getPassword());
-                    } else {
-                        cachePool = new JedisPool(poolConfig, hostArr[0], Integer.parseInt(hostArr[1]));
-                    }
-                    destroyPool(oldPool);
-                    if (canConnection()) {
-                        log.info(" ---> Redis Server Info: {}", config.getServers());
-                    }
-                    log.info(" ---> Create JedisPool Done. {}", cachePool);
-                }
-            } catch (Exception e) {
-                throw new CacheClientException(e);
-            } finally {
-                lock.unlock();
-            }
-
+    /**
+     * 重建连接池, 旧连接池中的连接全部关闭
+     */
+    protected final synchronized void createPool() {
+        log.info(" ---> Create JedisPool Begin ...");
+        String[] hostArr = config.getServers().split(":");
+        JedisPool oldPool = cachePool;
+        if (config.isRedisNeedAuth()) {
+            cachePool = new JedisPool(poolConfig, hostArr[0], Integer.parseInt(hostArr[1]),
+                    config.getConf().getTimeout(), config.getServerInfo().getPassword());
+        } else {
+            cachePool = new JedisPool(poolConfig, hostArr[0], Integer.parseInt(hostArr[1]));
         }
+        destroyPool(oldPool);
+        log.info(" ---> Create JedisPool Done. {}", cachePool);
     }
 
     // destroy origin pool
@@ -97,28 +153,102 @@ public class JedisClient implements ICacheClient {
         }
     }
 
-    protected final boolean canConnection() {
-        if (cachePool == null) {
-            return false;
-        }
-        try (Jedis jedis = getJedis()) {
-            jedis.connect();
-            jedis.get("ok");
-            return true;
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
+    /**
+     * 借用连接执行命令, 命令发出后连接异常时不重试, 写命令不会重复执行
+     */
+    <T> T execute(JedisCallback<T> callback) {
+        return execute(callback, false);
+    }
+
+    /**
+     * 执行只读等幂等命令, 命令发出后连接异常(如读超时)时也按退避策略重试
+     */
+    <T> T read(JedisCallback<T> callback) {
+        return execute(callback, true);
+    }
+
+    /**
+     * 借用连接执行命令。建立连接失败时计入熔断并按退避策略有限次重试, 熔断期间直接失败, 不再逐个线程等待超时;
+     * 连接池耗尽直接失败且不计入熔断。命令发出后的连接异常不计入熔断, 只有 idempotent 为true时重试
+     */
+    private <T> T execute(JedisCallback<T> callback, boolean idempotent) {
+        for (int attempt = 0; ; attempt++) {
+            health.checkAvailable();
+            Jedis jedis;
+            try {
+                jedis = getJedis();
+            } catch (JedisConnectionException e) {
+                if (ConnectionHealth.isPoolExhausted(e)) {
+                    throw new CacheClientException(e);
+                }
+                // 新建连接失败计入熔断; 已有连接失效(如select失败)时命令尚未发出, 直接重试
+                boolean retry = ConnectionHealth.isConnectFailure(e) ? health.retry(attempt, e) : health.retryRequest(attempt);
+                if (retry) {
+                    continue;
+                }
+                log.error(e.getMessage(), e);
+                throw new CacheClientException(e);
+            } catch (CacheClientException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error(e.getMessage(), e);
+                throw new CacheClientException(e);
+            }
+            JedisConnectionException failure;
+            try {
+                T result = callback.doInJedis(jedis);
+                health.onSuccess();
+                return result;
+            } catch (JedisConnectionException jedisException) {
+                failure = jedisException;
+            } catch (CacheClientException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error(e.getMessage(), e);
+                throw new CacheClientException(e);
+            } finally {
+                returnResource(jedis);
+            }
+            // 连接已归还后再退避等待
+            if (!idempotent || !health.retryRequest(attempt)) {
+                log.error(failure.getMessage(), failure);
+                throw new CacheClientException(failure);
+            }
         }
     }
 
     protected Jedis getJedis() {
+        CacheMetrics m = metrics;
+        long start = m == null ? 0 : System.nanoTime();
         Jedis jedis = cachePool.getResource();
+        if (m != null) {
+            m.recordBorrow(System.nanoTime() - start);
+        }
         if (config.getDb() != null && config.getDb().intValue() > 0) {
-            jedis.select(config.getDb());
+            try {
+                jedis.select(config.getDb());
+            } catch (RuntimeException e) {
+                returnResource(jedis);
+                throw e;
+            }
         }
         return jedis;
     }
 
+    // 从当前连接池借用连接并ping, 连接池耗尽视为可用
+    private boolean isPoolHealthy() {
+        JedisPool pool = cachePool;
+        if (pool == null || pool.isClosed()) {
+            return false;
+        }
+        try (Jedis jedis = pool.getResource()) {
+            jedis.ping();
+            return true;
+        } catch (RuntimeException e) {
+            return ConnectionHealth.isPoolExhausted(e);
+        }
+    }
+
     private synchronized void initPool() {
         if (cachePool != null) {
             return;
@@ -126,7 +256,35 @@ public class JedisClient implements ICacheClient {
         createPool();
     }
 
+    /**
+     * 预先建立最小空闲数的连接并逐个ping, 热切换前确认新连接池可用
+     */
+    public void warmUp() {
+        int count = Math.max(1, poolConfig.getMinIdle());
+        List<Jedis> borrowed = new ArrayList<>(count);
+        try {
+            for (int i = 0; i < count; i++) {
+                Jedis jedis = getJedis();
+                borrowed.add(jedis);
+                jedis.ping();
+            }
+        } finally {
+            for (Jedis jedis : borrowed) {
+                returnResource(jedis);
+            }
+        }
+    }
+
+    /**
+     * 已借出未归还的连接数, 即正在执行的命令数(含阻塞中的订阅)
+     */
+    public int getActiveConnections() {
+        JedisPool pool = cachePool;
+        return pool == null ? 0 : pool.getNumActive();
+    }
+
     public void destroy() {
+        health.shutdown();
         if (cachePool != null) {
             cachePool.destroy();
         }
@@ -137,1463 +295,266 @@ public class JedisClient implements ICacheClient {
     }
 
     public String set(String key, String value) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.set(key, value);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return set(key, value);
-            } else {
-                log.error(jedisException.getMessage(), jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
-
+        return execute(jedis -> jedis.set(key, value));
     }
 
     public String getSet(String key, String value) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.getSet(key, value);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return getSet(key, value);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.getSet(key, value));
     }
 
     public String setex(String key, int seconds, String value) {
         if (seconds <= 0 || key == null || key.length() == 0) {
             throw new CacheClientException("参数无效");
         }
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.setex(key, seconds, value);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return setex(key, seconds, value);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.setex(key, seconds, value));
     }
 
     public String get(String key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.get(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return get(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.get(key));
     }
 
     public Long del(String key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.del(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return del(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.del(key));
     }
 
     public Long hincrBy(String key, String field, long value) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.hincrBy(key, field, value);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return hincrBy(key, field, value);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.hincrBy(key, field, value));
     }
 
     @Override
     public Double incrByFloat(String key, double value) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.incrByFloat(key, value);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return incrByFloat(key, value);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.incrByFloat(key, value));
     }
 
     @Override
     public Double hincrByFloat(String key, String field, double value) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.hincrByFloat(key, field, value);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return hincrByFloat(key, field, value);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.hincrByFloat(key, field, value));
     }
 
     public Long del(String... keys) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.del(keys);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return del(keys);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.del(keys));
     }
 
     public Long expire(String key, int seconds) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.expire((key), seconds);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return expire(key, seconds);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.expire((key), seconds));
     }
 
     @Override
     public Long expireAt(String key, long seconds) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.expireAt((key), seconds);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return expireAt(key, seconds);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.expireAt((key), seconds));
     }
 
     public Long ttl(String key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.ttl(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return ttl(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.ttl(key));
     }
 
     public boolean exists(String key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.exists(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return exists(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.exists(key));
     }
 
     public Long incr(String key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.incr(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return incr(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.incr(key));
     }
 
     public Long incrBy(String key, long increment) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.incrBy(key, increment);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return incrBy(key, increment);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.incrBy(key, increment));
     }
 
     public Long decr(String key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.decr(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return decr(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.decr(key));
     }
 
     public Long decrBy(String key, long decrement) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.decrBy(key, decrement);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return decrBy(key, decrement);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.decrBy(key, decrement));
     }
 
     public Long lpush(String key, String... strings) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.lpush(key, strings);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return lpush(key, strings);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.lpush(key, strings));
     }
 
     public Long rpush(String key, String... strings) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.rpush(key, strings);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return rpush(key, strings);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.rpush(key, strings));
     }
 
     public Long llen(String key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.llen(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return llen(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.llen(key));
     }
 
     public String lpop(String key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.lpop(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return lpop(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.lpop(key));
     }
 
     public String rpop(String key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.rpop(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return rpop(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.rpop(key));
     }
 
     public List<String> lrange(String key, long start, long end) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.lrange(key, start, end);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return lrange(key, start, end);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.lrange(key, start, end));
     }
 
     public List<String> lrangeAll(String key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.lrange(key, 0, -1);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return lrangeAll(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.lrange(key, 0, -1));
     }
 
     public Long hset(String key, String field, String value) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.hset(key, field, value);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return hset(key, field, value);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.hset(key, field, value));
     }
 
     public Long hsetnx(String key, String field, String value) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.hsetnx(key, field, value);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return hsetnx(key, field, value);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.hsetnx(key, field, value));
     }
 
     public String hmset(String key, Map<String, String> hash) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.hmset(key, hash);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return hmset(key, hash);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.hmset(key, hash));
     }
 
     public String hget(String key, String field) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.hget(key, field);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return hget(key, field);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.hget(key, field));
     }
 
     public List<String> hmget(final String key, final String... fields) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.hmget(key, fields);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return hmget(key, fields);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.hmget(key, fields));
     }
 
     public Boolean hexists(String key, String field) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.hexists(key, field);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return hexists(key, field);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.hexists(key, field));
     }
 
     public Long hdel(String key, String... fields) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.hdel(key, fields);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return hdel(key, fields);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.hdel(key, fields));
     }
 
     public Long hlen(String key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.hlen(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return hlen(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.hlen(key));
     }
 
     public Map<String, String> hgetAll(String key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.hgetAll(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return hgetAll(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.hgetAll(key));
     }
 
     public Long sadd(String key, String... members) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.sadd(key, members);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return sadd(key, members);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.sadd(key, members));
     }
 
     public Set<String> smembers(String key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.smembers(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return smembers(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.smembers(key));
     }
 
     public Long srem(String key, String... members) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.srem(key, members);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return srem(key, members);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.srem(key, members));
     }
 
     public Long scard(String key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.scard(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return scard(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.scard(key));
     }
 
     public Set<String> sunion(String... keys) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.sunion(keys);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return sunion(keys);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.sunion(keys));
     }
 
     public Set<String> sdiff(String... keys) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.sdiff(keys);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return sdiff(keys);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.sdiff(keys));
     }
 
     public Long sdiffstore(String dstkey, String... keys) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.sdiffstore(dstkey, keys);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return sdiffstore(dstkey, keys);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.sdiffstore(dstkey, keys));
     }
 
     public String set(byte[] key, byte[] value) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.set(key, value);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return set(key, value);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.set(key, value));
     }
 
     public String setex(byte[] key, int seconds, byte[] value) {
         if (seconds <= 0 || key == null || key.length == 0) {
             throw new CacheClientException("参数无效");
         }
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.setex(key, seconds, value);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return setex(key, seconds, value);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.setex(key, seconds, value));
     }
 
     public byte[] get(byte[] key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.get(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return get(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.get(key));
     }
 
     public Long del(byte[] key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.del(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return del(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.del(key));
     }
 
     public Long del(byte[]... keys) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.del(keys);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return del(keys);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.del(keys));
     }
 
     public Long expire(byte[] key, int seconds) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.expire(key, seconds);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return expire(key, seconds);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.expire(key, seconds));
     }
 
     @Override
     public Long expireAt(byte[] key, long seconds) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.expireAt(key, seconds);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return expireAt(key, seconds);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.expireAt(key, seconds));
     }
 
     public Long ttl(byte[] key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.ttl(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return ttl(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.ttl(key));
     }
 
     public boolean exists(byte[] key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.exists(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return exists(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.exists(key));
     }
 
     public Long incr(byte[] key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.incr(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return incr(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.incr(key));
     }
 
     public Long incrBy(byte[] key, long increment) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.incrBy(key, increment);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return incrBy(key, increment);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.incrBy(key, increment));
     }
 
     public Long decr(byte[] key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.decr(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return decr(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.decr(key));
     }
 
     public Long decrBy(byte[] key, long decrement) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.decrBy(key, decrement);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return decrBy(key, decrement);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.decrBy(key, decrement));
     }
 
     public Long lpush(byte[] key, byte[]... strings) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.lpush(key, strings);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return lpush(key, strings);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.lpush(key, strings));
     }
 
     public Long rpush(byte[] key, byte[]... strings) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.rpush(key, strings);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return rpush(key, strings);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.rpush(key, strings));
     }
 
     public Long llen(byte[] key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.llen(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return llen(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.llen(key));
     }
 
     public byte[] lpop(byte[] key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.lpop(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return lpop(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.lpop(key));
     }
 
     public byte[] rpop(byte[] key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.rpop(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return rpop(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.rpop(key));
     }
 
     public List<byte[]> lrange(byte[] key, long start, long end) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.lrange(key, start, end);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return lrange(key, start, end);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.lrange(key, start, end));
     }
 
     public List<byte[]> lrangeAll(byte[] key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.lrange(key, 0, -1);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return lrangeAll(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.lrange(key, 0, -1));
     }
 
     public Long hset(byte[] key, byte[] field, byte[] value) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.hset(key, field, value);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return hset(key, field, value);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.hset(key, field, value));
     }
 
     public Long hsetnx(byte[] key, byte[] field, byte[] value) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.hsetnx(key, field, value);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return hsetnx(key, field, value);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.hsetnx(key, field, value));
     }
 
     @Override
     public Long setnx(byte[] key, byte[] value) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.setnx(key, value);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return jedis.setnx(key, value);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.setnx(key, value));
     }
 
     @Override
@@ -1602,853 +563,169 @@ public class JedisClient implements ICacheClient {
     }
 
     public String hmset(byte[] key, Map<byte[], byte[]> hash) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.hmset(key, hash);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return hmset(key, hash);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.hmset(key, hash));
     }
 
     public byte[] hget(byte[] key, byte[] field) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.hget(key, field);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return hget(key, field);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.hget(key, field));
     }
 
     public List<byte[]> hmget(final byte[] key, final byte[]... fields) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.hmget(key, fields);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return hmget(key, fields);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.hmget(key, fields));
     }
 
     public Boolean hexists(byte[] key, byte[] field) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.hexists(key, field);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return hexists(key, field);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.hexists(key, field));
     }
 
     public Long hdel(byte[] key, byte[]... fields) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.hdel(key, fields);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return hdel(key, fields);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.hdel(key, fields));
     }
 
     public Long hlen(byte[] key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.hlen(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return hlen(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.hlen(key));
     }
 
     public Map<byte[], byte[]> hgetAll(byte[] key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.hgetAll(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return hgetAll(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
-    }
-
-    public Long sadd(byte[] key, byte[]... members) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.sadd(key, members);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return sadd(key, members);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
-    }
-
-    public Set<byte[]> smembers(byte[] key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.smembers(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return smembers(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
-    }
-
-    public Long srem(byte[] key, byte[]... members) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.srem(key, members);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return srem(key, members);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.hgetAll(key));
+    }
+
+    public Long sadd(byte[] key, byte[]... members) {
+        return execute(jedis -> jedis.sadd(key, members));
+    }
+
+    public Set<byte[]> smembers(byte[] key) {
+        return read(jedis -> jedis.smembers(key));
+    }
+
+    public Long srem(byte[] key, byte[]... members) {
+        return execute(jedis -> jedis.srem(key, members));
     }
 
     public Long scard(byte[] key) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.scard(key);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return scard(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.scard(key));
     }
 
     public Set<byte[]> sunion(byte[]... keys) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.sunion(keys);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return sunion(keys);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.sunion(keys));
     }
 
     public Set<byte[]> sdiff(byte[]... keys) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.sdiff(keys);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return sdiff(keys);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.sdiff(keys));
     }
 
     public Long sdiffstore(byte[] dstkey, byte[]... keys) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.sdiffstore(dstkey, keys);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return sdiffstore(dstkey, keys);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.sdiffstore(dstkey, keys));
     }
 
     @Override
     public Long lrem(String key, long count, String value) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.lrem(key, count, value);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return lrem(key, count, value);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.lrem(key, count, value));
     }
 
     @Override
     public Long lrem(byte[] key, long count, byte[] value) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.lrem(key, count, value);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return lrem(key, count, value);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.lrem(key, count, value));
     }
 
     @Override
     public Long zadd(String key, double score, String member) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zadd(key, score, member);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zadd(key, score, member);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.zadd(key, score, member));
     }
 
     @Override
     public Long zadd(String key, Map<String, Double> scoreMembers) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zadd(key, scoreMembers);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zadd(key, scoreMembers);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.zadd(key, scoreMembers));
     }
 
     @Override
     public Long zcount(final String key, final double min, final double max) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zcount(key, min, max);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zcount(key, min, max);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.zcount(key, min, max));
     }
 
     @Override
     public Long zcount(final String key, final String min, final String max) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zcount(key, min, max);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zcount(key, min, max);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.zcount(key, min, max));
     }
 
     @Override
     public Double zincrby(final String key, final double score, final String member) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zincrby(key, score, member);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zincrby(key, score, member);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.zincrby(key, score, member));
     }
 
     @Override
     public Set<String> zrange(final String key, final long start, final long end) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zrange(key, start, end);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zrange(key, start, end);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.zrange(key, start, end));
     }
 
     @Override
     public Set<String> zrangeByScore(final String key, final double min, final double max) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zrangeByScore(key, min, max);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zrangeByScore(key, min, max);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.zrangeByScore(key, min, max));
     }
 
     @Override
     public Set<String> zrangeByScore(final String key, final String min, final String max) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zrangeByScore(key, min, max);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zrangeByScore(key, min, max);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.zrangeByScore(key, min, max));
     }
 
     @Override
     public Set<String> zrangeByScore(final String key, final double min, final double max, final int offset, int count) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zrangeByScore(key, min, max, offset, count);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zrangeByScore(key, min, max, offset, count);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.zrangeByScore(key, min, max, offset, count));
     }
 
     @Override
     public Set<String> zrevrange(final String key, final long start, final long end) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zrevrange(key, start, end);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zrevrange(key, start, end);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.zrevrange(key, start, end));
     }
 
     @Override
     public Set<String> zrevrangeByScore(final String key, final double max, final double min) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zrevrangeByScore(key, max, min);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zrevrangeByScore(key, max, min);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.zrevrangeByScore(key, max, min));
     }
 
     @Override
     public Set<String> zrevrangeByScore(final String key, final String max, final String min) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zrevrangeByScore(key, max, min);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zrevrangeByScore(key, max, min);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
-    }
-
-    @Override
-    public Set<String> zrevrangeByScore(final String key, final double max, final double min, final int offset, int count) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zrevrangeByScore(key, max, min, offset, count);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zrevrangeByScore(key, max, min, offset, count);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.zrevrangeByScore(key, max, min));
     }
-
-    @Override
-    public Set<String> zrevrangeByScore(final String key, final String max, final String min, final int offset, int count) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zrevrangeByScore(key, max, min, offset, count);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zrevrangeByScore(key, max, min, offset, count);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+
+    @Override
+    public Set<String> zrevrangeByScore(final String key, final double max, final double min, final int offset, int count) {
+        return read(jedis -> jedis.zrevrangeByScore(key, max, min, offset, count));
+    }
+
+    @Override
+    public Set<String> zrevrangeByScore(final String key, final String max, final String min, final int offset, int count) {
+        return read(jedis -> jedis.zrevrangeByScore(key, max, min, offset, count));
     }
 
     @Override
     public Long zrevrank(final String key, final String member) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zrevrank(key, member);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zrevrank(key, member);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.zrevrank(key, member));
     }
 
     @Override
     public Long zrem(final String key, final String... member) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zrem(key, member);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zrem(key, member);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.zrem(key, member));
     }
 
     @Override
     public Long zremrangeByRank(final String key, final long start, final long end) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zremrangeByRank(key, start, end);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zremrangeByRank(key, start, end);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.zremrangeByRank(key, start, end));
     }
 
     @Override
     public Long zremrangeByScore(final String key, final double start, final double end) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zremrangeByScore(key, start, end);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zremrangeByScore(key, start, end);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.zremrangeByScore(key, start, end));
     }
 
     @Override
     public Long zremrangeByScore(final String key, final String start, final String end) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zremrangeByScore(key, start, end);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zremrangeByScore(key, start, end);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.zremrangeByScore(key, start, end));
     }
 
     @Override
     public Boolean sismember(String key, String object) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.sismember(key, object);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return sismember(key, object);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.sismember(key, object));
     }
 
     /**
@@ -2464,26 +741,7 @@ public class JedisClient implements ICacheClient {
         if (milliseconds < 1) {
             throw new CacheClientException("非法参数!");
         }
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.pexpire(key, milliseconds);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return pexpire(key, milliseconds);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return execute(jedis -> jedis.pexpire(key, milliseconds));
     }
 
     @Override
@@ -2491,27 +749,15 @@ public class JedisClient implements ICacheClient {
         if (start < 1) {
             throw new CacheClientException("非法参数!");
         }
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
+        return execute(jedis -> {
             String rtu = jedis.ltrim(listKey, start, stop);
             return "OK".equals(rtu);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return ltrim(listKey, start, stop);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        });
+    }
+
+    @Override
+    public ObjectCodecs getCodecs() {
+        return codecs;
     }
 
     @Override
@@ -2520,7 +766,7 @@ public class JedisClient implements ICacheClient {
             throw new CacheClientException();
         }
 //		byte[] valueser = SerializerUtil.serialize((Serializable)serializable);
-        byte[] valueser = SerializerUtil.defaultSerialize((Serializable) serializable);
+        byte[] valueser = codecs.encode(serializable);
         log.debug("---> setObjectEx value size{}.", valueser.length);
 //		byte[] keyser = SerializerUtil.serialize(key);
         return setex(key, seconds, valueser);
@@ -2533,7 +779,7 @@ public class JedisClient implements ICacheClient {
         if (result == null)
             return null;
 //		return SerializerUtil.deserialize(result);
-        return SerializerUtil.defaultDeserialize(result);
+        return codecs.decode(result);
     }
 
     /**
@@ -2549,26 +795,7 @@ public class JedisClient implements ICacheClient {
      */
     @Override
     public Set<Tuple> zrevrangeByScoreWithScores(String key, double max, double min, int offset, int count) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zrevrangeByScoreWithScores(key, max, min, offset, count);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zrevrangeByScoreWithScores(key, max, min, offset, count);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.zrevrangeByScoreWithScores(key, max, min, offset, count));
     }
 
     /**
@@ -2584,50 +811,12 @@ public class JedisClient implements ICacheClient {
      */
     @Override
     public Set<Tuple> zrevrangeByScoreWithScores(String key, String max, String min, int offset, int count) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zrevrangeByScoreWithScores(key, max, min, offset, count);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zrevrangeByScoreWithScores(key, max, min, offset, count);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.zrevrangeByScoreWithScores(key, max, min, offset, count));
     }
 
     @Override
     public Set<Tuple> zrevrangeByScoreWithScores(String key, String max, String min) {
-        Jedis jedis = null;
-        try {
-            jedis = getJedis();
-            return jedis.zrevrangeByScoreWithScores(key, max, min);
-        } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zrevrangeByScoreWithScores(key, max, min);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-            if (jedis != null)
-                returnResource(jedis);
-        }
+        return read(jedis -> jedis.zrevrangeByScoreWithScores(key, max, min));
     }
 
     /**
@@ -2638,19 +827,86 @@ public class JedisClient implements ICacheClient {
      */
     @Override
     public Long zcard(String key) {
+        return read(jedis -> jedis.zcard(key));
+    }
+
+    @Override
+    public List<String> mget(String... keys) {
+        return read(jedis -> jedis.mget(keys));
+    }
+
+    @Override
+    public List<byte[]> mget(byte[]... keys) {
+        return read(jedis -> jedis.mget(keys));
+    }
+
+    @Override
+    public String mset(Map<String, String> keyValues) {
+        if (keyValues == null || keyValues.isEmpty()) {
+            throw new CacheClientException("参数无效");
+        }
+        return execute(jedis -> {
+            String[] keysvalues = new String[keyValues.size() * 2];
+            int index = 0;
+            for (Map.Entry<String, String> entry : keyValues.entrySet()) {
+                keysvalues[index++] = entry.getKey();
+                keysvalues[index++] = entry.getValue();
+            }
+            return jedis.mset(keysvalues);
+        });
+    }
+
+    @Override
+    public String msetex(Map<String, String> keyValues, int seconds) {
+        if (seconds <= 0 || keyValues == null || keyValues.isEmpty()) {
+            throw new CacheClientException("参数无效");
+        }
+        return execute(jedis -> {
+            Pipeline pipeline = jedis.pipelined();
+            for (Map.Entry<String, String> entry : keyValues.entrySet()) {
+                pipeline.setex(entry.getKey(), seconds, entry.getValue());
+            }
+            for (Object result : pipeline.syncAndReturnAll()) {
+                if (result instanceof RuntimeException) {
+                    throw (RuntimeException) result;
+                }
+            }
+            return "OK";
+        });
+    }
+
+    /**
+     * 整批命令通过一个连接的pipeline提交, 一次往返
+     *
+     * @param batch 批量命令
+     * @return 按添加顺序排列的结果
+     */
+    @Override
+    public List<Object> executeBatch(CacheBatch batch) {
+        if (batch == null || batch.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return execute(jedis -> pipelined(jedis, batch.getCommands(), batch));
+    }
+
+    @Override
+    public Long publish(byte[] channel, byte[] message) {
+        return execute(jedis -> jedis.publish(channel, message));
+    }
+
+    /**
+     * 订阅期间独占一个连接, 连接断开时抛出异常, 由调用方决定是否重新订阅
+     */
+    @Override
+    public void subscribe(BinaryJedisPubSub jedisPubSub, byte[]... channels) {
+        health.checkAvailable();
         Jedis jedis = null;
         try {
             jedis = getJedis();
-            return jedis.zcard(key);
+            jedis.subscribe(jedisPubSub, channels);
         } catch (JedisConnectionException jedisException) {
-            createPool();
-            if (canConnection()) {
-                return zcard(key);
-            } else {
-                log.error(jedisException.getMessage(),
-                        jedisException);
-                throw new CacheClientException(jedisException);
-            }
+            log.error(jedisException.getMessage(), jedisException);
+            throw new CacheClientException(jedisException);
         } catch (Exception e) {
             log.error(e.getMessage(), e);
             throw new CacheClientException(e);
@@ -2659,4 +915,155 @@ public class JedisClient implements ICacheClient {
                 returnResource(jedis);
         }
     }
+
+    @Override
+    public ScanResult<Map.Entry<String, String>> hscan(String key, String cursor, int count) {
+        return read(jedis -> jedis.hscan(key, cursor, new ScanParams().count(count)));
+    }
+
+    @Override
+    public ScanResult<String> sscan(String key, String cursor, int count) {
+        return read(jedis -> jedis.sscan(key, cursor, new ScanParams().count(count)));
+    }
+
+    @Override
+    public ScanResult<Tuple> zscan(String key, String cursor, int count) {
+        return read(jedis -> jedis.zscan(key, cursor, new ScanParams().count(count)));
+    }
+
+    @Override
+    public Stream<Map.Entry<String, String>> hscanStream(String key, int pageSize) {
+        return CacheStreams.of(new ScanIterator<>(cursor -> hscan(key, cursor, pageSize)));
+    }
+
+    @Override
+    public Stream<String> sscanStream(String key, int pageSize) {
+        return CacheStreams.of(new ScanIterator<>(cursor -> sscan(key, cursor, pageSize)));
+    }
+
+    @Override
+    public Stream<Tuple> zscanStream(String key, int pageSize) {
+        return CacheStreams.of(new ScanIterator<>(cursor -> zscan(key, cursor, pageSize)));
+    }
+
+    @Override
+    public Stream<String> lrangeStream(String key, int pageSize) {
+        return CacheStreams.of(new RangeIterator<>(pageSize, (start, end) -> lrange(key, start, end)));
+    }
+
+    /**
+     * 在一个pipeline中执行批量中的部分命令, 供分片客户端按分片拆分批量
+     */
+    List<Object> executeCommands(CacheBatch batch, List<BatchCommand<?>> commands) {
+        return execute(jedis -> pipelined(jedis, commands, batch));
+    }
+
+    static List<Object> pipelined(Jedis jedis, List<BatchCommand<?>> commands, CacheBatch batch) {
+        Pipeline pipeline = jedis.pipelined();
+        List<Response<?>> responses = new ArrayList<>(commands.size());
+        for (BatchCommand<?> command : commands) {
+            responses.add(command.pipe(pipeline, batch.getKeyMapper()));
+        }
+        pipeline.sync();
+        List<Object> results = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            results.add(commands.get(i).complete(responses.get(i)));
+        }
+        return results;
+    }
+
+    @Override
+    public String getOrLoad(String key, int seconds, CacheLoader<String> loader) {
+        return cacheAside.getOrLoad(this, key, seconds, 0, loader);
+    }
+
+    @Override
+    public String getOrLoad(String key, int seconds, int nullSeconds, CacheLoader<String> loader) {
+        return cacheAside.getOrLoad(this, key, seconds, nullSeconds, loader);
+    }
+
+    @Override
+    public byte[] getOrLoad(byte[] key, int seconds, CacheLoader<byte[]> loader) {
+        return cacheAside.getOrLoad(this, key, seconds, 0, loader);
+    }
+
+    @Override
+    public byte[] getOrLoad(byte[] key, int seconds, int nullSeconds, CacheLoader<byte[]> loader) {
+        return cacheAside.getOrLoad(this, key, seconds, nullSeconds, loader);
+    }
+
+    @Override
+    public <T> T getObjectOrLoad(byte[] key, int seconds, CacheLoader<T> loader) {
+        return cacheAside.getObjectOrLoad(this, key, seconds, 0, loader);
+    }
+
+    @Override
+    public <T> T getObjectOrLoad(byte[] key, int seconds, int nullSeconds, CacheLoader<T> loader) {
+        return cacheAside.getObjectOrLoad(this, key, seconds, nullSeconds, loader);
+    }
+
+    @Override
+    public <T> T get(String key, Codec<T> codec) {
+        return Codecs.decode(codec, get(SafeEncoder.encode(key)));
+    }
+
+    @Override
+    public <T> String setex(String key, int seconds, T value, Codec<T> codec) {
+        return setex(SafeEncoder.encode(key), seconds, Codecs.encode(codec, value));
+    }
+
+    @Override
+    public <T> List<T> mget(Codec<T> codec, String... keys) {
+        return Codecs.decode(codec, mget(SafeEncoder.encodeMany(keys)));
+    }
+
+    @Override
+    public <T> T hget(String key, String field, Codec<T> codec) {
+        return Codecs.decode(codec, hget(SafeEncoder.encode(key), SafeEncoder.encode(field)));
+    }
+
+    @Override
+    public <T> Long hset(String key, String field, T value, Codec<T> codec) {
+        return hset(SafeEncoder.encode(key), SafeEncoder.encode(field), Codecs.encode(codec, value));
+    }
+
+    @Override
+    public <T> Map<String, T> hgetAll(String key, Codec<T> codec) {
+        return Codecs.decode(codec, hgetAll(SafeEncoder.encode(key)));
+    }
+
+    @Override
+    public Object eval(CacheScript script, String[] keys, String... args) {
+        List<String> keyList = keys == null ? Collections.emptyList() : Arrays.asList(keys);
+        List<String> argList = args == null ? Collections.emptyList() : Arrays.asList(args);
+        return execute(jedis -> {
+            try {
+                return jedis.evalsha(script.getSha1(), keyList, argList);
+            } catch (JedisNoScriptException e) {
+                log.info(" ---> script {} not loaded on {}, load it.", script, config.getServers());
+                jedis.scriptLoad(script.getSource());
+                return jedis.evalsha(script.getSha1(), keyList, argList);
+            }
+        });
+    }
+
+    @Override
+    public Object eval(CacheScript script, byte[][] keys, byte[]... args) {
+        List<byte[]> keyList = keys == null ? Collections.emptyList() : Arrays.asList(keys);
+        List<byte[]> argList = args == null ? Collections.emptyList() : Arrays.asList(args);
+        return execute(jedis -> {
+            try {
+                return jedis.evalsha(script.getSha1Bytes(), keyList, argList);
+            } catch (JedisNoScriptException e) {
+                log.info(" ---> script {} not loaded on {}, load it.", script, config.getServers());
+                jedis.scriptLoad(script.getSourceBytes());
+                return jedis.evalsha(script.getSha1Bytes(), keyList, argList);
+            }
+        });
+    }
+
+    @Override
+    public String scriptLoad(CacheScript script) {
+        return execute(jedis -> jedis.scriptLoad(script.getSource()));
+    }
 }
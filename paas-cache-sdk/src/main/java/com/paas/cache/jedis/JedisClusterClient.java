@@ -1,38 +1,147 @@
 package com.paas.cache.jedis;
 
 import com.paas.cache.ICacheClient;
+import com.paas.cache.batch.BatchCommand;
+import com.paas.cache.batch.CacheBatch;
+import com.paas.cache.batch.KeyMapper;
+import com.paas.cache.codec.Codec;
+import com.paas.cache.codec.CodecSupport;
+import com.paas.cache.codec.Codecs;
+import com.paas.cache.codec.ObjectCodecs;
 import com.paas.cache.exception.CacheClientException;
-import com.paas.commons.serialize.SerializerUtil;
+import com.paas.cache.load.CacheAside;
+import com.paas.cache.load.CacheLoader;
+import com.paas.cache.metrics.CacheMetrics;
+import com.paas.cache.scan.CacheStreams;
+import com.paas.cache.scan.RangeIterator;
+import com.paas.cache.scan.ScanIterator;
+import com.paas.cache.script.CacheScript;
 
 import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import redis.clients.jedis.BinaryJedisPubSub;
 import redis.clients.jedis.HostAndPort;
-import redis.clients.jedis.JedisCluster;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
 import redis.clients.jedis.JedisPoolConfig;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
 import redis.clients.jedis.Tuple;
+import redis.clients.jedis.exceptions.JedisAskDataException;
 import redis.clients.jedis.exceptions.JedisClusterException;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisNoScriptException;
+import redis.clients.jedis.exceptions.JedisRedirectionException;
+import redis.clients.util.SafeEncoder;
 
 import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
 
 /**
  * Created on 2016/9/26.
  */
-public class JedisClusterClient implements ICacheClient {
+public class JedisClusterClient implements ICacheClient, CodecSupport {
     protected static Logger log = LoggerFactory.getLogger(JedisClusterClient.class);
 
-    private JedisCluster jedisCluster;
+    private static final int MAX_REDIRECTIONS = 5;
+
+    private static final int FANOUT_THREADS = 64;
+
+    private RoutingJedisCluster jedisCluster;
+    private ClusterTopology topology;
+    // 读主节点时为null
+    private ReplicaReads replicaReads;
+    private ExecutorService fanoutExecutor;
     private JedisConfig config;
+    private ObjectCodecs codecs;
+    private final CacheAside cacheAside = new CacheAside();
     private GenericObjectPoolConfig poolConfig;
+    private volatile CacheMetrics metrics;
+    private ConnectionHealth health;
 
     public JedisClusterClient(JedisConfig config) {
         this.config = config;
+        this.codecs = new ObjectCodecs(config);
         initPoolConfig();
+        initExecutor();
         createCluster();
+        initHealth();
+    }
+
+    private void initHealth() {
+        health = new ConnectionHealth(config.getServers(), config.getConf(), new ConnectionHealth.Probe() {
+            @Override
+            public void probe() throws Exception {
+                Exception last = null;
+                for (String address : config.getServerArray()) {
+                    String[] ipAndPort = address.split(":");
+                    try (Jedis jedis = new Jedis(ipAndPort[0], Integer.parseInt(ipAndPort[1]), config.getConf().getTimeout())) {
+                        if (config.isRedisNeedAuth()) {
+                            jedis.auth(config.getServerInfo().getPassword());
+                        }
+                        jedis.ping();
+                        return;
+                    } catch (Exception e) {
+                        last = e;
+                    }
+                }
+                throw last;
+            }
+
+            @Override
+            public void recover() {
+                topology.renew();
+            }
+        });
+    }
+
+    public ConnectionHealth getHealth() {
+        return health;
+    }
+
+    /**
+     * 设置后记录按节点执行时的连接借用等待时间, 单key命令的连接由JedisCluster内部借用, 不在统计内
+     */
+    public void setMetrics(CacheMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    // 跨节点多key命令的并行执行线程, 线程不足时由调用线程执行
+    private void initExecutor() {
+        final AtomicInteger index = new AtomicInteger();
+        fanoutExecutor = new ThreadPoolExecutor(0, FANOUT_THREADS, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "paas-cache-fanout-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
     }
 
     private void initPoolConfig() {
@@ -49,10 +158,6 @@ public class JedisClusterClient implements ICacheClient {
         }
     }
 
-    private void getCluster() {
-        createCluster();
-    }
-
     private void createCluster() {
         log.info(" ---> create jedis cluster begin ...");
         Set<HostAndPort> jedisClusterNodes = new HashSet<HostAndPort>();
@@ -63,10 +168,18 @@ public class JedisClusterClient implements ICacheClient {
                 log.debug(" ---> jedis cluster address: {}", address);
             }
             if (config.isRedisNeedAuth()) {
-                jedisCluster = new JedisCluster(jedisClusterNodes, config.getConf().getTimeout(), config.getConf().getSoTimeout(),
-                        5, config.getServerInfo().getPassword(), poolConfig);
+                jedisCluster = new RoutingJedisCluster(jedisClusterNodes, config.getConf().getTimeout(), config.getConf().getSoTimeout(),
+                        MAX_REDIRECTIONS, config.getServerInfo().getPassword(), poolConfig);
             } else {
-                jedisCluster = new JedisCluster(jedisClusterNodes, config.getConf().getTimeout(), poolConfig);
+                jedisCluster = new RoutingJedisCluster(jedisClusterNodes, config.getConf().getTimeout(), poolConfig);
+            }
+            topology = new ClusterTopology(jedisCluster);
+            ReadPreference preference = ReadPreference.of(config.getReadPreference());
+            if (preference != ReadPreference.MASTER) {
+                int soTimeout = config.isRedisNeedAuth() ? config.getConf().getSoTimeout() : config.getConf().getTimeout();
+                replicaReads = new ReplicaReads(preference, topology, poolConfig, config.getConf().getTimeout(), soTimeout,
+                        config.isRedisNeedAuth() ? config.getServerInfo().getPassword() : null);
+                log.info(" ---> jedis cluster read preference: {}", preference);
             }
         } catch (Exception e) {
             log.error(e.getMessage(), e);
@@ -74,134 +187,96 @@ public class JedisClusterClient implements ICacheClient {
         log.info(" ---> create jedis cluster down.");
     }
 
-    protected boolean canConnection() {
-        try {
-            jedisCluster.get("ok");
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            return false;
+    /**
+     * 执行集群命令, 命令可能已发出的连接异常不重试, 写命令不会重复执行
+     */
+    private <T> T execute(ClusterCall<T> call) {
+        return execute(call, false);
+    }
+
+    /**
+     * 执行集群命令。建立连接失败时计入熔断并按退避策略有限次重试, 熔断期间直接失败;
+     * 集群异常(如CLUSTERDOWN)时命令未执行, 重试但不计入熔断; 其它连接异常(如读超时)只有 idempotent 为true时重试
+     */
+    private <T> T execute(ClusterCall<T> call, boolean idempotent) {
+        for (int attempt = 0; ; attempt++) {
+            health.checkAvailable();
+            RuntimeException failure;
+            try {
+                T result = call.call();
+                health.onSuccess();
+                return result;
+            } catch (JedisConnectionException | JedisClusterException e) {
+                failure = e;
+            } catch (CacheClientException e) {
+                throw e;
+            } catch (Exception e) {
+                log.error(e.getMessage(), e);
+                throw new CacheClientException(e);
+            }
+            boolean retry;
+            if (ConnectionHealth.isPoolExhausted(failure)) {
+                retry = false;
+            } else if (ConnectionHealth.isConnectFailure(failure)) {
+                retry = health.retry(attempt, failure);
+            } else {
+                retry = (idempotent || failure instanceof JedisClusterException) && health.retryRequest(attempt);
+            }
+            if (!retry) {
+                log.error(failure.getMessage(), failure);
+                throw new CacheClientException(failure);
+            }
         }
-        return true;
     }
 
+    /**
+     * 执行只读命令, 按读取节点配置读从节点或主节点
+     *
+     * @param replica 在从节点连接上执行
+     * @param master  通过集群在主节点执行
+     */
+    private <T> T read(String key, Function<Jedis, T> replica, ClusterCall<T> master) {
+        ReplicaReads reads = replicaReads;
+        if (reads == null) {
+            return execute(master, true);
+        }
+        return execute(() -> reads.read(ClusterTopology.slot(key), replica, master::call), true);
+    }
 
-    public String set(String key, String value) {
-        try {
-            return jedisCluster.set(key, value);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return set(key, value);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
+    private <T> T read(byte[] key, Function<Jedis, T> replica, ClusterCall<T> master) {
+        ReplicaReads reads = replicaReads;
+        if (reads == null) {
+            return execute(master, true);
         }
+        return execute(() -> reads.read(ClusterTopology.slot(key), replica, master::call), true);
+    }
+
+    public String set(String key, String value) {
+        return execute(() -> jedisCluster.set(key, value));
     }
 
     public String getSet(String key, String value) {
-        try {
-            return jedisCluster.getSet(key, value);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return getSet(key, value);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.getSet(key, value));
     }
 
     public String setex(String key, int seconds, String value) {
-        try {
-            return jedisCluster.setex(key, seconds, value);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return setex(key, seconds, value);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.setex(key, seconds, value));
     }
 
     public String get(String key) {
-        try {
-            return jedisCluster.get(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return get(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.get(key), () -> jedisCluster.get(key));
     }
 
     public Long del(String key) {
-        try {
-            return jedisCluster.del(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return del(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.del(key));
     }
 
     public Long del(String... keys) {
-        try {
-            return jedisCluster.del(keys);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return del(keys);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> sameSlot(encode(keys)) ? jedisCluster.del(keys) : delAcrossSlots(keys));
     }
 
     public Long expire(String key, int seconds) {
-        try {
-            return jedisCluster.expire(key, seconds);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return expire(key, seconds);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.expire(key, seconds));
     }
 
     @Override
@@ -210,889 +285,213 @@ public class JedisClusterClient implements ICacheClient {
     }
 
     public Long ttl(String key) {
-        try {
-            return jedisCluster.ttl(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return ttl(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.ttl(key), () -> jedisCluster.ttl(key));
     }
 
     public boolean exists(String key) {
-        try {
-            return jedisCluster.exists(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return exists(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.exists(key), () -> jedisCluster.exists(key));
     }
 
     public Long incr(String key) {
-        try {
-            return jedisCluster.incr(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return incr(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.incr(key));
     }
 
     public Long incrBy(String key, long increment) {
-        try {
-            return jedisCluster.incrBy(key, increment);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return incrBy(key, increment);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.incrBy(key, increment));
     }
 
     public Long decr(String key) {
-        try {
-            return jedisCluster.decr(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return decr(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.decr(key));
     }
 
     public Long decrBy(String key, long decrement) {
-        try {
-            return jedisCluster.decrBy(key, decrement);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return decrBy(key, decrement);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.decrBy(key, decrement));
     }
 
     public Long lpush(String key, String... strings) {
-        try {
-            return jedisCluster.lpush(key, strings);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return lpush(key, strings);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.lpush(key, strings));
     }
 
     public Long rpush(String key, String... strings) {
-        try {
-            return jedisCluster.rpush(key, strings);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return rpush(key, strings);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.rpush(key, strings));
     }
 
     public Long llen(String key) {
-        try {
-            return jedisCluster.llen(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return llen(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.llen(key), () -> jedisCluster.llen(key));
     }
 
     public String lpop(String key) {
-        try {
-            return jedisCluster.lpop(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return lpop(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.lpop(key));
     }
 
     public String rpop(String key) {
-        try {
-            return jedisCluster.rpop(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return rpop(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.rpop(key));
     }
 
     public List<String> lrange(String key, long start, long end) {
-        try {
-            return jedisCluster.lrange(key, start, end);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return lrange(key, start, end);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.lrange(key, start, end), () -> jedisCluster.lrange(key, start, end));
     }
 
     public List<String> lrangeAll(String key) {
-        try {
-            return jedisCluster.lrange(key, 0, -1);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return lrange(key, 0, -1);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.lrange(key, 0, -1), () -> jedisCluster.lrange(key, 0, -1));
     }
 
     public Long hset(String key, String field, String value) {
-        try {
-            return jedisCluster.hset(key, field, value);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return hset(key, field, value);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.hset(key, field, value));
     }
 
     public Long hsetnx(String key, String field, String value) {
-        try {
-            return jedisCluster.hsetnx(key, field, value);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return hsetnx(key, field, value);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.hsetnx(key, field, value));
     }
 
     public String hmset(String key, Map<String, String> hash) {
-        try {
-            return jedisCluster.hmset(key, hash);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return hmset(key, hash);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.hmset(key, hash));
     }
 
     public String hget(String key, String field) {
-        try {
-            return jedisCluster.hget(key, field);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return hget(key, field);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.hget(key, field), () -> jedisCluster.hget(key, field));
     }
 
     public List<String> hmget(final String key, final String... fields) {
-        try {
-            return jedisCluster.hmget(key, fields);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return hmget(key, fields);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.hmget(key, fields), () -> jedisCluster.hmget(key, fields));
     }
 
     public Boolean hexists(String key, String field) {
-        try {
-            return jedisCluster.hexists(key, field);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return hexists(key, field);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.hexists(key, field), () -> jedisCluster.hexists(key, field));
     }
 
     public Long hdel(String key, String... fields) {
-        try {
-            return jedisCluster.hdel(key, fields);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return hdel(key, fields);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.hdel(key, fields));
     }
 
     public Long hlen(String key) {
-        try {
-            return jedisCluster.hlen(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return hlen(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.hlen(key), () -> jedisCluster.hlen(key));
     }
 
     public Map<String, String> hgetAll(String key) {
-        try {
-            return jedisCluster.hgetAll(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return hgetAll(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.hgetAll(key), () -> jedisCluster.hgetAll(key));
     }
 
     public Long sadd(String key, String... members) {
-        try {
-            return jedisCluster.sadd(key, members);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return sadd(key, members);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.sadd(key, members));
     }
 
     public Set<String> smembers(String key) {
-        try {
-            return jedisCluster.smembers(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return smembers(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.smembers(key), () -> jedisCluster.smembers(key));
     }
 
     public Long srem(String key, String... members) {
-        try {
-            return jedisCluster.srem(key, members);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return srem(key, members);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.srem(key, members));
     }
 
     public Long scard(String key) {
-        try {
-            return jedisCluster.scard(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return scard(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.scard(key), () -> jedisCluster.scard(key));
     }
 
     public Set<String> sunion(String... keys) {
-        try {
-            return jedisCluster.sunion(keys);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return sunion(keys);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> sameSlot(encode(keys)) ? jedisCluster.sunion(keys) : sunionAcrossSlots(keys));
     }
 
     public Set<String> sdiff(String... keys) {
-        try {
-            return jedisCluster.sdiff(keys);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return sdiff(keys);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> sameSlot(encode(keys)) ? jedisCluster.sdiff(keys) : sdiffAcrossSlots(keys));
     }
 
     public Long sdiffstore(String dstkey, String... keys) {
-        try {
-            return jedisCluster.sdiffstore(dstkey, keys);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return sdiffstore(dstkey, keys);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> sameSlot(encode(concat(dstkey, keys))) ? jedisCluster.sdiffstore(dstkey, keys) : sdiffstoreAcrossSlots(dstkey, keys));
     }
 
     public String set(byte[] key, byte[] value) {
-        try {
-            return jedisCluster.set(key, value);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return set(key, value);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.set(key, value));
     }
 
     public String setex(byte[] key, int seconds, byte[] value) {
-        try {
-            return jedisCluster.setex(key, seconds, value);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return setex(key, seconds, value);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.setex(key, seconds, value));
     }
 
     public byte[] get(byte[] key) {
-        try {
-            return jedisCluster.get(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return get(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.get(key), () -> jedisCluster.get(key));
     }
 
     public Long del(byte[] key) {
-        try {
-            return jedisCluster.del(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return del(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.del(key));
     }
 
     public Long del(byte[]... keys) {
-        try {
-            return jedisCluster.del(keys);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return del(keys);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> sameSlot(keys) ? jedisCluster.del(keys) : delAcrossSlots(keys));
     }
 
     public Long expire(byte[] key, int seconds) {
-        try {
-            return jedisCluster.expire(key, seconds);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return expire(key, seconds);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.expire(key, seconds));
     }
 
     @Override
     public Long expireAt(byte[] key, long seconds) {
-        try {
-            return jedisCluster.expireAt(key, seconds);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return expireAt(key, seconds);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.expireAt(key, seconds));
     }
 
     public Long ttl(byte[] key) {
-        try {
-            return jedisCluster.ttl(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return ttl(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.ttl(key), () -> jedisCluster.ttl(key));
     }
 
     public boolean exists(byte[] key) {
-        try {
-            return jedisCluster.exists(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return exists(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.exists(key), () -> jedisCluster.exists(key));
     }
 
     public Long incr(byte[] key) {
-        try {
-            return jedisCluster.incr(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return incr(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.incr(key));
     }
 
     public Long incrBy(byte[] key, long increment) {
-        try {
-            return jedisCluster.incrBy(key, increment);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return incrBy(key, increment);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.incrBy(key, increment));
     }
 
     public Long decr(byte[] key) {
-        try {
-            return jedisCluster.decr(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return decr(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.decr(key));
     }
 
     public Long decrBy(byte[] key, long decrement) {
-        try {
-            return jedisCluster.decrBy(key, decrement);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return decrBy(key, decrement);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.decrBy(key, decrement));
     }
 
     public Long lpush(byte[] key, byte[]... strings) {
-        try {
-            return jedisCluster.lpush(key, strings);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return lpush(key, strings);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.lpush(key, strings));
     }
 
     public Long rpush(byte[] key, byte[]... strings) {
-        try {
-            return jedisCluster.rpush(key, strings);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return rpush(key, strings);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.rpush(key, strings));
     }
 
     public Long llen(byte[] key) {
-        try {
-            return jedisCluster.llen(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return llen(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.llen(key), () -> jedisCluster.llen(key));
     }
 
     public byte[] lpop(byte[] key) {
-        try {
-            return jedisCluster.lpop(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return lpop(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.lpop(key));
     }
 
     public byte[] rpop(byte[] key) {
-        try {
-            return jedisCluster.rpop(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return rpop(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.rpop(key));
     }
 
     public List<byte[]> lrange(byte[] key, long start, long end) {
-        try {
-            return jedisCluster.lrange(key, start, end);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return lrange(key, start, end);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.lrange(key, start, end), () -> jedisCluster.lrange(key, start, end));
     }
 
     public List<byte[]> lrangeAll(byte[] key) {
-        try {
-            return jedisCluster.lrange(key, 0, -1);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return lrange(key, 0, -1);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.lrange(key, 0, -1), () -> jedisCluster.lrange(key, 0, -1));
     }
 
     public Long hset(byte[] key, byte[] field, byte[] value) {
-        try {
-            return jedisCluster.hset(key, field, value);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return hset(key, field, value);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.hset(key, field, value));
     }
 
     public Long hsetnx(byte[] key, byte[] field, byte[] value) {
-        try {
-            return jedisCluster.hsetnx(key, field, value);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return hsetnx(key, field, value);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.hsetnx(key, field, value));
     }
 
     @Override
     public Long setnx(byte[] key, byte[] value) {
-        try {
-            return jedisCluster.setnx(key, value);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return jedisCluster.setnx(key, value);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.setnx(key, value));
     }
 
     @Override
@@ -1101,691 +500,184 @@ public class JedisClusterClient implements ICacheClient {
     }
 
     public String hmset(byte[] key, Map<byte[], byte[]> hash) {
-        try {
-            return jedisCluster.hmset(key, hash);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return hmset(key, hash);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.hmset(key, hash));
     }
 
     public byte[] hget(byte[] key, byte[] field) {
-        try {
-            return jedisCluster.hget(key, field);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return hget(key, field);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.hget(key, field), () -> jedisCluster.hget(key, field));
     }
 
     public List<byte[]> hmget(final byte[] key, final byte[]... fields) {
-        try {
-            return jedisCluster.hmget(key, fields);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return hmget(key, fields);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.hmget(key, fields), () -> jedisCluster.hmget(key, fields));
     }
 
     public Boolean hexists(byte[] key, byte[] field) {
-        try {
-            return jedisCluster.hexists(key, field);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return hexists(key, field);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.hexists(key, field), () -> jedisCluster.hexists(key, field));
     }
 
     public Long hdel(byte[] key, byte[]... fields) {
-        try {
-            return jedisCluster.hdel(key, fields);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return hdel(key, fields);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.hdel(key, fields));
     }
 
     public Long hlen(byte[] key) {
-        try {
-            return jedisCluster.hlen(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return hlen(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.hlen(key), () -> jedisCluster.hlen(key));
     }
 
     public Map<byte[], byte[]> hgetAll(byte[] key) {
-        try {
-            return jedisCluster.hgetAll(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return hgetAll(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.hgetAll(key), () -> jedisCluster.hgetAll(key));
     }
 
     public Long sadd(byte[] key, byte[]... members) {
-        try {
-            return jedisCluster.sadd(key, members);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return sadd(key, members);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.sadd(key, members));
     }
 
     public Set<byte[]> smembers(byte[] key) {
-        try {
-            return jedisCluster.smembers(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return smembers(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.smembers(key), () -> jedisCluster.smembers(key));
     }
 
     public Long srem(byte[] key, byte[]... members) {
-        try {
-            return jedisCluster.srem(key, members);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return srem(key, members);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.srem(key, members));
     }
 
     public Long scard(byte[] key) {
-        try {
-            return jedisCluster.scard(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return scard(key);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.scard(key), () -> jedisCluster.scard(key));
     }
 
     public Set<byte[]> sunion(byte[]... keys) {
-        try {
-            return jedisCluster.sunion(keys);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return sunion(keys);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> sameSlot(keys) ? jedisCluster.sunion(keys) : sunionAcrossSlots(keys));
     }
 
     public Set<byte[]> sdiff(byte[]... keys) {
-        try {
-            return jedisCluster.sdiff(keys);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return sdiff(keys);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> sameSlot(keys) ? jedisCluster.sdiff(keys) : sdiffAcrossSlots(keys));
     }
 
     public Long sdiffstore(byte[] dstkey, byte[]... keys) {
-        try {
-            return jedisCluster.sdiffstore(dstkey, keys);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return sdiffstore(dstkey, keys);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> sameSlot(concat(dstkey, keys)) ? jedisCluster.sdiffstore(dstkey, keys) : sdiffstoreAcrossSlots(dstkey, keys));
     }
 
     @Override
     public Long hincrBy(String key, String field, long value) {
-        try {
-            return jedisCluster.hincrBy(key, field, value);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return hincrBy(key, field, value);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.hincrBy(key, field, value));
     }
 
     @Override
     public Double incrByFloat(String key, double value) {
-        try {
-            return jedisCluster.incrByFloat(key, value);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return incrByFloat(key, value);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.incrByFloat(key, value));
     }
 
     @Override
     public Double hincrByFloat(String key, String field, double value) {
-        try {
-            return jedisCluster.hincrByFloat(key, field, value);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return hincrByFloat(key, field, value);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.hincrByFloat(key, field, value));
     }
 
     @Override
     public Long lrem(String key, long count, String value) {
-        try {
-            return jedisCluster.lrem(key, count, value);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return lrem(key, count, value);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.lrem(key, count, value));
     }
 
     @Override
     public Long lrem(byte[] key, long count, byte[] value) {
-        try {
-            return jedisCluster.lrem(key, count, value);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return lrem(key, count, value);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.lrem(key, count, value));
     }
 
     @Override
     public Long zadd(String key, double score, String member) {
-        try {
-            return jedisCluster.zadd(key, score, member);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zadd(key, score, member);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.zadd(key, score, member));
     }
 
     @Override
     public Long zadd(String key, Map<String, Double> scoreMembers) {
-        try {
-            return jedisCluster.zadd(key, scoreMembers);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zadd(key, scoreMembers);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.zadd(key, scoreMembers));
     }
 
     @Override
     public Long zcount(final String key, final double min, final double max) {
-        try {
-            return jedisCluster.zcount(key, min, max);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zcount(key, min, max);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.zcount(key, min, max), () -> jedisCluster.zcount(key, min, max));
     }
 
     @Override
     public Long zcount(final String key, final String min, final String max) {
-        try {
-            return jedisCluster.zcount(key, min, max);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zcount(key, min, max);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.zcount(key, min, max), () -> jedisCluster.zcount(key, min, max));
     }
 
     @Override
     public Double zincrby(final String key, final double score, final String member) {
-        try {
-            return jedisCluster.zincrby(key, score, member);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zincrby(key, score, member);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.zincrby(key, score, member));
     }
 
     @Override
     public Set<String> zrange(final String key, final long start, final long end) {
-        try {
-            return jedisCluster.zrange(key, start, end);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zrange(key, start, end);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.zrange(key, start, end), () -> jedisCluster.zrange(key, start, end));
     }
 
     @Override
     public Set<String> zrangeByScore(final String key, final double min, final double max) {
-        try {
-            return jedisCluster.zrangeByScore(key, min, max);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zrangeByScore(key, min, max);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.zrangeByScore(key, min, max), () -> jedisCluster.zrangeByScore(key, min, max));
     }
 
     @Override
     public Set<String> zrangeByScore(final String key, final String min, final String max) {
-        try {
-            return jedisCluster.zrangeByScore(key, min, max);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zrangeByScore(key, min, max);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.zrangeByScore(key, min, max), () -> jedisCluster.zrangeByScore(key, min, max));
     }
 
     @Override
     public Set<String> zrangeByScore(final String key, final double min, final double max, final int offset, int count) {
-        try {
-            return jedisCluster.zrangeByScore(key, min, max, offset, count);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zrangeByScore(key, min, max, offset, count);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.zrangeByScore(key, min, max, offset, count), () -> jedisCluster.zrangeByScore(key, min, max, offset, count));
     }
 
     @Override
     public Set<String> zrevrange(final String key, final long start, final long end) {
-        try {
-            return jedisCluster.zrevrange(key, start, end);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zrevrange(key, start, end);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.zrevrange(key, start, end), () -> jedisCluster.zrevrange(key, start, end));
     }
 
     @Override
     public Set<String> zrevrangeByScore(final String key, final double max, final double min) {
-        try {
-            return jedisCluster.zrevrangeByScore(key, max, min);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zrevrangeByScore(key, max, min);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.zrevrangeByScore(key, max, min), () -> jedisCluster.zrevrangeByScore(key, max, min));
     }
 
     @Override
     public Set<String> zrevrangeByScore(final String key, final String max, final String min) {
-        try {
-            return jedisCluster.zrevrangeByScore(key, max, min);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zrevrangeByScore(key, max, min);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.zrevrangeByScore(key, max, min), () -> jedisCluster.zrevrangeByScore(key, max, min));
     }
 
     @Override
     public Set<String> zrevrangeByScore(final String key, final double max, final double min, final int offset, int count) {
-        try {
-            return jedisCluster.zrevrangeByScore(key, max, min, offset, count);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zrevrangeByScore(key, max, min, offset, count);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.zrevrangeByScore(key, max, min, offset, count), () -> jedisCluster.zrevrangeByScore(key, max, min, offset, count));
     }
 
     @Override
     public Set<String> zrevrangeByScore(final String key, final String max, final String min, final int offset, int count) {
-        try {
-            return jedisCluster.zrevrangeByScore(key, max, min, offset, count);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zrevrangeByScore(key, max, min, offset, count);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.zrevrangeByScore(key, max, min, offset, count), () -> jedisCluster.zrevrangeByScore(key, max, min, offset, count));
     }
 
     @Override
     public Long zrevrank(final String key, final String member) {
-        try {
-            return jedisCluster.zrevrank(key, member);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zrevrank(key, member);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.zrevrank(key, member), () -> jedisCluster.zrevrank(key, member));
     }
 
     @Override
     public Long zrem(final String key, final String... member) {
-        try {
-            return jedisCluster.zrem(key, member);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zrem(key, member);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.zrem(key, member));
     }
 
     @Override
     public Long zremrangeByRank(final String key, final long start, final long end) {
-        try {
-            return jedisCluster.zremrangeByRank(key, start, end);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zremrangeByRank(key, start, end);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.zremrangeByRank(key, start, end));
     }
 
     @Override
     public Long zremrangeByScore(final String key, final double start, final double end) {
-        try {
-            return jedisCluster.zremrangeByScore(key, start, end);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zremrangeByScore(key, start, end);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.zremrangeByScore(key, start, end));
     }
 
     @Override
     public Long zremrangeByScore(final String key, final String start, final String end) {
-        try {
-            return jedisCluster.zremrangeByScore(key, start, end);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zremrangeByScore(key, start, end);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.zremrangeByScore(key, start, end));
     }
 
     @Override
     public Boolean sismember(String key, String object) {
-        try {
-            return jedisCluster.sismember(key, object);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return sismember(key, object);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return read(key, jedis -> jedis.sismember(key, object), () -> jedisCluster.sismember(key, object));
     }
 
     /**
@@ -1801,20 +693,7 @@ public class JedisClusterClient implements ICacheClient {
         if (milliseconds < 1) {
             throw new CacheClientException("非法参数!");
         }
-        try {
-            return jedisCluster.pexpire(key, milliseconds);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return pexpire(key, milliseconds);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
-        }
+        return execute(() -> jedisCluster.pexpire(key, milliseconds));
     }
 
     @Override
@@ -1822,70 +701,179 @@ public class JedisClusterClient implements ICacheClient {
         if (start < 0) {
             throw new CacheClientException("非法参数!");
         }
-        try {
+        return execute(() -> {
             String rtu = jedisCluster.ltrim(listKey, start, stop);
             return "OK".equals(rtu);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return ltrim(listKey, start, stop);
+        });
+    }
+
+    @Override
+    public Set<Tuple> zrevrangeByScoreWithScores(String key, double max, double min, int offset, int count) {
+        return read(key, jedis -> jedis.zrevrangeByScoreWithScores(key, max, min, offset, count), () -> jedisCluster.zrevrangeByScoreWithScores(key, max, min, offset, count));
+    }
+
+    @Override
+    public Set<Tuple> zrevrangeByScoreWithScores(String key, String max, String min, int offset, int count) {
+        return read(key, jedis -> jedis.zrevrangeByScoreWithScores(key, max, min, offset, count), () -> jedisCluster.zrevrangeByScoreWithScores(key, max, min, offset, count));
+    }
+
+    @Override
+    public Set<Tuple> zrevrangeByScoreWithScores(String key, String max, String min) {
+        return read(key, jedis -> jedis.zrevrangeByScoreWithScores(key, max, min), () -> jedisCluster.zrevrangeByScoreWithScores(key, max, min));
+    }
+
+    @Override
+    public Long zcard(String key) {
+        return read(key, jedis -> jedis.zcard(key), () -> jedisCluster.zcard(key));
+    }
+
+    @Override
+    public ObjectCodecs getCodecs() {
+        return codecs;
+    }
+
+    @Override
+    public String setObjectEx(byte[] key, int seconds, Object serializable) {
+        if (!(serializable instanceof Serializable)) {
+            throw new CacheClientException();
+        }
+//		byte[] valueser = SerializerUtil.serialize((Serializable)serializable);
+        byte[] valueser = codecs.encode(serializable);
+        log.debug("---> setObjectEx value size{}.", valueser.length);
+//		byte[] keyser = SerializerUtil.serialize(key);
+        return setex(key, seconds, valueser);
+    }
+
+    @Override
+    public Object getObject(byte[] key) {
+//		byte[] keyser = SerializerUtil.serialize(key);
+        byte[] result = get(key);
+        if (result == null)
+            return null;
+//		return SerializerUtil.deserialize(result);
+        return codecs.decode(result);
+    }
+
+
+    @Override
+    public List<String> mget(String... keys) {
+        return execute(() -> {
+            if (sameSlot(encode(keys))) {
+                return jedisCluster.mget(keys);
             }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
+            String[] values = new String[keys.length];
+            for (SlotResult<List<String>> result : fanout(encode(keys), (pipeline, indexes) -> pipeline.mget(select(keys, indexes)), true)) {
+                result.fill(values);
+            }
+            return Arrays.asList(values);
+        });
+    }
+
+    @Override
+    public List<byte[]> mget(byte[]... keys) {
+        return execute(() -> {
+            if (sameSlot(keys)) {
+                return jedisCluster.mget(keys);
+            }
+            byte[][] values = new byte[keys.length][];
+            for (SlotResult<List<byte[]>> result : fanout(keys, (pipeline, indexes) -> pipeline.mget(select(keys, indexes)), true)) {
+                result.fill(values);
+            }
+            return Arrays.asList(values);
+        });
+    }
+
+    @Override
+    public String mset(Map<String, String> keyValues) {
+        if (keyValues == null || keyValues.isEmpty()) {
+            throw new CacheClientException("参数无效");
         }
+        String[] keys = keyValues.keySet().toArray(new String[keyValues.size()]);
+        return execute(() -> {
+            if (sameSlot(encode(keys))) {
+                return jedisCluster.mset(keysvalues(keys, keyValues));
+            }
+            for (SlotResult<String> result : fanout(encode(keys),
+                    (pipeline, indexes) -> pipeline.mset(keysvalues(select(keys, indexes), keyValues)), true)) {
+                result.get();
+            }
+            return "OK";
+        });
     }
 
     @Override
-    public Set<Tuple> zrevrangeByScoreWithScores(String key, double max, double min, int offset, int count) {
-        try {
-            return jedisCluster.zrevrangeByScoreWithScores(key, max, min, offset, count);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zrevrangeByScoreWithScores(key, max, min, offset, count);
+    public String msetex(Map<String, String> keyValues, int seconds) {
+        if (seconds <= 0 || keyValues == null || keyValues.isEmpty()) {
+            throw new CacheClientException("参数无效");
+        }
+        CacheBatch batch = new CacheBatch();
+        for (Map.Entry<String, String> entry : keyValues.entrySet()) {
+            batch.setex(entry.getKey(), seconds, entry.getValue());
+        }
+        for (Object result : executeBatch(batch)) {
+            if (result instanceof RuntimeException) {
+                throw (RuntimeException) result;
             }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
         }
+        return "OK";
     }
 
+    /**
+     * 按slot所在主节点分组, 每个节点一个pipeline并行执行, MOVED的命令刷新slot后重试, ASK的命令转到目标节点执行。
+     * 连接在命令发出后断开时只重试只读命令, 其余命令返回异常, 不重复执行。
+     * 熔断期间直接失败, 节点建立连接失败计入熔断
+     *
+     * @param batch 批量命令
+     * @return 按添加顺序排列的结果
+     */
     @Override
-    public Set<Tuple> zrevrangeByScoreWithScores(String key, String max, String min, int offset, int count) {
+    public List<Object> executeBatch(CacheBatch batch) {
+        if (batch == null || batch.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<BatchCommand<?>> commands = batch.getCommands();
+        Object[] results = new Object[commands.size()];
+        List<Integer> pending = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            pending.add(i);
+        }
         try {
-            return jedisCluster.zrevrangeByScoreWithScores(key, max, min, offset, count);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zrevrangeByScoreWithScores(key, max, min, offset, count);
+            for (int attempt = 0; attempt < MAX_REDIRECTIONS && !pending.isEmpty(); attempt++) {
+                health.checkAvailable();
+                if (attempt > 0) {
+                    topology.renew();
+                }
+                pending = executeOnNodes(batch, commands, pending, results);
             }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
+        } catch (CacheClientException e) {
+            throw reportConnectFailure(e);
         } catch (Exception e) {
             log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
+            throw reportConnectFailure(new CacheClientException(e));
+        }
+        for (Integer index : pending) {
+            CacheClientException error = new CacheClientException("批量命令重定向次数过多");
+            commands.get(index).fail(error);
+            results[index] = error;
         }
+        List<Object> list = new ArrayList<>(results.length);
+        Collections.addAll(list, results);
+        return list;
     }
 
     @Override
-    public Set<Tuple> zrevrangeByScoreWithScores(String key, String max, String min) {
+    public Long publish(byte[] channel, byte[] message) {
+        return execute(() -> jedisCluster.publish(channel, message));
+    }
+
+    /**
+     * 集群内消息在所有节点间广播, 订阅任一节点即可
+     */
+    @Override
+    public void subscribe(BinaryJedisPubSub jedisPubSub, byte[]... channels) {
+        health.checkAvailable();
         try {
-            return jedisCluster.zrevrangeByScoreWithScores(key, max, min);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zrevrangeByScoreWithScores(key, max, min);
-            }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
+            jedisCluster.subscribe(jedisPubSub, channels);
         } catch (Exception e) {
             log.error(e.getMessage(), e);
             throw new CacheClientException(e);
@@ -1894,43 +882,650 @@ public class JedisClusterClient implements ICacheClient {
     }
 
     @Override
-    public Long zcard(String key) {
+    public ScanResult<Map.Entry<String, String>> hscan(String key, String cursor, int count) {
+        return execute(() -> jedisCluster.hscan(key, cursor, new ScanParams().count(count)));
+    }
+
+    @Override
+    public ScanResult<String> sscan(String key, String cursor, int count) {
+        return execute(() -> jedisCluster.sscan(key, cursor, new ScanParams().count(count)));
+    }
+
+    @Override
+    public ScanResult<Tuple> zscan(String key, String cursor, int count) {
+        return execute(() -> jedisCluster.zscan(key, cursor, new ScanParams().count(count)));
+    }
+
+    @Override
+    public Stream<Map.Entry<String, String>> hscanStream(String key, int pageSize) {
+        return CacheStreams.of(new ScanIterator<>(cursor -> hscan(key, cursor, pageSize)));
+    }
+
+    @Override
+    public Stream<String> sscanStream(String key, int pageSize) {
+        return CacheStreams.of(new ScanIterator<>(cursor -> sscan(key, cursor, pageSize)));
+    }
+
+    @Override
+    public Stream<Tuple> zscanStream(String key, int pageSize) {
+        return CacheStreams.of(new ScanIterator<>(cursor -> zscan(key, cursor, pageSize)));
+    }
+
+    @Override
+    public Stream<String> lrangeStream(String key, int pageSize) {
+        return CacheStreams.of(new RangeIterator<>(pageSize, (start, end) -> lrange(key, start, end)));
+    }
+
+    /**
+     * 每个节点借用一个连接并ping, 热切换前确认新集群连接可用
+     */
+    public void warmUp() {
+        if (jedisCluster == null) {
+            throw new CacheClientException("jedis cluster not created: " + config.getServers());
+        }
+        for (JedisPool pool : jedisCluster.getClusterNodes().values()) {
+            try (Jedis jedis = pool.getResource()) {
+                jedis.ping();
+            }
+        }
+    }
+
+    /**
+     * 所有节点已借出未归还的连接数, 即正在执行的命令数(含阻塞中的订阅)
+     */
+    public int getActiveConnections() {
+        if (jedisCluster == null) {
+            return 0;
+        }
+        int active = 0;
+        for (JedisPool pool : jedisCluster.getClusterNodes().values()) {
+            active += Math.max(0, pool.getNumActive());
+        }
+        return active;
+    }
+
+    /**
+     * 关闭集群连接及并行执行线程
+     */
+    public void destroy() {
+        health.shutdown();
+        fanoutExecutor.shutdown();
+        if (replicaReads != null) {
+            replicaReads.close();
+        }
+        if (jedisCluster == null) {
+            return;
+        }
+        try {
+            jedisCluster.close();
+        } catch (Exception e) {
+            log.warn("close jedis cluster fail.", e);
+        }
+    }
+
+    // 返回需要重试的命令下标; ASK重定向的命令在目标节点上先发送ASKING再执行
+    private List<Integer> executeOnNodes(CacheBatch batch, List<BatchCommand<?>> commands, List<Integer> pending,
+                                         Object[] results) {
+        KeyMapper mapper = batch.getKeyMapper();
+        Map<HostAndPort, List<Integer>> groups = new LinkedHashMap<>();
+        for (Integer index : pending) {
+            int slot = ClusterTopology.slot(commands.get(index).routingKey(mapper));
+            group(groups, topology.master(slot), index);
+        }
+        Map<Integer, HostAndPort> asked = new ConcurrentHashMap<>();
+        Map<HostAndPort, List<Integer>> retried = onNodes(groups, (jedis, group) -> {
+            List<Response<?>> responses = new ArrayList<>(group.size());
+            try {
+                Pipeline pipeline = jedis.pipelined();
+                for (Integer index : group) {
+                    responses.add(commands.get(index).pipe(pipeline, mapper));
+                }
+                pipeline.sync();
+            } catch (JedisConnectionException e) {
+                return failSent(commands, group, results, e);
+            }
+            List<Integer> retry = new ArrayList<>();
+            for (int i = 0; i < group.size(); i++) {
+                int index = group.get(i);
+                Response<?> response = responses.get(i);
+                JedisRedirectionException redirection = redirection(response);
+                if (redirection instanceof JedisAskDataException) {
+                    asked.put(index, redirection.getTargetNode());
+                } else if (redirection != null) {
+                    retry.add(index);
+                } else {
+                    results[index] = commands.get(index).complete(response);
+                }
+            }
+            return retry;
+        });
+        List<Integer> retry = new ArrayList<>();
+        for (Map.Entry<HostAndPort, List<Integer>> entry : retried.entrySet()) {
+            retry.addAll(entry.getValue() == null ? groups.get(entry.getKey()) : entry.getValue());
+        }
+        if (!asked.isEmpty()) {
+            retry.addAll(executeAsking(mapper, commands, asked, results));
+        }
+        return retry;
+    }
+
+    // slot迁移中的命令: ASKING只对下一条命令生效, 每条命令单独发送
+    private List<Integer> executeAsking(KeyMapper mapper, List<BatchCommand<?>> commands, Map<Integer, HostAndPort> asked,
+                                        Object[] results) {
+        Map<HostAndPort, List<Integer>> groups = new LinkedHashMap<>();
+        for (Map.Entry<Integer, HostAndPort> entry : new TreeMap<>(asked).entrySet()) {
+            group(groups, entry.getValue(), entry.getKey());
+        }
+        Map<HostAndPort, List<Integer>> retried = onNodes(groups, (jedis, group) -> {
+            List<Integer> retry = new ArrayList<>();
+            for (int i = 0; i < group.size(); i++) {
+                int index = group.get(i);
+                Response<?> response;
+                try {
+                    jedis.asking();
+                    Pipeline pipeline = jedis.pipelined();
+                    response = commands.get(index).pipe(pipeline, mapper);
+                    pipeline.sync();
+                } catch (JedisConnectionException e) {
+                    retry.addAll(failSent(commands, Collections.singletonList(index), results, e));
+                    retry.addAll(group.subList(i + 1, group.size()));
+                    return retry;
+                }
+                if (redirection(response) != null) {
+                    retry.add(index);
+                } else {
+                    results[index] = commands.get(index).complete(response);
+                }
+            }
+            return retry;
+        });
+        List<Integer> retry = new ArrayList<>();
+        for (Map.Entry<HostAndPort, List<Integer>> entry : retried.entrySet()) {
+            retry.addAll(entry.getValue() == null ? groups.get(entry.getKey()) : entry.getValue());
+        }
+        return retry;
+    }
+
+    // 命令发出后连接断开时无法确定是否已执行: 只读命令重试, 其余命令标记失败, 避免重复执行
+    private static List<Integer> failSent(List<BatchCommand<?>> commands, List<Integer> indexes, Object[] results,
+                                          JedisConnectionException e) {
+        log.warn(" ---> connection broken after batch sent: {}", e.getMessage());
+        List<Integer> retry = new ArrayList<>();
+        for (Integer index : indexes) {
+            BatchCommand<?> command = commands.get(index);
+            if (command.isReadOnly()) {
+                retry.add(index);
+            } else {
+                CacheClientException error = new CacheClientException("批量命令发出后连接断开, 命令可能已执行", e);
+                command.fail(error);
+                results[index] = error;
+            }
+        }
+        return retry;
+    }
+
+    private static boolean isRedirected(Response<?> response) {
+        return redirection(response) != null;
+    }
+
+    private static JedisRedirectionException redirection(Response<?> response) {
         try {
-            return jedisCluster.zcard(key);
-        } catch (JedisClusterException jcException) {
-            getCluster();
-            if (canConnection()) {
-                return zcard(key);
+            response.get();
+            return null;
+        } catch (JedisRedirectionException e) {
+            return e;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // ---------------- 跨slot多key命令 ----------------
+
+    private Long delAcrossSlots(String... keys) {
+        long count = 0;
+        for (SlotResult<Long> result : fanout(encode(keys), (pipeline, indexes) -> pipeline.del(select(keys, indexes)), false)) {
+            count += result.get();
+        }
+        return count;
+    }
+
+    private Long delAcrossSlots(byte[]... keys) {
+        long count = 0;
+        for (SlotResult<Long> result : fanout(keys, (pipeline, indexes) -> pipeline.del(select(keys, indexes)), false)) {
+            count += result.get();
+        }
+        return count;
+    }
+
+    private Set<String> sunionAcrossSlots(String... keys) {
+        Set<String> union = new HashSet<>();
+        for (SlotResult<Set<String>> result : fanout(encode(keys), (pipeline, indexes) -> pipeline.sunion(select(keys, indexes)), true)) {
+            union.addAll(result.get());
+        }
+        return union;
+    }
+
+    private Set<byte[]> sunionAcrossSlots(byte[]... keys) {
+        Map<ByteBuffer, byte[]> union = new LinkedHashMap<>();
+        for (SlotResult<Set<byte[]>> result : fanout(keys, (pipeline, indexes) -> pipeline.sunion(select(keys, indexes)), true)) {
+            for (byte[] member : result.get()) {
+                union.put(ByteBuffer.wrap(member), member);
+            }
+        }
+        return new LinkedHashSet<>(union.values());
+    }
+
+    // 第一个key的集合减去其余key的并集
+    private Set<String> sdiffAcrossSlots(String... keys) {
+        Set<String> diff = new HashSet<>(jedisCluster.smembers(keys[0]));
+        if (keys.length > 1 && !diff.isEmpty()) {
+            diff.removeAll(sunion(Arrays.copyOfRange(keys, 1, keys.length)));
+        }
+        return diff;
+    }
+
+    private Set<byte[]> sdiffAcrossSlots(byte[]... keys) {
+        Map<ByteBuffer, byte[]> diff = new LinkedHashMap<>();
+        for (byte[] member : jedisCluster.smembers(keys[0])) {
+            diff.put(ByteBuffer.wrap(member), member);
+        }
+        if (keys.length > 1 && !diff.isEmpty()) {
+            for (byte[] member : sunion(Arrays.copyOfRange(keys, 1, keys.length))) {
+                diff.remove(ByteBuffer.wrap(member));
+            }
+        }
+        return new LinkedHashSet<>(diff.values());
+    }
+
+    // 目标key与源key不在同一slot时在客户端计算差集后写入, 非原子操作
+    private Long sdiffstoreAcrossSlots(String dstkey, String... keys) {
+        Set<String> diff = sdiffAcrossSlots(keys);
+        jedisCluster.del(dstkey);
+        if (diff.isEmpty()) {
+            return 0L;
+        }
+        jedisCluster.sadd(dstkey, diff.toArray(new String[diff.size()]));
+        return (long) diff.size();
+    }
+
+    private Long sdiffstoreAcrossSlots(byte[] dstkey, byte[]... keys) {
+        Set<byte[]> diff = sdiffAcrossSlots(keys);
+        jedisCluster.del(dstkey);
+        if (diff.isEmpty()) {
+            return 0L;
+        }
+        jedisCluster.sadd(dstkey, diff.toArray(new byte[diff.size()][]));
+        return (long) diff.size();
+    }
+
+    /**
+     * 多key命令按slot分组, 同一节点上的各slot分组在一个pipeline中提交, 各节点并行执行。
+     * 连接在命令发出后断开时, 只有幂等的命令重新发送该节点的分组。熔断期间直接失败
+     *
+     * @param keys       用于计算slot的key
+     * @param call       对一个slot分组生成命令
+     * @param idempotent 重复执行是否结果不变
+     * @return 各slot分组的结果
+     */
+    private <R> List<SlotResult<R>> fanout(byte[][] keys, SlotCall<R> call, boolean idempotent) {
+        Map<Integer, List<Integer>> slots = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            group(slots, ClusterTopology.slot(keys[i]), i);
+        }
+        List<SlotResult<R>> results = new ArrayList<>(slots.size());
+        List<List<Integer>> pending = new ArrayList<>(slots.values());
+        try {
+            pending = fanout(keys, call, idempotent, pending, results);
+        } catch (RuntimeException e) {
+            throw reportConnectFailure(e);
+        }
+        if (!pending.isEmpty()) {
+            throw new CacheClientException("多key命令重定向次数过多");
+        }
+        return results;
+    }
+
+    // 执行各slot分组, 完成的结果加入 results, 返回重定向次数过多仍未完成的分组
+    private <R> List<List<Integer>> fanout(byte[][] keys, SlotCall<R> call, boolean idempotent, List<List<Integer>> pending,
+                                           List<SlotResult<R>> results) {
+        for (int attempt = 0; attempt < MAX_REDIRECTIONS && !pending.isEmpty(); attempt++) {
+            health.checkAvailable();
+            if (attempt > 0) {
+                topology.renew();
+            }
+            Map<HostAndPort, List<List<Integer>>> groups = new LinkedHashMap<>();
+            for (List<Integer> indexes : pending) {
+                group(groups, topology.master(ClusterTopology.slot(keys[indexes.get(0)])), indexes);
+            }
+            Map<HostAndPort, List<SlotResult<R>>> nodeResults = onNodes(groups, (jedis, slotGroups) -> {
+                List<Response<R>> responses = new ArrayList<>(slotGroups.size());
+                try {
+                    Pipeline pipeline = jedis.pipelined();
+                    for (List<Integer> indexes : slotGroups) {
+                        responses.add(call.apply(pipeline, indexes));
+                    }
+                    pipeline.sync();
+                } catch (JedisConnectionException e) {
+                    if (idempotent) {
+                        return null;
+                    }
+                    throw new CacheClientException("多key命令发出后连接断开, 命令可能已执行", e);
+                }
+                List<SlotResult<R>> list = new ArrayList<>(slotGroups.size());
+                for (int i = 0; i < slotGroups.size(); i++) {
+                    list.add(new SlotResult<>(slotGroups.get(i), responses.get(i)));
+                }
+                return list;
+            });
+            List<List<Integer>> retry = new ArrayList<>();
+            for (Map.Entry<HostAndPort, List<SlotResult<R>>> entry : nodeResults.entrySet()) {
+                if (entry.getValue() == null) {
+                    retry.addAll(groups.get(entry.getKey()));
+                    continue;
+                }
+                for (SlotResult<R> result : entry.getValue()) {
+                    if (isRedirected(result.response)) {
+                        retry.add(result.indexes);
+                    } else {
+                        results.add(result);
+                    }
+                }
+            }
+            pending = retry;
+        }
+        return pending;
+    }
+
+    // 节点或slot信息建立连接失败时计入熔断
+    private RuntimeException reportConnectFailure(RuntimeException e) {
+        if (ConnectionHealth.isConnectFailure(e)) {
+            health.onConnectFailure(e);
+        }
+        return e;
+    }
+
+    /**
+     * 在各节点上并行执行任务, 只有一个节点时在当前线程执行。
+     * 节点连接失败时该节点的结果为null, 由调用方刷新slot后重试; 执行结果及建立连接失败报告给熔断
+     */
+    private <G, R> Map<HostAndPort, R> onNodes(Map<HostAndPort, G> groups, NodeTask<G, R> task) {
+        Map<HostAndPort, R> results = new LinkedHashMap<>();
+        if (groups.size() == 1) {
+            Map.Entry<HostAndPort, G> entry = groups.entrySet().iterator().next();
+            results.put(entry.getKey(), runOnNode(entry.getKey(), entry.getValue(), task));
+            return results;
+        }
+        Map<HostAndPort, Future<R>> futures = new LinkedHashMap<>();
+        for (Map.Entry<HostAndPort, G> entry : groups.entrySet()) {
+            HostAndPort node = entry.getKey();
+            G group = entry.getValue();
+            futures.put(node, fanoutExecutor.submit(() -> runOnNode(node, group, task)));
+        }
+        for (Map.Entry<HostAndPort, Future<R>> entry : futures.entrySet()) {
+            try {
+                results.put(entry.getKey(), entry.getValue().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CacheClientException(e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new CacheClientException(e);
+            }
+        }
+        return results;
+    }
+
+    private <G, R> R runOnNode(HostAndPort node, G group, NodeTask<G, R> task) {
+        CacheMetrics m = metrics;
+        long start = m == null ? 0 : System.nanoTime();
+        try (Jedis jedis = jedisCluster.getConnectionFromNode(node)) {
+            if (m != null) {
+                m.recordBorrow(System.nanoTime() - start);
+            }
+            R result = task.execute(jedis, group);
+            // 命令发出后断开的连接不算成功
+            if (!jedis.getClient().isBroken()) {
+                health.onSuccess();
+            }
+            return result;
+        } catch (JedisConnectionException e) {
+            log.warn(" ---> execute on node {} fail: {}", node, e.getMessage());
+            if (ConnectionHealth.isConnectFailure(e)) {
+                health.onConnectFailure(e);
+            }
+            return null;
+        }
+    }
+
+    private static <K, V> void group(Map<K, List<V>> groups, K key, V value) {
+        List<V> group = groups.get(key);
+        if (group == null) {
+            group = new ArrayList<>();
+            groups.put(key, group);
+        }
+        group.add(value);
+    }
+
+    private static boolean sameSlot(byte[]... keys) {
+        int slot = ClusterTopology.slot(keys[0]);
+        for (int i = 1; i < keys.length; i++) {
+            if (ClusterTopology.slot(keys[i]) != slot) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[][] encode(String... keys) {
+        byte[][] encoded = new byte[keys.length][];
+        for (int i = 0; i < keys.length; i++) {
+            encoded[i] = SafeEncoder.encode(keys[i]);
+        }
+        return encoded;
+    }
+
+    private static String[] concat(String first, String... others) {
+        String[] all = new String[others.length + 1];
+        all[0] = first;
+        System.arraycopy(others, 0, all, 1, others.length);
+        return all;
+    }
+
+    private static byte[][] concat(byte[] first, byte[]... others) {
+        byte[][] all = new byte[others.length + 1][];
+        all[0] = first;
+        System.arraycopy(others, 0, all, 1, others.length);
+        return all;
+    }
+
+    private static String[] select(String[] keys, List<Integer> indexes) {
+        String[] selected = new String[indexes.size()];
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = keys[indexes.get(i)];
+        }
+        return selected;
+    }
+
+    private static byte[][] select(byte[][] keys, List<Integer> indexes) {
+        byte[][] selected = new byte[indexes.size()][];
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = keys[indexes.get(i)];
+        }
+        return selected;
+    }
+
+    private static String[] keysvalues(String[] keys, Map<String, String> keyValues) {
+        String[] keysvalues = new String[keys.length * 2];
+        for (int i = 0; i < keys.length; i++) {
+            keysvalues[i * 2] = keys[i];
+            keysvalues[i * 2 + 1] = keyValues.get(keys[i]);
+        }
+        return keysvalues;
+    }
+
+    private interface ClusterCall<T> {
+        T call();
+    }
+
+    private interface SlotCall<R> {
+        Response<R> apply(Pipeline pipeline, List<Integer> indexes);
+    }
+
+    private interface NodeTask<G, R> {
+        R execute(Jedis jedis, G group);
+    }
+
+    /**
+     * 一个slot分组的结果, indexes为分组中key在原参数中的下标
+     */
+    private static class SlotResult<R> {
+        private final List<Integer> indexes;
+        private final Response<R> response;
+
+        SlotResult(List<Integer> indexes, Response<R> response) {
+            this.indexes = indexes;
+            this.response = response;
+        }
+
+        R get() {
+            return response.get();
+        }
+
+        // 按原下标回填列表结果
+        @SuppressWarnings("unchecked")
+        void fill(Object[] target) {
+            List<Object> values = (List<Object>) get();
+            for (int i = 0; i < indexes.size(); i++) {
+                target[indexes.get(i)] = values.get(i);
             }
-            log.error(jcException.getMessage(), jcException);
-            throw new CacheClientException(jcException);
-        } catch (Exception e) {
-            log.error(e.getMessage(), e);
-            throw new CacheClientException(e);
-        } finally {
         }
     }
 
     @Override
-    public String setObjectEx(byte[] key, int seconds, Object serializable) {
-        if (!(serializable instanceof Serializable)) {
-            throw new CacheClientException();
+    public String getOrLoad(String key, int seconds, CacheLoader<String> loader) {
+        return cacheAside.getOrLoad(this, key, seconds, 0, loader);
+    }
+
+    @Override
+    public String getOrLoad(String key, int seconds, int nullSeconds, CacheLoader<String> loader) {
+        return cacheAside.getOrLoad(this, key, seconds, nullSeconds, loader);
+    }
+
+    @Override
+    public byte[] getOrLoad(byte[] key, int seconds, CacheLoader<byte[]> loader) {
+        return cacheAside.getOrLoad(this, key, seconds, 0, loader);
+    }
+
+    @Override
+    public byte[] getOrLoad(byte[] key, int seconds, int nullSeconds, CacheLoader<byte[]> loader) {
+        return cacheAside.getOrLoad(this, key, seconds, nullSeconds, loader);
+    }
+
+    @Override
+    public <T> T getObjectOrLoad(byte[] key, int seconds, CacheLoader<T> loader) {
+        return cacheAside.getObjectOrLoad(this, key, seconds, 0, loader);
+    }
+
+    @Override
+    public <T> T getObjectOrLoad(byte[] key, int seconds, int nullSeconds, CacheLoader<T> loader) {
+        return cacheAside.getObjectOrLoad(this, key, seconds, nullSeconds, loader);
+    }
+
+    @Override
+    public <T> T get(String key, Codec<T> codec) {
+        return Codecs.decode(codec, get(SafeEncoder.encode(key)));
+    }
+
+    @Override
+    public <T> String setex(String key, int seconds, T value, Codec<T> codec) {
+        return setex(SafeEncoder.encode(key), seconds, Codecs.encode(codec, value));
+    }
+
+    @Override
+    public <T> List<T> mget(Codec<T> codec, String... keys) {
+        return Codecs.decode(codec, mget(SafeEncoder.encodeMany(keys)));
+    }
+
+    @Override
+    public <T> T hget(String key, String field, Codec<T> codec) {
+        return Codecs.decode(codec, hget(SafeEncoder.encode(key), SafeEncoder.encode(field)));
+    }
+
+    @Override
+    public <T> Long hset(String key, String field, T value, Codec<T> codec) {
+        return hset(SafeEncoder.encode(key), SafeEncoder.encode(field), Codecs.encode(codec, value));
+    }
+
+    @Override
+    public <T> Map<String, T> hgetAll(String key, Codec<T> codec) {
+        return Codecs.decode(codec, hgetAll(SafeEncoder.encode(key)));
+    }
+
+    /**
+     * 按第一个key所在slot选择节点执行, 所有key须在同一slot, 可用 {...} 指定计算slot的部分
+     */
+    @Override
+    public Object eval(CacheScript script, String[] keys, String... args) {
+        if (keys == null || keys.length == 0) {
+            throw new CacheClientException("集群模式下lua脚本至少需要一个key");
         }
-//		byte[] valueser = SerializerUtil.serialize((Serializable)serializable);
-        byte[] valueser = SerializerUtil.defaultSerialize((Serializable) serializable);
-        log.debug("---> setObjectEx value size{}.", valueser.length);
-//		byte[] keyser = SerializerUtil.serialize(key);
-        return setex(key, seconds, valueser);
+        int slot = ClusterTopology.slot(keys[0]);
+        for (String key : keys) {
+            if (ClusterTopology.slot(key) != slot) {
+                throw new CacheClientException("lua脚本的key不在同一slot");
+            }
+        }
+        List<String> keyList = Arrays.asList(keys);
+        List<String> argList = args == null ? Collections.emptyList() : Arrays.asList(args);
+        return execute(() -> {
+            try {
+                return jedisCluster.evalsha(script.getSha1(), keyList, argList);
+            } catch (JedisNoScriptException e) {
+                log.info(" ---> script {} not loaded on node of slot {}, load it.", script, slot);
+                jedisCluster.scriptLoad(script.getSource(), keys[0]);
+                return jedisCluster.evalsha(script.getSha1(), keyList, argList);
+            }
+        });
     }
 
     @Override
-    public Object getObject(byte[] key) {
-//		byte[] keyser = SerializerUtil.serialize(key);
-        byte[] result = get(key);
-        if (result == null)
-            return null;
-//		return SerializerUtil.deserialize(result);
-        return SerializerUtil.defaultDeserialize(result);
+    public Object eval(CacheScript script, byte[][] keys, byte[]... args) {
+        if (keys == null || keys.length == 0) {
+            throw new CacheClientException("集群模式下lua脚本至少需要一个key");
+        }
+        int slot = ClusterTopology.slot(keys[0]);
+        for (byte[] key : keys) {
+            if (ClusterTopology.slot(key) != slot) {
+                throw new CacheClientException("lua脚本的key不在同一slot");
+            }
+        }
+        List<byte[]> keyList = Arrays.asList(keys);
+        List<byte[]> argList = args == null ? Collections.emptyList() : Arrays.asList(args);
+        return execute(() -> {
+            try {
+                return jedisCluster.evalsha(script.getSha1Bytes(), keyList, argList);
+            } catch (JedisNoScriptException e) {
+                log.info(" ---> script {} not loaded on node of slot {}, load it.", script, slot);
+                jedisCluster.scriptLoad(script.getSourceBytes(), keys[0]);
+                return jedisCluster.evalsha(script.getSha1Bytes(), keyList, argList);
+            }
+        });
     }
 
+    /**
+     * 加载到所有主从节点, 从节点提升为主节点后无需重新加载
+     */
+    @Override
+    public String scriptLoad(CacheScript script) {
+        return execute(() -> {
+            for (JedisPool pool : jedisCluster.getClusterNodes().values()) {
+                try (Jedis jedis = pool.getResource()) {
+                    jedis.scriptLoad(script.getSource());
+                }
+            }
+            return script.getSha1();
+        });
+    }
 }
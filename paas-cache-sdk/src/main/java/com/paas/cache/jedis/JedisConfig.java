@@ -1,6 +1,8 @@
 package com.paas.cache.jedis;
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
 
 /**
  * Created on 2016/9/23.
@@ -13,6 +15,40 @@ public class JedisConfig {
     private Integer warnTime = 1000;
     private String needSuffix = "true";
     private Integer db;
+    /**
+     * 异步客户端每个节点的连接数
+     */
+    private Integer asyncConnections = 2;
+    /**
+     * 配置变更热切换时旧客户端的最长排空时间(毫秒), 超时后强制关闭
+     */
+    private Long swapGracePeriod = 30000L;
+    private NearCacheConfig nearCache;
+    /**
+     * setObjectEx 的编码: java(默认)/kryo/fastjson, 读取时自动识别, 不受此配置影响
+     */
+    private String codec = "java";
+    /**
+     * 集群只读命令的节点: master(默认)/replica-preferred/nearest, 读从节点时可能读到尚未同步的旧值
+     */
+    private String readPreference = "master";
+    /**
+     * 多个servers按一致性哈希分片到各独立redis, 而不是作为集群; servers每项可写作 名称=host:port,
+     * 按名称计算哈希, 更换某个分片的机器时key不迁移
+     */
+    private Boolean sharded = false;
+    /**
+     * 分片模式下每个分片在哈希环上的虚拟节点数
+     */
+    private Integer virtualNodes = 160;
+    /**
+     * kryo按顺序注册的类(只能在末尾追加); fastjson允许解码的类名或以"."结尾的包名前缀
+     */
+    private List<String> codecClasses;
+    private CompressionConfig compression;
+    private RefreshConfig refresh;
+    private HotKeyConfig hotKey;
+    private ChunkConfig chunk;
 
     public String getServers() {
         return servers;
@@ -92,6 +128,506 @@ public class JedisConfig {
         this.db = db;
     }
 
+    public Integer getAsyncConnections() {
+        return asyncConnections;
+    }
+
+    public void setAsyncConnections(Integer asyncConnections) {
+        this.asyncConnections = asyncConnections;
+    }
+
+    public Long getSwapGracePeriod() {
+        return swapGracePeriod;
+    }
+
+    public void setSwapGracePeriod(Long swapGracePeriod) {
+        this.swapGracePeriod = swapGracePeriod;
+    }
+
+    public String getCodec() {
+        return codec;
+    }
+
+    public void setCodec(String codec) {
+        this.codec = codec;
+    }
+
+    public List<String> getCodecClasses() {
+        return codecClasses;
+    }
+
+    public void setCodecClasses(List<String> codecClasses) {
+        this.codecClasses = codecClasses;
+    }
+
+    public CompressionConfig getCompression() {
+        return compression;
+    }
+
+    public void setCompression(CompressionConfig compression) {
+        this.compression = compression;
+    }
+
+    public RefreshConfig getRefresh() {
+        return refresh;
+    }
+
+    public void setRefresh(RefreshConfig refresh) {
+        this.refresh = refresh;
+    }
+
+    public String getReadPreference() {
+        return readPreference;
+    }
+
+    public void setReadPreference(String readPreference) {
+        this.readPreference = readPreference;
+    }
+
+    public Boolean getSharded() {
+        return sharded;
+    }
+
+    public void setSharded(Boolean sharded) {
+        this.sharded = sharded;
+    }
+
+    public Integer getVirtualNodes() {
+        return virtualNodes;
+    }
+
+    public void setVirtualNodes(Integer virtualNodes) {
+        this.virtualNodes = virtualNodes;
+    }
+
+    /**
+     * 复制配置并替换servers, 用于分片模式下每个分片的客户端, 其它配置共用
+     */
+    public JedisConfig copyWithServers(String servers) {
+        JedisConfig copy = new JedisConfig();
+        copy.servers = servers;
+        copy.serverInfo = serverInfo;
+        copy.conf = conf;
+        copy.warnTime = warnTime;
+        copy.needSuffix = needSuffix;
+        copy.db = db;
+        copy.asyncConnections = asyncConnections;
+        copy.swapGracePeriod = swapGracePeriod;
+        copy.nearCache = nearCache;
+        copy.codec = codec;
+        copy.readPreference = readPreference;
+        copy.codecClasses = codecClasses;
+        copy.compression = compression;
+        copy.refresh = refresh;
+        copy.hotKey = hotKey;
+        copy.chunk = chunk;
+        return copy;
+    }
+
+    public ChunkConfig getChunk() {
+        return chunk;
+    }
+
+    public void setChunk(ChunkConfig chunk) {
+        this.chunk = chunk;
+    }
+
+    public HotKeyConfig getHotKey() {
+        return hotKey;
+    }
+
+    public void setHotKey(HotKeyConfig hotKey) {
+        this.hotKey = hotKey;
+    }
+
+    public NearCacheConfig getNearCache() {
+        return nearCache;
+    }
+
+    public void setNearCache(NearCacheConfig nearCache) {
+        this.nearCache = nearCache;
+    }
+
+    /**
+     * 本地缓存配置
+     */
+    public static class NearCacheConfig {
+        private Boolean enabled = false;
+        private Integer maxEntries = 10000;
+        private Long maxBytes = 64L * 1024 * 1024;
+        // 本地最长缓存秒数, 不超过redis中的剩余有效期
+        private Integer ttl = 60;
+        // 只缓存以这些前缀开头的key(不含业务后缀), 为空时不缓存
+        private String[] keyPrefixes;
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getMaxEntries() {
+            return maxEntries;
+        }
+
+        public void setMaxEntries(Integer maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        public Long getMaxBytes() {
+            return maxBytes;
+        }
+
+        public void setMaxBytes(Long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        public Integer getTtl() {
+            return ttl;
+        }
+
+        public void setTtl(Integer ttl) {
+            this.ttl = ttl;
+        }
+
+        public String[] getKeyPrefixes() {
+            return keyPrefixes;
+        }
+
+        public void setKeyPrefixes(String[] keyPrefixes) {
+            this.keyPrefixes = keyPrefixes;
+        }
+
+        @Override
+        public String toString() {
+            return "NearCacheConfig{" +
+                    "enabled=" + enabled +
+                    ", maxEntries=" + maxEntries +
+                    ", maxBytes=" + maxBytes +
+                    ", ttl=" + ttl +
+                    ", keyPrefixes=" + Arrays.toString(keyPrefixes) +
+                    '}';
+        }
+    }
+
+    /**
+     * 二进制值压缩配置, 作用于 setex(byte[])/setObjectEx/hset(byte[]) 等二进制写入
+     */
+    public static class CompressionConfig {
+        private Boolean enabled = false;
+        /**
+         * 超过该字节数的值才压缩
+         */
+        private Integer threshold = 4096;
+        /**
+         * deflate 压缩级别 1-9, 默认1(最快)
+         */
+        private Integer level = 1;
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(Integer threshold) {
+            this.threshold = threshold;
+        }
+
+        public Integer getLevel() {
+            return level;
+        }
+
+        public void setLevel(Integer level) {
+            this.level = level;
+        }
+
+        @Override
+        public String toString() {
+            return "CompressionConfig{" +
+                    "enabled=" + enabled +
+                    ", threshold=" + threshold +
+                    ", level=" + level +
+                    '}';
+        }
+    }
+
+    /**
+     * 大值分块配置: 超过阀值的二进制值拆分为多个分块key写入, 原key只保存分块信息
+     */
+    public static class ChunkConfig {
+        private Boolean enabled = false;
+        /**
+         * 超过该字节数(压缩后)的值才分块
+         */
+        private Integer threshold = 1048576;
+        /**
+         * 每个分块的字节数
+         */
+        private Integer chunkSize = 262144;
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(Integer threshold) {
+            this.threshold = threshold;
+        }
+
+        public Integer getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(Integer chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        @Override
+        public String toString() {
+            return "ChunkConfig{" +
+                    "enabled=" + enabled +
+                    ", threshold=" + threshold +
+                    ", chunkSize=" + chunkSize +
+                    '}';
+        }
+    }
+
+    /**
+     * getOrLoad 的提前刷新配置: 命中的key临近过期时在后台线程重新加载并写回, 调用方不等待
+     */
+    public static class RefreshConfig {
+        private Boolean enabled = false;
+        /**
+         * 剩余有效期不超过该秒数时刷新, 0表示只按概率提前刷新
+         */
+        private Integer window = 60;
+        /**
+         * XFetch 提前系数, 越大越早刷新, 0表示不按概率提前刷新
+         */
+        private Double beta = 1.0;
+        private Integer threads = 2;
+        /**
+         * 等待刷新的任务数上限, 超过时放弃本次刷新
+         */
+        private Integer queueSize = 256;
+        /**
+         * 本地记录过期时间的key数上限, 达到时抽样淘汰
+         */
+        private Integer maxKeys = 10000;
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getWindow() {
+            return window;
+        }
+
+        public void setWindow(Integer window) {
+            this.window = window;
+        }
+
+        public Double getBeta() {
+            return beta;
+        }
+
+        public void setBeta(Double beta) {
+            this.beta = beta;
+        }
+
+        public Integer getThreads() {
+            return threads;
+        }
+
+        public void setThreads(Integer threads) {
+            this.threads = threads;
+        }
+
+        public Integer getQueueSize() {
+            return queueSize;
+        }
+
+        public void setQueueSize(Integer queueSize) {
+            this.queueSize = queueSize;
+        }
+
+        public Integer getMaxKeys() {
+            return maxKeys;
+        }
+
+        public void setMaxKeys(Integer maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof RefreshConfig)) {
+                return false;
+            }
+            RefreshConfig that = (RefreshConfig) o;
+            return Objects.equals(enabled, that.enabled) && Objects.equals(window, that.window)
+                    && Objects.equals(beta, that.beta) && Objects.equals(threads, that.threads)
+                    && Objects.equals(queueSize, that.queueSize) && Objects.equals(maxKeys, that.maxKeys);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(enabled, window, beta, threads, queueSize, maxKeys);
+        }
+
+        @Override
+        public String toString() {
+            return "RefreshConfig{" +
+                    "enabled=" + enabled +
+                    ", window=" + window +
+                    ", beta=" + beta +
+                    ", threads=" + threads +
+                    ", queueSize=" + queueSize +
+                    ", maxKeys=" + maxKeys +
+                    '}';
+        }
+    }
+
+    /**
+     * 热点key统计: 按采样率记录读取, 统计每个业务编码读取最多的key, 可选在本地短时缓存热点key
+     */
+    public static class HotKeyConfig {
+        private Boolean enabled = false;
+        /**
+         * 每多少次读取采样一次
+         */
+        private Integer sampling = 16;
+        /**
+         * 统计读取最多的key数
+         */
+        private Integer topK = 32;
+        /**
+         * 衰减周期秒数, 每个周期计数减半
+         */
+        private Integer decayInterval = 10;
+        /**
+         * 周期内估算读取次数达到该值才视为热点
+         */
+        private Long threshold = 1000L;
+        /**
+         * 是否在本地缓存热点key, 其它进程的写入最多延迟 localTtl 秒可见
+         */
+        private Boolean promote = false;
+        private Integer localTtl = 1;
+
+        public Boolean getEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(Boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getSampling() {
+            return sampling;
+        }
+
+        public void setSampling(Integer sampling) {
+            this.sampling = sampling;
+        }
+
+        public Integer getTopK() {
+            return topK;
+        }
+
+        public void setTopK(Integer topK) {
+            this.topK = topK;
+        }
+
+        public Integer getDecayInterval() {
+            return decayInterval;
+        }
+
+        public void setDecayInterval(Integer decayInterval) {
+            this.decayInterval = decayInterval;
+        }
+
+        public Long getThreshold() {
+            return threshold;
+        }
+
+        public void setThreshold(Long threshold) {
+            this.threshold = threshold;
+        }
+
+        public Boolean getPromote() {
+            return promote;
+        }
+
+        public void setPromote(Boolean promote) {
+            this.promote = promote;
+        }
+
+        public Integer getLocalTtl() {
+            return localTtl;
+        }
+
+        public void setLocalTtl(Integer localTtl) {
+            this.localTtl = localTtl;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof HotKeyConfig)) {
+                return false;
+            }
+            HotKeyConfig that = (HotKeyConfig) o;
+            return Objects.equals(enabled, that.enabled) && Objects.equals(sampling, that.sampling)
+                    && Objects.equals(topK, that.topK) && Objects.equals(decayInterval, that.decayInterval)
+                    && Objects.equals(threshold, that.threshold) && Objects.equals(promote, that.promote)
+                    && Objects.equals(localTtl, that.localTtl);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(enabled, sampling, topK, decayInterval, threshold, promote, localTtl);
+        }
+
+        @Override
+        public String toString() {
+            return "HotKeyConfig{" +
+                    "enabled=" + enabled +
+                    ", sampling=" + sampling +
+                    ", topK=" + topK +
+                    ", decayInterval=" + decayInterval +
+                    ", threshold=" + threshold +
+                    ", promote=" + promote +
+                    ", localTtl=" + localTtl +
+                    '}';
+        }
+    }
+
     public static class PoolConfig {
         private Integer minIdle = 50;
         private Integer maxIdle = 100;
@@ -104,6 +640,14 @@ public class JedisConfig {
         //逐出连接的最小空闲时间 默认1800000毫秒(30分钟)  目前设置3个小时
         private Integer minEvictableIdleTimeMillis = 10800000;
         private Boolean testWhileIdle = true;
+        // 单次调用连接失败后的最大重试次数, 重试间隔为带随机抖动的指数退避
+        private Integer maxRetries = 2;
+        private Long retryBackoff = 50L;
+        private Long maxRetryBackoff = 1000L;
+        // 连续连接失败达到该次数后熔断, 熔断时间在探测失败后翻倍, 不超过上限
+        private Integer failureThreshold = 10;
+        private Long circuitOpenTime = 2000L;
+        private Long maxCircuitOpenTime = 30000L;
 
         public Integer getMinIdle() {
             return minIdle;
@@ -185,6 +729,54 @@ public class JedisConfig {
             this.testWhileIdle = testWhileIdle;
         }
 
+        public Integer getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(Integer maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+
+        public Long getRetryBackoff() {
+            return retryBackoff;
+        }
+
+        public void setRetryBackoff(Long retryBackoff) {
+            this.retryBackoff = retryBackoff;
+        }
+
+        public Long getMaxRetryBackoff() {
+            return maxRetryBackoff;
+        }
+
+        public void setMaxRetryBackoff(Long maxRetryBackoff) {
+            this.maxRetryBackoff = maxRetryBackoff;
+        }
+
+        public Integer getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        public void setFailureThreshold(Integer failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        public Long getCircuitOpenTime() {
+            return circuitOpenTime;
+        }
+
+        public void setCircuitOpenTime(Long circuitOpenTime) {
+            this.circuitOpenTime = circuitOpenTime;
+        }
+
+        public Long getMaxCircuitOpenTime() {
+            return maxCircuitOpenTime;
+        }
+
+        public void setMaxCircuitOpenTime(Long maxCircuitOpenTime) {
+            this.maxCircuitOpenTime = maxCircuitOpenTime;
+        }
+
         @Override
         public String toString() {
             return "PoolConfig{" +
@@ -196,6 +788,9 @@ public class JedisConfig {
                     ", timeout=" + timeout +
                     ", soTimeout=" + soTimeout +
                     ", testWhileIdle=" + testWhileIdle +
+                    ", maxRetries=" + maxRetries +
+                    ", failureThreshold=" + failureThreshold +
+                    ", circuitOpenTime=" + circuitOpenTime +
                     '}';
         }
     }
@@ -209,6 +804,16 @@ public class JedisConfig {
                 ", conf=" + conf +
                 ", warnTime=" + warnTime +
                 ", db=" + db +
+                ", asyncConnections=" + asyncConnections +
+                ", swapGracePeriod=" + swapGracePeriod +
+                ", nearCache=" + nearCache +
+                ", codec=" + codec +
+                ", readPreference=" + readPreference +
+                ", sharded=" + sharded +
+                ", compression=" + compression +
+                ", refresh=" + refresh +
+                ", hotKey=" + hotKey +
+                ", chunk=" + chunk +
                 '}';
     }
 }
@@ -0,0 +1,35 @@
+package com.paas.cache.jedis;
+
+import com.paas.cache.exception.CacheClientException;
+
+/**
+ * 集群只读命令的节点选择, 写命令始终发往主节点
+ */
+public enum ReadPreference {
+    /**
+     * 只读主节点
+     */
+    MASTER,
+    /**
+     * 优先读slot的从节点, 无可用从节点时读主节点
+     */
+    REPLICA_PREFERRED,
+    /**
+     * 在主从节点中读响应最快的节点
+     */
+    NEAREST;
+
+    /**
+     * 解析配置值, 不区分大小写, "-" 与 "_" 等价; 为空时为 MASTER
+     */
+    public static ReadPreference of(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return MASTER;
+        }
+        try {
+            return valueOf(name.trim().toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new CacheClientException("不支持的读取节点配置: " + name);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.paas.cache.jedis;
+
+import org.apache.commons.pool2.PooledObject;
+import org.apache.commons.pool2.PooledObjectFactory;
+import org.apache.commons.pool2.impl.DefaultPooledObject;
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisMovedDataException;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 集群只读命令按 ReadPreference 选择节点执行。
+ * <p>
+ * 从节点使用单独的连接池, 每个连接建立时发送 READONLY; 主节点仍通过 JedisCluster 执行。
+ * 从节点返回 MOVED(已不负责该slot)时刷新slot后本次改读主节点, 连接失败时该节点暂停使用 DOWN_MILLIS 并改读主节点。
+ * NEAREST 按各节点最近读取耗时的滑动平均选择, 少量读取随机选择节点以更新耗时
+ */
+class ReplicaReads {
+    protected static Logger log = LoggerFactory.getLogger(ReplicaReads.class);
+
+    private static final long DOWN_MILLIS = 1000;
+    private static final int EXPLORE_RATE = 32;
+    private static final double EWMA_WEIGHT = 0.2;
+
+    private final ReadPreference preference;
+    private final ClusterTopology topology;
+    private final GenericObjectPoolConfig poolConfig;
+    private final int connectionTimeout;
+    private final int soTimeout;
+    private final String password;
+    private final ConcurrentHashMap<HostAndPort, Node> nodes = new ConcurrentHashMap<>();
+
+    ReplicaReads(ReadPreference preference, ClusterTopology topology, GenericObjectPoolConfig poolConfig,
+                 int connectionTimeout, int soTimeout, String password) {
+        this.preference = preference;
+        this.topology = topology;
+        this.poolConfig = poolConfig;
+        this.connectionTimeout = connectionTimeout;
+        this.soTimeout = soTimeout;
+        this.password = password;
+    }
+
+    /**
+     * @param slot    key所在slot
+     * @param command 在选中的从节点上执行
+     * @param master  在主节点上执行
+     */
+    <T> T read(int slot, Function<Jedis, T> command, Supplier<T> master) {
+        HostAndPort masterNode = topology.master(slot);
+        Node node = choose(masterNode, topology.replicas(slot));
+        if (node == null) {
+            return preference == ReadPreference.NEAREST ? timed(node(masterNode), master) : master.get();
+        }
+        try (Jedis jedis = node.pool().getResource()) {
+            long begin = System.nanoTime();
+            T result = command.apply(jedis);
+            node.record(System.nanoTime() - begin);
+            return result;
+        } catch (JedisMovedDataException e) {
+            log.info(" ---> replica {} no longer serves slot {}, renew slots.", node.address, slot);
+            topology.renew();
+            return master.get();
+        } catch (JedisConnectionException e) {
+            log.warn(" ---> read replica {} fail, read master instead. cause: {}", node.address, e.getMessage());
+            node.downUntil = System.currentTimeMillis() + DOWN_MILLIS;
+            return master.get();
+        }
+    }
+
+    void close() {
+        for (Node node : nodes.values()) {
+            node.close();
+        }
+        nodes.clear();
+    }
+
+    // 返回null表示读主节点
+    private Node choose(HostAndPort master, HostAndPort[] replicas) {
+        if (replicas.length == 0) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (preference == ReadPreference.REPLICA_PREFERRED) {
+            int start = random.nextInt(replicas.length);
+            for (int i = 0; i < replicas.length; i++) {
+                Node node = node(replicas[(start + i) % replicas.length]);
+                if (node.downUntil <= now) {
+                    return node;
+                }
+            }
+            return null;
+        }
+        if (random.nextInt(EXPLORE_RATE) == 0) {
+            int index = random.nextInt(replicas.length + 1);
+            Node node = index == replicas.length ? null : node(replicas[index]);
+            return node == null || node.downUntil <= now ? node : null;
+        }
+        double bestLatency = node(master).latency;
+        if (bestLatency == 0) {
+            return null;
+        }
+        Node best = null;
+        for (HostAndPort replica : replicas) {
+            Node node = node(replica);
+            if (node.downUntil > now) {
+                continue;
+            }
+            if (node.latency == 0) {
+                return node;
+            }
+            if (node.latency < bestLatency) {
+                best = node;
+                bestLatency = node.latency;
+            }
+        }
+        return best;
+    }
+
+    private <T> T timed(Node node, Supplier<T> call) {
+        long begin = System.nanoTime();
+        T result = call.get();
+        node.record(System.nanoTime() - begin);
+        return result;
+    }
+
+    private Node node(HostAndPort address) {
+        Node node = nodes.get(address);
+        if (node == null) {
+            node = nodes.computeIfAbsent(address, Node::new);
+        }
+        return node;
+    }
+
+    private final class Node {
+        final HostAndPort address;
+        // 纳秒, 0表示尚未读取过, 优先选择以获得耗时
+        volatile double latency;
+        volatile long downUntil;
+        private volatile JedisPool pool;
+
+        Node(HostAndPort address) {
+            this.address = address;
+        }
+
+        void record(long nanos) {
+            double current = latency;
+            latency = current == 0 ? nanos : current + EWMA_WEIGHT * (nanos - current);
+        }
+
+        JedisPool pool() {
+            JedisPool current = pool;
+            if (current == null) {
+                synchronized (this) {
+                    current = pool;
+                    if (current == null) {
+                        current = new ReadOnlyJedisPool(poolConfig, address, connectionTimeout, soTimeout, password);
+                        pool = current;
+                    }
+                }
+            }
+            return current;
+        }
+
+        synchronized void close() {
+            if (pool != null) {
+                try {
+                    pool.destroy();
+                } catch (Exception e) {
+                    log.warn(" ---> close replica pool {} fail: {}", address, e.getMessage());
+                }
+                pool = null;
+            }
+        }
+    }
+
+    /**
+     * 连接建立时发送 READONLY 的连接池, 归还时 jedis 不重置该状态
+     */
+    static class ReadOnlyJedisPool extends JedisPool {
+
+        ReadOnlyJedisPool(GenericObjectPoolConfig poolConfig, HostAndPort address, int connectionTimeout,
+                          int soTimeout, String password) {
+            super();
+            initPool(poolConfig, new ReadOnlyFactory(address, connectionTimeout, soTimeout, password));
+        }
+    }
+
+    private static class ReadOnlyFactory implements PooledObjectFactory<Jedis> {
+        private final HostAndPort address;
+        private final int connectionTimeout;
+        private final int soTimeout;
+        private final String password;
+
+        ReadOnlyFactory(HostAndPort address, int connectionTimeout, int soTimeout, String password) {
+            this.address = address;
+            this.connectionTimeout = connectionTimeout;
+            this.soTimeout = soTimeout;
+            this.password = password;
+        }
+
+        @Override
+        public PooledObject<Jedis> makeObject() throws Exception {
+            Jedis jedis = new Jedis(address.getHost(), address.getPort(), connectionTimeout, soTimeout);
+            try {
+                jedis.connect();
+                if (password != null) {
+                    jedis.auth(password);
+                }
+                jedis.readonly();
+            } catch (RuntimeException e) {
+                jedis.close();
+                throw e;
+            }
+            return new DefaultPooledObject<>(jedis);
+        }
+
+        @Override
+        public void destroyObject(PooledObject<Jedis> p) throws Exception {
+            Jedis jedis = p.getObject();
+            if (jedis.isConnected()) {
+                try {
+                    jedis.quit();
+                } catch (Exception e) {
+                    // 连接已不可用, 直接断开
+                }
+                jedis.disconnect();
+            }
+        }
+
+        @Override
+        public boolean validateObject(PooledObject<Jedis> p) {
+            try {
+                Jedis jedis = p.getObject();
+                return jedis.isConnected() && "PONG".equals(jedis.ping());
+            } catch (Exception e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void activateObject(PooledObject<Jedis> p) throws Exception {
+        }
+
+        @Override
+        public void passivateObject(PooledObject<Jedis> p) throws Exception {
+        }
+    }
+}
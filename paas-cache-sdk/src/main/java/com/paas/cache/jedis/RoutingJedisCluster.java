@@ -0,0 +1,37 @@
+package com.paas.cache.jedis;
+
+import org.apache.commons.pool2.impl.GenericObjectPoolConfig;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisCluster;
+
+import java.util.Set;
+
+/**
+ * 暴露按节点获取连接的 JedisCluster, 供批量命令按节点分组执行
+ */
+public class RoutingJedisCluster extends JedisCluster {
+
+    public RoutingJedisCluster(Set<HostAndPort> nodes, int timeout, GenericObjectPoolConfig poolConfig) {
+        super(nodes, timeout, poolConfig);
+    }
+
+    public RoutingJedisCluster(Set<HostAndPort> nodes, int connectionTimeout, int soTimeout, int maxAttempts,
+                               String password, GenericObjectPoolConfig poolConfig) {
+        super(nodes, connectionTimeout, soTimeout, maxAttempts, password, poolConfig);
+    }
+
+    /**
+     * 从节点连接池中借出连接, 使用完毕后调用 close 归还
+     */
+    public Jedis getConnectionFromNode(HostAndPort node) {
+        return connectionHandler.getConnectionFromNode(node);
+    }
+
+    /**
+     * 重新拉取 jedis 内部的slot缓存
+     */
+    public void renewSlotCache() {
+        connectionHandler.renewSlotCache();
+    }
+}
@@ -0,0 +1,76 @@
+package com.paas.cache.jedis;
+
+import redis.clients.util.Hashing;
+import redis.clients.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * 一致性哈希环, 每个分片按名称生成若干虚拟节点, key顺时针落到第一个虚拟节点所属的分片。
+ * 增减分片时只有相邻区间的key改变归属。
+ * <p>
+ * 与redis集群一致, key中包含非空的 {...} 时只按第一个花括号内的内容计算哈希, 以便相关key落在同一分片
+ */
+public class ShardRing<T> {
+
+    private static final Hashing HASHING = Hashing.MURMUR_HASH;
+
+    private final long[] points;
+    private final Object[] owners;
+
+    /**
+     * @param names        分片名称, 决定虚拟节点在环上的位置
+     * @param shards       与名称一一对应的分片
+     * @param virtualNodes 每个分片的虚拟节点数
+     */
+    public ShardRing(List<String> names, List<T> shards, int virtualNodes) {
+        int count = Math.max(1, virtualNodes);
+        List<Object[]> nodes = new ArrayList<>(names.size() * count);
+        for (int i = 0; i < names.size(); i++) {
+            for (int n = 0; n < count; n++) {
+                nodes.add(new Object[]{HASHING.hash(names.get(i) + "-NODE-" + n), shards.get(i)});
+            }
+        }
+        nodes.sort(Comparator.comparingLong(node -> (Long) node[0]));
+        this.points = new long[nodes.size()];
+        this.owners = new Object[nodes.size()];
+        for (int i = 0; i < nodes.size(); i++) {
+            points[i] = (Long) nodes.get(i)[0];
+            owners[i] = nodes.get(i)[1];
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get(byte[] key) {
+        long hash = HASHING.hash(tag(key));
+        int index = Arrays.binarySearch(points, hash);
+        if (index < 0) {
+            index = -index - 1;
+            if (index == points.length) {
+                index = 0;
+            }
+        }
+        return (T) owners[index];
+    }
+
+    public T get(String key) {
+        return get(SafeEncoder.encode(key));
+    }
+
+    static byte[] tag(byte[] key) {
+        for (int start = 0; start < key.length; start++) {
+            if (key[start] == '{') {
+                for (int end = start + 1; end < key.length; end++) {
+                    if (key[end] == '}') {
+                        return end == start + 1 ? key : Arrays.copyOfRange(key, start + 1, end);
+                    }
+                }
+                return key;
+            }
+        }
+        return key;
+    }
+}
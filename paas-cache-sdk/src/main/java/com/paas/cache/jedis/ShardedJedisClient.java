@@ -0,0 +1,1087 @@
+package com.paas.cache.jedis;
+
+import com.paas.cache.ICacheClient;
+import com.paas.cache.batch.BatchCommand;
+import com.paas.cache.batch.CacheBatch;
+import com.paas.cache.codec.Codec;
+import com.paas.cache.codec.CodecSupport;
+import com.paas.cache.codec.Codecs;
+import com.paas.cache.codec.ObjectCodecs;
+import com.paas.cache.exception.CacheClientException;
+import com.paas.cache.load.CacheAside;
+import com.paas.cache.load.CacheLoader;
+import com.paas.cache.metrics.CacheMetrics;
+import com.paas.cache.script.CacheScript;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.BinaryJedisPubSub;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Tuple;
+import redis.clients.util.SafeEncoder;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+import java.util.stream.Stream;
+
+/**
+ * 按一致性哈希把key分布到多个独立redis的客户端, 用于无法使用集群模式的多台redis。
+ * <p>
+ * 每个分片为一个 JedisClient(各自的连接池及熔断), 单key命令直接发往key所在分片;
+ * 多key命令按分片分组后并行执行, 跨分片的 sdiff/sdiffstore 在客户端计算, 非原子操作。
+ * 配置变更时由 CacheClientFactory 重建客户端, 哈希环按分片名称计算, 只有增减的分片相邻区间的key改变归属
+ */
+public class ShardedJedisClient implements ICacheClient, CodecSupport {
+    protected static Logger log = LoggerFactory.getLogger(ShardedJedisClient.class);
+
+    private static final int DEFAULT_VIRTUAL_NODES = 160;
+
+    private static final int FANOUT_THREADS = 64;
+
+    private final JedisConfig config;
+    private final ObjectCodecs codecs;
+    private final List<String> names = new ArrayList<>();
+    private final List<JedisClient> shards = new ArrayList<>();
+    private final ShardRing<JedisClient> ring;
+    private final CacheAside cacheAside = new CacheAside();
+    private ExecutorService fanoutExecutor;
+
+    public ShardedJedisClient(JedisConfig config) {
+        this.config = config;
+        this.codecs = new ObjectCodecs(config);
+        for (String server : config.getServerArray()) {
+            String entry = server.trim();
+            int separator = entry.indexOf('=');
+            String name = separator < 0 ? entry : entry.substring(0, separator).trim();
+            String address = separator < 0 ? entry : entry.substring(separator + 1).trim();
+            if (names.contains(name)) {
+                throw new CacheClientException("分片名称重复: " + name);
+            }
+            names.add(name);
+            shards.add(new JedisClient(config.copyWithServers(address)));
+        }
+        Integer virtualNodes = config.getVirtualNodes();
+        this.ring = new ShardRing<>(names, shards, virtualNodes == null ? DEFAULT_VIRTUAL_NODES : virtualNodes);
+        initExecutor();
+        log.info(" ---> create sharded jedis client: {}", names);
+    }
+
+    // 多分片命令的并行执行线程, 线程不足时由调用线程执行
+    private void initExecutor() {
+        final AtomicInteger index = new AtomicInteger();
+        fanoutExecutor = new ThreadPoolExecutor(0, FANOUT_THREADS, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "paas-cache-shard-" + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public JedisConfig getConfig() {
+        return config;
+    }
+
+    /**
+     * key所在的分片
+     */
+    public JedisClient getShard(String key) {
+        return ring.get(key);
+    }
+
+    public List<JedisClient> getShards() {
+        return Collections.unmodifiableList(shards);
+    }
+
+    /**
+     * 设置后记录各分片连接池借用等待时间
+     */
+    public void setMetrics(CacheMetrics metrics) {
+        for (JedisClient shard : shards) {
+            shard.setMetrics(metrics);
+        }
+    }
+
+    /**
+     * 每个分片借用连接并ping, 热切换前确认新客户端可用
+     */
+    public void warmUp() {
+        for (JedisClient shard : shards) {
+            shard.warmUp();
+        }
+    }
+
+    /**
+     * 所有分片已借出未归还的连接数
+     */
+    public int getActiveConnections() {
+        int active = 0;
+        for (JedisClient shard : shards) {
+            active += shard.getActiveConnections();
+        }
+        return active;
+    }
+
+    public void destroy() {
+        fanoutExecutor.shutdown();
+        for (JedisClient shard : shards) {
+            try {
+                shard.destroy();
+            } catch (Exception e) {
+                log.warn(" ---> destroy shard fail: {}", e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public ObjectCodecs getCodecs() {
+        return codecs;
+    }
+
+    private JedisClient shard(String key) {
+        return ring.get(key);
+    }
+
+    private JedisClient shard(byte[] key) {
+        return ring.get(key);
+    }
+
+    @Override
+    public String setex(String key, int seconds, String value) {
+        return shard(key).setex(key, seconds, value);
+    }
+
+    @Override
+    public String get(String key) {
+        return shard(key).get(key);
+    }
+
+    @Override
+    public Long del(String key) {
+        return shard(key).del(key);
+    }
+
+    @Override
+    public Long del(String... keys) {
+        long deleted = 0;
+        for (Long count : fanout(group(keys), (shard, indexes) -> shard.del(select(keys, indexes))).values()) {
+            deleted += count;
+        }
+        return deleted;
+    }
+
+    @Override
+    public Long expire(String key, int seconds) {
+        return shard(key).expire(key, seconds);
+    }
+
+    @Override
+    public Long expireAt(String key, long timestamp) {
+        return shard(key).expireAt(key, timestamp);
+    }
+
+    @Override
+    public Long ttl(String key) {
+        return shard(key).ttl(key);
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return shard(key).exists(key);
+    }
+
+    @Override
+    public Long incr(String key) {
+        return shard(key).incr(key);
+    }
+
+    @Override
+    public Long incrBy(String key, long increment) {
+        return shard(key).incrBy(key, increment);
+    }
+
+    @Override
+    public Long decr(String key) {
+        return shard(key).decr(key);
+    }
+
+    @Override
+    public Long decrBy(String key, long decrement) {
+        return shard(key).decrBy(key, decrement);
+    }
+
+    @Override
+    public Long lpush(String key, String... strings) {
+        return shard(key).lpush(key, strings);
+    }
+
+    @Override
+    public Long rpush(String key, String... strings) {
+        return shard(key).rpush(key, strings);
+    }
+
+    @Override
+    public Long lrem(String key, long count, String value) {
+        return shard(key).lrem(key, count, value);
+    }
+
+    @Override
+    public Long llen(String key) {
+        return shard(key).llen(key);
+    }
+
+    @Override
+    public String lpop(String key) {
+        return shard(key).lpop(key);
+    }
+
+    @Override
+    public String rpop(String key) {
+        return shard(key).rpop(key);
+    }
+
+    @Override
+    public List<String> lrange(String key, long start, long end) {
+        return shard(key).lrange(key, start, end);
+    }
+
+    @Override
+    public List<String> lrangeAll(String key) {
+        return shard(key).lrangeAll(key);
+    }
+
+    @Override
+    public Long hset(String key, String field, String value) {
+        return shard(key).hset(key, field, value);
+    }
+
+    @Override
+    public Long hsetnx(String key, String field, String value) {
+        return shard(key).hsetnx(key, field, value);
+    }
+
+    @Override
+    public String hmset(String key, Map<String, String> hash) {
+        return shard(key).hmset(key, hash);
+    }
+
+    @Override
+    public String hget(String key, String field) {
+        return shard(key).hget(key, field);
+    }
+
+    @Override
+    public List<String> hmget(String key, String... fields) {
+        return shard(key).hmget(key, fields);
+    }
+
+    @Override
+    public Boolean hexists(String key, String field) {
+        return shard(key).hexists(key, field);
+    }
+
+    @Override
+    public Long hdel(String key, String... fields) {
+        return shard(key).hdel(key, fields);
+    }
+
+    @Override
+    public Long hlen(String key) {
+        return shard(key).hlen(key);
+    }
+
+    @Override
+    public Map<String, String> hgetAll(String key) {
+        return shard(key).hgetAll(key);
+    }
+
+    @Override
+    public Long sadd(String key, String... members) {
+        return shard(key).sadd(key, members);
+    }
+
+    @Override
+    public Set<String> smembers(String key) {
+        return shard(key).smembers(key);
+    }
+
+    @Override
+    public Long srem(String key, String... members) {
+        return shard(key).srem(key, members);
+    }
+
+    @Override
+    public Long scard(String key) {
+        return shard(key).scard(key);
+    }
+
+    @Override
+    public Set<String> sunion(String... keys) {
+        Set<String> union = new LinkedHashSet<>();
+        for (Set<String> members : fanout(group(keys), (shard, indexes) -> shard.sunion(select(keys, indexes))).values()) {
+            union.addAll(members);
+        }
+        return union;
+    }
+
+    /**
+     * 各key不在同一分片时, 第一个key的集合减去其余key的并集
+     */
+    @Override
+    public Set<String> sdiff(String... keys) {
+        JedisClient shard = sameShard(keys);
+        if (shard != null) {
+            return shard.sdiff(keys);
+        }
+        Set<String> diff = new HashSet<>(shard(keys[0]).smembers(keys[0]));
+        if (!diff.isEmpty()) {
+            diff.removeAll(sunion(Arrays.copyOfRange(keys, 1, keys.length)));
+        }
+        return diff;
+    }
+
+    /**
+     * 目标key与源key不在同一分片时在客户端计算差集后写入, 非原子操作
+     */
+    @Override
+    public Long sdiffstore(String dstkey, String... keys) {
+        JedisClient shard = shard(dstkey);
+        if (sameShard(keys) == shard) {
+            return shard.sdiffstore(dstkey, keys);
+        }
+        Set<String> diff = sdiff(keys);
+        shard.del(dstkey);
+        if (diff.isEmpty()) {
+            return 0L;
+        }
+        shard.sadd(dstkey, diff.toArray(new String[diff.size()]));
+        return (long) diff.size();
+    }
+
+    @Override
+    public String setex(byte[] key, int seconds, byte[] value) {
+        return shard(key).setex(key, seconds, value);
+    }
+
+    @Override
+    public byte[] get(byte[] key) {
+        return shard(key).get(key);
+    }
+
+    @Override
+    public Long del(byte[] key) {
+        return shard(key).del(key);
+    }
+
+    @Override
+    public Long del(byte[]... keys) {
+        long deleted = 0;
+        for (Long count : fanout(group(keys), (shard, indexes) -> shard.del(select(keys, indexes))).values()) {
+            deleted += count;
+        }
+        return deleted;
+    }
+
+    @Override
+    public Long expire(byte[] key, int seconds) {
+        return shard(key).expire(key, seconds);
+    }
+
+    @Override
+    public Long expireAt(byte[] key, long timestamp) {
+        return shard(key).expireAt(key, timestamp);
+    }
+
+    @Override
+    public Long ttl(byte[] key) {
+        return shard(key).ttl(key);
+    }
+
+    @Override
+    public boolean exists(byte[] key) {
+        return shard(key).exists(key);
+    }
+
+    @Override
+    public Long incr(byte[] key) {
+        return shard(key).incr(key);
+    }
+
+    @Override
+    public Long incrBy(byte[] key, long increment) {
+        return shard(key).incrBy(key, increment);
+    }
+
+    @Override
+    public Long decr(byte[] key) {
+        return shard(key).decr(key);
+    }
+
+    @Override
+    public Long decrBy(byte[] key, long decrement) {
+        return shard(key).decrBy(key, decrement);
+    }
+
+    @Override
+    public Long lpush(byte[] key, byte[]... strings) {
+        return shard(key).lpush(key, strings);
+    }
+
+    @Override
+    public Long rpush(byte[] key, byte[]... strings) {
+        return shard(key).rpush(key, strings);
+    }
+
+    @Override
+    public Long llen(byte[] key) {
+        return shard(key).llen(key);
+    }
+
+    @Override
+    public Long lrem(byte[] key, long count, byte[] value) {
+        return shard(key).lrem(key, count, value);
+    }
+
+    @Override
+    public byte[] lpop(byte[] key) {
+        return shard(key).lpop(key);
+    }
+
+    @Override
+    public byte[] rpop(byte[] key) {
+        return shard(key).rpop(key);
+    }
+
+    @Override
+    public List<byte[]> lrange(byte[] key, long start, long end) {
+        return shard(key).lrange(key, start, end);
+    }
+
+    @Override
+    public List<byte[]> lrangeAll(byte[] key) {
+        return shard(key).lrangeAll(key);
+    }
+
+    @Override
+    public Long hset(byte[] key, byte[] field, byte[] value) {
+        return shard(key).hset(key, field, value);
+    }
+
+    @Override
+    public Long hsetnx(byte[] key, byte[] field, byte[] value) {
+        return shard(key).hsetnx(key, field, value);
+    }
+
+    @Override
+    public Long setnx(byte[] key, byte[] value) {
+        return shard(key).setnx(key, value);
+    }
+
+    @Override
+    public Long setnx(String key, String value) {
+        return shard(key).setnx(key, value);
+    }
+
+    @Override
+    public String hmset(byte[] key, Map<byte[], byte[]> hash) {
+        return shard(key).hmset(key, hash);
+    }
+
+    @Override
+    public byte[] hget(byte[] key, byte[] field) {
+        return shard(key).hget(key, field);
+    }
+
+    @Override
+    public List<byte[]> hmget(byte[] key, byte[]... fields) {
+        return shard(key).hmget(key, fields);
+    }
+
+    @Override
+    public Boolean hexists(byte[] key, byte[] field) {
+        return shard(key).hexists(key, field);
+    }
+
+    @Override
+    public Long hdel(byte[] key, byte[]... fields) {
+        return shard(key).hdel(key, fields);
+    }
+
+    @Override
+    public Long hlen(byte[] key) {
+        return shard(key).hlen(key);
+    }
+
+    @Override
+    public Map<byte[], byte[]> hgetAll(byte[] key) {
+        return shard(key).hgetAll(key);
+    }
+
+    @Override
+    public Long sadd(byte[] key, byte[]... members) {
+        return shard(key).sadd(key, members);
+    }
+
+    @Override
+    public Set<byte[]> smembers(byte[] key) {
+        return shard(key).smembers(key);
+    }
+
+    @Override
+    public Long srem(byte[] key, byte[]... members) {
+        return shard(key).srem(key, members);
+    }
+
+    @Override
+    public Long scard(byte[] key) {
+        return shard(key).scard(key);
+    }
+
+    @Override
+    public Set<byte[]> sunion(byte[]... keys) {
+        Map<ByteBuffer, byte[]> union = new LinkedHashMap<>();
+        for (Set<byte[]> members : fanout(group(keys), (shard, indexes) -> shard.sunion(select(keys, indexes))).values()) {
+            for (byte[] member : members) {
+                union.put(ByteBuffer.wrap(member), member);
+            }
+        }
+        return new LinkedHashSet<>(union.values());
+    }
+
+    @Override
+    public Set<byte[]> sdiff(byte[]... keys) {
+        JedisClient shard = sameShard(keys);
+        if (shard != null) {
+            return shard.sdiff(keys);
+        }
+        Map<ByteBuffer, byte[]> diff = new LinkedHashMap<>();
+        for (byte[] member : shard(keys[0]).smembers(keys[0])) {
+            diff.put(ByteBuffer.wrap(member), member);
+        }
+        if (!diff.isEmpty()) {
+            for (byte[] member : sunion(Arrays.copyOfRange(keys, 1, keys.length))) {
+                diff.remove(ByteBuffer.wrap(member));
+            }
+        }
+        return new LinkedHashSet<>(diff.values());
+    }
+
+    @Override
+    public Long sdiffstore(byte[] dstkey, byte[]... keys) {
+        JedisClient shard = shard(dstkey);
+        if (sameShard(keys) == shard) {
+            return shard.sdiffstore(dstkey, keys);
+        }
+        Set<byte[]> diff = sdiff(keys);
+        shard.del(dstkey);
+        if (diff.isEmpty()) {
+            return 0L;
+        }
+        shard.sadd(dstkey, diff.toArray(new byte[diff.size()][]));
+        return (long) diff.size();
+    }
+
+    @Override
+    public Long hincrBy(String key, String field, long value) {
+        return shard(key).hincrBy(key, field, value);
+    }
+
+    @Override
+    public Double incrByFloat(String key, double value) {
+        return shard(key).incrByFloat(key, value);
+    }
+
+    @Override
+    public Double hincrByFloat(String key, String field, double value) {
+        return shard(key).hincrByFloat(key, field, value);
+    }
+
+    @Override
+    public Long zadd(String key, double score, String member) {
+        return shard(key).zadd(key, score, member);
+    }
+
+    @Override
+    public Long zadd(String key, Map<String, Double> scoreMembers) {
+        return shard(key).zadd(key, scoreMembers);
+    }
+
+    @Override
+    public Long zcount(String key, double min, double max) {
+        return shard(key).zcount(key, min, max);
+    }
+
+    @Override
+    public Long zcount(String key, String min, String max) {
+        return shard(key).zcount(key, min, max);
+    }
+
+    @Override
+    public Double zincrby(String key, double score, String member) {
+        return shard(key).zincrby(key, score, member);
+    }
+
+    @Override
+    public Set<String> zrange(String key, long start, long end) {
+        return shard(key).zrange(key, start, end);
+    }
+
+    @Override
+    public Set<String> zrangeByScore(String key, double min, double max) {
+        return shard(key).zrangeByScore(key, min, max);
+    }
+
+    @Override
+    public Set<String> zrangeByScore(String key, String min, String max) {
+        return shard(key).zrangeByScore(key, min, max);
+    }
+
+    @Override
+    public Set<String> zrangeByScore(String key, double min, double max, int offset, int count) {
+        return shard(key).zrangeByScore(key, min, max, offset, count);
+    }
+
+    @Override
+    public Set<String> zrevrange(String key, long start, long end) {
+        return shard(key).zrevrange(key, start, end);
+    }
+
+    @Override
+    public Set<String> zrevrangeByScore(String key, double max, double min) {
+        return shard(key).zrevrangeByScore(key, max, min);
+    }
+
+    @Override
+    public Set<String> zrevrangeByScore(String key, String max, String min) {
+        return shard(key).zrevrangeByScore(key, max, min);
+    }
+
+    @Override
+    public Set<String> zrevrangeByScore(String key, double max, double min, int offset, int count) {
+        return shard(key).zrevrangeByScore(key, max, min, offset, count);
+    }
+
+    @Override
+    public Set<String> zrevrangeByScore(String key, String max, String min, int offset, int count) {
+        return shard(key).zrevrangeByScore(key, max, min, offset, count);
+    }
+
+    @Override
+    public Long zrevrank(String key, String member) {
+        return shard(key).zrevrank(key, member);
+    }
+
+    @Override
+    public Long zrem(String key, String... members) {
+        return shard(key).zrem(key, members);
+    }
+
+    @Override
+    public Long zremrangeByRank(String key, long start, long end) {
+        return shard(key).zremrangeByRank(key, start, end);
+    }
+
+    @Override
+    public Long zremrangeByScore(String key, double start, double end) {
+        return shard(key).zremrangeByScore(key, start, end);
+    }
+
+    @Override
+    public Long zremrangeByScore(String key, String start, String end) {
+        return shard(key).zremrangeByScore(key, start, end);
+    }
+
+    @Override
+    public String setObjectEx(byte[] key, int seconds, Object serializable) {
+        return shard(key).setObjectEx(key, seconds, serializable);
+    }
+
+    @Override
+    public Object getObject(byte[] key) {
+        return shard(key).getObject(key);
+    }
+
+    @Override
+    public Boolean sismember(String key, String object) {
+        return shard(key).sismember(key, object);
+    }
+
+    @Override
+    public Long pexpire(String key, long milliseconds) {
+        return shard(key).pexpire(key, milliseconds);
+    }
+
+    @Override
+    public Boolean ltrim(String listKey, long start, long stop) {
+        return shard(listKey).ltrim(listKey, start, stop);
+    }
+
+    @Override
+    public Set<Tuple> zrevrangeByScoreWithScores(String key, double max, double min, int offset, int count) {
+        return shard(key).zrevrangeByScoreWithScores(key, max, min, offset, count);
+    }
+
+    @Override
+    public Set<Tuple> zrevrangeByScoreWithScores(String key, String max, String min) {
+        return shard(key).zrevrangeByScoreWithScores(key, max, min);
+    }
+
+    @Override
+    public Set<Tuple> zrevrangeByScoreWithScores(String key, String max, String min, int offset, int count) {
+        return shard(key).zrevrangeByScoreWithScores(key, max, min, offset, count);
+    }
+
+    @Override
+    public Long zcard(String key) {
+        return shard(key).zcard(key);
+    }
+
+    @Override
+    public List<String> mget(String... keys) {
+        Map<JedisClient, List<Integer>> groups = group(keys);
+        String[] values = new String[keys.length];
+        for (Map.Entry<JedisClient, List<String>> entry : fanout(groups, (shard, indexes) -> shard.mget(select(keys, indexes))).entrySet()) {
+            List<Integer> indexes = groups.get(entry.getKey());
+            for (int i = 0; i < indexes.size(); i++) {
+                values[indexes.get(i)] = entry.getValue().get(i);
+            }
+        }
+        return new ArrayList<>(Arrays.asList(values));
+    }
+
+    @Override
+    public List<byte[]> mget(byte[]... keys) {
+        Map<JedisClient, List<Integer>> groups = group(keys);
+        byte[][] values = new byte[keys.length][];
+        for (Map.Entry<JedisClient, List<byte[]>> entry : fanout(groups, (shard, indexes) -> shard.mget(select(keys, indexes))).entrySet()) {
+            List<Integer> indexes = groups.get(entry.getKey());
+            for (int i = 0; i < indexes.size(); i++) {
+                values[indexes.get(i)] = entry.getValue().get(i);
+            }
+        }
+        return new ArrayList<>(Arrays.asList(values));
+    }
+
+    @Override
+    public String mset(Map<String, String> keyValues) {
+        if (keyValues == null || keyValues.isEmpty()) {
+            throw new CacheClientException("参数无效");
+        }
+        fanout(group(keyValues), JedisClient::mset);
+        return "OK";
+    }
+
+    @Override
+    public String msetex(Map<String, String> keyValues, int seconds) {
+        if (seconds <= 0 || keyValues == null || keyValues.isEmpty()) {
+            throw new CacheClientException("参数无效");
+        }
+        fanout(group(keyValues), (shard, part) -> shard.msetex(part, seconds));
+        return "OK";
+    }
+
+    /**
+     * 按分片拆分, 每个分片一个pipeline并行执行
+     *
+     * @param batch 批量命令
+     * @return 按添加顺序排列的结果
+     */
+    @Override
+    public List<Object> executeBatch(CacheBatch batch) {
+        if (batch == null || batch.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<BatchCommand<?>> commands = batch.getCommands();
+        Map<JedisClient, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < commands.size(); i++) {
+            groups.computeIfAbsent(ring.get(commands.get(i).routingKey(batch.getKeyMapper())), k -> new ArrayList<>()).add(i);
+        }
+        Object[] results = new Object[commands.size()];
+        Map<JedisClient, List<Object>> shardResults = fanout(groups, (shard, indexes) -> {
+            List<BatchCommand<?>> part = new ArrayList<>(indexes.size());
+            for (Integer index : indexes) {
+                part.add(commands.get(index));
+            }
+            return shard.executeCommands(batch, part);
+        });
+        for (Map.Entry<JedisClient, List<Object>> entry : shardResults.entrySet()) {
+            List<Integer> indexes = groups.get(entry.getKey());
+            for (int i = 0; i < indexes.size(); i++) {
+                results[indexes.get(i)] = entry.getValue().get(i);
+            }
+        }
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    /**
+     * 频道与key一样按哈希落在一个分片, 发布与订阅同一频道时使用同一分片
+     */
+    @Override
+    public Long publish(byte[] channel, byte[] message) {
+        return shard(channel).publish(channel, message);
+    }
+
+    /**
+     * 同时订阅的频道须在同一分片, 可用 {...} 指定计算哈希的部分
+     */
+    @Override
+    public void subscribe(BinaryJedisPubSub jedisPubSub, byte[]... channels) {
+        JedisClient shard = sameShard(channels);
+        if (shard == null) {
+            throw new CacheClientException("订阅的频道不在同一分片");
+        }
+        shard.subscribe(jedisPubSub, channels);
+    }
+
+    @Override
+    public ScanResult<Map.Entry<String, String>> hscan(String key, String cursor, int count) {
+        return shard(key).hscan(key, cursor, count);
+    }
+
+    @Override
+    public ScanResult<String> sscan(String key, String cursor, int count) {
+        return shard(key).sscan(key, cursor, count);
+    }
+
+    @Override
+    public ScanResult<Tuple> zscan(String key, String cursor, int count) {
+        return shard(key).zscan(key, cursor, count);
+    }
+
+    @Override
+    public Stream<Map.Entry<String, String>> hscanStream(String key, int pageSize) {
+        return shard(key).hscanStream(key, pageSize);
+    }
+
+    @Override
+    public Stream<String> sscanStream(String key, int pageSize) {
+        return shard(key).sscanStream(key, pageSize);
+    }
+
+    @Override
+    public Stream<Tuple> zscanStream(String key, int pageSize) {
+        return shard(key).zscanStream(key, pageSize);
+    }
+
+    @Override
+    public Stream<String> lrangeStream(String key, int pageSize) {
+        return shard(key).lrangeStream(key, pageSize);
+    }
+
+    @Override
+    public String getOrLoad(String key, int seconds, CacheLoader<String> loader) {
+        return cacheAside.getOrLoad(this, key, seconds, 0, loader);
+    }
+
+    @Override
+    public String getOrLoad(String key, int seconds, int nullSeconds, CacheLoader<String> loader) {
+        return cacheAside.getOrLoad(this, key, seconds, nullSeconds, loader);
+    }
+
+    @Override
+    public byte[] getOrLoad(byte[] key, int seconds, CacheLoader<byte[]> loader) {
+        return cacheAside.getOrLoad(this, key, seconds, 0, loader);
+    }
+
+    @Override
+    public byte[] getOrLoad(byte[] key, int seconds, int nullSeconds, CacheLoader<byte[]> loader) {
+        return cacheAside.getOrLoad(this, key, seconds, nullSeconds, loader);
+    }
+
+    @Override
+    public <T> T getObjectOrLoad(byte[] key, int seconds, CacheLoader<T> loader) {
+        return cacheAside.getObjectOrLoad(this, key, seconds, 0, loader);
+    }
+
+    @Override
+    public <T> T getObjectOrLoad(byte[] key, int seconds, int nullSeconds, CacheLoader<T> loader) {
+        return cacheAside.getObjectOrLoad(this, key, seconds, nullSeconds, loader);
+    }
+
+    @Override
+    public <T> T get(String key, Codec<T> codec) {
+        return Codecs.decode(codec, get(SafeEncoder.encode(key)));
+    }
+
+    @Override
+    public <T> String setex(String key, int seconds, T value, Codec<T> codec) {
+        return setex(SafeEncoder.encode(key), seconds, Codecs.encode(codec, value));
+    }
+
+    @Override
+    public <T> List<T> mget(Codec<T> codec, String... keys) {
+        return Codecs.decode(codec, mget(SafeEncoder.encodeMany(keys)));
+    }
+
+    @Override
+    public <T> T hget(String key, String field, Codec<T> codec) {
+        return Codecs.decode(codec, hget(SafeEncoder.encode(key), SafeEncoder.encode(field)));
+    }
+
+    @Override
+    public <T> Long hset(String key, String field, T value, Codec<T> codec) {
+        return hset(SafeEncoder.encode(key), SafeEncoder.encode(field), Codecs.encode(codec, value));
+    }
+
+    @Override
+    public <T> Map<String, T> hgetAll(String key, Codec<T> codec) {
+        return Codecs.decode(codec, hgetAll(SafeEncoder.encode(key)));
+    }
+
+    // 所有key在同一分片时返回该分片, 否则返回null
+    /**
+     * 在key所在的分片执行, 所有key须在同一分片, 可用 {...} 指定计算哈希的部分
+     */
+    @Override
+    public Object eval(CacheScript script, String[] keys, String... args) {
+        if (keys == null || keys.length == 0) {
+            throw new CacheClientException("分片模式下lua脚本至少需要一个key");
+        }
+        JedisClient shard = sameShard(keys);
+        if (shard == null) {
+            throw new CacheClientException("lua脚本的key不在同一分片");
+        }
+        return shard.eval(script, keys, args);
+    }
+
+    @Override
+    public Object eval(CacheScript script, byte[][] keys, byte[]... args) {
+        if (keys == null || keys.length == 0) {
+            throw new CacheClientException("分片模式下lua脚本至少需要一个key");
+        }
+        JedisClient shard = sameShard(keys);
+        if (shard == null) {
+            throw new CacheClientException("lua脚本的key不在同一分片");
+        }
+        return shard.eval(script, keys, args);
+    }
+
+    @Override
+    public String scriptLoad(CacheScript script) {
+        for (JedisClient shard : shards) {
+            shard.scriptLoad(script);
+        }
+        return script.getSha1();
+    }
+
+    private JedisClient sameShard(String... keys) {
+        JedisClient shard = shard(keys[0]);
+        for (int i = 1; i < keys.length; i++) {
+            if (shard(keys[i]) != shard) {
+                return null;
+            }
+        }
+        return shard;
+    }
+
+    private JedisClient sameShard(byte[]... keys) {
+        JedisClient shard = shard(keys[0]);
+        for (int i = 1; i < keys.length; i++) {
+            if (shard(keys[i]) != shard) {
+                return null;
+            }
+        }
+        return shard;
+    }
+
+    // 按分片分组key的下标
+    private Map<JedisClient, List<Integer>> group(String[] keys) {
+        Map<JedisClient, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            groups.computeIfAbsent(shard(keys[i]), k -> new ArrayList<>()).add(i);
+        }
+        return groups;
+    }
+
+    private Map<JedisClient, List<Integer>> group(byte[][] keys) {
+        Map<JedisClient, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < keys.length; i++) {
+            groups.computeIfAbsent(shard(keys[i]), k -> new ArrayList<>()).add(i);
+        }
+        return groups;
+    }
+
+    private Map<JedisClient, Map<String, String>> group(Map<String, String> keyValues) {
+        Map<JedisClient, Map<String, String>> groups = new LinkedHashMap<>();
+        for (Map.Entry<String, String> entry : keyValues.entrySet()) {
+            groups.computeIfAbsent(shard(entry.getKey()), k -> new LinkedHashMap<>()).put(entry.getKey(), entry.getValue());
+        }
+        return groups;
+    }
+
+    private static String[] select(String[] keys, List<Integer> indexes) {
+        String[] selected = new String[indexes.size()];
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = keys[indexes.get(i)];
+        }
+        return selected;
+    }
+
+    private static byte[][] select(byte[][] keys, List<Integer> indexes) {
+        byte[][] selected = new byte[indexes.size()][];
+        for (int i = 0; i < selected.length; i++) {
+            selected[i] = keys[indexes.get(i)];
+        }
+        return selected;
+    }
+
+    /**
+     * 各分片并行执行, 只涉及一个分片时在调用线程执行
+     *
+     * @param groups 每个分片的参数
+     * @param call   在一个分片上执行
+     * @return 各分片的结果
+     */
+    private <G, R> Map<JedisClient, R> fanout(Map<JedisClient, G> groups, BiFunction<JedisClient, G, R> call) {
+        Map<JedisClient, R> results = new LinkedHashMap<>();
+        if (groups.size() == 1) {
+            Map.Entry<JedisClient, G> entry = groups.entrySet().iterator().next();
+            results.put(entry.getKey(), call.apply(entry.getKey(), entry.getValue()));
+            return results;
+        }
+        Map<JedisClient, Future<R>> futures = new LinkedHashMap<>();
+        for (Map.Entry<JedisClient, G> entry : groups.entrySet()) {
+            futures.put(entry.getKey(), fanoutExecutor.submit(() -> call.apply(entry.getKey(), entry.getValue())));
+        }
+        for (Map.Entry<JedisClient, Future<R>> entry : futures.entrySet()) {
+            results.put(entry.getKey(), await(entry.getValue()));
+        }
+        return results;
+    }
+
+    private static <R> R await(Future<R> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheClientException("等待分片结果被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CacheClientException("分片执行失败", cause);
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.paas.cache.limit;
+
+import com.paas.cache.ICacheClient;
+import com.paas.cache.exception.CacheClientException;
+import com.paas.cache.script.CacheScript;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基于redis的分布式限流, 每次判断由一个lua脚本原子完成, 一次往返。
+ * <p>
+ * 默认每次请求都访问redis。开启本地预分配后, 向redis一次申请 block 个许可保存在本地, holdMillis 内的请求先消耗本地许可,
+ * 本地不足时再访问redis; 过期未用完的许可不归还, 视为已使用, block 应远小于限额。
+ * bucket 即redis中的key, 通过 ClientProxy 时添加业务后缀; 时间以客户端时钟为准, 各客户端时钟应同步
+ */
+public abstract class RateLimiter {
+
+    private static final int MAX_LOCAL_BUCKETS = 10000;
+
+    private final ICacheClient client;
+    private final CacheScript script;
+    private volatile int block = 1;
+    private volatile long holdMillis;
+    private final ConcurrentHashMap<String, LocalPermits> locals = new ConcurrentHashMap<>();
+
+    protected RateLimiter(ICacheClient client, CacheScript script) {
+        this.client = client;
+        this.script = script;
+    }
+
+    /**
+     * 开启本地预分配
+     *
+     * @param block      每次向redis申请的许可数, 小于等于1时关闭
+     * @param holdMillis 本地许可的有效期(毫秒)
+     */
+    public void setLocalLease(int block, long holdMillis) {
+        this.block = Math.max(1, block);
+        this.holdMillis = holdMillis;
+        locals.clear();
+    }
+
+    /**
+     * 尝试获取许可, 不等待
+     *
+     * @param bucket  限流的key
+     * @param permits 许可数
+     * @return 是否获得许可
+     */
+    public boolean tryAcquire(String bucket, int permits) {
+        if (permits <= 0) {
+            throw new CacheClientException("参数无效");
+        }
+        int lease = block;
+        if (lease <= 1 || holdMillis <= 0) {
+            return acquire(bucket, permits, permits) > 0;
+        }
+        LocalPermits local = locals.get(bucket);
+        if (local != null && local.take(permits)) {
+            return true;
+        }
+        long granted = acquire(bucket, permits, Math.max(lease, permits));
+        if (granted <= 0) {
+            return false;
+        }
+        if (granted > permits) {
+            purge();
+            locals.put(bucket, new LocalPermits(granted - permits, System.currentTimeMillis() + holdMillis));
+        }
+        return true;
+    }
+
+    public boolean tryAcquire(String bucket) {
+        return tryAcquire(bucket, 1);
+    }
+
+    /**
+     * 当前保存本地许可的bucket数量
+     */
+    public int getLocalBucketCount() {
+        return locals.size();
+    }
+
+    /**
+     * 在redis中申请许可
+     *
+     * @param need 至少需要的许可数, 不足时不扣减
+     * @param want 希望申请的许可数
+     * @return 获得的许可数, 0表示不足
+     */
+    private long acquire(String bucket, int need, int want) {
+        Object granted = client.eval(script, new String[]{bucket}, args(System.currentTimeMillis(), need, want));
+        return granted instanceof Long ? (Long) granted : 0;
+    }
+
+    /**
+     * 脚本的 ARGV
+     */
+    protected abstract String[] args(long now, int need, int want);
+
+    // bucket 较多时移除已过期的本地许可
+    private void purge() {
+        if (locals.size() < MAX_LOCAL_BUCKETS) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Iterator<Map.Entry<String, LocalPermits>> it = locals.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getValue().expireAt <= now) {
+                it.remove();
+            }
+        }
+    }
+
+    private static final class LocalPermits {
+        private final long expireAt;
+        private long remaining;
+
+        LocalPermits(long remaining, long expireAt) {
+            this.remaining = remaining;
+            this.expireAt = expireAt;
+        }
+
+        synchronized boolean take(int permits) {
+            if (remaining < permits || expireAt <= System.currentTimeMillis()) {
+                return false;
+            }
+            remaining -= permits;
+            return true;
+        }
+    }
+}
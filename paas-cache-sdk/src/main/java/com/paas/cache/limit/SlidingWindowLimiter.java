@@ -0,0 +1,76 @@
+package com.paas.cache.limit;
+
+import com.paas.cache.ICacheClient;
+import com.paas.cache.exception.CacheClientException;
+import com.paas.cache.script.CacheScript;
+
+import java.util.UUID;
+
+/**
+ * 滑动窗口限流, 任意 windowMillis 时间内获得的许可不超过 limit。
+ * <p>
+ * 每个bucket为一个有序集合, 每次成功申请记录一个成员, 分数为申请时间, 成员以"许可数:随机标识"记录许可数;
+ * 窗口内的许可总数记录在成员 total 中, 分数为总数的相反数, 不会落在时间范围内。
+ * 申请时只读取窗口外的成员, 从总数中减去后删除, 每个成员只被读取一次, 不随窗口内成员数增长。
+ * 没有 total 的旧bucket首次申请时累计一次全部成员。开启本地预分配时一次申请记录一个成员, 成员数量按申请次数而非许可数增长
+ */
+public class SlidingWindowLimiter extends RateLimiter {
+
+    private static final CacheScript ACQUIRE = CacheScript.of("slidingWindow",
+            "local now = tonumber(ARGV[1]) "
+                    + "local window = tonumber(ARGV[2]) "
+                    + "local used = redis.call('zscore', KEYS[1], 'total') "
+                    + "if used then "
+                    + "used = -tonumber(used) "
+                    + "else "
+                    + "used = 0 "
+                    + "for _, member in ipairs(redis.call('zrangebyscore', KEYS[1], '(0', '+inf')) do "
+                    + "used = used + tonumber(string.match(member, '^(%d+):')) "
+                    + "end "
+                    + "end "
+                    + "for _, member in ipairs(redis.call('zrangebyscore', KEYS[1], '(0', now - window)) do "
+                    + "used = used - tonumber(string.match(member, '^(%d+):')) "
+                    + "end "
+                    + "redis.call('zremrangebyscore', KEYS[1], '(0', now - window) "
+                    + "local available = tonumber(ARGV[3]) - used "
+                    + "local granted = 0 "
+                    + "if available >= tonumber(ARGV[4]) then "
+                    + "granted = math.min(available, tonumber(ARGV[5])) "
+                    + "redis.call('zadd', KEYS[1], now, granted .. ':' .. ARGV[6]) "
+                    + "used = used + granted "
+                    + "end "
+                    + "redis.call('zadd', KEYS[1], 0 - used, 'total') "
+                    + "redis.call('pexpire', KEYS[1], window) "
+                    + "return granted");
+
+    private final long limit;
+    private final long windowMillis;
+
+    /**
+     * @param client       缓存客户端, 需支持lua脚本
+     * @param limit        窗口内的许可数
+     * @param windowMillis 窗口长度(毫秒)
+     */
+    public SlidingWindowLimiter(ICacheClient client, long limit, long windowMillis) {
+        super(client, ACQUIRE);
+        if (limit <= 0 || windowMillis <= 0) {
+            throw new CacheClientException("参数无效");
+        }
+        this.limit = limit;
+        this.windowMillis = windowMillis;
+    }
+
+    @Override
+    protected String[] args(long now, int need, int want) {
+        return new String[]{String.valueOf(now), String.valueOf(windowMillis), String.valueOf(limit),
+                String.valueOf(need), String.valueOf(want), UUID.randomUUID().toString()};
+    }
+
+    public long getLimit() {
+        return limit;
+    }
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+}
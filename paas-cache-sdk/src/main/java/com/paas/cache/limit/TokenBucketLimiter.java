@@ -0,0 +1,62 @@
+package com.paas.cache.limit;
+
+import com.paas.cache.ICacheClient;
+import com.paas.cache.exception.CacheClientException;
+import com.paas.cache.script.CacheScript;
+
+/**
+ * 令牌桶限流, 桶容量为 capacity, 每秒补充 permitsPerSecond 个令牌, 允许不超过容量的突发。
+ * <p>
+ * 每个bucket为一个hash, 保存剩余令牌数(可为小数)和上次补充时间, 申请时按经过的时间补充后扣减;
+ * 桶满后无需保存, key在补满所需时间后过期
+ */
+public class TokenBucketLimiter extends RateLimiter {
+
+    private static final CacheScript ACQUIRE = CacheScript.of("tokenBucket",
+            "local now = tonumber(ARGV[1]) "
+                    + "local capacity = tonumber(ARGV[2]) "
+                    + "local rate = tonumber(ARGV[3]) "
+                    + "local state = redis.call('hmget', KEYS[1], 'tokens', 'ts') "
+                    + "local tokens = tonumber(state[1]) or capacity "
+                    + "local ts = tonumber(state[2]) or now "
+                    + "if now > ts then tokens = math.min(capacity, tokens + (now - ts) * rate) ts = now end "
+                    + "local granted = 0 "
+                    + "if tokens >= tonumber(ARGV[4]) then "
+                    + "granted = math.min(math.floor(tokens), tonumber(ARGV[5])) "
+                    + "tokens = tokens - granted "
+                    + "end "
+                    + "redis.call('hmset', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(ts)) "
+                    + "redis.call('pexpire', KEYS[1], math.ceil((capacity - tokens) / rate) + 1000) "
+                    + "return granted");
+
+    private final long capacity;
+    private final double permitsPerSecond;
+
+    /**
+     * @param client           缓存客户端, 需支持lua脚本
+     * @param capacity         桶容量, 即最大突发许可数
+     * @param permitsPerSecond 每秒补充的许可数
+     */
+    public TokenBucketLimiter(ICacheClient client, long capacity, double permitsPerSecond) {
+        super(client, ACQUIRE);
+        if (capacity <= 0 || permitsPerSecond <= 0) {
+            throw new CacheClientException("参数无效");
+        }
+        this.capacity = capacity;
+        this.permitsPerSecond = permitsPerSecond;
+    }
+
+    @Override
+    protected String[] args(long now, int need, int want) {
+        return new String[]{String.valueOf(now), String.valueOf(capacity), String.valueOf(permitsPerSecond / 1000),
+                String.valueOf(need), String.valueOf(want)};
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+}
@@ -0,0 +1,181 @@
+package com.paas.cache.load;
+
+import com.paas.cache.ICacheClient;
+import com.paas.cache.codec.NullValue;
+import com.paas.cache.exception.CacheClientException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.function.Supplier;
+
+/**
+ * getOrLoad 的实现: 先读缓存, 未命中时同一个key只有一个线程执行加载并写回缓存, 其它线程等待同一结果。
+ * 加载前在单飞内再读一次缓存, 未命中后才进入单飞的调用方不会在上一次加载写回后重复加载。
+ * <p>
+ * 读写均通过传入的客户端, 因此经过代理时使用代理的key后缀及耗时统计。
+ * 缓存读写失败只记录日志, 按未命中处理, 不影响加载结果。
+ * 空结果缓存时写入4字节标记 00 'P' 'N' 00 (与压缩/分块头同一格式, 不与单个0字节等普通值混淆), 读取到该值时返回null。
+ * 设置 RefreshAhead 后, 命中的key临近过期时由后台线程重新加载, 此时 loader 在刷新线程中执行
+ */
+public class CacheAside {
+    protected static Logger log = LoggerFactory.getLogger(CacheAside.class);
+
+    /**
+     * 缓存的空结果
+     */
+    public static final String NULL_STRING = "\u0000PN\u0000";
+    private static final byte[] NULL_BYTES = {0x00, 'P', 'N', 0x00};
+
+    private final SingleFlight<String, String> strings = new SingleFlight<>();
+    private final SingleFlight<ByteBuffer, byte[]> binaries = new SingleFlight<>();
+    private final SingleFlight<ByteBuffer, Object> objects = new SingleFlight<>();
+    private volatile RefreshAhead refresh;
+
+    /**
+     * 设置提前刷新, null表示关闭, 返回原来的设置
+     */
+    public RefreshAhead setRefresh(RefreshAhead refresh) {
+        RefreshAhead old = this.refresh;
+        this.refresh = refresh;
+        return old;
+    }
+
+    public RefreshAhead getRefresh() {
+        return refresh;
+    }
+
+    public String getOrLoad(ICacheClient client, String key, int seconds, int nullSeconds, CacheLoader<String> loader) {
+        check(key, seconds, loader);
+        String cached = read(() -> client.get(key));
+        if (cached != null) {
+            if (NULL_STRING.equals(cached)) {
+                return null;
+            }
+            refreshIfDue(key, () -> client.ttl(key), () -> strings.execute(key, () -> load(client, key, seconds, nullSeconds, loader)));
+            return cached;
+        }
+        return strings.execute(key, () -> {
+            String again = read(() -> client.get(key));
+            if (again != null) {
+                return NULL_STRING.equals(again) ? null : again;
+            }
+            return load(client, key, seconds, nullSeconds, loader);
+        });
+    }
+
+    public byte[] getOrLoad(ICacheClient client, byte[] key, int seconds, int nullSeconds, CacheLoader<byte[]> loader) {
+        check(key, seconds, loader);
+        byte[] cached = read(() -> client.get(key));
+        ByteBuffer flightKey = ByteBuffer.wrap(key);
+        if (cached != null) {
+            if (Arrays.equals(NULL_BYTES, cached)) {
+                return null;
+            }
+            refreshIfDue(flightKey, () -> client.ttl(key), () -> binaries.execute(flightKey, () -> load(client, key, seconds, nullSeconds, loader)));
+            return cached;
+        }
+        return binaries.execute(flightKey, () -> {
+            byte[] again = read(() -> client.get(key));
+            if (again != null) {
+                return Arrays.equals(NULL_BYTES, again) ? null : again;
+            }
+            return load(client, key, seconds, nullSeconds, loader);
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T getObjectOrLoad(ICacheClient client, byte[] key, int seconds, int nullSeconds, CacheLoader<T> loader) {
+        check(key, seconds, loader);
+        Object cached = read(() -> client.getObject(key));
+        ByteBuffer flightKey = ByteBuffer.wrap(key);
+        if (cached != null) {
+            if (cached instanceof NullValue) {
+                return null;
+            }
+            refreshIfDue(flightKey, () -> client.ttl(key), () -> objects.execute(flightKey, () -> loadObject(client, key, seconds, nullSeconds, loader)));
+            return (T) cached;
+        }
+        return (T) objects.execute(flightKey, () -> {
+            Object again = read(() -> client.getObject(key));
+            if (again != null) {
+                return again instanceof NullValue ? null : again;
+            }
+            return loadObject(client, key, seconds, nullSeconds, loader);
+        });
+    }
+
+    private String load(ICacheClient client, String key, int seconds, int nullSeconds, CacheLoader<String> loader) throws Exception {
+        long begin = System.currentTimeMillis();
+        String value = loader.load();
+        if (value != null) {
+            write(() -> client.setex(key, seconds, value));
+            loaded(key, seconds, begin);
+        } else if (nullSeconds > 0) {
+            write(() -> client.setex(key, nullSeconds, NULL_STRING));
+        }
+        return value;
+    }
+
+    private byte[] load(ICacheClient client, byte[] key, int seconds, int nullSeconds, CacheLoader<byte[]> loader) throws Exception {
+        long begin = System.currentTimeMillis();
+        byte[] value = loader.load();
+        if (value != null) {
+            write(() -> client.setex(key, seconds, value));
+            loaded(ByteBuffer.wrap(key), seconds, begin);
+        } else if (nullSeconds > 0) {
+            write(() -> client.setex(key, nullSeconds, NULL_BYTES));
+        }
+        return value;
+    }
+
+    private <T> T loadObject(ICacheClient client, byte[] key, int seconds, int nullSeconds, CacheLoader<T> loader) throws Exception {
+        long begin = System.currentTimeMillis();
+        T value = loader.load();
+        if (value != null) {
+            write(() -> client.setObjectEx(key, seconds, value));
+            loaded(ByteBuffer.wrap(key), seconds, begin);
+        } else if (nullSeconds > 0) {
+            write(() -> client.setObjectEx(key, nullSeconds, NullValue.INSTANCE));
+        }
+        return value;
+    }
+
+    private void loaded(Object key, int seconds, long begin) {
+        RefreshAhead current = refresh;
+        if (current != null) {
+            current.loaded(key, seconds, System.currentTimeMillis() - begin);
+        }
+    }
+
+    private void refreshIfDue(Object key, Supplier<Long> ttl, Runnable reload) {
+        RefreshAhead current = refresh;
+        if (current != null && current.isDue(key, ttl)) {
+            current.submit(key, reload);
+        }
+    }
+
+    private static void check(Object key, int seconds, CacheLoader<?> loader) {
+        if (key == null || seconds <= 0 || loader == null) {
+            throw new CacheClientException("参数无效");
+        }
+    }
+
+    private static <V> V read(Supplier<V> reader) {
+        try {
+            return reader.get();
+        } catch (RuntimeException e) {
+            log.warn(" ---> getOrLoad read cache fail, load from source. cause: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static void write(Supplier<?> writer) {
+        try {
+            writer.get();
+        } catch (RuntimeException e) {
+            log.warn(" ---> getOrLoad write cache fail. cause: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.paas.cache.load;
+
+/**
+ * 缓存未命中时从数据源加载数据
+ */
+public interface CacheLoader<T> {
+
+    /**
+     * @return 加载结果, 为null表示数据不存在
+     */
+    T load() throws Exception;
+}
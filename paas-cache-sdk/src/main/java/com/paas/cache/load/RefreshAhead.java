@@ -0,0 +1,205 @@
+package com.paas.cache.load;
+
+import com.paas.cache.jedis.JedisConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * getOrLoad 命中时的提前刷新: 剩余有效期进入刷新窗口, 或按 XFetch 以加载耗时为尺度随机提前时,
+ * 在有界线程池中重新加载并写回, 调用方直接返回当前值。
+ * <p>
+ * 过期时间记录在本地: 本实例加载时记录过期时间及加载耗时, 其它实例写入的key首次命中时读取一次 ttl。
+ * 判断需要刷新时再读取一次 ttl 确认, 避免重复刷新已被其它实例刷新过的key;
+ * 同一个key每秒最多确认一次, 正在刷新的key不再确认, 刷新失败后也要等到下次确认时才重试。
+ * 同一个key同时只提交一个刷新任务, 队列满时放弃本次刷新。
+ * 记录数达到 maxKeys 时抽样淘汰: 先删除已过期的, 否则淘汰样本中最早过期的, 新key总能记录, 不会每次命中都读取 ttl
+ */
+public class RefreshAhead {
+    protected static Logger log = LoggerFactory.getLogger(RefreshAhead.class);
+
+    private static final Stamp MISSING = new Stamp(0L, 0L, 0L);
+    private static final int EVICTION_SAMPLES = 16;
+    private static final long CONFIRM_INTERVAL_MILLIS = 1000L;
+
+    private final long windowMillis;
+    private final double beta;
+    private final int maxKeys;
+    private final ThreadPoolExecutor executor;
+    private final ConcurrentHashMap<Object, Stamp> stamps = new ConcurrentHashMap<>();
+    private final Set<Object> refreshing = ConcurrentHashMap.newKeySet();
+
+    public RefreshAhead(JedisConfig.RefreshConfig config, String name) {
+        this.windowMillis = Math.max(0, config.getWindow()) * 1000L;
+        this.beta = Math.max(0d, config.getBeta());
+        this.maxKeys = config.getMaxKeys();
+        final AtomicInteger index = new AtomicInteger();
+        final String prefix = "paas-cache-refresh-" + name + "-";
+        this.executor = new ThreadPoolExecutor(config.getThreads(), config.getThreads(), 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(config.getQueueSize()), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, prefix + index.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * 记录一次加载写回的过期时间及加载耗时
+     */
+    void loaded(Object key, int seconds, long loadMillis) {
+        long now = System.currentTimeMillis();
+        put(key, new Stamp(now + seconds * 1000L, loadMillis, now), now);
+    }
+
+    /**
+     * 命中时判断是否需要刷新, ttl 用于读取key的剩余秒数
+     */
+    boolean isDue(Object key, Supplier<Long> ttl) {
+        if (refreshing.contains(key)) {
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        Stamp stamp = stamps.get(key);
+        boolean confirmed = false;
+        if (stamp == null) {
+            stamp = fetch(key, ttl, 0L, now);
+            confirmed = true;
+        }
+        if (stamp == MISSING || !stamp.isDue(now, windowMillis, beta)) {
+            return false;
+        }
+        if (!confirmed) {
+            if (now - stamp.checkedAt < CONFIRM_INTERVAL_MILLIS) {
+                return false;
+            }
+            stamp = fetch(key, ttl, stamp.loadMillis, now);
+        }
+        return stamp != MISSING && stamp.isDue(now, windowMillis, beta);
+    }
+
+    /**
+     * 提交刷新任务, 该key已在刷新或队列已满时忽略
+     */
+    void submit(final Object key, final Runnable task) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    log.warn(" ---> refresh ahead fail, keep current value. key: {}, cause: {}", key, e.getMessage());
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshing.remove(key);
+            log.debug(" ---> refresh ahead queue full, skip. key: {}", key);
+        }
+    }
+
+    /**
+     * 本地记录过期时间的key数量
+     */
+    public int size() {
+        return stamps.size();
+    }
+
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private Stamp fetch(Object key, Supplier<Long> ttl, long loadMillis, long now) {
+        Long seconds;
+        try {
+            seconds = ttl.get();
+        } catch (RuntimeException e) {
+            log.warn(" ---> refresh ahead read ttl fail. cause: {}", e.getMessage());
+            // 读取失败也计入确认时间, 避免每次命中都重试
+            Stamp old = stamps.get(key);
+            if (old != null) {
+                stamps.replace(key, old, new Stamp(old.expireAt, old.loadMillis, now));
+            }
+            return MISSING;
+        }
+        if (seconds == null || seconds == -2L) {
+            stamps.remove(key);
+            return MISSING;
+        }
+        // 未设置有效期的key不刷新
+        Stamp stamp = new Stamp(seconds < 0 ? Long.MAX_VALUE : now + seconds * 1000L, loadMillis, now);
+        put(key, stamp, now);
+        return stamp;
+    }
+
+    private void put(Object key, Stamp stamp, long now) {
+        if (stamps.size() >= maxKeys && !stamps.containsKey(key)) {
+            evict(now);
+        }
+        stamps.put(key, stamp);
+    }
+
+    // 抽样删除已过期的记录, 没有过期的则淘汰样本中最早过期的一个
+    private void evict(long now) {
+        Iterator<Map.Entry<Object, Stamp>> it = stamps.entrySet().iterator();
+        Map.Entry<Object, Stamp> soonest = null;
+        boolean removed = false;
+        for (int i = 0; i < EVICTION_SAMPLES && it.hasNext(); i++) {
+            Map.Entry<Object, Stamp> entry = it.next();
+            if (entry.getValue().expireAt <= now) {
+                it.remove();
+                removed = true;
+            } else if (soonest == null || entry.getValue().expireAt < soonest.getValue().expireAt) {
+                soonest = entry;
+            }
+        }
+        if (!removed && soonest != null) {
+            stamps.remove(soonest.getKey(), soonest.getValue());
+        }
+    }
+
+    private static final class Stamp {
+        final long expireAt;
+        final long loadMillis;
+        // 最近一次写入或读取 ttl 的时间
+        final long checkedAt;
+
+        Stamp(long expireAt, long loadMillis, long checkedAt) {
+            this.expireAt = expireAt;
+            this.loadMillis = loadMillis;
+            this.checkedAt = checkedAt;
+        }
+
+        /**
+         * 进入刷新窗口, 或 XFetch: now - loadMillis * beta * ln(rand) >= expireAt
+         */
+        boolean isDue(long now, long windowMillis, double beta) {
+            if (expireAt - now <= windowMillis) {
+                return true;
+            }
+            if (beta <= 0 || loadMillis <= 0) {
+                return false;
+            }
+            double gap = -loadMillis * beta * Math.log(ThreadLocalRandom.current().nextDouble());
+            return now + gap >= expireAt;
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.paas.cache.load;
+
+import com.paas.cache.exception.CacheClientException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * 同一个key同时只执行一次加载, 并发的其它调用等待同一个结果(或异常)。
+ * 加载结束后立即移除, 不缓存结果
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+    public V execute(K key, CacheLoader<V> loader) {
+        CompletableFuture<V> call = new CompletableFuture<>();
+        CompletableFuture<V> existing = calls.putIfAbsent(key, call);
+        if (existing != null) {
+            return await(existing);
+        }
+        try {
+            V value = loader.load();
+            call.complete(value);
+            return value;
+        } catch (Throwable t) {
+            call.completeExceptionally(t);
+            throw wrap(t);
+        } finally {
+            calls.remove(key, call);
+        }
+    }
+
+    /**
+     * 正在加载的key数量
+     */
+    public int size() {
+        return calls.size();
+    }
+
+    private V await(CompletableFuture<V> call) {
+        try {
+            return call.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CacheClientException("等待加载被中断", e);
+        } catch (ExecutionException e) {
+            throw wrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException wrap(Throwable t) {
+        if (t instanceof RuntimeException) {
+            return (RuntimeException) t;
+        }
+        if (t instanceof Error) {
+            throw (Error) t;
+        }
+        return new CacheClientException("加载失败: " + t.getMessage(), t);
+    }
+}
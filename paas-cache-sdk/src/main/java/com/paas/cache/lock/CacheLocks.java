@@ -0,0 +1,302 @@
+package com.paas.cache.lock;
+
+import com.paas.cache.ICacheClient;
+import com.paas.cache.exception.CacheClientException;
+import com.paas.cache.script.CacheScript;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 基于redis的分布式锁, 适用于缓存数据上的短临界区, 一次加锁或解锁为一次往返。
+ * <p>
+ * 加锁使用 SET NX PX, value为每次加锁生成的随机标识; 解锁和续期通过lua脚本先比较标识, 不会误删其它进程的锁。
+ * 加锁时锁的值已是本次标识视为成功, 连接异常后用同一标识重试不会把自己挡在外面。
+ * 同一线程对同一个key可重入, 本地记录的租期足够时只在本地计数, 否则在redis中续期, 锁已过期则重新加锁;
+ * 计数归零时才删除redis中的锁。持有记录按线程保存, 锁过期后被同进程其它线程获得时互不覆盖。
+ * 租期小于等于0时由看门狗线程每隔 watchdogLease/3 续期为 watchdogLease, 直到解锁; 进程退出后锁在租期内自动过期。
+ * <p>
+ * 锁的key与其它缓存key相同, 通过 ClientProxy 时添加业务后缀。redis主从切换时可能丢失锁, 不适用于强一致的互斥
+ */
+public class CacheLocks {
+    protected static Logger log = LoggerFactory.getLogger(CacheLocks.class);
+
+    /**
+     * 看门狗默认租期(毫秒)
+     */
+    public static final long DEFAULT_WATCHDOG_LEASE = 30000;
+
+    private static final long MIN_RETRY_INTERVAL = 2;
+    private static final long MAX_RETRY_INTERVAL = 100;
+    private static final AtomicInteger WATCHDOG_SEQUENCE = new AtomicInteger();
+
+    // 成功返回nil, 失败返回锁的剩余毫秒数; 已被同一标识持有时(重试)续期并视为成功
+    private static final CacheScript LOCK = CacheScript.of("lock",
+            "local v = redis.call('get', KEYS[1]) "
+                    + "if v == ARGV[1] then redis.call('pexpire', KEYS[1], ARGV[2]) return nil end "
+                    + "if v then return redis.call('pttl', KEYS[1]) end "
+                    + "redis.call('set', KEYS[1], ARGV[1], 'PX', ARGV[2]) return nil");
+    private static final CacheScript UNLOCK = CacheScript.of("unlock",
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) end return 0");
+    private static final CacheScript RENEW = CacheScript.of("renew",
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('pexpire', KEYS[1], ARGV[2]) end return 0");
+
+    private final ICacheClient client;
+    private final long watchdogLease;
+    private final ThreadLocal<Map<String, Holder>> held = ThreadLocal.withInitial(HashMap::new);
+    private final Set<Holder> watched = ConcurrentHashMap.newKeySet();
+    private volatile ScheduledExecutorService watchdog;
+    private volatile boolean shutdown;
+
+    public CacheLocks(ICacheClient client) {
+        this(client, DEFAULT_WATCHDOG_LEASE);
+    }
+
+    /**
+     * @param client        缓存客户端, 需支持lua脚本
+     * @param watchdogLease 看门狗续期的租期(毫秒)
+     */
+    public CacheLocks(ICacheClient client, long watchdogLease) {
+        if (watchdogLease < 3) {
+            throw new CacheClientException("看门狗租期过小: " + watchdogLease);
+        }
+        this.client = client;
+        this.watchdogLease = watchdogLease;
+    }
+
+    /**
+     * 尝试加锁, 锁被其它线程或进程持有时等待至多 waitMillis 毫秒
+     *
+     * @param key         锁的key
+     * @param leaseMillis 租期(毫秒), 到期自动释放; 小于等于0时由看门狗续期直到解锁
+     * @param waitMillis  最长等待时间(毫秒), 小于等于0时只尝试一次
+     * @return 是否获得锁
+     */
+    public boolean tryLock(String key, long leaseMillis, long waitMillis) {
+        Map<String, Holder> holders = held.get();
+        Holder previous = holders.get(key);
+        if (previous != null && !previous.lost && reenter(previous, leaseMillis)) {
+            previous.count++;
+            return true;
+        }
+        boolean renew = leaseMillis <= 0;
+        long lease = renew ? watchdogLease : leaseMillis;
+        String token = UUID.randomUUID().toString();
+        String[] keys = {key};
+        String leaseArg = String.valueOf(lease);
+        long deadline = System.currentTimeMillis() + Math.max(0, waitMillis);
+        long interval = MIN_RETRY_INTERVAL;
+        while (true) {
+            long start = System.currentTimeMillis();
+            Object ttl;
+            try {
+                ttl = client.eval(LOCK, keys, token, leaseArg);
+            } catch (RuntimeException e) {
+                // 命令可能已执行, 等待时间内用同一标识重试
+                if (start >= deadline) {
+                    throw e;
+                }
+                log.warn(" ---> lock {} fail, retry: {}", key, e.getMessage());
+                ttl = -1L;
+            }
+            if (ttl == null) {
+                Holder holder = new Holder(key, token, start + lease);
+                // 已过期的锁重新获得时保留重入计数, 外层解锁时释放新锁
+                if (previous != null) {
+                    holder.count += previous.count;
+                }
+                holders.put(key, holder);
+                if (renew) {
+                    watch(holder);
+                }
+                return true;
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                return false;
+            }
+            // 锁即将过期时按剩余时间等待, 否则随机退避, 避免等待者同时重试
+            long pttl = ttl instanceof Long ? (Long) ttl : -1;
+            long sleep = ThreadLocalRandom.current().nextLong(MIN_RETRY_INTERVAL, interval + 1);
+            if (pttl >= 0) {
+                sleep = Math.min(sleep, pttl + 1);
+            }
+            interval = Math.min(MAX_RETRY_INTERVAL, interval * 2);
+            try {
+                Thread.sleep(Math.min(sleep, remaining));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CacheClientException("等待锁被中断: " + key, e);
+            }
+        }
+    }
+
+    /**
+     * 只尝试一次, 由看门狗续期
+     */
+    public boolean tryLock(String key) {
+        return tryLock(key, 0, 0);
+    }
+
+    /**
+     * 解锁, 重入时计数减一, 计数归零时删除redis中的锁
+     *
+     * @param key 锁的key
+     * @throws CacheClientException 当前线程未持有锁
+     */
+    public void unlock(String key) {
+        Map<String, Holder> holders = held.get();
+        Holder holder = holders.get(key);
+        if (holder == null) {
+            throw new CacheClientException("当前线程未持有锁: " + key);
+        }
+        if (--holder.count > 0) {
+            return;
+        }
+        holders.remove(key);
+        watched.remove(holder);
+        Object deleted = client.eval(UNLOCK, new String[]{key}, holder.token);
+        if (!Long.valueOf(1L).equals(deleted)) {
+            log.warn(" ---> lock {} expired before unlock, it may be held by others.", key);
+        }
+    }
+
+    /**
+     * 当前线程是否持有锁, 只检查本地状态; 租期已过或看门狗续期失败后返回false
+     */
+    public boolean isHeldByCurrentThread(String key) {
+        Holder holder = held.get().get(key);
+        return holder != null && !holder.lost && System.currentTimeMillis() < holder.expireAt;
+    }
+
+    /**
+     * 当前线程对该锁的重入次数, 未持有时为0
+     */
+    public int getHoldCount(String key) {
+        Holder holder = held.get().get(key);
+        return holder != null ? holder.count : 0;
+    }
+
+    /**
+     * 由看门狗续期的锁数量
+     */
+    public int getWatchedCount() {
+        return watched.size();
+    }
+
+    /**
+     * 停止看门狗, 未解锁的锁在租期后过期
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        watched.clear();
+        if (watchdog != null) {
+            watchdog.shutdown();
+            watchdog = null;
+        }
+    }
+
+    /**
+     * 重入前确认锁仍有效: 本地记录的租期覆盖本次租期时不访问redis, 否则续期; 续期失败说明锁已过期
+     */
+    private boolean reenter(Holder holder, long leaseMillis) {
+        boolean renew = leaseMillis <= 0;
+        if (renew && watched.contains(holder)) {
+            return true;
+        }
+        long lease = renew ? watchdogLease : leaseMillis;
+        long now = System.currentTimeMillis();
+        if (!renew && now + lease <= holder.expireAt) {
+            return true;
+        }
+        Object renewed = client.eval(RENEW, new String[]{holder.key}, holder.token, String.valueOf(lease));
+        if (!Long.valueOf(1L).equals(renewed)) {
+            holder.lost = true;
+            watched.remove(holder);
+            log.warn(" ---> lock {} expired before reentry, lock again.", holder.key);
+            return false;
+        }
+        holder.expireAt = now + lease;
+        if (renew) {
+            watch(holder);
+        }
+        return true;
+    }
+
+    private void watch(Holder holder) {
+        watched.add(holder);
+        if (watchdog == null) {
+            startWatchdog();
+        }
+    }
+
+    private synchronized void startWatchdog() {
+        if (watchdog != null || shutdown) {
+            return;
+        }
+        watchdog = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "paas-cache-lock-watchdog-" + WATCHDOG_SEQUENCE.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        long interval = watchdogLease / 3;
+        watchdog.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                renewAll();
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private void renewAll() {
+        String lease = String.valueOf(watchdogLease);
+        for (Holder holder : watched) {
+            try {
+                long now = System.currentTimeMillis();
+                Object renewed = client.eval(RENEW, new String[]{holder.key}, holder.token, lease);
+                if (!Long.valueOf(1L).equals(renewed)) {
+                    // 已解锁的锁在此期间也可能被删除, 只处理仍在续期的
+                    if (watched.remove(holder)) {
+                        holder.lost = true;
+                        log.warn(" ---> lock {} lost before renewal, stop renewing.", holder.key);
+                    }
+                } else {
+                    holder.expireAt = now + watchdogLease;
+                }
+            } catch (Exception e) {
+                // 连接异常时保留, 下次继续续期, 租期内恢复则不丢锁
+                log.warn(" ---> renew lock {} fail: {}", holder.key, e.getMessage());
+            }
+        }
+    }
+
+    private static final class Holder {
+        final String key;
+        final String token;
+        // 只由持有线程修改
+        int count = 1;
+        // 本地估计的过期时间, 由持有线程和看门狗续期后更新
+        volatile long expireAt;
+        volatile boolean lost;
+
+        Holder(String key, String token, long expireAt) {
+            this.key = key;
+            this.token = token;
+            this.expireAt = expireAt;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.paas.cache.memory;
+
+import redis.clients.util.SafeEncoder;
+
+import java.util.Arrays;
+
+/**
+ * 二进制key及成员的包装, 按内容比较, 排序规则与redis一致(无符号字节字典序)
+ */
+final class ByteKey implements Comparable<ByteKey> {
+
+    final byte[] bytes;
+    private final int hash;
+
+    ByteKey(byte[] bytes) {
+        this.bytes = bytes;
+        this.hash = Arrays.hashCode(bytes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ByteKey)) {
+            return false;
+        }
+        ByteKey other = (ByteKey) o;
+        return hash == other.hash && Arrays.equals(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public int compareTo(ByteKey o) {
+        return compare(bytes, o.bytes);
+    }
+
+    static int compare(byte[] a, byte[] b) {
+        int len = Math.min(a.length, b.length);
+        for (int i = 0; i < len; i++) {
+            int diff = (a[i] & 0xff) - (b[i] & 0xff);
+            if (diff != 0) {
+                return diff;
+            }
+        }
+        return a.length - b.length;
+    }
+
+    @Override
+    public String toString() {
+        return SafeEncoder.encode(bytes);
+    }
+}
@@ -0,0 +1,926 @@
+package com.paas.cache.memory;
+
+import com.paas.cache.ICacheClient;
+import com.paas.cache.batch.BatchCommand;
+import com.paas.cache.batch.CacheBatch;
+import com.paas.cache.codec.Codec;
+import com.paas.cache.codec.CodecSupport;
+import com.paas.cache.codec.Codecs;
+import com.paas.cache.codec.ObjectCodecs;
+import com.paas.cache.exception.CacheClientException;
+import com.paas.cache.load.CacheAside;
+import com.paas.cache.load.CacheLoader;
+import com.paas.cache.scan.CacheStreams;
+import com.paas.cache.scan.RangeIterator;
+import com.paas.cache.scan.ScanIterator;
+import com.paas.cache.script.CacheScript;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.BinaryJedisPubSub;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+import redis.clients.jedis.Tuple;
+import redis.clients.util.JedisByteHashMap;
+import redis.clients.util.SafeEncoder;
+
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * 进程内存实现的缓存客户端, 用于本地开发、测试及压测, 不依赖redis、认证中心及zookeeper。
+ * <p>
+ * 命令语义与redis一致(包括过期、类型错误及空集合删除key), 参数校验与 JedisClient 一致。
+ * 批量命令及订阅通过 MemoryClient 在内存中执行 jedis Pipeline/BinaryJedisPubSub。
+ * 数据不持久化, 进程退出即丢失; HSCAN/SSCAN/ZSCAN 一次返回全部元素。
+ */
+public class InMemoryCacheClient implements ICacheClient, CodecSupport {
+    protected static Logger log = LoggerFactory.getLogger(InMemoryCacheClient.class);
+
+    private final MemoryStore store;
+    private final ObjectCodecs codecs;
+    private final CacheAside cacheAside = new CacheAside();
+
+    public InMemoryCacheClient() {
+        this("default");
+    }
+
+    /**
+     * @param name 名称, 用于区分过期线程
+     */
+    public InMemoryCacheClient(String name) {
+        this(name, ObjectCodecs.DEFAULT);
+    }
+
+    /**
+     * @param name   名称, 用于区分过期线程
+     * @param codecs setObjectEx/getObject 使用的编码
+     */
+    public InMemoryCacheClient(String name, ObjectCodecs codecs) {
+        this.store = new MemoryStore(name);
+        this.codecs = codecs;
+    }
+
+    /**
+     * 当前key数量, 含已过期未回收的key
+     */
+    public int size() {
+        return store.size();
+    }
+
+    public void destroy() {
+        store.close();
+    }
+
+    @Override
+    public String setex(String key, int seconds, String value) {
+        if (seconds <= 0 || key == null || key.length() == 0) {
+            throw new CacheClientException("参数无效");
+        }
+        return setex(b(key), seconds, b(value));
+    }
+
+    @Override
+    public String get(String key) {
+        return s(get(b(key)));
+    }
+
+    @Override
+    public Long del(String key) {
+        return del(b(key));
+    }
+
+    @Override
+    public Long del(String... keys) {
+        return del(b(keys));
+    }
+
+    @Override
+    public Long expire(String key, int seconds) {
+        return expire(b(key), seconds);
+    }
+
+    @Override
+    public Long expireAt(String key, long timestamp) {
+        return expireAt(b(key), timestamp);
+    }
+
+    @Override
+    public Long ttl(String key) {
+        return ttl(b(key));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return exists(b(key));
+    }
+
+    @Override
+    public Long incr(String key) {
+        return incr(b(key));
+    }
+
+    @Override
+    public Long incrBy(String key, long increment) {
+        return incrBy(b(key), increment);
+    }
+
+    @Override
+    public Long decr(String key) {
+        return decr(b(key));
+    }
+
+    @Override
+    public Long decrBy(String key, long decrement) {
+        return decrBy(b(key), decrement);
+    }
+
+    @Override
+    public Long lpush(String key, String... strings) {
+        return lpush(b(key), b(strings));
+    }
+
+    @Override
+    public Long rpush(String key, String... strings) {
+        return rpush(b(key), b(strings));
+    }
+
+    @Override
+    public Long lrem(String key, long count, String value) {
+        return lrem(b(key), count, b(value));
+    }
+
+    @Override
+    public Long llen(String key) {
+        return llen(b(key));
+    }
+
+    @Override
+    public String lpop(String key) {
+        return s(lpop(b(key)));
+    }
+
+    @Override
+    public String rpop(String key) {
+        return s(rpop(b(key)));
+    }
+
+    @Override
+    public List<String> lrange(String key, long start, long end) {
+        return strings(store.lrange(b(key), start, end));
+    }
+
+    @Override
+    public List<String> lrangeAll(String key) {
+        return lrange(key, 0, -1);
+    }
+
+    @Override
+    public Long hset(String key, String field, String value) {
+        return hset(b(key), b(field), b(value));
+    }
+
+    @Override
+    public Long hsetnx(String key, String field, String value) {
+        return hsetnx(b(key), b(field), b(value));
+    }
+
+    @Override
+    public String hmset(String key, Map<String, String> hash) {
+        Map<byte[], byte[]> fields = new LinkedHashMap<>(hash.size() * 2);
+        for (Map.Entry<String, String> entry : hash.entrySet()) {
+            fields.put(b(entry.getKey()), b(entry.getValue()));
+        }
+        return hmset(b(key), fields);
+    }
+
+    @Override
+    public String hget(String key, String field) {
+        return s(hget(b(key), b(field)));
+    }
+
+    @Override
+    public List<String> hmget(String key, String... fields) {
+        return strings(hmget(b(key), b(fields)));
+    }
+
+    @Override
+    public Boolean hexists(String key, String field) {
+        return hexists(b(key), b(field));
+    }
+
+    @Override
+    public Long hdel(String key, String... fields) {
+        return hdel(b(key), b(fields));
+    }
+
+    @Override
+    public Long hlen(String key) {
+        return hlen(b(key));
+    }
+
+    @Override
+    public Map<String, String> hgetAll(String key) {
+        List<byte[]> pairs = store.hgetAll(b(key));
+        Map<String, String> hash = new HashMap<>(pairs.size());
+        for (int i = 0; i + 1 < pairs.size(); i += 2) {
+            hash.put(s(pairs.get(i)), s(pairs.get(i + 1)));
+        }
+        return hash;
+    }
+
+    @Override
+    public Long sadd(String key, String... members) {
+        return sadd(b(key), b(members));
+    }
+
+    @Override
+    public Set<String> smembers(String key) {
+        return stringSet(store.smembers(b(key)));
+    }
+
+    @Override
+    public Long srem(String key, String... members) {
+        return srem(b(key), b(members));
+    }
+
+    @Override
+    public Long scard(String key) {
+        return scard(b(key));
+    }
+
+    @Override
+    public Set<String> sunion(String... keys) {
+        return stringSet(store.sunion(b(keys)));
+    }
+
+    @Override
+    public Set<String> sdiff(String... keys) {
+        return stringSet(store.sdiff(b(keys)));
+    }
+
+    @Override
+    public Long sdiffstore(String dstkey, String... keys) {
+        return sdiffstore(b(dstkey), b(keys));
+    }
+
+    @Override
+    public String setex(byte[] key, int seconds, byte[] value) {
+        if (seconds <= 0 || key == null || key.length == 0) {
+            throw new CacheClientException("参数无效");
+        }
+        store.set(key, notNull(value), System.currentTimeMillis() + seconds * 1000L);
+        return "OK";
+    }
+
+    @Override
+    public byte[] get(byte[] key) {
+        return store.get(notNull(key));
+    }
+
+    @Override
+    public Long del(byte[] key) {
+        return store.del(notNull(key));
+    }
+
+    @Override
+    public Long del(byte[]... keys) {
+        return store.del(keys);
+    }
+
+    @Override
+    public Long expire(byte[] key, int seconds) {
+        return store.pexpireAt(notNull(key), System.currentTimeMillis() + seconds * 1000L) ? 1L : 0L;
+    }
+
+    @Override
+    public Long expireAt(byte[] key, long timestamp) {
+        return store.pexpireAt(notNull(key), timestamp * 1000) ? 1L : 0L;
+    }
+
+    @Override
+    public Long ttl(byte[] key) {
+        long pttl = store.pttl(notNull(key));
+        return pttl < 0 ? pttl : (pttl + 500) / 1000;
+    }
+
+    @Override
+    public boolean exists(byte[] key) {
+        return store.exists(notNull(key));
+    }
+
+    @Override
+    public Long incr(byte[] key) {
+        return store.incrBy(notNull(key), 1);
+    }
+
+    @Override
+    public Long incrBy(byte[] key, long increment) {
+        return store.incrBy(notNull(key), increment);
+    }
+
+    @Override
+    public Long decr(byte[] key) {
+        return store.incrBy(notNull(key), -1);
+    }
+
+    @Override
+    public Long decrBy(byte[] key, long decrement) {
+        return store.incrBy(notNull(key), -decrement);
+    }
+
+    @Override
+    public Long lpush(byte[] key, byte[]... strings) {
+        return store.push(notNull(key), true, strings);
+    }
+
+    @Override
+    public Long rpush(byte[] key, byte[]... strings) {
+        return store.push(notNull(key), false, strings);
+    }
+
+    @Override
+    public Long llen(byte[] key) {
+        return store.llen(notNull(key));
+    }
+
+    @Override
+    public Long lrem(byte[] key, long count, byte[] value) {
+        return store.lrem(notNull(key), count, notNull(value));
+    }
+
+    @Override
+    public byte[] lpop(byte[] key) {
+        return store.pop(notNull(key), true);
+    }
+
+    @Override
+    public byte[] rpop(byte[] key) {
+        return store.pop(notNull(key), false);
+    }
+
+    @Override
+    public List<byte[]> lrange(byte[] key, long start, long end) {
+        return store.lrange(notNull(key), start, end);
+    }
+
+    @Override
+    public List<byte[]> lrangeAll(byte[] key) {
+        return lrange(key, 0, -1);
+    }
+
+    @Override
+    public Long hset(byte[] key, byte[] field, byte[] value) {
+        return store.hset(notNull(key), notNull(field), notNull(value));
+    }
+
+    @Override
+    public Long hsetnx(byte[] key, byte[] field, byte[] value) {
+        return store.hsetnx(notNull(key), notNull(field), notNull(value)) ? 1L : 0L;
+    }
+
+    @Override
+    public Long setnx(byte[] key, byte[] value) {
+        return store.setnx(notNull(key), notNull(value)) ? 1L : 0L;
+    }
+
+    @Override
+    public Long setnx(String key, String value) {
+        return setnx(b(key), b(value));
+    }
+
+    @Override
+    public String hmset(byte[] key, Map<byte[], byte[]> hash) {
+        if (hash == null || hash.isEmpty()) {
+            throw new CacheClientException("ERR wrong number of arguments for 'hmset' command");
+        }
+        store.hmset(notNull(key), hash);
+        return "OK";
+    }
+
+    @Override
+    public byte[] hget(byte[] key, byte[] field) {
+        return store.hget(notNull(key), notNull(field));
+    }
+
+    @Override
+    public List<byte[]> hmget(byte[] key, byte[]... fields) {
+        return store.hmget(notNull(key), fields);
+    }
+
+    @Override
+    public Boolean hexists(byte[] key, byte[] field) {
+        return store.hget(notNull(key), notNull(field)) != null;
+    }
+
+    @Override
+    public Long hdel(byte[] key, byte[]... fields) {
+        return store.hdel(notNull(key), fields);
+    }
+
+    @Override
+    public Long hlen(byte[] key) {
+        return store.hlen(notNull(key));
+    }
+
+    @Override
+    public Map<byte[], byte[]> hgetAll(byte[] key) {
+        List<byte[]> pairs = store.hgetAll(notNull(key));
+        Map<byte[], byte[]> hash = new JedisByteHashMap();
+        for (int i = 0; i + 1 < pairs.size(); i += 2) {
+            hash.put(pairs.get(i), pairs.get(i + 1));
+        }
+        return hash;
+    }
+
+    @Override
+    public Long sadd(byte[] key, byte[]... members) {
+        return store.sadd(notNull(key), members);
+    }
+
+    @Override
+    public Set<byte[]> smembers(byte[] key) {
+        return new LinkedHashSet<>(store.smembers(notNull(key)));
+    }
+
+    @Override
+    public Long srem(byte[] key, byte[]... members) {
+        return store.srem(notNull(key), members);
+    }
+
+    @Override
+    public Long scard(byte[] key) {
+        return store.scard(notNull(key));
+    }
+
+    @Override
+    public Set<byte[]> sunion(byte[]... keys) {
+        return new LinkedHashSet<>(store.sunion(keys));
+    }
+
+    @Override
+    public Set<byte[]> sdiff(byte[]... keys) {
+        return new LinkedHashSet<>(store.sdiff(keys));
+    }
+
+    @Override
+    public Long sdiffstore(byte[] dstkey, byte[]... keys) {
+        return store.sdiffstore(notNull(dstkey), keys);
+    }
+
+    @Override
+    public Long hincrBy(String key, String field, long value) {
+        return store.hincrBy(b(key), b(field), value);
+    }
+
+    @Override
+    public Double incrByFloat(String key, double value) {
+        return store.incrByFloat(b(key), value);
+    }
+
+    @Override
+    public Double hincrByFloat(String key, String field, double value) {
+        return store.hincrByFloat(b(key), b(field), value);
+    }
+
+    @Override
+    public Long zadd(String key, double score, String member) {
+        return store.zadd(b(key), Collections.singletonMap(new ByteKey(b(member)), score));
+    }
+
+    @Override
+    public Long zadd(String key, Map<String, Double> scoreMembers) {
+        Map<ByteKey, Double> members = new LinkedHashMap<>(scoreMembers.size() * 2);
+        for (Map.Entry<String, Double> entry : scoreMembers.entrySet()) {
+            members.put(new ByteKey(b(entry.getKey())), entry.getValue());
+        }
+        return store.zadd(b(key), members);
+    }
+
+    @Override
+    public Long zcount(String key, double min, double max) {
+        return store.zcount(b(key), ScoreRange.of(min, max));
+    }
+
+    @Override
+    public Long zcount(String key, String min, String max) {
+        return store.zcount(b(key), ScoreRange.parse(min, max));
+    }
+
+    @Override
+    public Double zincrby(String key, double score, String member) {
+        return store.zincrby(b(key), score, b(member));
+    }
+
+    @Override
+    public Set<String> zrange(String key, long start, long end) {
+        return members(store.zrange(b(key), start, end, false));
+    }
+
+    @Override
+    public Set<String> zrangeByScore(String key, double min, double max) {
+        return members(store.zrangeByScore(b(key), ScoreRange.of(min, max), false, 0, -1));
+    }
+
+    @Override
+    public Set<String> zrangeByScore(String key, String min, String max) {
+        return members(store.zrangeByScore(b(key), ScoreRange.parse(min, max), false, 0, -1));
+    }
+
+    @Override
+    public Set<String> zrangeByScore(String key, double min, double max, int offset, int count) {
+        return members(store.zrangeByScore(b(key), ScoreRange.of(min, max), false, offset, count));
+    }
+
+    @Override
+    public Set<String> zrevrange(String key, long start, long end) {
+        return members(store.zrange(b(key), start, end, true));
+    }
+
+    @Override
+    public Set<String> zrevrangeByScore(String key, double max, double min) {
+        return members(store.zrangeByScore(b(key), ScoreRange.of(min, max), true, 0, -1));
+    }
+
+    @Override
+    public Set<String> zrevrangeByScore(String key, String max, String min) {
+        return members(store.zrangeByScore(b(key), ScoreRange.parse(min, max), true, 0, -1));
+    }
+
+    @Override
+    public Set<String> zrevrangeByScore(String key, double max, double min, int offset, int count) {
+        return members(store.zrangeByScore(b(key), ScoreRange.of(min, max), true, offset, count));
+    }
+
+    @Override
+    public Set<String> zrevrangeByScore(String key, String max, String min, int offset, int count) {
+        return members(store.zrangeByScore(b(key), ScoreRange.parse(min, max), true, offset, count));
+    }
+
+    @Override
+    public Long zrevrank(String key, String member) {
+        return store.zrevrank(b(key), b(member));
+    }
+
+    @Override
+    public Long zrem(String key, String... members) {
+        return store.zrem(b(key), b(members));
+    }
+
+    @Override
+    public Long zremrangeByRank(String key, long start, long end) {
+        return store.zremrangeByRank(b(key), start, end);
+    }
+
+    @Override
+    public Long zremrangeByScore(String key, double start, double end) {
+        return store.zremrangeByScore(b(key), ScoreRange.of(start, end));
+    }
+
+    @Override
+    public Long zremrangeByScore(String key, String start, String end) {
+        return store.zremrangeByScore(b(key), ScoreRange.parse(start, end));
+    }
+
+    @Override
+    public ObjectCodecs getCodecs() {
+        return codecs;
+    }
+
+    @Override
+    public String setObjectEx(byte[] key, int seconds, Object serializable) {
+        if (!(serializable instanceof Serializable)) {
+            throw new CacheClientException();
+        }
+        return setex(key, seconds, codecs.encode(serializable));
+    }
+
+    @Override
+    public Object getObject(byte[] key) {
+        byte[] result = get(key);
+        if (result == null)
+            return null;
+        return codecs.decode(result);
+    }
+
+    @Override
+    public Boolean sismember(String key, String object) {
+        return store.sismember(b(key), b(object));
+    }
+
+    @Override
+    public Long pexpire(String key, long milliseconds) {
+        if (milliseconds < 1) {
+            throw new CacheClientException("非法参数!");
+        }
+        return store.pexpireAt(b(key), System.currentTimeMillis() + milliseconds) ? 1L : 0L;
+    }
+
+    @Override
+    public Boolean ltrim(String listKey, long start, long stop) {
+        if (start < 1) {
+            throw new CacheClientException("非法参数!");
+        }
+        store.ltrim(b(listKey), start, stop);
+        return true;
+    }
+
+    @Override
+    public Set<Tuple> zrevrangeByScoreWithScores(String key, double max, double min, int offset, int count) {
+        return tuples(store.zrangeByScore(b(key), ScoreRange.of(min, max), true, offset, count));
+    }
+
+    @Override
+    public Set<Tuple> zrevrangeByScoreWithScores(String key, String max, String min) {
+        return tuples(store.zrangeByScore(b(key), ScoreRange.parse(min, max), true, 0, -1));
+    }
+
+    @Override
+    public Set<Tuple> zrevrangeByScoreWithScores(String key, String max, String min, int offset, int count) {
+        return tuples(store.zrangeByScore(b(key), ScoreRange.parse(min, max), true, offset, count));
+    }
+
+    @Override
+    public Long zcard(String key) {
+        return store.zcard(b(key));
+    }
+
+    @Override
+    public List<String> mget(String... keys) {
+        return strings(store.mget(b(keys)));
+    }
+
+    @Override
+    public List<byte[]> mget(byte[]... keys) {
+        return store.mget(keys);
+    }
+
+    @Override
+    public String mset(Map<String, String> keyValues) {
+        if (keyValues == null || keyValues.isEmpty()) {
+            throw new CacheClientException("参数无效");
+        }
+        store.mset(0, keysValues(keyValues));
+        return "OK";
+    }
+
+    @Override
+    public String msetex(Map<String, String> keyValues, int seconds) {
+        if (seconds <= 0 || keyValues == null || keyValues.isEmpty()) {
+            throw new CacheClientException("参数无效");
+        }
+        store.mset(System.currentTimeMillis() + seconds * 1000L, keysValues(keyValues));
+        return "OK";
+    }
+
+    /**
+     * 批量命令依次在内存中执行, 结果组装方式与 pipeline 相同
+     */
+    @Override
+    public List<Object> executeBatch(CacheBatch batch) {
+        if (batch == null || batch.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<BatchCommand<?>> commands = batch.getCommands();
+        Pipeline pipeline = new Pipeline();
+        pipeline.setClient(new MemoryClient(store));
+        List<Response<?>> responses = new ArrayList<>(commands.size());
+        for (BatchCommand<?> command : commands) {
+            responses.add(command.pipe(pipeline, batch.getKeyMapper()));
+        }
+        pipeline.sync();
+        List<Object> results = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            results.add(commands.get(i).complete(responses.get(i)));
+        }
+        return results;
+    }
+
+    @Override
+    public Long publish(byte[] channel, byte[] message) {
+        return store.publish(notNull(channel), notNull(message));
+    }
+
+    /**
+     * 阻塞直到取消全部订阅
+     */
+    @Override
+    public void subscribe(BinaryJedisPubSub jedisPubSub, byte[]... channels) {
+        MemoryClient client = new MemoryClient(store);
+        try {
+            jedisPubSub.proceed(client, channels);
+        } finally {
+            client.close();
+        }
+    }
+
+    @Override
+    public ScanResult<Map.Entry<String, String>> hscan(String key, String cursor, int count) {
+        List<Map.Entry<String, String>> entries = new ArrayList<>();
+        if (ScanParams.SCAN_POINTER_START.equals(cursor)) {
+            List<byte[]> pairs = store.hgetAll(b(key));
+            for (int i = 0; i + 1 < pairs.size(); i += 2) {
+                entries.add(new AbstractMap.SimpleEntry<>(s(pairs.get(i)), s(pairs.get(i + 1))));
+            }
+        }
+        return new ScanResult<>(ScanParams.SCAN_POINTER_START, entries);
+    }
+
+    @Override
+    public ScanResult<String> sscan(String key, String cursor, int count) {
+        List<String> members = ScanParams.SCAN_POINTER_START.equals(cursor)
+                ? strings(store.smembers(b(key))) : new ArrayList<String>();
+        return new ScanResult<>(ScanParams.SCAN_POINTER_START, members);
+    }
+
+    @Override
+    public ScanResult<Tuple> zscan(String key, String cursor, int count) {
+        List<Tuple> tuples = ScanParams.SCAN_POINTER_START.equals(cursor)
+                ? new ArrayList<>(tuples(store.zrange(b(key), 0, -1, false))) : new ArrayList<Tuple>();
+        return new ScanResult<>(ScanParams.SCAN_POINTER_START, tuples);
+    }
+
+    @Override
+    public Stream<Map.Entry<String, String>> hscanStream(String key, int pageSize) {
+        return CacheStreams.of(new ScanIterator<>(cursor -> hscan(key, cursor, pageSize)));
+    }
+
+    @Override
+    public Stream<String> sscanStream(String key, int pageSize) {
+        return CacheStreams.of(new ScanIterator<>(cursor -> sscan(key, cursor, pageSize)));
+    }
+
+    @Override
+    public Stream<Tuple> zscanStream(String key, int pageSize) {
+        return CacheStreams.of(new ScanIterator<>(cursor -> zscan(key, cursor, pageSize)));
+    }
+
+    @Override
+    public Stream<String> lrangeStream(String key, int pageSize) {
+        return CacheStreams.of(new RangeIterator<>(pageSize, (start, end) -> lrange(key, start, end)));
+    }
+
+    @Override
+    public String getOrLoad(String key, int seconds, CacheLoader<String> loader) {
+        return cacheAside.getOrLoad(this, key, seconds, 0, loader);
+    }
+
+    @Override
+    public String getOrLoad(String key, int seconds, int nullSeconds, CacheLoader<String> loader) {
+        return cacheAside.getOrLoad(this, key, seconds, nullSeconds, loader);
+    }
+
+    @Override
+    public byte[] getOrLoad(byte[] key, int seconds, CacheLoader<byte[]> loader) {
+        return cacheAside.getOrLoad(this, key, seconds, 0, loader);
+    }
+
+    @Override
+    public byte[] getOrLoad(byte[] key, int seconds, int nullSeconds, CacheLoader<byte[]> loader) {
+        return cacheAside.getOrLoad(this, key, seconds, nullSeconds, loader);
+    }
+
+    @Override
+    public <T> T getObjectOrLoad(byte[] key, int seconds, CacheLoader<T> loader) {
+        return cacheAside.getObjectOrLoad(this, key, seconds, 0, loader);
+    }
+
+    @Override
+    public <T> T getObjectOrLoad(byte[] key, int seconds, int nullSeconds, CacheLoader<T> loader) {
+        return cacheAside.getObjectOrLoad(this, key, seconds, nullSeconds, loader);
+    }
+
+    @Override
+    public <T> T get(String key, Codec<T> codec) {
+        return Codecs.decode(codec, get(SafeEncoder.encode(key)));
+    }
+
+    @Override
+    public <T> String setex(String key, int seconds, T value, Codec<T> codec) {
+        return setex(SafeEncoder.encode(key), seconds, Codecs.encode(codec, value));
+    }
+
+    @Override
+    public <T> List<T> mget(Codec<T> codec, String... keys) {
+        return Codecs.decode(codec, mget(SafeEncoder.encodeMany(keys)));
+    }
+
+    @Override
+    public <T> T hget(String key, String field, Codec<T> codec) {
+        return Codecs.decode(codec, hget(SafeEncoder.encode(key), SafeEncoder.encode(field)));
+    }
+
+    @Override
+    public <T> Long hset(String key, String field, T value, Codec<T> codec) {
+        return hset(SafeEncoder.encode(key), SafeEncoder.encode(field), Codecs.encode(codec, value));
+    }
+
+    @Override
+    public <T> Map<String, T> hgetAll(String key, Codec<T> codec) {
+        return Codecs.decode(codec, hgetAll(SafeEncoder.encode(key)));
+    }
+
+    /**
+     * 内存实现不执行lua脚本
+     */
+    @Override
+    public Object eval(CacheScript script, String[] keys, String... args) {
+        throw new CacheClientException("内存缓存不支持lua脚本: " + script);
+    }
+
+    @Override
+    public Object eval(CacheScript script, byte[][] keys, byte[]... args) {
+        throw new CacheClientException("内存缓存不支持lua脚本: " + script);
+    }
+
+    @Override
+    public String scriptLoad(CacheScript script) {
+        throw new CacheClientException("内存缓存不支持lua脚本: " + script);
+    }
+
+    @Override
+    public String toString() {
+        return "InMemoryCacheClient{" +
+                "size=" + store.size() +
+                '}';
+    }
+
+    // 与jedis一致, key及value不能为null
+    private static byte[] notNull(byte[] value) {
+        if (value == null) {
+            throw new CacheClientException("value sent to redis cannot be null");
+        }
+        return value;
+    }
+
+    private static byte[] b(String value) {
+        if (value == null) {
+            throw new CacheClientException("value sent to redis cannot be null");
+        }
+        return SafeEncoder.encode(value);
+    }
+
+    private static byte[][] b(String... values) {
+        byte[][] bytes = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            bytes[i] = b(values[i]);
+        }
+        return bytes;
+    }
+
+    private static String s(byte[] value) {
+        return value == null ? null : SafeEncoder.encode(value);
+    }
+
+    private static List<String> strings(List<byte[]> values) {
+        List<String> result = new ArrayList<>(values.size());
+        for (byte[] value : values) {
+            result.add(s(value));
+        }
+        return result;
+    }
+
+    private static Set<String> stringSet(List<byte[]> values) {
+        Set<String> result = new LinkedHashSet<>(values.size() * 2);
+        for (byte[] value : values) {
+            result.add(s(value));
+        }
+        return result;
+    }
+
+    private static Set<String> members(List<ZSet.Member> members) {
+        Set<String> result = new LinkedHashSet<>(members.size() * 2);
+        for (ZSet.Member m : members) {
+            result.add(s(m.member.bytes));
+        }
+        return result;
+    }
+
+    private static Set<Tuple> tuples(List<ZSet.Member> members) {
+        Set<Tuple> result = new LinkedHashSet<>(members.size() * 2);
+        for (ZSet.Member m : members) {
+            result.add(new Tuple(m.member.bytes, m.score));
+        }
+        return result;
+    }
+
+    private static byte[][] keysValues(Map<String, String> keyValues) {
+        byte[][] keysValues = new byte[keyValues.size() * 2][];
+        int index = 0;
+        for (Map.Entry<String, String> entry : keyValues.entrySet()) {
+            keysValues[index++] = b(entry.getKey());
+            keysValues[index++] = b(entry.getValue());
+        }
+        return keysValues;
+    }
+}
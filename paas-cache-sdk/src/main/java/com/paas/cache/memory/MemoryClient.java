@@ -0,0 +1,431 @@
+package com.paas.cache.memory;
+
+import com.paas.cache.exception.CacheClientException;
+import redis.clients.jedis.Client;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.util.SafeEncoder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * 不建立网络连接的jedis Client, 在内存中解释执行发出的命令, 使 Pipeline 及 BinaryJedisPubSub 可以直接运行在 MemoryStore 上。
+ * <p>
+ * 命令在发送时立即执行, 原始应答按redis协议的形式(byte[]、Long、List、JedisDataException)缓存, 由 getAll 交给 Pipeline 组装结果;
+ * 订阅模式下消息放入阻塞队列, 由 BinaryJedisPubSub 逐条读取。非线程安全, 每次批量或订阅使用一个实例。
+ */
+class MemoryClient extends Client {
+
+    private static final byte[] OK = SafeEncoder.encode("OK");
+    private static final byte[] PONG = SafeEncoder.encode("PONG");
+
+    private final MemoryStore store;
+    private final List<Object> replies = new ArrayList<>();
+    private final BlockingQueue<List<Object>> messages = new LinkedBlockingQueue<>();
+    private final Set<byte[]> channels = new LinkedHashSet<>();
+
+    MemoryClient(MemoryStore store) {
+        this.store = store;
+    }
+
+    @Override
+    protected Connection sendCommand(Protocol.Command cmd, byte[]... args) {
+        switch (cmd) {
+            case SUBSCRIBE:
+                doSubscribe(args);
+                break;
+            case UNSUBSCRIBE:
+                doUnsubscribe(args);
+                break;
+            default:
+                try {
+                    replies.add(execute(cmd, args));
+                } catch (CacheClientException e) {
+                    replies.add(new JedisDataException(e.getMessage()));
+                } catch (RuntimeException e) {
+                    replies.add(new JedisDataException("ERR " + e.getMessage()));
+                }
+        }
+        return this;
+    }
+
+    @Override
+    public void connect() {
+    }
+
+    @Override
+    public boolean isConnected() {
+        return true;
+    }
+
+    @Override
+    protected void flush() {
+    }
+
+    @Override
+    public void disconnect() {
+        doUnsubscribe();
+    }
+
+    @Override
+    public void close() {
+        disconnect();
+    }
+
+    @Override
+    public List<Object> getAll() {
+        return getAll(0);
+    }
+
+    @Override
+    public List<Object> getAll(int except) {
+        List<Object> all = new ArrayList<>(replies.subList(0, replies.size() - except));
+        replies.subList(0, replies.size() - except).clear();
+        return all;
+    }
+
+    @Override
+    public Object getOne() {
+        return replies.isEmpty() ? null : replies.remove(0);
+    }
+
+    /**
+     * 订阅模式下阻塞读取下一条消息
+     */
+    @Override
+    public List<Object> getRawObjectMultiBulkReply() {
+        try {
+            return messages.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new JedisConnectionException(e);
+        }
+    }
+
+    void deliver(byte[] channel, byte[] message) {
+        messages.offer(Arrays.<Object>asList(Protocol.Keyword.MESSAGE.raw, channel, message));
+    }
+
+    private synchronized void doSubscribe(byte[]... names) {
+        for (byte[] name : names) {
+            if (!contains(name)) {
+                channels.add(name);
+                store.subscribe(this, name);
+            }
+            messages.offer(Arrays.<Object>asList(Protocol.Keyword.SUBSCRIBE.raw, name, (long) channels.size()));
+        }
+    }
+
+    private synchronized void doUnsubscribe(byte[]... names) {
+        List<byte[]> targets = names.length == 0 ? new ArrayList<>(channels) : Arrays.asList(names);
+        if (targets.isEmpty() && names.length == 0) {
+            return;
+        }
+        for (byte[] name : targets) {
+            for (Iterator<byte[]> it = channels.iterator(); it.hasNext(); ) {
+                if (Arrays.equals(it.next(), name)) {
+                    it.remove();
+                }
+            }
+            store.unsubscribe(this, name);
+            messages.offer(Arrays.<Object>asList(Protocol.Keyword.UNSUBSCRIBE.raw, name, (long) channels.size()));
+        }
+    }
+
+    private boolean contains(byte[] name) {
+        for (byte[] channel : channels) {
+            if (Arrays.equals(channel, name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Object execute(Protocol.Command cmd, byte[][] a) {
+        switch (cmd) {
+            case PING:
+                return PONG;
+            case SELECT:
+            case AUTH:
+                return OK;
+            // key
+            case DEL:
+                return store.del(a);
+            case EXISTS:
+                return a.length == 1 ? bool(store.exists(a[0])) : countExisting(a);
+            case EXPIRE:
+                return bool(store.pexpireAt(a[0], System.currentTimeMillis() + toLong(a[1]) * 1000));
+            case PEXPIRE:
+                return bool(store.pexpireAt(a[0], System.currentTimeMillis() + toLong(a[1])));
+            case EXPIREAT:
+                return bool(store.pexpireAt(a[0], toLong(a[1]) * 1000));
+            case PEXPIREAT:
+                return bool(store.pexpireAt(a[0], toLong(a[1])));
+            case TTL:
+                return ttl(store.pttl(a[0]));
+            case PTTL:
+                return store.pttl(a[0]);
+            // string
+            case GET:
+                return store.get(a[0]);
+            case SET:
+                return set(a);
+            case SETEX:
+                store.set(a[0], a[2], System.currentTimeMillis() + toLong(a[1]) * 1000);
+                return OK;
+            case PSETEX:
+                store.set(a[0], a[2], System.currentTimeMillis() + toLong(a[1]));
+                return OK;
+            case SETNX:
+                return bool(store.setnx(a[0], a[1]));
+            case GETSET: {
+                byte[] old = store.get(a[0]);
+                store.set(a[0], a[1], 0);
+                return old;
+            }
+            case MGET:
+                return new ArrayList<Object>(store.mget(a));
+            case MSET:
+                store.mset(0, a);
+                return OK;
+            case INCR:
+                return store.incrBy(a[0], 1);
+            case INCRBY:
+                return store.incrBy(a[0], toLong(a[1]));
+            case DECR:
+                return store.incrBy(a[0], -1);
+            case DECRBY:
+                return store.incrBy(a[0], -toLong(a[1]));
+            case INCRBYFLOAT:
+                return doubleReply(store.incrByFloat(a[0], toDouble(a[1])));
+            case STRLEN:
+                return store.strlen(a[0]);
+            case SETBIT:
+                return store.setbit(a[0], toLong(a[1]), toLong(a[2]) != 0);
+            case GETBIT:
+                return bool(store.getbit(a[0], toLong(a[1])));
+            // list
+            case LPUSH:
+                return store.push(a[0], true, Arrays.copyOfRange(a, 1, a.length));
+            case RPUSH:
+                return store.push(a[0], false, Arrays.copyOfRange(a, 1, a.length));
+            case LPOP:
+                return store.pop(a[0], true);
+            case RPOP:
+                return store.pop(a[0], false);
+            case LLEN:
+                return store.llen(a[0]);
+            case LRANGE:
+                return new ArrayList<Object>(store.lrange(a[0], toLong(a[1]), toLong(a[2])));
+            case LREM:
+                return store.lrem(a[0], toLong(a[1]), a[2]);
+            case LTRIM:
+                store.ltrim(a[0], toLong(a[1]), toLong(a[2]));
+                return OK;
+            // hash
+            case HSET:
+                return store.hset(a[0], a[1], a[2]);
+            case HSETNX:
+                return bool(store.hsetnx(a[0], a[1], a[2]));
+            case HMSET: {
+                Map<byte[], byte[]> fields = new LinkedHashMap<>();
+                for (int i = 1; i + 1 < a.length; i += 2) {
+                    fields.put(a[i], a[i + 1]);
+                }
+                store.hmset(a[0], fields);
+                return OK;
+            }
+            case HGET:
+                return store.hget(a[0], a[1]);
+            case HMGET:
+                return new ArrayList<Object>(store.hmget(a[0], Arrays.copyOfRange(a, 1, a.length)));
+            case HEXISTS:
+                return bool(store.hget(a[0], a[1]) != null);
+            case HDEL:
+                return store.hdel(a[0], Arrays.copyOfRange(a, 1, a.length));
+            case HLEN:
+                return store.hlen(a[0]);
+            case HGETALL:
+                return new ArrayList<Object>(store.hgetAll(a[0]));
+            case HINCRBY:
+                return store.hincrBy(a[0], a[1], toLong(a[2]));
+            case HINCRBYFLOAT:
+                return doubleReply(store.hincrByFloat(a[0], a[1], toDouble(a[2])));
+            // set
+            case SADD:
+                return store.sadd(a[0], Arrays.copyOfRange(a, 1, a.length));
+            case SREM:
+                return store.srem(a[0], Arrays.copyOfRange(a, 1, a.length));
+            case SMEMBERS:
+                return new ArrayList<Object>(store.smembers(a[0]));
+            case SCARD:
+                return store.scard(a[0]);
+            case SISMEMBER:
+                return bool(store.sismember(a[0], a[1]));
+            case SUNION:
+                return new ArrayList<Object>(store.sunion(a));
+            case SDIFF:
+                return new ArrayList<Object>(store.sdiff(a));
+            case SDIFFSTORE:
+                return store.sdiffstore(a[0], Arrays.copyOfRange(a, 1, a.length));
+            // sorted set
+            case ZADD:
+                return zadd(a);
+            case ZINCRBY:
+                return doubleReply(store.zincrby(a[0], toDouble(a[1]), a[2]));
+            case ZCARD:
+                return store.zcard(a[0]);
+            case ZCOUNT:
+                return store.zcount(a[0], range(a[1], a[2]));
+            case ZRANGE:
+                return members(store.zrange(a[0], toLong(a[1]), toLong(a[2]), false), withScores(a, 3));
+            case ZREVRANGE:
+                return members(store.zrange(a[0], toLong(a[1]), toLong(a[2]), true), withScores(a, 3));
+            case ZRANGEBYSCORE:
+                return rangeByScore(a, range(a[1], a[2]), false);
+            case ZREVRANGEBYSCORE:
+                return rangeByScore(a, range(a[2], a[1]), true);
+            case ZREVRANK:
+                return store.zrevrank(a[0], a[1]);
+            case ZSCORE: {
+                Double score = store.zscore(a[0], a[1]);
+                return score == null ? null : doubleReply(score);
+            }
+            case ZREM:
+                return store.zrem(a[0], Arrays.copyOfRange(a, 1, a.length));
+            case ZREMRANGEBYRANK:
+                return store.zremrangeByRank(a[0], toLong(a[1]), toLong(a[2]));
+            case ZREMRANGEBYSCORE:
+                return store.zremrangeByScore(a[0], range(a[1], a[2]));
+            case PUBLISH:
+                return store.publish(a[0], a[1]);
+            default:
+                throw new CacheClientException("ERR unsupported command in memory cache '" + cmd.name() + "'");
+        }
+    }
+
+    private Object set(byte[][] a) {
+        long expireAt = 0;
+        boolean nx = false;
+        boolean xx = false;
+        for (int i = 2; i < a.length; i++) {
+            String option = SafeEncoder.encode(a[i]).toUpperCase();
+            if ("NX".equals(option)) {
+                nx = true;
+            } else if ("XX".equals(option)) {
+                xx = true;
+            } else if ("EX".equals(option)) {
+                expireAt = System.currentTimeMillis() + toLong(a[++i]) * 1000;
+            } else if ("PX".equals(option)) {
+                expireAt = System.currentTimeMillis() + toLong(a[++i]);
+            }
+        }
+        if (nx || xx) {
+            boolean exists = store.exists(a[0]);
+            if (nx == exists) {
+                return null;
+            }
+        }
+        store.set(a[0], a[1], expireAt);
+        return OK;
+    }
+
+    private Object zadd(byte[][] a) {
+        Map<ByteKey, Double> scoreMembers = new LinkedHashMap<>();
+        for (int i = 1; i + 1 < a.length; i += 2) {
+            scoreMembers.put(new ByteKey(a[i + 1]), toDouble(a[i]));
+        }
+        return store.zadd(a[0], scoreMembers);
+    }
+
+    private Object rangeByScore(byte[][] a, ScoreRange range, boolean reverse) {
+        int offset = 0;
+        int count = -1;
+        boolean withScores = false;
+        for (int i = 3; i < a.length; i++) {
+            String option = SafeEncoder.encode(a[i]).toUpperCase();
+            if ("WITHSCORES".equals(option)) {
+                withScores = true;
+            } else if ("LIMIT".equals(option)) {
+                offset = (int) toLong(a[++i]);
+                count = (int) toLong(a[++i]);
+            }
+        }
+        return members(store.zrangeByScore(a[0], range, reverse, offset, count), withScores);
+    }
+
+    private long countExisting(byte[][] keys) {
+        long count = 0;
+        for (byte[] key : keys) {
+            if (store.exists(key)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static boolean withScores(byte[][] a, int index) {
+        return a.length > index && "WITHSCORES".equalsIgnoreCase(SafeEncoder.encode(a[index]));
+    }
+
+    private static List<Object> members(List<ZSet.Member> members, boolean withScores) {
+        List<Object> reply = new ArrayList<>(members.size() * (withScores ? 2 : 1));
+        for (ZSet.Member m : members) {
+            reply.add(m.member.bytes);
+            if (withScores) {
+                reply.add(doubleReply(m.score));
+            }
+        }
+        return reply;
+    }
+
+    private static ScoreRange range(byte[] min, byte[] max) {
+        return ScoreRange.parse(SafeEncoder.encode(min), SafeEncoder.encode(max));
+    }
+
+    private static long ttl(long pttl) {
+        return pttl < 0 ? pttl : (pttl + 500) / 1000;
+    }
+
+    private static Long bool(boolean value) {
+        return value ? 1L : 0L;
+    }
+
+    private static byte[] doubleReply(double value) {
+        return SafeEncoder.encode(MemoryStore.formatDouble(value));
+    }
+
+    private static long toLong(byte[] value) {
+        try {
+            return Long.parseLong(SafeEncoder.encode(value));
+        } catch (NumberFormatException e) {
+            throw new CacheClientException("ERR value is not an integer or out of range");
+        }
+    }
+
+    private static double toDouble(byte[] value) {
+        String s = SafeEncoder.encode(value);
+        if ("+inf".equalsIgnoreCase(s) || "inf".equalsIgnoreCase(s)) {
+            return Double.POSITIVE_INFINITY;
+        }
+        if ("-inf".equalsIgnoreCase(s)) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        try {
+            return Double.parseDouble(s);
+        } catch (NumberFormatException e) {
+            throw new CacheClientException("ERR value is not a valid float");
+        }
+    }
+}
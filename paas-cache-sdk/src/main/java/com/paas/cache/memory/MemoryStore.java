@@ -0,0 +1,965 @@
+package com.paas.cache.memory;
+
+import com.paas.cache.exception.CacheClientException;
+import redis.clients.util.SafeEncoder;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * 内存数据存储, 数据结构及命令语义与redis一致。
+ * <p>
+ * 数据放在 ConcurrentHashMap 中, 对同一key的复合操作由按key哈希的分段锁串行化,
+ * 多key命令按段序号依次加锁, 避免死锁。过期key在访问时惰性删除, 并由时间轮在到期后回收。
+ * 返回的集合均为拷贝, 不暴露内部结构。
+ */
+class MemoryStore {
+
+    private static final int STRIPES = 64;
+    private static final String WRONG_TYPE = "WRONGTYPE Operation against a key holding the wrong kind of value";
+    private static final String NOT_INTEGER = "ERR value is not an integer or out of range";
+    private static final String NOT_FLOAT = "ERR value is not a valid float";
+    private static final long MAX_BIT_OFFSET = 1L << 32;
+
+    private final ConcurrentHashMap<ByteKey, Entry> data = new ConcurrentHashMap<>();
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+    private final TimingWheel wheel;
+    private final ConcurrentHashMap<ByteKey, Set<MemoryClient>> channels = new ConcurrentHashMap<>();
+
+    MemoryStore(String name) {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.wheel = new TimingWheel("paas-cache-memory-expire-" + name, 100, 512, this::expireIfDue);
+    }
+
+    void close() {
+        wheel.stop();
+    }
+
+    int size() {
+        return data.size();
+    }
+
+    /**
+     * 时间轮中待执行的到期检查数
+     */
+    int pendingExpirations() {
+        return wheel.pending();
+    }
+
+    // ------------------------------------------------------------------ key
+
+    long del(byte[]... keys) {
+        ByteKey[] ks = keys(keys);
+        return locked(ks, () -> {
+            long removed = 0;
+            for (ByteKey k : ks) {
+                if (live(k) != null) {
+                    data.remove(k);
+                    removed++;
+                }
+            }
+            return removed;
+        });
+    }
+
+    boolean exists(byte[] key) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> live(k) != null);
+    }
+
+    /**
+     * 设置过期时间点(毫秒时间戳), 已过时直接删除
+     *
+     * @return key是否存在
+     */
+    boolean pexpireAt(byte[] key, long when) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            Entry e = live(k);
+            if (e == null) {
+                return false;
+            }
+            if (when <= System.currentTimeMillis()) {
+                data.remove(k);
+            } else {
+                expireAt(k, e, when);
+            }
+            return true;
+        });
+    }
+
+    /**
+     * 剩余毫秒数, key不存在返回-2, 未设置过期返回-1
+     */
+    long pttl(byte[] key) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            Entry e = live(k);
+            if (e == null) {
+                return -2L;
+            }
+            return e.expireAt == 0 ? -1L : Math.max(0, e.expireAt - System.currentTimeMillis());
+        });
+    }
+
+    // ------------------------------------------------------------------ string
+
+    byte[] get(byte[] key) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> value(k, byte[].class));
+    }
+
+    void set(byte[] key, byte[] value, long expireAt) {
+        ByteKey k = new ByteKey(key);
+        locked(k, () -> {
+            put(k, value, expireAt);
+            return null;
+        });
+    }
+
+    boolean setnx(byte[] key, byte[] value) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            if (live(k) != null) {
+                return false;
+            }
+            put(k, value, 0);
+            return true;
+        });
+    }
+
+    List<byte[]> mget(byte[]... keys) {
+        ByteKey[] ks = keys(keys);
+        return locked(ks, () -> {
+            List<byte[]> values = new ArrayList<>(ks.length);
+            for (ByteKey k : ks) {
+                Entry e = live(k);
+                values.add(e != null && e.value instanceof byte[] ? (byte[]) e.value : null);
+            }
+            return values;
+        });
+    }
+
+    /**
+     * 批量设置, 参数为key、value交替
+     */
+    void mset(long expireAt, byte[]... keysValues) {
+        ByteKey[] ks = new ByteKey[keysValues.length / 2];
+        for (int i = 0; i < ks.length; i++) {
+            ks[i] = new ByteKey(keysValues[i * 2]);
+        }
+        locked(ks, () -> {
+            for (int i = 0; i < ks.length; i++) {
+                put(ks[i], keysValues[i * 2 + 1], expireAt);
+            }
+            return null;
+        });
+    }
+
+    long incrBy(byte[] key, long delta) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            Entry e = live(k);
+            long current = 0;
+            if (e != null) {
+                current = parseLong(cast(e, byte[].class));
+            }
+            if ((delta > 0 && current > Long.MAX_VALUE - delta) || (delta < 0 && current < Long.MIN_VALUE - delta)) {
+                throw new CacheClientException("ERR increment or decrement would overflow");
+            }
+            long next = current + delta;
+            update(k, e, SafeEncoder.encode(String.valueOf(next)));
+            return next;
+        });
+    }
+
+    double incrByFloat(byte[] key, double delta) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            Entry e = live(k);
+            double current = e == null ? 0 : parseDouble(cast(e, byte[].class));
+            double next = checkFinite(current + delta);
+            update(k, e, SafeEncoder.encode(formatDouble(next)));
+            return next;
+        });
+    }
+
+    long strlen(byte[] key) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            byte[] value = value(k, byte[].class);
+            return value == null ? 0L : value.length;
+        });
+    }
+
+    /**
+     * 设置位并返回原来的位, 超出长度时补0扩展; 长度足够时在原数组上修改
+     */
+    long setbit(byte[] key, long offset, boolean bit) {
+        if (offset < 0 || offset >= MAX_BIT_OFFSET) {
+            throw new CacheClientException("ERR bit offset is not an integer or out of range");
+        }
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            Entry e = live(k);
+            byte[] bytes = e == null ? new byte[0] : cast(e, byte[].class);
+            int index = (int) (offset >>> 3);
+            if (index >= bytes.length) {
+                bytes = Arrays.copyOf(bytes, index + 1);
+                update(k, e, bytes);
+            }
+            int mask = 0x80 >>> (int) (offset & 7);
+            long old = (bytes[index] & mask) != 0 ? 1 : 0;
+            bytes[index] = (byte) (bit ? bytes[index] | mask : bytes[index] & ~mask);
+            return old;
+        });
+    }
+
+    boolean getbit(byte[] key, long offset) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            byte[] bytes = value(k, byte[].class);
+            int index = (int) (offset >>> 3);
+            return bytes != null && index < bytes.length && (bytes[index] & (0x80 >>> (int) (offset & 7))) != 0;
+        });
+    }
+
+    // ------------------------------------------------------------------ list
+
+    long push(byte[] key, boolean head, byte[]... values) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            ArrayDeque<byte[]> list = valueOrCreate(k, ArrayDeque.class, ArrayDeque::new);
+            for (byte[] v : values) {
+                if (head) {
+                    list.addFirst(v);
+                } else {
+                    list.addLast(v);
+                }
+            }
+            return (long) list.size();
+        });
+    }
+
+    byte[] pop(byte[] key, boolean head) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            ArrayDeque<byte[]> list = value(k, ArrayDeque.class);
+            if (list == null) {
+                return null;
+            }
+            byte[] v = head ? list.pollFirst() : list.pollLast();
+            removeIfEmpty(k, list.isEmpty());
+            return v;
+        });
+    }
+
+    long llen(byte[] key) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            ArrayDeque<byte[]> list = value(k, ArrayDeque.class);
+            return list == null ? 0L : list.size();
+        });
+    }
+
+    List<byte[]> lrange(byte[] key, long start, long end) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            ArrayDeque<byte[]> list = value(k, ArrayDeque.class);
+            List<byte[]> result = new ArrayList<>();
+            if (list == null) {
+                return result;
+            }
+            long[] range = range(list.size(), start, end);
+            long index = 0;
+            for (byte[] v : list) {
+                if (index > range[1]) {
+                    break;
+                }
+                if (index >= range[0]) {
+                    result.add(v);
+                }
+                index++;
+            }
+            return result;
+        });
+    }
+
+    /**
+     * count大于0从表头删除, 小于0从表尾删除, 等于0删除全部
+     */
+    long lrem(byte[] key, long count, byte[] value) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            ArrayDeque<byte[]> list = value(k, ArrayDeque.class);
+            if (list == null) {
+                return 0L;
+            }
+            long limit = count == 0 ? Long.MAX_VALUE : Math.abs(count);
+            long removed = 0;
+            Iterator<byte[]> it = count < 0 ? list.descendingIterator() : list.iterator();
+            while (it.hasNext() && removed < limit) {
+                if (Arrays.equals(it.next(), value)) {
+                    it.remove();
+                    removed++;
+                }
+            }
+            removeIfEmpty(k, list.isEmpty());
+            return removed;
+        });
+    }
+
+    void ltrim(byte[] key, long start, long stop) {
+        ByteKey k = new ByteKey(key);
+        locked(k, () -> {
+            ArrayDeque<byte[]> list = value(k, ArrayDeque.class);
+            if (list == null) {
+                return null;
+            }
+            long[] range = range(list.size(), start, stop);
+            int size = list.size();
+            for (long i = size - 1; i > range[1]; i--) {
+                list.pollLast();
+            }
+            for (long i = 0; i < range[0] && !list.isEmpty(); i++) {
+                list.pollFirst();
+            }
+            removeIfEmpty(k, list.isEmpty() || range[0] > range[1]);
+            return null;
+        });
+    }
+
+    // ------------------------------------------------------------------ hash
+
+    long hset(byte[] key, byte[] field, byte[] value) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            HashMap<ByteKey, byte[]> hash = valueOrCreate(k, HashMap.class, HashMap::new);
+            return hash.put(new ByteKey(field), value) == null ? 1L : 0L;
+        });
+    }
+
+    boolean hsetnx(byte[] key, byte[] field, byte[] value) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            HashMap<ByteKey, byte[]> hash = valueOrCreate(k, HashMap.class, HashMap::new);
+            return hash.putIfAbsent(new ByteKey(field), value) == null;
+        });
+    }
+
+    void hmset(byte[] key, Map<byte[], byte[]> fields) {
+        ByteKey k = new ByteKey(key);
+        locked(k, () -> {
+            HashMap<ByteKey, byte[]> hash = valueOrCreate(k, HashMap.class, HashMap::new);
+            for (Map.Entry<byte[], byte[]> entry : fields.entrySet()) {
+                hash.put(new ByteKey(entry.getKey()), entry.getValue());
+            }
+            return null;
+        });
+    }
+
+    byte[] hget(byte[] key, byte[] field) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            HashMap<ByteKey, byte[]> hash = value(k, HashMap.class);
+            return hash == null ? null : hash.get(new ByteKey(field));
+        });
+    }
+
+    List<byte[]> hmget(byte[] key, byte[]... fields) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            HashMap<ByteKey, byte[]> hash = value(k, HashMap.class);
+            List<byte[]> values = new ArrayList<>(fields.length);
+            for (byte[] field : fields) {
+                values.add(hash == null ? null : hash.get(new ByteKey(field)));
+            }
+            return values;
+        });
+    }
+
+    long hdel(byte[] key, byte[]... fields) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            HashMap<ByteKey, byte[]> hash = value(k, HashMap.class);
+            if (hash == null) {
+                return 0L;
+            }
+            long removed = 0;
+            for (byte[] field : fields) {
+                if (hash.remove(new ByteKey(field)) != null) {
+                    removed++;
+                }
+            }
+            removeIfEmpty(k, hash.isEmpty());
+            return removed;
+        });
+    }
+
+    long hlen(byte[] key) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            HashMap<ByteKey, byte[]> hash = value(k, HashMap.class);
+            return hash == null ? 0L : hash.size();
+        });
+    }
+
+    /**
+     * field、value交替排列
+     */
+    List<byte[]> hgetAll(byte[] key) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            HashMap<ByteKey, byte[]> hash = value(k, HashMap.class);
+            List<byte[]> result = new ArrayList<>(hash == null ? 0 : hash.size() * 2);
+            if (hash != null) {
+                for (Map.Entry<ByteKey, byte[]> entry : hash.entrySet()) {
+                    result.add(entry.getKey().bytes);
+                    result.add(entry.getValue());
+                }
+            }
+            return result;
+        });
+    }
+
+    long hincrBy(byte[] key, byte[] field, long delta) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            HashMap<ByteKey, byte[]> hash = valueOrCreate(k, HashMap.class, HashMap::new);
+            ByteKey f = new ByteKey(field);
+            byte[] old = hash.get(f);
+            long current = old == null ? 0 : parseLong(old);
+            if ((delta > 0 && current > Long.MAX_VALUE - delta) || (delta < 0 && current < Long.MIN_VALUE - delta)) {
+                throw new CacheClientException("ERR increment or decrement would overflow");
+            }
+            long next = current + delta;
+            hash.put(f, SafeEncoder.encode(String.valueOf(next)));
+            return next;
+        });
+    }
+
+    double hincrByFloat(byte[] key, byte[] field, double delta) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            HashMap<ByteKey, byte[]> hash = valueOrCreate(k, HashMap.class, HashMap::new);
+            ByteKey f = new ByteKey(field);
+            byte[] old = hash.get(f);
+            double next = checkFinite((old == null ? 0 : parseDouble(old)) + delta);
+            hash.put(f, SafeEncoder.encode(formatDouble(next)));
+            return next;
+        });
+    }
+
+    // ------------------------------------------------------------------ set
+
+    long sadd(byte[] key, byte[]... members) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            HashSet<ByteKey> set = valueOrCreate(k, HashSet.class, HashSet::new);
+            long added = 0;
+            for (byte[] m : members) {
+                if (set.add(new ByteKey(m))) {
+                    added++;
+                }
+            }
+            return added;
+        });
+    }
+
+    long srem(byte[] key, byte[]... members) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            HashSet<ByteKey> set = value(k, HashSet.class);
+            if (set == null) {
+                return 0L;
+            }
+            long removed = 0;
+            for (byte[] m : members) {
+                if (set.remove(new ByteKey(m))) {
+                    removed++;
+                }
+            }
+            removeIfEmpty(k, set.isEmpty());
+            return removed;
+        });
+    }
+
+    List<byte[]> smembers(byte[] key) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            HashSet<ByteKey> set = value(k, HashSet.class);
+            return set == null ? new ArrayList<byte[]>() : bytes(set);
+        });
+    }
+
+    long scard(byte[] key) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            HashSet<ByteKey> set = value(k, HashSet.class);
+            return set == null ? 0L : set.size();
+        });
+    }
+
+    boolean sismember(byte[] key, byte[] member) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            HashSet<ByteKey> set = value(k, HashSet.class);
+            return set != null && set.contains(new ByteKey(member));
+        });
+    }
+
+    List<byte[]> sunion(byte[]... keys) {
+        ByteKey[] ks = keys(keys);
+        return locked(ks, () -> {
+            Set<ByteKey> union = new LinkedHashSet<>();
+            for (ByteKey k : ks) {
+                HashSet<ByteKey> set = value(k, HashSet.class);
+                if (set != null) {
+                    union.addAll(set);
+                }
+            }
+            return bytes(union);
+        });
+    }
+
+    List<byte[]> sdiff(byte[]... keys) {
+        ByteKey[] ks = keys(keys);
+        return locked(ks, () -> bytes(diff(ks)));
+    }
+
+    long sdiffstore(byte[] dstkey, byte[]... keys) {
+        ByteKey dst = new ByteKey(dstkey);
+        ByteKey[] ks = keys(keys);
+        ByteKey[] all = Arrays.copyOf(ks, ks.length + 1);
+        all[ks.length] = dst;
+        return locked(all, () -> {
+            Set<ByteKey> diff = diff(ks);
+            data.remove(dst);
+            if (!diff.isEmpty()) {
+                put(dst, new HashSet<>(diff), 0);
+            }
+            return (long) diff.size();
+        });
+    }
+
+    private Set<ByteKey> diff(ByteKey[] ks) {
+        HashSet<ByteKey> first = value(ks[0], HashSet.class);
+        Set<ByteKey> diff = first == null ? new LinkedHashSet<ByteKey>() : new LinkedHashSet<>(first);
+        for (int i = 1; i < ks.length && !diff.isEmpty(); i++) {
+            HashSet<ByteKey> set = value(ks[i], HashSet.class);
+            if (set != null) {
+                diff.removeAll(set);
+            }
+        }
+        return diff;
+    }
+
+    // ------------------------------------------------------------------ sorted set
+
+    long zadd(byte[] key, Map<ByteKey, Double> scoreMembers) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            ZSet zset = valueOrCreate(k, ZSet.class, ZSet::new);
+            long added = 0;
+            for (Map.Entry<ByteKey, Double> entry : scoreMembers.entrySet()) {
+                if (zset.add(entry.getKey(), checkScore(entry.getValue()))) {
+                    added++;
+                }
+            }
+            return added;
+        });
+    }
+
+    double zincrby(byte[] key, double delta, byte[] member) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            ZSet zset = valueOrCreate(k, ZSet.class, ZSet::new);
+            ByteKey m = new ByteKey(member);
+            Double old = zset.score(m);
+            double next = checkScore((old == null ? 0 : old) + delta);
+            zset.add(m, next);
+            return next;
+        });
+    }
+
+    long zcard(byte[] key) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            ZSet zset = value(k, ZSet.class);
+            return zset == null ? 0L : zset.size();
+        });
+    }
+
+    long zcount(byte[] key, ScoreRange range) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            ZSet zset = value(k, ZSet.class);
+            return zset == null ? 0L : zset.rangeByScore(range).size();
+        });
+    }
+
+    /**
+     * 按排名取区间, reverse为true时按分数从高到低排名
+     */
+    List<ZSet.Member> zrange(byte[] key, long start, long end, boolean reverse) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            ZSet zset = value(k, ZSet.class);
+            if (zset == null) {
+                return new ArrayList<ZSet.Member>();
+            }
+            if (!reverse) {
+                return zset.range(start, end);
+            }
+            int size = zset.size();
+            long[] range = range(size, start, end);
+            if (range[0] > range[1]) {
+                return new ArrayList<ZSet.Member>();
+            }
+            List<ZSet.Member> members = zset.range(size - 1 - range[1], size - 1 - range[0]);
+            Collections.reverse(members);
+            return members;
+        });
+    }
+
+    /**
+     * 按分数取区间, reverse为true时从高到低; count小于0表示不限数量
+     */
+    List<ZSet.Member> zrangeByScore(byte[] key, ScoreRange range, boolean reverse, int offset, int count) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            ZSet zset = value(k, ZSet.class);
+            if (zset == null) {
+                return new ArrayList<ZSet.Member>();
+            }
+            List<ZSet.Member> members = zset.rangeByScore(range);
+            if (reverse) {
+                Collections.reverse(members);
+            }
+            return limit(members, offset, count);
+        });
+    }
+
+    Double zscore(byte[] key, byte[] member) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            ZSet zset = value(k, ZSet.class);
+            return zset == null ? null : zset.score(new ByteKey(member));
+        });
+    }
+
+    Long zrevrank(byte[] key, byte[] member) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            ZSet zset = value(k, ZSet.class);
+            return zset == null ? null : zset.revRank(new ByteKey(member));
+        });
+    }
+
+    long zrem(byte[] key, byte[]... members) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            ZSet zset = value(k, ZSet.class);
+            if (zset == null) {
+                return 0L;
+            }
+            long removed = 0;
+            for (byte[] m : members) {
+                if (zset.remove(new ByteKey(m))) {
+                    removed++;
+                }
+            }
+            removeIfEmpty(k, zset.size() == 0);
+            return removed;
+        });
+    }
+
+    long zremrangeByRank(byte[] key, long start, long end) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            ZSet zset = value(k, ZSet.class);
+            return zset == null ? 0L : zremove(k, zset, zset.range(start, end));
+        });
+    }
+
+    long zremrangeByScore(byte[] key, ScoreRange range) {
+        ByteKey k = new ByteKey(key);
+        return locked(k, () -> {
+            ZSet zset = value(k, ZSet.class);
+            return zset == null ? 0L : zremove(k, zset, zset.rangeByScore(range));
+        });
+    }
+
+    private long zremove(ByteKey k, ZSet zset, List<ZSet.Member> members) {
+        for (ZSet.Member m : members) {
+            zset.remove(m.member);
+        }
+        removeIfEmpty(k, zset.size() == 0);
+        return members.size();
+    }
+
+    // ------------------------------------------------------------------ pub/sub
+
+    long publish(byte[] channel, byte[] message) {
+        Set<MemoryClient> subscribers = channels.get(new ByteKey(channel));
+        if (subscribers == null) {
+            return 0;
+        }
+        long received = 0;
+        for (MemoryClient subscriber : subscribers) {
+            subscriber.deliver(channel, message);
+            received++;
+        }
+        return received;
+    }
+
+    void subscribe(MemoryClient client, byte[] channel) {
+        channels.computeIfAbsent(new ByteKey(channel), c -> new CopyOnWriteArraySet<>()).add(client);
+    }
+
+    void unsubscribe(MemoryClient client, byte[] channel) {
+        Set<MemoryClient> subscribers = channels.get(new ByteKey(channel));
+        if (subscribers != null) {
+            subscribers.remove(client);
+        }
+    }
+
+    // ------------------------------------------------------------------ internal
+
+    private void expireIfDue(ByteKey key, long deadline) {
+        locked(key, () -> {
+            Entry e = data.get(key);
+            // 已被更早的检查取代, 或key已删除后重新写入
+            if (e == null || e.scheduled != deadline) {
+                return null;
+            }
+            e.scheduled = 0;
+            if (e.expired(System.currentTimeMillis())) {
+                data.remove(key);
+            } else if (e.expireAt > 0) {
+                expireAt(key, e, e.expireAt);
+            }
+            return null;
+        });
+    }
+
+    // 已过期的key视为不存在并删除, 需持有key的锁
+    private Entry live(ByteKey key) {
+        Entry e = data.get(key);
+        if (e != null && e.expired(System.currentTimeMillis())) {
+            data.remove(key);
+            return null;
+        }
+        return e;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T value(ByteKey key, Class<?> type) {
+        Entry e = live(key);
+        return e == null ? null : (T) cast(e, type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T valueOrCreate(ByteKey key, Class<?> type, Supplier<?> factory) {
+        Entry e = live(key);
+        if (e == null) {
+            Object value = factory.get();
+            data.put(key, new Entry(value, 0));
+            return (T) value;
+        }
+        return (T) cast(e, type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T cast(Entry e, Class<?> type) {
+        if (!type.isInstance(e.value)) {
+            throw new CacheClientException(WRONG_TYPE);
+        }
+        return (T) e.value;
+    }
+
+    private void put(ByteKey key, Object value, long expireAt) {
+        Entry e = new Entry(value, 0);
+        // 原值的到期检查仍在时间轮中, 由新值沿用, 反复覆盖同一key时不重复登记
+        Entry old = data.put(key, e);
+        if (old != null) {
+            e.scheduled = old.scheduled;
+        }
+        if (expireAt > 0) {
+            expireAt(key, e, expireAt);
+        }
+    }
+
+    // 覆盖字符串值并保留原过期时间, 与INCR等命令一致
+    private void update(ByteKey key, Entry old, byte[] value) {
+        if (old == null) {
+            data.put(key, new Entry(value, 0));
+        } else {
+            old.value = value;
+        }
+    }
+
+    // 已有更早或相同时间的到期检查时不再登记, 检查触发时按当前过期时间重新登记
+    private void expireAt(ByteKey key, Entry e, long when) {
+        e.expireAt = when;
+        if (e.scheduled == 0 || when < e.scheduled) {
+            e.scheduled = when;
+            wheel.schedule(key, when);
+        }
+    }
+
+    private void removeIfEmpty(ByteKey key, boolean empty) {
+        if (empty) {
+            data.remove(key);
+        }
+    }
+
+    private <T> T locked(ByteKey key, Supplier<T> op) {
+        ReentrantLock lock = locks[stripe(key)];
+        lock.lock();
+        try {
+            return op.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 多key按段序号升序加锁
+    private <T> T locked(ByteKey[] keys, Supplier<T> op) {
+        boolean[] stripes = new boolean[STRIPES];
+        for (ByteKey key : keys) {
+            stripes[stripe(key)] = true;
+        }
+        int locked = 0;
+        try {
+            for (; locked < STRIPES; locked++) {
+                if (stripes[locked]) {
+                    locks[locked].lock();
+                }
+            }
+            return op.get();
+        } finally {
+            for (int i = locked - 1; i >= 0; i--) {
+                if (stripes[i]) {
+                    locks[i].unlock();
+                }
+            }
+        }
+    }
+
+    private static int stripe(ByteKey key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (STRIPES - 1);
+    }
+
+    private static ByteKey[] keys(byte[]... keys) {
+        ByteKey[] ks = new ByteKey[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            ks[i] = new ByteKey(keys[i]);
+        }
+        return ks;
+    }
+
+    private static List<byte[]> bytes(Collection<ByteKey> keys) {
+        List<byte[]> result = new ArrayList<>(keys.size());
+        for (ByteKey k : keys) {
+            result.add(k.bytes);
+        }
+        return result;
+    }
+
+    // 将redis风格的下标(负数从尾部计算)转换为 [start, end] 闭区间
+    static long[] range(int size, long start, long end) {
+        if (start < 0) {
+            start = Math.max(0, size + start);
+        }
+        if (end < 0) {
+            end = size + end;
+        }
+        return new long[]{start, Math.min(end, size - 1L)};
+    }
+
+    private static <T> List<T> limit(List<T> list, int offset, int count) {
+        if (offset <= 0 && count < 0) {
+            return list;
+        }
+        int from = Math.min(Math.max(offset, 0), list.size());
+        int to = count < 0 ? list.size() : (int) Math.min((long) from + count, list.size());
+        return new ArrayList<>(list.subList(from, to));
+    }
+
+    private static long parseLong(byte[] value) {
+        try {
+            return Long.parseLong(SafeEncoder.encode(value));
+        } catch (NumberFormatException e) {
+            throw new CacheClientException(NOT_INTEGER);
+        }
+    }
+
+    private static double parseDouble(byte[] value) {
+        try {
+            return Double.parseDouble(SafeEncoder.encode(value));
+        } catch (NumberFormatException e) {
+            throw new CacheClientException(NOT_FLOAT);
+        }
+    }
+
+    private static double checkFinite(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            throw new CacheClientException("ERR increment would produce NaN or Infinity");
+        }
+        return value;
+    }
+
+    private static double checkScore(double value) {
+        if (Double.isNaN(value)) {
+            throw new CacheClientException("ERR resulting score is not a number (NaN)");
+        }
+        return value;
+    }
+
+    /**
+     * 浮点数的字符串形式, 整数值不带小数部分, 与redis一致
+     */
+    static String formatDouble(double value) {
+        if (value == Math.rint(value) && !Double.isInfinite(value) && Math.abs(value) < 1e17) {
+            return String.valueOf((long) value);
+        }
+        if (Double.isInfinite(value)) {
+            return value > 0 ? "inf" : "-inf";
+        }
+        return String.valueOf(value);
+    }
+
+    private static final class Entry {
+        Object value;
+        long expireAt;
+        // 时间轮中该key最早一次到期检查的时间, 0表示没有
+        long scheduled;
+
+        Entry(Object value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+
+        boolean expired(long now) {
+            return expireAt != 0 && expireAt <= now;
+        }
+    }
+}
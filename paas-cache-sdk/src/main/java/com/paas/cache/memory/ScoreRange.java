@@ -0,0 +1,62 @@
+package com.paas.cache.memory;
+
+import com.paas.cache.exception.CacheClientException;
+
+/**
+ * 分数区间, 支持redis的 "(" 开区间及 "-inf"/"+inf" 写法
+ */
+final class ScoreRange {
+
+    final double min;
+    final double max;
+    private final boolean minExclusive;
+    private final boolean maxExclusive;
+
+    private ScoreRange(double min, boolean minExclusive, double max, boolean maxExclusive) {
+        this.min = min;
+        this.minExclusive = minExclusive;
+        this.max = max;
+        this.maxExclusive = maxExclusive;
+    }
+
+    static ScoreRange of(double min, double max) {
+        return new ScoreRange(min, false, max, false);
+    }
+
+    static ScoreRange parse(String min, String max) {
+        return new ScoreRange(bound(min), min.startsWith("("), bound(max), max.startsWith("("));
+    }
+
+    private static double bound(String value) {
+        String v = value.startsWith("(") ? value.substring(1) : value;
+        switch (v.toLowerCase()) {
+            case "-inf":
+                return Double.NEGATIVE_INFINITY;
+            case "+inf":
+            case "inf":
+                return Double.POSITIVE_INFINITY;
+            default:
+                try {
+                    return Double.parseDouble(v);
+                } catch (NumberFormatException e) {
+                    throw new CacheClientException("ERR min or max is not a float");
+                }
+        }
+    }
+
+    boolean isEmpty() {
+        return min > max || (min == max && (minExclusive || maxExclusive));
+    }
+
+    boolean aboveMin(double score) {
+        return minExclusive ? score > min : score >= min;
+    }
+
+    boolean belowMax(double score) {
+        return maxExclusive ? score < max : score <= max;
+    }
+
+    boolean contains(double score) {
+        return aboveMin(score) && belowMax(score);
+    }
+}
@@ -0,0 +1,126 @@
+package com.paas.cache.memory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 哈希时间轮, 用于回收过期key。
+ * <p>
+ * 到期时间按刻度映射到轮上的槽, 超过一圈的任务在槽中等待后续轮次; 后台线程每个刻度处理一个槽。
+ * 到期只是触发检查, 是否真正删除由回调根据key当前的过期时间判断, 因此过期时间被修改或key被删除后无需取消任务;
+ * 调用方应避免为同一key重复登记。
+ */
+final class TimingWheel {
+    protected static Logger log = LoggerFactory.getLogger(TimingWheel.class);
+
+    /**
+     * 到期回调
+     */
+    interface Expirer {
+        /**
+         * @param deadline 登记时的到期时间
+         */
+        void expire(ByteKey key, long deadline);
+    }
+
+    private final long tickMillis;
+    private final int mask;
+    private final List<ConcurrentLinkedQueue<Timeout>> wheel;
+    private final Expirer expirer;
+    private final Thread worker;
+    private volatile long currentTick;
+    private volatile boolean stopped;
+
+    TimingWheel(String name, long tickMillis, int ticksPerWheel, Expirer expirer) {
+        int size = Integer.highestOneBit(Math.max(ticksPerWheel - 1, 1)) << 1;
+        this.tickMillis = tickMillis;
+        this.mask = size - 1;
+        List<ConcurrentLinkedQueue<Timeout>> buckets = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            buckets.add(new ConcurrentLinkedQueue<>());
+        }
+        this.wheel = buckets;
+        this.expirer = expirer;
+        this.currentTick = System.currentTimeMillis() / tickMillis;
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * 登记到期检查, deadline为毫秒时间戳
+     */
+    void schedule(ByteKey key, long deadline) {
+        long tick = Math.max(deadline / tickMillis, currentTick + 1);
+        wheel.get((int) (tick & mask)).offer(new Timeout(key, deadline, tick));
+    }
+
+    /**
+     * 待检查的任务数, 遍历各槽计数, 只用于监控
+     */
+    int pending() {
+        int pending = 0;
+        for (ConcurrentLinkedQueue<Timeout> bucket : wheel) {
+            pending += bucket.size();
+        }
+        return pending;
+    }
+
+    void stop() {
+        stopped = true;
+        worker.interrupt();
+    }
+
+    private void run() {
+        long processed = currentTick;
+        while (!stopped) {
+            long now = System.currentTimeMillis() / tickMillis;
+            while (processed < now) {
+                processed++;
+                currentTick = processed;
+                fire(processed);
+            }
+            try {
+                Thread.sleep(tickMillis - System.currentTimeMillis() % tickMillis);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void fire(long tick) {
+        ConcurrentLinkedQueue<Timeout> bucket = wheel.get((int) (tick & mask));
+        // 只处理本次开始时已有的任务, 后续轮次的任务放回队尾
+        for (int n = bucket.size(); n > 0; n--) {
+            Timeout timeout = bucket.poll();
+            if (timeout == null) {
+                return;
+            }
+            if (timeout.tick > tick) {
+                bucket.offer(timeout);
+                continue;
+            }
+            try {
+                expirer.expire(timeout.key, timeout.deadline);
+            } catch (Throwable t) {
+                log.warn(" ---> expire key fail: {}", timeout.key, t);
+            }
+        }
+    }
+
+    private static final class Timeout {
+        final ByteKey key;
+        final long deadline;
+        final long tick;
+
+        Timeout(ByteKey key, long deadline, long tick) {
+            this.key = key;
+            this.deadline = deadline;
+            this.tick = tick;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.paas.cache.memory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+/**
+ * 有序集合: 成员到分数的映射加按(分数, 成员)排序的集合, 排序规则与redis一致。非线程安全, 由存储的分段锁保护
+ */
+final class ZSet {
+
+    static final class Member implements Comparable<Member> {
+        final double score;
+        final ByteKey member;
+
+        Member(double score, ByteKey member) {
+            this.score = score;
+            this.member = member;
+        }
+
+        @Override
+        public int compareTo(Member o) {
+            int c = Double.compare(score, o.score);
+            return c != 0 ? c : member.compareTo(o.member);
+        }
+    }
+
+    private final Map<ByteKey, Double> scores = new HashMap<>();
+    private final TreeSet<Member> sorted = new TreeSet<>();
+
+    int size() {
+        return scores.size();
+    }
+
+    Double score(ByteKey member) {
+        return scores.get(member);
+    }
+
+    /**
+     * @return 是否新增成员
+     */
+    boolean add(ByteKey member, double score) {
+        Double old = scores.put(member, score);
+        if (old != null) {
+            sorted.remove(new Member(old, member));
+        }
+        sorted.add(new Member(score, member));
+        return old == null;
+    }
+
+    boolean remove(ByteKey member) {
+        Double old = scores.remove(member);
+        if (old == null) {
+            return false;
+        }
+        sorted.remove(new Member(old, member));
+        return true;
+    }
+
+    /**
+     * 按排名取区间, 下标含义同redis(负数从尾部计算), 返回升序
+     */
+    List<Member> range(long start, long end) {
+        int size = sorted.size();
+        if (start < 0) {
+            start = Math.max(0, size + start);
+        }
+        if (end < 0) {
+            end = size + end;
+        }
+        end = Math.min(end, size - 1L);
+        List<Member> result = new ArrayList<>();
+        if (start > end) {
+            return result;
+        }
+        long index = 0;
+        for (Member m : sorted) {
+            if (index > end) {
+                break;
+            }
+            if (index >= start) {
+                result.add(m);
+            }
+            index++;
+        }
+        return result;
+    }
+
+    /**
+     * 按分数取区间, 升序
+     */
+    List<Member> rangeByScore(ScoreRange range) {
+        List<Member> result = new ArrayList<>();
+        if (range.isEmpty()) {
+            return result;
+        }
+        NavigableSet<Member> tail = sorted.tailSet(new Member(range.min, new ByteKey(new byte[0])), true);
+        for (Member m : tail) {
+            if (!range.aboveMin(m.score)) {
+                continue;
+            }
+            if (!range.belowMax(m.score)) {
+                break;
+            }
+            result.add(m);
+        }
+        return result;
+    }
+
+    /**
+     * 降序排名, 成员不存在时返回null
+     */
+    Long revRank(ByteKey member) {
+        Double score = scores.get(member);
+        if (score == null) {
+            return null;
+        }
+        return (long) sorted.tailSet(new Member(score, member), false).size();
+    }
+
+    ZSet copy() {
+        ZSet copy = new ZSet();
+        for (Iterator<Member> it = sorted.iterator(); it.hasNext(); ) {
+            Member m = it.next();
+            copy.add(m.member, m.score);
+        }
+        return copy;
+    }
+
+    Iterable<Member> members() {
+        return sorted;
+    }
+}
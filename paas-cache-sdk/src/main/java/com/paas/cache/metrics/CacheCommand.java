@@ -0,0 +1,87 @@
+package com.paas.cache.metrics;
+
+/**
+ * 统计的命令, 与 ICacheClient 方法名对应, 同名重载合并统计
+ */
+public enum CacheCommand {
+    DECR("decr"),
+    DECR_BY("decrBy"),
+    DEL("del"),
+    EVAL("eval"),
+    EXECUTE_BATCH("executeBatch"),
+    EXISTS("exists"),
+    EXPIRE("expire"),
+    EXPIRE_AT("expireAt"),
+    GET("get"),
+    GET_OBJECT("getObject"),
+    GET_OBJECT_OR_LOAD("getObjectOrLoad"),
+    GET_OR_LOAD("getOrLoad"),
+    HDEL("hdel"),
+    HEXISTS("hexists"),
+    HGET("hget"),
+    HGET_ALL("hgetAll"),
+    HINCR_BY("hincrBy"),
+    HINCR_BY_FLOAT("hincrByFloat"),
+    HLEN("hlen"),
+    HMGET("hmget"),
+    HMSET("hmset"),
+    HSCAN("hscan"),
+    HSET("hset"),
+    HSETNX("hsetnx"),
+    INCR("incr"),
+    INCR_BY("incrBy"),
+    INCR_BY_FLOAT("incrByFloat"),
+    LLEN("llen"),
+    LPOP("lpop"),
+    LPUSH("lpush"),
+    LRANGE("lrange"),
+    LRANGE_ALL("lrangeAll"),
+    LREM("lrem"),
+    LTRIM("ltrim"),
+    MGET("mget"),
+    MSET("mset"),
+    MSETEX("msetex"),
+    PEXPIRE("pexpire"),
+    PUBLISH("publish"),
+    RPOP("rpop"),
+    RPUSH("rpush"),
+    SADD("sadd"),
+    SCARD("scard"),
+    SCRIPT_LOAD("scriptLoad"),
+    SSCAN("sscan"),
+    SDIFF("sdiff"),
+    SDIFFSTORE("sdiffstore"),
+    SET_OBJECT_EX("setObjectEx"),
+    SETEX("setex"),
+    SETNX("setnx"),
+    SISMEMBER("sismember"),
+    SMEMBERS("smembers"),
+    SREM("srem"),
+    SUBSCRIBE("subscribe"),
+    SUNION("sunion"),
+    TTL("ttl"),
+    ZADD("zadd"),
+    ZCARD("zcard"),
+    ZCOUNT("zcount"),
+    ZINCRBY("zincrby"),
+    ZRANGE("zrange"),
+    ZSCAN("zscan"),
+    ZRANGE_BY_SCORE("zrangeByScore"),
+    ZREM("zrem"),
+    ZREMRANGE_BY_RANK("zremrangeByRank"),
+    ZREMRANGE_BY_SCORE("zremrangeByScore"),
+    ZREVRANGE("zrevrange"),
+    ZREVRANGE_BY_SCORE("zrevrangeByScore"),
+    ZREVRANGE_BY_SCORE_WITH_SCORES("zrevrangeByScoreWithScores"),
+    ZREVRANK("zrevrank");
+
+    private final String commandName;
+
+    CacheCommand(String commandName) {
+        this.commandName = commandName;
+    }
+
+    public String getCommandName() {
+        return commandName;
+    }
+}
@@ -0,0 +1,71 @@
+package com.paas.cache.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 单个业务编码的统计, 包括各命令延迟、错误数、连接池借用等待时间及值压缩
+ */
+public class CacheMetrics {
+
+    private final String bizCode;
+    private final AtomicReferenceArray<CommandMetrics> commands =
+            new AtomicReferenceArray<>(CacheCommand.values().length);
+    private final LatencyHistogram borrowWait = new LatencyHistogram();
+    private final CompressionMetrics compression = new CompressionMetrics();
+
+    CacheMetrics(String bizCode) {
+        this.bizCode = bizCode;
+    }
+
+    public String getBizCode() {
+        return bizCode;
+    }
+
+    /**
+     * 首次使用时创建, 之后只做数组读取
+     */
+    public CommandMetrics command(CacheCommand command) {
+        CommandMetrics metrics = commands.get(command.ordinal());
+        if (metrics == null) {
+            commands.compareAndSet(command.ordinal(), null, new CommandMetrics(command));
+            metrics = commands.get(command.ordinal());
+        }
+        return metrics;
+    }
+
+    public void recordBorrow(long nanos) {
+        borrowWait.record(nanos);
+    }
+
+    public HistogramSnapshot getBorrowWait() {
+        return borrowWait.snapshot();
+    }
+
+    public CompressionMetrics getCompression() {
+        return compression;
+    }
+
+    /**
+     * 已产生数据的命令
+     */
+    public List<CommandMetrics> getCommands() {
+        List<CommandMetrics> result = new ArrayList<>();
+        for (int i = 0; i < commands.length(); i++) {
+            CommandMetrics metrics = commands.get(i);
+            if (metrics != null) {
+                result.add(metrics);
+            }
+        }
+        return result;
+    }
+
+    public void reset() {
+        for (CommandMetrics metrics : getCommands()) {
+            metrics.reset();
+        }
+        borrowWait.reset();
+        compression.reset();
+    }
+}
@@ -0,0 +1,63 @@
+package com.paas.cache.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个命令的延迟及按异常类型统计的错误数
+ */
+public class CommandMetrics {
+
+    private final CacheCommand command;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final ConcurrentMap<Class<?>, LongAdder> errors = new ConcurrentHashMap<>();
+
+    CommandMetrics(CacheCommand command) {
+        this.command = command;
+    }
+
+    public CacheCommand getCommand() {
+        return command;
+    }
+
+    public void record(long nanos) {
+        latency.record(nanos);
+    }
+
+    /**
+     * 按根异常类型计数, CacheClientException 通常只是包装
+     */
+    public void recordError(Throwable error) {
+        Throwable root = error;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        Class<?> type = root.getClass();
+        LongAdder counter = errors.get(type);
+        if (counter == null) {
+            errors.putIfAbsent(type, new LongAdder());
+            counter = errors.get(type);
+        }
+        counter.increment();
+    }
+
+    public HistogramSnapshot getLatency() {
+        return latency.snapshot();
+    }
+
+    public Map<String, Long> getErrors() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (Map.Entry<Class<?>, LongAdder> entry : errors.entrySet()) {
+            result.put(entry.getKey().getName(), entry.getValue().sum());
+        }
+        return result;
+    }
+
+    public void reset() {
+        latency.reset();
+        errors.clear();
+    }
+}
@@ -0,0 +1,72 @@
+package com.paas.cache.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 值压缩统计: 压缩前后字节数、未压缩次数及压缩/解压耗时
+ */
+public class CompressionMetrics {
+
+    private final LongAdder originalBytes = new LongAdder();
+    private final LongAdder compressedBytes = new LongAdder();
+    private final LongAdder skipped = new LongAdder();
+    private final LatencyHistogram compressTime = new LatencyHistogram();
+    private final LatencyHistogram decompressTime = new LatencyHistogram();
+
+    CompressionMetrics() {
+    }
+
+    public void recordCompress(int originalSize, int compressedSize, long nanos) {
+        originalBytes.add(originalSize);
+        compressedBytes.add(compressedSize);
+        compressTime.record(nanos);
+    }
+
+    /**
+     * 超过阀值但压缩收益不足, 按原值写入
+     */
+    public void recordSkip(long nanos) {
+        skipped.increment();
+        compressTime.record(nanos);
+    }
+
+    public void recordDecompress(long nanos) {
+        decompressTime.record(nanos);
+    }
+
+    public long getOriginalBytes() {
+        return originalBytes.sum();
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes.sum();
+    }
+
+    /**
+     * 压缩后与压缩前字节数之比, 没有数据时为1
+     */
+    public double getRatio() {
+        long original = originalBytes.sum();
+        return original == 0 ? 1.0 : (double) compressedBytes.sum() / original;
+    }
+
+    public long getSkipped() {
+        return skipped.sum();
+    }
+
+    public HistogramSnapshot getCompressTime() {
+        return compressTime.snapshot();
+    }
+
+    public HistogramSnapshot getDecompressTime() {
+        return decompressTime.snapshot();
+    }
+
+    public void reset() {
+        originalBytes.reset();
+        compressedBytes.reset();
+        skipped.reset();
+        compressTime.reset();
+        decompressTime.reset();
+    }
+}
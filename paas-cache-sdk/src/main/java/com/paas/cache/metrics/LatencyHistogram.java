@@ -0,0 +1,82 @@
+package com.paas.cache.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 纳秒级延迟直方图, 分桶方式与HdrHistogram相同: 64纳秒以内精确计数, 之后每个2的幂区间再均分32个桶,
+ * 相对误差约3%, 上限约2199秒, 超出部分计入最后一个桶。
+ * <p>
+ * 记录过程只做数组下标计算及原子自增, 不分配对象, 可在生产环境常开。
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int LINEAR_LIMIT = SUB_BUCKETS * 2;
+    private static final int MIN_MAGNITUDE = SUB_BUCKET_BITS + 1;
+    private static final int MAX_MAGNITUDE = 40;
+    static final int BUCKETS = LINEAR_LIMIT + (MAX_MAGNITUDE - MIN_MAGNITUDE + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        long value = nanos < 0 ? 0 : nanos;
+        counts.incrementAndGet(index(value));
+        count.increment();
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    /**
+     * 复制当前计数, 与并发记录之间不保证严格一致
+     */
+    public HistogramSnapshot snapshot() {
+        long[] copy = new long[BUCKETS];
+        for (int i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new HistogramSnapshot(copy, count.sum(), sum.sum(), max.get());
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts.set(i, 0);
+        }
+        count.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    static int index(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int magnitude = 63 - Long.numberOfLeadingZeros(value);
+        if (magnitude > MAX_MAGNITUDE) {
+            return BUCKETS - 1;
+        }
+        int sub = (int) (value >>> (magnitude - SUB_BUCKET_BITS)) - SUB_BUCKETS;
+        return LINEAR_LIMIT + (magnitude - MIN_MAGNITUDE) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * 桶内取值的代表值(区间中点)
+     */
+    static long value(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int magnitude = MIN_MAGNITUDE + (index - LINEAR_LIMIT) / SUB_BUCKETS;
+        int shift = magnitude - SUB_BUCKET_BITS;
+        long sub = (index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return (sub << shift) + ((1L << shift) >>> 1);
+    }
+}
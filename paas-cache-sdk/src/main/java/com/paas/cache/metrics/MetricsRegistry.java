@@ -0,0 +1,107 @@
+package com.paas.cache.metrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 缓存统计注册中心, 按业务编码保存统计数据, 由监控系统定期拉取。
+ * <pre>
+ *     for (CacheMetrics metrics : MetricsRegistry.getAll()) { ... }
+ *     String text = MetricsRegistry.scrape();
+ * </pre>
+ */
+public class MetricsRegistry {
+
+    private static final double[] QUANTILES = {50, 90, 99, 99.9};
+    private static final double NANOS_PER_SECOND = 1000000000.0;
+
+    private static Map<String, CacheMetrics> metrics = new ConcurrentHashMap<>();
+
+    public static CacheMetrics get(String bizCode) {
+        CacheMetrics result = metrics.get(bizCode);
+        if (result == null) {
+            metrics.putIfAbsent(bizCode, new CacheMetrics(bizCode));
+            result = metrics.get(bizCode);
+        }
+        return result;
+    }
+
+    public static List<CacheMetrics> getAll() {
+        return new ArrayList<>(metrics.values());
+    }
+
+    public static void reset() {
+        for (CacheMetrics m : metrics.values()) {
+            m.reset();
+        }
+    }
+
+    /**
+     * 以Prometheus文本格式输出全部统计, 延迟单位为秒
+     */
+    public static String scrape() {
+        StringBuilder sb = new StringBuilder(4096);
+        sb.append("# TYPE paas_cache_command_seconds summary\n");
+        for (CacheMetrics m : metrics.values()) {
+            for (CommandMetrics command : m.getCommands()) {
+                String labels = "bizCode=\"" + m.getBizCode() + "\",command=\"" + command.getCommand().getCommandName() + "\"";
+                summary(sb, "paas_cache_command_seconds", labels, command.getLatency());
+            }
+        }
+        sb.append("# TYPE paas_cache_command_errors_total counter\n");
+        for (CacheMetrics m : metrics.values()) {
+            for (CommandMetrics command : m.getCommands()) {
+                for (Map.Entry<String, Long> error : command.getErrors().entrySet()) {
+                    sb.append("paas_cache_command_errors_total{bizCode=\"").append(m.getBizCode())
+                            .append("\",command=\"").append(command.getCommand().getCommandName())
+                            .append("\",exception=\"").append(error.getKey()).append("\"} ")
+                            .append(error.getValue()).append('\n');
+                }
+            }
+        }
+        sb.append("# TYPE paas_cache_pool_borrow_seconds summary\n");
+        for (CacheMetrics m : metrics.values()) {
+            summary(sb, "paas_cache_pool_borrow_seconds", "bizCode=\"" + m.getBizCode() + "\"", m.getBorrowWait());
+        }
+        sb.append("# TYPE paas_cache_compression_bytes_total counter\n");
+        for (CacheMetrics m : metrics.values()) {
+            CompressionMetrics c = m.getCompression();
+            sb.append("paas_cache_compression_bytes_total{bizCode=\"").append(m.getBizCode())
+                    .append("\",stage=\"original\"} ").append(c.getOriginalBytes()).append('\n');
+            sb.append("paas_cache_compression_bytes_total{bizCode=\"").append(m.getBizCode())
+                    .append("\",stage=\"compressed\"} ").append(c.getCompressedBytes()).append('\n');
+        }
+        sb.append("# TYPE paas_cache_compression_skipped_total counter\n");
+        for (CacheMetrics m : metrics.values()) {
+            sb.append("paas_cache_compression_skipped_total{bizCode=\"").append(m.getBizCode())
+                    .append("\"} ").append(m.getCompression().getSkipped()).append('\n');
+        }
+        sb.append("# TYPE paas_cache_compress_seconds summary\n");
+        for (CacheMetrics m : metrics.values()) {
+            summary(sb, "paas_cache_compress_seconds", "bizCode=\"" + m.getBizCode() + "\"", m.getCompression().getCompressTime());
+        }
+        sb.append("# TYPE paas_cache_decompress_seconds summary\n");
+        for (CacheMetrics m : metrics.values()) {
+            summary(sb, "paas_cache_decompress_seconds", "bizCode=\"" + m.getBizCode() + "\"", m.getCompression().getDecompressTime());
+        }
+        return sb.toString();
+    }
+
+    private static void summary(StringBuilder sb, String name, String labels, HistogramSnapshot snapshot) {
+        for (double quantile : QUANTILES) {
+            sb.append(name).append('{').append(labels).append(",quantile=\"")
+                    .append(String.format(Locale.ROOT, "%.3f", quantile / 100)).append("\"} ")
+                    .append(seconds(snapshot.getPercentile(quantile))).append('\n');
+        }
+        sb.append(name).append("_max{").append(labels).append("} ").append(seconds(snapshot.getMax())).append('\n');
+        sb.append(name).append("_sum{").append(labels).append("} ").append(seconds(snapshot.getSum())).append('\n');
+        sb.append(name).append("_count{").append(labels).append("} ").append(snapshot.getCount()).append('\n');
+    }
+
+    private static String seconds(long nanos) {
+        return String.format(Locale.ROOT, "%.9f", nanos / NANOS_PER_SECOND);
+    }
+}
@@ -0,0 +1,513 @@
+package com.paas.cache.near;
+
+import com.paas.cache.ICacheClient;
+import com.paas.cache.batch.BatchCommand;
+import com.paas.cache.batch.CacheBatch;
+import com.paas.cache.batch.CacheResponse;
+import com.paas.cache.jedis.JedisConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.BinaryJedisPubSub;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 进程内缓存, 位于 ClientProxy 之前缓存读多写少的数据。
+ * <p>
+ * 按redis key分段加锁, 每段为按访问顺序排列的LRU, 总条目数及估算字节数超限时淘汰最久未访问的key。
+ * 每条缓存的有效期取本地配置与redis剩余有效期中较小者, 未命中时值与TTL在一次pipeline中读取。
+ * 经同一客户端的写操作在本地失效并通过业务频道广播key, 其它进程收到后失效各自的副本;
+ * 广播由发布线程合并为一次pipeline发送, 不阻塞写操作, 队列满时在写线程中直接发送。
+ * 订阅断开重连后清空本地缓存, 避免遗漏断线期间的失效消息。
+ * <p>
+ * 只缓存以配置的前缀开头的key, 未配置前缀时不缓存任何key, 避免所有写操作都产生广播。
+ * 缓存以加后缀后的key为准, 同一key的不同读取方式(get, hget某字段, hgetAll等)分别缓存, 失效时一并删除。
+ */
+public class NearCache {
+    private static final Logger log = LoggerFactory.getLogger(NearCache.class);
+
+    private static final int SEGMENTS = 32;
+    private static final long RESUBSCRIBE_INTERVAL = 1000;
+    private static final Object NULL = new Object();
+    private static final int PUBLISH_QUEUE_SIZE = 10000;
+    private static final int PUBLISH_BATCH_SIZE = 256;
+
+    private final Segment[] segments = new Segment[SEGMENTS];
+    private final long ttlMillis;
+    private final byte[][] keyPrefixes;
+    private final ICacheClient client;
+    private final byte[] channel;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final Subscriber subscriber = new Subscriber();
+    private final BlockingQueue<byte[]> publishQueue = new LinkedBlockingQueue<>(PUBLISH_QUEUE_SIZE);
+    private volatile Thread publisher;
+    private volatile boolean running;
+
+    /**
+     * @param config  本地缓存配置
+     * @param client  实际执行命令的客户端, key已添加后缀
+     * @param channel 失效消息频道
+     */
+    public NearCache(JedisConfig.NearCacheConfig config, ICacheClient client, String channel) {
+        this.client = client;
+        this.channel = channel.getBytes(StandardCharsets.UTF_8);
+        this.ttlMillis = config.getTtl() * 1000L;
+        int maxEntries = Math.max(1, config.getMaxEntries() / SEGMENTS);
+        long maxBytes = Math.max(1, config.getMaxBytes() / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(maxEntries, maxBytes);
+        }
+        String[] prefixes = config.getKeyPrefixes();
+        if (prefixes == null || prefixes.length == 0) {
+            log.warn(" ---> near cache keyPrefixes not configured, no key will be cached.");
+            prefixes = new String[0];
+        }
+        this.keyPrefixes = new byte[prefixes.length][];
+        for (int i = 0; i < prefixes.length; i++) {
+            keyPrefixes[i] = prefixes[i].getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * 启动失效消息订阅线程及发布线程
+     */
+    public void start() {
+        running = true;
+        String name = new String(channel, StandardCharsets.UTF_8);
+        Thread thread = new Thread(subscriber, "paas-near-cache-" + name);
+        thread.setDaemon(true);
+        thread.start();
+        Thread publishThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                publishLoop();
+            }
+        }, "paas-near-cache-publisher-" + name);
+        publishThread.setDaemon(true);
+        publisher = publishThread;
+        publishThread.start();
+    }
+
+    /**
+     * 停止订阅, 发送队列中剩余的失效消息
+     */
+    public void close() {
+        running = false;
+        Thread publishThread = publisher;
+        if (publishThread != null) {
+            publishThread.interrupt();
+            try {
+                publishThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        publishPending();
+        try {
+            if (subscriber.isSubscribed()) {
+                subscriber.unsubscribe();
+            }
+        } catch (Exception e) {
+            log.warn(" ---> near cache unsubscribe fail: {}", e.getMessage());
+        }
+        clear();
+    }
+
+    /**
+     * 是否缓存该key, 按配置的前缀匹配
+     *
+     * @param key 加或未加后缀的key均可, 业务后缀在末尾, 不影响前缀匹配
+     */
+    public boolean accept(String key) {
+        for (byte[] prefix : keyPrefixes) {
+            if (startsWith(key, prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean accept(byte[] key) {
+        for (byte[] prefix : keyPrefixes) {
+            if (startsWith(key, prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 读取缓存, 未命中时通过client读取并缓存
+     *
+     * @param key     已加后缀的key
+     * @param view    读取方式, 区分同一key的不同读取结果
+     * @param command 读取命令
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(String key, String view, BatchCommand.StringCommand<T> command) {
+        String id = id(key);
+        Segment segment = segment(id);
+        Object value = segment.get(id, view, System.currentTimeMillis());
+        if (value != null) {
+            hits.increment();
+            return value == NULL ? null : (T) value;
+        }
+        misses.increment();
+        long version = segment.version();
+        CacheBatch batch = new CacheBatch();
+        CacheResponse<T> response = batch.add(key, command);
+        CacheResponse<Long> ttl = batch.ttl(key);
+        client.executeBatch(batch);
+        T loaded = response.get();
+        segment.put(version, id, view, loaded, expireAt(ttl.get()));
+        return loaded;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(byte[] key, String view, BatchCommand.BinaryCommand<T> command) {
+        String id = new String(key, StandardCharsets.ISO_8859_1);
+        Segment segment = segment(id);
+        Object value = segment.get(id, view, System.currentTimeMillis());
+        if (value != null) {
+            hits.increment();
+            return value == NULL ? null : (T) value;
+        }
+        misses.increment();
+        long version = segment.version();
+        CacheBatch batch = new CacheBatch();
+        CacheResponse<T> response = batch.add(key, command);
+        CacheResponse<Long> ttl = batch.add(key, (p, k) -> p.ttl(k));
+        client.executeBatch(batch);
+        T loaded = response.get();
+        segment.put(version, id, view, loaded, expireAt(ttl.get()));
+        return loaded;
+    }
+
+    /**
+     * 写操作后调用, 失效本地副本, 由发布线程通知其它进程
+     *
+     * @param key 已加后缀的key
+     */
+    public void invalidate(String key) {
+        invalidate(id(key).getBytes(StandardCharsets.ISO_8859_1));
+    }
+
+    public void invalidate(byte[] key) {
+        String id = new String(key, StandardCharsets.ISO_8859_1);
+        segment(id).remove(id);
+        if (!running || !publishQueue.offer(key)) {
+            publish(Collections.singletonList(key));
+        }
+    }
+
+    public void invalidate(String... keys) {
+        for (String key : keys) {
+            invalidate(key);
+        }
+    }
+
+    public void invalidate(byte[]... keys) {
+        for (byte[] key : keys) {
+            invalidate(key);
+        }
+    }
+
+    public void clear() {
+        for (Segment segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.entries();
+        }
+        return size;
+    }
+
+    private void publishLoop() {
+        List<byte[]> keys = new ArrayList<>(PUBLISH_BATCH_SIZE);
+        while (running) {
+            try {
+                keys.add(publishQueue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            publishQueue.drainTo(keys, PUBLISH_BATCH_SIZE - 1);
+            publish(keys);
+            keys.clear();
+        }
+    }
+
+    private void publishPending() {
+        List<byte[]> keys = new ArrayList<>(PUBLISH_BATCH_SIZE);
+        while (publishQueue.drainTo(keys, PUBLISH_BATCH_SIZE) > 0) {
+            publish(keys);
+            keys.clear();
+        }
+    }
+
+    // 同一批中重复的key只发送一次
+    private void publish(List<byte[]> keys) {
+        Set<String> sent = new HashSet<>();
+        CacheBatch batch = new CacheBatch();
+        for (byte[] key : keys) {
+            if (sent.add(new String(key, StandardCharsets.ISO_8859_1))) {
+                batch.add(channel, (p, c) -> p.publish(c, key));
+            }
+        }
+        try {
+            client.executeBatch(batch);
+        } catch (Exception e) {
+            log.warn(" ---> publish near cache invalidation fail: {}", e.getMessage());
+        }
+    }
+
+    private long expireAt(Long redisTtl) {
+        long ttl = ttlMillis;
+        // -1 永久有效, -2 不存在
+        if (redisTtl != null && redisTtl >= 0) {
+            ttl = Math.min(ttl, redisTtl * 1000);
+        }
+        return System.currentTimeMillis() + ttl;
+    }
+
+    private Segment segment(String id) {
+        int h = id.hashCode();
+        return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    // 字符串key以UTF-8字节的ISO-8859-1形式作为标识, 与二进制key及失效消息一致
+    private static String id(String key) {
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) >= 0x80) {
+                return new String(key.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1);
+            }
+        }
+        return key;
+    }
+
+    private static boolean startsWith(String key, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (i >= key.length()) {
+                return false;
+            }
+            char c = key.charAt(i);
+            if (c >= 0x80) {
+                return startsWith(key.getBytes(StandardCharsets.UTF_8), prefix);
+            }
+            if (c != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean startsWith(byte[] key, byte[] prefix) {
+        if (key.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (key[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static int weigh(Object value) {
+        if (value == null) {
+            return 16;
+        }
+        if (value instanceof String) {
+            return 40 + 2 * ((String) value).length();
+        }
+        if (value instanceof byte[]) {
+            return 16 + ((byte[]) value).length;
+        }
+        if (value instanceof Map) {
+            int weight = 48;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                weight += 32 + weigh(entry.getKey()) + weigh(entry.getValue());
+            }
+            return weight;
+        }
+        if (value instanceof Collection) {
+            int weight = 48;
+            for (Object item : (Collection<?>) value) {
+                weight += 32 + weigh(item);
+            }
+            return weight;
+        }
+        return 64;
+    }
+
+    private static final class Entry {
+        final Object value;
+        final long expireAt;
+        final int weight;
+
+        Entry(Object value, long expireAt, int weight) {
+            this.value = value;
+            this.expireAt = expireAt;
+            this.weight = weight;
+        }
+    }
+
+    // 同一redis key的各种读取结果
+    private static final class Holder {
+        final Map<String, Entry> views = new HashMap<>(4);
+        long weight;
+    }
+
+    private static final class Segment {
+        private final int maxEntries;
+        private final long maxBytes;
+        private final LinkedHashMap<String, Holder> map = new LinkedHashMap<>(64, 0.75f, true);
+        private int entries;
+        private long bytes;
+        // 每次失效递增, 加载期间发生失效的结果不写入
+        private long version;
+
+        Segment(int maxEntries, long maxBytes) {
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized Object get(String id, String view, long now) {
+            Holder holder = map.get(id);
+            if (holder == null) {
+                return null;
+            }
+            Entry entry = holder.views.get(view);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expireAt <= now) {
+                holder.views.remove(view);
+                holder.weight -= entry.weight;
+                entries--;
+                bytes -= entry.weight;
+                if (holder.views.isEmpty()) {
+                    map.remove(id);
+                }
+                return null;
+            }
+            return entry.value == null ? NULL : entry.value;
+        }
+
+        synchronized long version() {
+            return version;
+        }
+
+        synchronized void put(long loadVersion, String id, String view, Object value, long expireAt) {
+            if (loadVersion != version) {
+                return;
+            }
+            Holder holder = map.get(id);
+            if (holder == null) {
+                holder = new Holder();
+                map.put(id, holder);
+            }
+            Entry entry = new Entry(value, expireAt, weigh(value) + weigh(view));
+            Entry old = holder.views.put(view, entry);
+            if (old != null) {
+                holder.weight -= old.weight;
+                entries--;
+                bytes -= old.weight;
+            }
+            holder.weight += entry.weight;
+            entries++;
+            bytes += entry.weight;
+            evict();
+        }
+
+        private void evict() {
+            Iterator<Holder> it = map.values().iterator();
+            while ((entries > maxEntries || bytes > maxBytes) && map.size() > 1 && it.hasNext()) {
+                Holder eldest = it.next();
+                it.remove();
+                entries -= eldest.views.size();
+                bytes -= eldest.weight;
+            }
+        }
+
+        synchronized void remove(String id) {
+            version++;
+            Holder holder = map.remove(id);
+            if (holder != null) {
+                entries -= holder.views.size();
+                bytes -= holder.weight;
+            }
+        }
+
+        synchronized void clear() {
+            version++;
+            map.clear();
+            entries = 0;
+            bytes = 0;
+        }
+
+        synchronized int entries() {
+            return entries;
+        }
+    }
+
+    private final class Subscriber extends BinaryJedisPubSub implements Runnable {
+
+        @Override
+        public void run() {
+            while (running) {
+                try {
+                    client.subscribe(this, channel);
+                } catch (Exception e) {
+                    log.warn(" ---> near cache subscription broken: {}", e.getMessage());
+                }
+                clear();
+                if (running) {
+                    try {
+                        Thread.sleep(RESUBSCRIBE_INTERVAL);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void onSubscribe(byte[] channel, int subscribedChannels) {
+            clear();
+            log.info(" ---> near cache subscribed: {}", new String(channel, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public void onMessage(byte[] channel, byte[] message) {
+            String id = new String(message, StandardCharsets.ISO_8859_1);
+            segment(id).remove(id);
+        }
+    }
+}
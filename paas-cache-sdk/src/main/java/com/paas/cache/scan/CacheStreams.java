@@ -0,0 +1,18 @@
+package com.paas.cache.scan;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 将分页迭代器包装为顺序流, 流被消费时才逐页访问redis
+ */
+public class CacheStreams {
+
+    public static <T> Stream<T> of(Iterator<T> iterator) {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+}
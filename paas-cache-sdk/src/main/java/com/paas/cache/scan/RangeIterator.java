@@ -0,0 +1,59 @@
+package com.paas.cache.scan;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 按下标分页读取列表的迭代器(LRANGE), 每页 pageSize 个元素, 取到不足一页时结束。
+ * 迭代期间列表头部有增删时, 元素可能重复或遗漏。非线程安全。
+ */
+public class RangeIterator<T> implements Iterator<T> {
+
+    /**
+     * 读取 [start, end] 区间
+     */
+    public interface Ranger<T> {
+        List<T> range(long start, long end);
+    }
+
+    private final Ranger<T> ranger;
+    private final int pageSize;
+    private long offset;
+    private Iterator<T> page;
+    private boolean finished;
+
+    public RangeIterator(int pageSize, Ranger<T> ranger) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("pageSize must be positive");
+        }
+        this.pageSize = pageSize;
+        this.ranger = ranger;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (page == null || !page.hasNext()) {
+            if (finished) {
+                return false;
+            }
+            List<T> items = ranger.range(offset, offset + pageSize - 1);
+            offset += pageSize;
+            if (items == null) {
+                finished = true;
+                return false;
+            }
+            finished = items.size() < pageSize;
+            page = items.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+}
@@ -0,0 +1,56 @@
+package com.paas.cache.scan;
+
+import redis.clients.jedis.ScanParams;
+import redis.clients.jedis.ScanResult;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * 基于 HSCAN/SSCAN/ZSCAN 游标的迭代器, 每次只在内存中保留一页数据, 用完再取下一页。
+ * <p>
+ * 遵循redis SCAN语义: 迭代期间一直存在的元素至少返回一次, 可能重复返回, 迭代期间增删的元素不保证返回。
+ * 非线程安全。
+ */
+public class ScanIterator<T> implements Iterator<T> {
+
+    /**
+     * 按游标获取一页
+     */
+    public interface Scanner<T> {
+        ScanResult<T> scan(String cursor);
+    }
+
+    private final Scanner<T> scanner;
+    private String cursor = ScanParams.SCAN_POINTER_START;
+    private Iterator<T> page;
+    private boolean finished;
+
+    public ScanIterator(Scanner<T> scanner) {
+        this.scanner = scanner;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (page == null || !page.hasNext()) {
+            if (finished) {
+                return false;
+            }
+            ScanResult<T> result = scanner.scan(cursor);
+            cursor = result.getStringCursor();
+            finished = ScanParams.SCAN_POINTER_START.equals(cursor);
+            List<T> items = result.getResult();
+            page = items.iterator();
+        }
+        return true;
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return page.next();
+    }
+}
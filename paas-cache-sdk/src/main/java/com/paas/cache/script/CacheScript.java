@@ -0,0 +1,86 @@
+package com.paas.cache.script;
+
+import com.paas.cache.exception.CacheClientException;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * lua脚本, 创建时在本地计算SHA1, 一般定义为常量只创建一次。
+ * <p>
+ * 通过 ICacheClient.eval 执行时先发送 EVALSHA, 节点返回 NOSCRIPT 时在该节点 SCRIPT LOAD 后重试,
+ * 之后该节点上只发送SHA1; 也可以通过 scriptLoad 预先加载到所有节点。
+ * 脚本中的key须通过 KEYS 传入, 由客户端添加业务后缀并按key选择节点, 集群模式下所有key须位于同一slot
+ */
+public final class CacheScript {
+
+    private final String name;
+    private final String source;
+    private final String sha1;
+
+    private CacheScript(String name, String source) {
+        if (source == null || source.isEmpty()) {
+            throw new CacheClientException("lua脚本不能为空");
+        }
+        this.name = name;
+        this.source = source;
+        this.sha1 = sha1(source);
+    }
+
+    /**
+     * @param source lua脚本
+     */
+    public static CacheScript of(String source) {
+        return new CacheScript(null, source);
+    }
+
+    /**
+     * @param name   脚本名称, 只用于日志
+     * @param source lua脚本
+     */
+    public static CacheScript of(String name, String source) {
+        return new CacheScript(name, source);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    /**
+     * 小写十六进制的SHA1, 与 SCRIPT LOAD 返回值一致
+     */
+    public String getSha1() {
+        return sha1;
+    }
+
+    public byte[] getSha1Bytes() {
+        return sha1.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    public byte[] getSourceBytes() {
+        return source.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String sha1(String source) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-1").digest(source.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new CacheClientException(e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name == null ? sha1 : name + "(" + sha1 + ")";
+    }
+}
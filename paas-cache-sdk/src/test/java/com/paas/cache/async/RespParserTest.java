@@ -0,0 +1,103 @@
+package com.paas.cache.async;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 回复分片到达时的增量解析
+ */
+public class RespParserTest {
+
+    @Test
+    public void simpleReplies() {
+        List<Object> replies = parse(bytes("+OK\r\n-ERR bad\r\n:-12\r\n$3\r\nabc\r\n$-1\r\n*-1\r\n*0\r\n"), 1);
+        assertEquals(7, replies.size());
+        assertEquals("OK", replies.get(0));
+        assertEquals("ERR bad", ((RespParser.RedisError) replies.get(1)).getMessage());
+        assertEquals(-12L, replies.get(2));
+        assertArrayEquals(bytes("abc"), (byte[]) replies.get(3));
+        assertNull(replies.get(4));
+        assertNull(replies.get(5));
+        assertEquals(0, ((List<?>) replies.get(6)).size());
+    }
+
+    @Test
+    public void nestedArrays() {
+        byte[] data = bytes("*3\r\n*2\r\n$1\r\na\r\n:1\r\n*0\r\n$-1\r\n+NEXT\r\n");
+        for (int slice = 1; slice <= data.length; slice++) {
+            List<Object> replies = parse(data, slice);
+            assertEquals(2, replies.size());
+            List<?> outer = (List<?>) replies.get(0);
+            assertEquals(3, outer.size());
+            List<?> inner = (List<?>) outer.get(0);
+            assertArrayEquals(bytes("a"), (byte[]) inner.get(0));
+            assertEquals(1L, inner.get(1));
+            assertEquals(0, ((List<?>) outer.get(1)).size());
+            assertNull(outer.get(2));
+            assertEquals("NEXT", replies.get(1));
+        }
+    }
+
+    // 逐片重新解析整个回复时为平方复杂度, 会超时
+    @Test(timeout = 10000)
+    public void largeArrayInSmallSlices() {
+        int size = 200000;
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(out, "*" + size + "\r\n");
+        for (int i = 0; i < size; i++) {
+            String member = "member-" + i;
+            write(out, "$" + member.length() + "\r\n" + member + "\r\n");
+        }
+        write(out, ":7\r\n");
+        List<Object> replies = parse(out.toByteArray(), 16);
+        assertEquals(2, replies.size());
+        List<?> items = (List<?>) replies.get(0);
+        assertEquals(size, items.size());
+        assertArrayEquals(bytes("member-0"), (byte[]) items.get(0));
+        assertArrayEquals(bytes("member-" + (size - 1)), (byte[]) items.get(size - 1));
+        assertEquals(7L, replies.get(1));
+    }
+
+    @Test
+    public void largeBulkInSmallSlices() {
+        byte[] value = new byte[1 << 20];
+        Arrays.fill(value, (byte) 'x');
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(out, "$" + value.length + "\r\n");
+        out.write(value, 0, value.length);
+        write(out, "\r\n");
+        List<Object> replies = parse(out.toByteArray(), 4096);
+        assertEquals(1, replies.size());
+        assertTrue(Arrays.equals(value, (byte[]) replies.get(0)));
+    }
+
+    private static List<Object> parse(byte[] data, int slice) {
+        RespParser parser = new RespParser();
+        List<Object> replies = new ArrayList<>();
+        for (int from = 0; from < data.length; from += slice) {
+            parser.feed(ByteBuffer.wrap(data, from, Math.min(slice, data.length - from)));
+            parser.drain(replies::add);
+        }
+        return replies;
+    }
+
+    private static void write(ByteArrayOutputStream out, String s) {
+        byte[] b = bytes(s);
+        out.write(b, 0, b.length);
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,127 @@
+package com.paas.cache.batch;
+
+import com.paas.cache.exception.CacheClientException;
+import com.paas.cache.jedis.ClientProxy;
+import com.paas.cache.jedis.ClientTimeProxy;
+import com.paas.cache.memory.InMemoryCacheClient;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 批量结果按添加顺序对应, 单条命令失败不影响其它命令
+ */
+public class CacheBatchTest {
+
+    private final InMemoryCacheClient client = new InMemoryCacheClient("batch");
+
+    @After
+    public void tearDown() {
+        client.destroy();
+    }
+
+    @Test
+    public void resultsInOrder() {
+        client.setex("a", 60, "1");
+        CacheBatch batch = new CacheBatch();
+        CacheResponse<String> get = batch.get("a");
+        CacheResponse<Long> incr = batch.incrBy("a", 2);
+        CacheResponse<String> missing = batch.get("missing");
+        CacheResponse<Long> hset = batch.hset("h", "f", "v");
+        CacheResponse<List<String>> hmget = batch.hmget("h", "f", "g");
+        CacheResponse<Long> rpush = batch.rpush("l", "x", "y");
+        CacheResponse<List<String>> lrange = batch.lrange("l", 0, -1);
+        CacheResponse<Long> ttl = batch.ttl("a");
+        List<Object> results = client.executeBatch(batch);
+
+        assertEquals(8, results.size());
+        assertEquals("1", get.get());
+        assertEquals(Long.valueOf(3), incr.get());
+        assertNull(missing.get());
+        assertEquals(Long.valueOf(1), hset.get());
+        assertEquals(Arrays.asList("v", null), hmget.get());
+        assertEquals(Long.valueOf(2), rpush.get());
+        assertEquals(Arrays.asList("x", "y"), lrange.get());
+        assertTrue(ttl.get() > 0);
+        assertEquals("1", results.get(0));
+        assertEquals(3L, results.get(1));
+        assertNull(results.get(2));
+        assertEquals(Arrays.asList("x", "y"), results.get(6));
+    }
+
+    @Test
+    public void commandErrorKeepsOthers() {
+        client.setex("s", 60, "text");
+        CacheBatch batch = new CacheBatch();
+        CacheResponse<Long> incr = batch.incrBy("s", 1);
+        CacheResponse<Long> sadd = batch.sadd("s", "m");
+        CacheResponse<String> get = batch.get("s");
+        List<Object> results = client.executeBatch(batch);
+
+        assertTrue(incr.isError());
+        assertTrue(sadd.isError());
+        assertTrue(results.get(0) instanceof CacheClientException);
+        assertTrue(results.get(1) instanceof CacheClientException);
+        assertFalse(get.isError());
+        assertEquals("text", get.get());
+        try {
+            incr.get();
+            fail();
+        } catch (CacheClientException e) {
+            // 错误在读取结果时抛出
+        }
+    }
+
+    @Test
+    public void responseBeforeExecute() {
+        CacheBatch batch = new CacheBatch();
+        CacheResponse<String> get = batch.get("a");
+        assertFalse(get.isDone());
+        try {
+            get.get();
+            fail();
+        } catch (CacheClientException e) {
+            // 尚未执行
+        }
+        assertEquals(Collections.emptyList(), client.executeBatch(new CacheBatch()));
+    }
+
+    @Test
+    public void readOnlyFlags() {
+        CacheBatch batch = new CacheBatch();
+        batch.get("a");
+        batch.setex("a", 60, "v");
+        batch.get("a".getBytes());
+        batch.hget("h".getBytes(), "f".getBytes());
+        List<BatchCommand<?>> commands = batch.getCommands();
+        assertTrue(commands.get(0).isReadOnly());
+        assertFalse(commands.get(1).isReadOnly());
+        assertTrue(commands.get(2).isValueRead() && commands.get(2).isChunkable());
+        assertTrue(commands.get(3).isValueRead() && !commands.get(3).isChunkable());
+    }
+
+    // 经过代理时key在执行时加后缀, 与单条命令一致
+    @Test
+    public void keyMappedThroughProxy() {
+        ClientProxy proxy = (ClientProxy) ClientTimeProxy.getProxy(client, "biz", 1000);
+        CacheBatch batch = new CacheBatch();
+        batch.setex("k", 60, "v");
+        batch.setex("b".getBytes(), 60, "bv".getBytes());
+        CacheResponse<String> get = batch.get("k");
+        proxy.executeBatch(batch);
+        assertEquals("v", get.get());
+        assertEquals("v", client.get("kbizlocal"));
+        assertArrayEquals("bv".getBytes(), client.get("bbizlocal".getBytes()));
+        assertEquals("v", proxy.get("k"));
+    }
+}
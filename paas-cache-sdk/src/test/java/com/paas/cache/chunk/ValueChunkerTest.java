@@ -0,0 +1,129 @@
+package com.paas.cache.chunk;
+
+import com.paas.cache.batch.CacheBatch;
+import com.paas.cache.jedis.JedisConfig;
+import com.paas.cache.memory.InMemoryCacheClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 分块写入后由分块信息还原原值
+ */
+public class ValueChunkerTest {
+
+    private CountingClient client;
+    private ValueChunker chunker;
+
+    @Before
+    public void setUp() {
+        client = new CountingClient();
+        JedisConfig.ChunkConfig config = new JedisConfig.ChunkConfig();
+        config.setEnabled(true);
+        config.setThreshold(10000);
+        config.setChunkSize(4096);
+        chunker = new ValueChunker(config);
+    }
+
+    @After
+    public void tearDown() {
+        client.destroy();
+    }
+
+    @Test
+    public void roundTrip() {
+        byte[] key = "big".getBytes();
+        byte[] value = random(100001);
+        chunker.setex(client, key, 60, value);
+        byte[] stored = client.get(key);
+        assertTrue(ValueChunker.isChunked(stored));
+        assertTrue(stored.length < 100);
+        assertArrayEquals(value, chunker.resolve(client, key, stored));
+
+        List<byte[]> values = chunker.resolve(client, new byte[][]{key}, Arrays.asList(stored));
+        assertArrayEquals(value, values.get(0));
+    }
+
+    @Test
+    public void smallValueNotChunked() {
+        byte[] key = "small".getBytes();
+        byte[] value = random(10000);
+        chunker.setex(client, key, 60, value);
+        byte[] stored = client.get(key);
+        assertFalse(ValueChunker.isChunked(stored));
+        assertSame(stored, chunker.resolve(client, key, stored));
+    }
+
+    @Test
+    public void missingChunk() {
+        byte[] key = "lost".getBytes();
+        chunker.setex(client, key, 60, random(20000));
+        byte[] stored = client.get(key);
+        // 版本号位于 MAGIC 后第16字节, 删掉第0块
+        long version = version(stored);
+        client.del((new String(key) + "#chunk:" + Long.toHexString(version) + ":0").getBytes());
+        assertNull(chunker.resolve(client, key, stored));
+    }
+
+    @Test
+    public void expirePropagatesToChunks() {
+        byte[] key = "big".getBytes();
+        chunker.setex(client, key, 60, random(20000));
+        long version = version(client.get(key));
+        assertEquals(Long.valueOf(1), chunker.expire(client, key, 600));
+        assertTrue(client.ttl(key) > 590);
+        byte[] chunk = (new String(key) + "#chunk:" + Long.toHexString(version) + ":0").getBytes();
+        assertTrue(client.ttl(chunk) > 600);
+    }
+
+    @Test
+    public void expireWithoutChunking() {
+        byte[] key = "k".getBytes();
+        client.setex(key, 60, "v".getBytes());
+        int batches = client.batches;
+        assertEquals(Long.valueOf(1), ValueChunker.DISABLED.expire(client, key, 600));
+        assertEquals(Long.valueOf(1), ValueChunker.DISABLED.expireAt(client, key, System.currentTimeMillis() / 1000 + 600));
+        // 未开启分块时不读取长度
+        assertEquals(batches, client.batches);
+        assertTrue(client.ttl(key) > 590);
+    }
+
+    private static long version(byte[] stored) {
+        long version = 0;
+        for (int i = 20; i < 28; i++) {
+            version = (version << 8) | (stored[i] & 0xff);
+        }
+        return version;
+    }
+
+    private static class CountingClient extends InMemoryCacheClient {
+        int batches;
+
+        CountingClient() {
+            super("chunk");
+        }
+
+        @Override
+        public List<Object> executeBatch(CacheBatch batch) {
+            batches++;
+            return super.executeBatch(batch);
+        }
+    }
+
+    private static byte[] random(int length) {
+        byte[] value = new byte[length];
+        new Random(length).nextBytes(value);
+        return value;
+    }
+}
@@ -0,0 +1,67 @@
+package com.paas.cache.codec;
+
+import com.paas.cache.exception.CacheClientException;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 数字编解码的边界值
+ */
+public class CodecsTest {
+
+    @Test
+    public void longRoundTrip() {
+        long[] values = {0L, 1L, -1L, 9L, -10L, Long.MAX_VALUE, Long.MIN_VALUE, Long.MIN_VALUE + 1};
+        for (long value : values) {
+            byte[] encoded = Codecs.LONG.encode(value);
+            assertArrayEquals(String.valueOf(value).getBytes(StandardCharsets.US_ASCII), encoded);
+            assertEquals(Long.valueOf(value), Codecs.LONG.decode(encoded));
+        }
+    }
+
+    @Test
+    public void integerRoundTrip() {
+        int[] values = {0, -1, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        for (int value : values) {
+            assertEquals(Integer.valueOf(value), Codecs.INTEGER.decode(Codecs.INTEGER.encode(value)));
+        }
+    }
+
+    @Test(expected = CacheClientException.class)
+    public void emptyValue() {
+        Codecs.LONG.decode(new byte[0]);
+    }
+
+    @Test(expected = CacheClientException.class)
+    public void signOnly() {
+        Codecs.LONG.decode(bytes("-"));
+    }
+
+    @Test(expected = CacheClientException.class)
+    public void notDigit() {
+        Codecs.LONG.decode(bytes("12a"));
+    }
+
+    @Test(expected = CacheClientException.class)
+    public void longOverflow() {
+        Codecs.LONG.decode(bytes("9223372036854775808"));
+    }
+
+    @Test(expected = CacheClientException.class)
+    public void longUnderflow() {
+        Codecs.LONG.decode(bytes("-9223372036854775809"));
+    }
+
+    @Test(expected = CacheClientException.class)
+    public void integerOutOfRange() {
+        Codecs.INTEGER.decode(bytes("2147483648"));
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,75 @@
+package com.paas.cache.hot;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * 次数在堆外增大后仍淘汰真实的最小值
+ */
+public class TopKTest {
+
+    @Test
+    public void evictTrueMinimum() {
+        TopK topK = new TopK(3);
+        topK.offer("a", 1);
+        topK.offer("b", 2);
+        topK.offer("c", 3);
+        // a 入堆时最小, 之后增大, 应淘汰 b
+        topK.offer("a", 10);
+        topK.offer("d", 5);
+        assertEquals(10, topK.count("a"));
+        assertEquals(0, topK.count("b"));
+        assertEquals(3, topK.count("c"));
+        assertEquals(5, topK.count("d"));
+        // 不超过最小值的新key不入堆
+        topK.offer("e", 3);
+        assertEquals(0, topK.count("e"));
+        List<TopK.Candidate> snapshot = topK.snapshot();
+        assertEquals("a", snapshot.get(0).id);
+        assertEquals("c", snapshot.get(2).id);
+    }
+
+    @Test
+    public void halve() {
+        TopK topK = new TopK(2);
+        topK.offer("a", 1);
+        topK.offer("b", 8);
+        topK.halve();
+        assertEquals(0, topK.count("a"));
+        assertEquals(4, topK.count("b"));
+        topK.offer("c", 1);
+        assertEquals(1, topK.count("c"));
+    }
+
+    @Test
+    public void concurrentOffers() throws InterruptedException {
+        TopK topK = new TopK(10);
+        int threads = 8;
+        CountDownLatch done = new CountDownLatch(threads);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                for (int i = 1; i <= 20000; i++) {
+                    // hot0..hot9 次数递增, 其余key次数为1
+                    topK.offer("hot" + (i % 10), i);
+                    topK.offer("cold" + i, 1);
+                }
+                done.countDown();
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        done.await();
+        List<TopK.Candidate> snapshot = topK.snapshot();
+        assertEquals(10, snapshot.size());
+        for (TopK.Candidate candidate : snapshot) {
+            assertEquals(true, candidate.id.startsWith("hot"));
+        }
+        assertEquals(20000, topK.count("hot0"));
+    }
+}
@@ -0,0 +1,116 @@
+package com.paas.cache.jedis;
+
+import com.paas.cache.batch.CacheBatch;
+import com.paas.cache.batch.CacheResponse;
+import com.paas.cache.chunk.ValueChunker;
+import com.paas.cache.codec.ValueCompressor;
+import com.paas.cache.memory.InMemoryCacheClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 批量读取的结果与单条读取一致: 合并分块并解压
+ */
+public class ClientProxyBatchTest {
+
+    private InMemoryCacheClient memory;
+    private ClientProxy proxy;
+
+    @Before
+    public void setUp() {
+        memory = new InMemoryCacheClient("batch");
+        proxy = (ClientProxy) ClientTimeProxy.getProxy(memory, "batch", 1000);
+        JedisConfig.CompressionConfig compression = new JedisConfig.CompressionConfig();
+        compression.setEnabled(true);
+        compression.setThreshold(100);
+        proxy.enableCompression(compression);
+        JedisConfig.ChunkConfig chunk = new JedisConfig.ChunkConfig();
+        chunk.setEnabled(true);
+        chunk.setThreshold(10000);
+        chunk.setChunkSize(4096);
+        proxy.enableChunking(chunk);
+    }
+
+    @After
+    public void tearDown() {
+        memory.destroy();
+    }
+
+    @Test
+    public void batchReadsDecoded() {
+        // 两段相同的随机数据: 可压缩, 压缩后仍超过分块阀值
+        byte[] half = random(30000);
+        byte[] big = new byte[60000];
+        System.arraycopy(half, 0, big, 0, half.length);
+        System.arraycopy(half, 0, big, half.length, half.length);
+        byte[] text = repeat("compressible ", 50);
+        byte[] magic = {0x00, 'P', 'Z', 0x01, 1, 2, 3};
+
+        proxy.setex("big".getBytes(), 60, big);
+        proxy.setex("text".getBytes(), 60, text);
+        proxy.setex("magic".getBytes(), 60, magic);
+        proxy.hset("hash".getBytes(), "f".getBytes(), text);
+
+        byte[] stored = memory.get("bigbatchlocal".getBytes());
+        assertTrue(ValueChunker.isChunked(stored));
+        assertTrue(ValueCompressor.isEncoded(memory.get("textbatchlocal".getBytes())));
+
+        CacheBatch batch = new CacheBatch();
+        CacheResponse<byte[]> bigResponse = batch.get("big".getBytes());
+        CacheResponse<byte[]> textResponse = batch.get("text".getBytes());
+        CacheResponse<byte[]> magicResponse = batch.get("magic".getBytes());
+        CacheResponse<byte[]> missing = batch.get("missing".getBytes());
+        CacheResponse<byte[]> fieldResponse = batch.hget("hash".getBytes(), "f".getBytes());
+        List<Object> results = proxy.executeBatch(batch);
+
+        assertArrayEquals(big, bigResponse.get());
+        assertArrayEquals(text, textResponse.get());
+        assertArrayEquals(magic, magicResponse.get());
+        assertNull(missing.get());
+        assertArrayEquals(text, fieldResponse.get());
+        assertArrayEquals(big, (byte[]) results.get(0));
+        assertArrayEquals(text, (byte[]) results.get(1));
+        assertArrayEquals(magic, (byte[]) results.get(2));
+        assertArrayEquals(text, (byte[]) results.get(4));
+    }
+
+    @Test
+    public void corruptValueFailsCommandOnly() {
+        byte[] text = repeat("compressible ", 50);
+        proxy.setex("text".getBytes(), 60, text);
+        byte[] stored = memory.get("textbatchlocal".getBytes());
+        memory.setex("textbatchlocal".getBytes(), 60, Arrays.copyOf(stored, stored.length - 4));
+
+        CacheBatch batch = new CacheBatch();
+        CacheResponse<byte[]> corrupt = batch.get("text".getBytes());
+        CacheResponse<String> write = batch.setex("other".getBytes(), 60, "v".getBytes());
+        proxy.executeBatch(batch);
+
+        assertTrue(corrupt.isError());
+        assertFalse(write.isError());
+    }
+
+    private static byte[] random(int length) {
+        byte[] value = new byte[length];
+        new Random(length).nextBytes(value);
+        return value;
+    }
+
+    private static byte[] repeat(String s, int times) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < times; i++) {
+            sb.append(s);
+        }
+        return sb.toString().getBytes();
+    }
+}
@@ -0,0 +1,285 @@
+package com.paas.cache.jedis;
+
+import redis.clients.util.JedisClusterCRC16;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 两个节点的模拟redis集群, 只实现测试用到的命令。
+ * slot 不超过 split 的key在节点0, 其余在节点1, 不属于本节点的key返回 MOVED;
+ * migrating 中的key由所属节点返回 ASK, 另一节点在 ASKING 后执行; dropOnce 中的key执行后断开连接不回复, 只断开一次
+ */
+class FakeCluster implements Closeable {
+
+    final ConcurrentHashMap<String, byte[]> store = new ConcurrentHashMap<>();
+    final Set<String> migrating = ConcurrentHashMap.newKeySet();
+    final Set<String> dropOnce = ConcurrentHashMap.newKeySet();
+    volatile int split = 8000;
+
+    private final ServerSocket[] servers = new ServerSocket[2];
+    private final List<Socket> sockets = new ArrayList<>();
+
+    FakeCluster() throws IOException {
+        for (int i = 0; i < servers.length; i++) {
+            servers[i] = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+            final int node = i;
+            Thread acceptor = new Thread(() -> accept(node), "fake-cluster-" + i);
+            acceptor.setDaemon(true);
+            acceptor.start();
+        }
+    }
+
+    String servers() {
+        return "127.0.0.1:" + servers[0].getLocalPort();
+    }
+
+    int owner(String key) {
+        return JedisClusterCRC16.getSlot(key) <= split ? 0 : 1;
+    }
+
+    /**
+     * 第一个以 prefix 开头且属于节点 node 的key
+     */
+    String keyOn(int node, String prefix) {
+        for (int i = 0; ; i++) {
+            if (owner(prefix + i) == node) {
+                return prefix + i;
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (ServerSocket server : servers) {
+            server.close();
+        }
+        synchronized (sockets) {
+            for (Socket socket : sockets) {
+                socket.close();
+            }
+        }
+    }
+
+    private void accept(int node) {
+        while (!servers[node].isClosed()) {
+            try {
+                Socket socket = servers[node].accept();
+                synchronized (sockets) {
+                    sockets.add(socket);
+                }
+                Thread handler = new Thread(() -> handle(node, socket));
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void handle(int node, Socket socket) {
+        try (Socket s = socket) {
+            InputStream in = new BufferedInputStream(s.getInputStream());
+            OutputStream out = s.getOutputStream();
+            boolean asking = false;
+            while (true) {
+                List<String> args = readCommand(in);
+                if (args == null) {
+                    return;
+                }
+                String command = args.get(0).toUpperCase();
+                if ("ASKING".equals(command)) {
+                    asking = true;
+                    out.write(encode("+OK"));
+                    continue;
+                }
+                byte[] reply = execute(node, command, args, asking);
+                asking = false;
+                if (reply == null) {
+                    return;
+                }
+                out.write(reply);
+            }
+        } catch (IOException e) {
+            // 连接关闭
+        }
+    }
+
+    // 返回null时断开连接
+    private byte[] execute(int node, String command, List<String> args, boolean asking) {
+        switch (command) {
+            case "PING":
+                return encode("+PONG");
+            case "QUIT":
+                return encode("+OK");
+            case "CLUSTER":
+                return slots();
+            default:
+                break;
+        }
+        String key = args.get(1);
+        int slot = JedisClusterCRC16.getSlot(key);
+        int owner = owner(key);
+        if (migrating.contains(key)) {
+            if (node == owner) {
+                return encode("-ASK " + slot + " 127.0.0.1:" + servers[1 - owner].getLocalPort());
+            }
+            if (!asking) {
+                return encode("-MOVED " + slot + " 127.0.0.1:" + servers[owner].getLocalPort());
+            }
+        } else if (node != owner) {
+            return encode("-MOVED " + slot + " 127.0.0.1:" + servers[owner].getLocalPort());
+        }
+        byte[] reply;
+        switch (command) {
+            case "GET":
+                reply = bulk(store.get(key));
+                break;
+            case "SET":
+                store.put(key, bytes(args.get(2)));
+                reply = encode("+OK");
+                break;
+            case "SETEX":
+                store.put(key, bytes(args.get(3)));
+                reply = encode("+OK");
+                break;
+            case "MSET":
+                for (int i = 1; i < args.size(); i += 2) {
+                    store.put(args.get(i), bytes(args.get(i + 1)));
+                }
+                reply = encode("+OK");
+                break;
+            case "MGET": {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                write(out, encode("*" + (args.size() - 1)));
+                for (int i = 1; i < args.size(); i++) {
+                    write(out, bulk(store.get(args.get(i))));
+                }
+                reply = out.toByteArray();
+                break;
+            }
+            case "DEL": {
+                long removed = 0;
+                for (int i = 1; i < args.size(); i++) {
+                    if (store.remove(args.get(i)) != null) {
+                        removed++;
+                    }
+                }
+                reply = encode(":" + removed);
+                break;
+            }
+            case "INCRBY": {
+                long value;
+                synchronized (store) {
+                    byte[] old = store.get(key);
+                    value = (old == null ? 0 : Long.parseLong(new String(old, StandardCharsets.ISO_8859_1)))
+                            + Long.parseLong(args.get(2));
+                    store.put(key, bytes(String.valueOf(value)));
+                }
+                reply = encode(":" + value);
+                break;
+            }
+            default:
+                reply = encode("-ERR unknown command " + command);
+        }
+        for (int i = 1; i < args.size(); i++) {
+            if (dropOnce.remove(args.get(i))) {
+                return null;
+            }
+        }
+        return reply;
+    }
+
+    private byte[] slots() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(out, encode("*2"));
+        int[][] ranges = {{0, split}, {split + 1, 16383}};
+        for (int i = 0; i < 2; i++) {
+            write(out, encode("*3"));
+            write(out, encode(":" + ranges[i][0]));
+            write(out, encode(":" + ranges[i][1]));
+            write(out, encode("*3"));
+            write(out, bulk(bytes("127.0.0.1")));
+            write(out, encode(":" + servers[i].getLocalPort()));
+            write(out, bulk(bytes("node" + i)));
+        }
+        return out.toByteArray();
+    }
+
+    private static List<String> readCommand(InputStream in) throws IOException {
+        String header = readLine(in);
+        if (header == null) {
+            return null;
+        }
+        int count = Integer.parseInt(header.substring(1));
+        List<String> args = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int length = Integer.parseInt(readLine(in).substring(1));
+            byte[] data = new byte[length + 2];
+            int read = 0;
+            while (read < data.length) {
+                int n = in.read(data, read, data.length - read);
+                if (n < 0) {
+                    return null;
+                }
+                read += n;
+            }
+            args.add(new String(data, 0, length, StandardCharsets.ISO_8859_1));
+        }
+        return args;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int b;
+        while ((b = in.read()) != '\r') {
+            if (b < 0) {
+                return null;
+            }
+            line.append((char) b);
+        }
+        in.read();
+        return line.toString();
+    }
+
+    private static byte[] bulk(byte[] value) {
+        if (value == null) {
+            return encode("$-1");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        write(out, encode("$" + value.length));
+        write(out, value);
+        write(out, encode(""));
+        return out.toByteArray();
+    }
+
+    private static byte[] encode(String line) {
+        return bytes(line + "\r\n");
+    }
+
+    private static byte[] bytes(String s) {
+        return s.getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    private static void write(ByteArrayOutputStream out, byte[] data) {
+        out.write(data, 0, data.length);
+    }
+
+    @Override
+    public String toString() {
+        return "FakeCluster" + Arrays.toString(servers);
+    }
+}
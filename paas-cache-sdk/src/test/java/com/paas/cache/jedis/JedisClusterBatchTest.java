@@ -0,0 +1,77 @@
+package com.paas.cache.jedis;
+
+import com.paas.cache.batch.CacheBatch;
+import com.paas.cache.batch.CacheResponse;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 集群批量按节点分组执行: MOVED 的命令刷新slot后重试, ASK 重定向的命令单独发送, 命令发出后断开时只重试只读命令
+ */
+public class JedisClusterBatchTest {
+
+    private FakeCluster cluster;
+    private JedisClusterClient client;
+    private String a;
+    private String b;
+
+    @Before
+    public void setUp() throws Exception {
+        cluster = new FakeCluster();
+        JedisConfig config = new JedisConfig();
+        config.setServers(cluster.servers());
+        config.setConf(new JedisConfig.PoolConfig());
+        client = new JedisClusterClient(config);
+        a = cluster.keyOn(0, "a");
+        b = cluster.keyOn(1, "b");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.destroy();
+        cluster.close();
+    }
+
+    @Test
+    public void movedAfterResharding() {
+        client.set(a, "1");
+        client.get(b);
+        cluster.split = -1;
+        CacheBatch batch = new CacheBatch();
+        CacheResponse<String> get = batch.get(a);
+        CacheResponse<Long> incr = batch.incrBy(b, 1);
+        client.executeBatch(batch);
+        assertEquals("1", get.get());
+        assertEquals(Long.valueOf(1), incr.get());
+    }
+
+    @Test
+    public void askDuringMigration() {
+        client.set(a, "1");
+        cluster.migrating.add(a);
+        CacheBatch batch = new CacheBatch();
+        CacheResponse<String> migrating = batch.get(a);
+        CacheResponse<String> other = batch.get(b);
+        client.executeBatch(batch);
+        assertEquals("1", migrating.get());
+        assertNull(other.get());
+    }
+
+    @Test
+    public void batchWriteNotReplayed() {
+        cluster.dropOnce.add(a);
+        CacheBatch batch = new CacheBatch();
+        CacheResponse<Long> incr = batch.incrBy(a, 1);
+        CacheResponse<String> get = batch.get(a);
+        client.executeBatch(batch);
+        assertTrue(incr.isError());
+        // 只读命令重试, 读到唯一一次执行的结果
+        assertEquals("1", get.get());
+        assertEquals("1", client.get(a));
+    }
+}
@@ -0,0 +1,87 @@
+package com.paas.cache.jedis;
+
+import com.paas.cache.exception.CacheClientException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 跨节点多key命令的拆分合并, MOVED 重定向, 以及命令发出后断开时不重复执行写命令
+ */
+public class JedisClusterClientTest {
+
+    private FakeCluster cluster;
+    private JedisClusterClient client;
+    private String a;
+    private String b;
+
+    @Before
+    public void setUp() throws Exception {
+        cluster = new FakeCluster();
+        JedisConfig config = new JedisConfig();
+        config.setServers(cluster.servers());
+        config.setConf(new JedisConfig.PoolConfig());
+        client = new JedisClusterClient(config);
+        a = cluster.keyOn(0, "a");
+        b = cluster.keyOn(1, "b");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        client.destroy();
+        cluster.close();
+    }
+
+    @Test
+    public void multiKeyAcrossNodes() {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put(a, "1");
+        values.put(b, "2");
+        assertEquals("OK", client.mset(values));
+        assertEquals(Arrays.asList("2", null, "1"), client.mget(b, "missing", a));
+        assertEquals(Long.valueOf(2), client.del(a, b, "missing"));
+        assertEquals(Arrays.asList(null, null), client.mget(a, b));
+    }
+
+    @Test
+    public void movedAfterResharding() {
+        client.set(a, "1");
+        client.set(b, "2");
+        // a 所在slot迁到节点1, 客户端缓存的slot信息已过期
+        cluster.split = -1;
+        assertEquals(Arrays.asList("1", "2"), client.mget(a, b));
+    }
+
+    @Test
+    public void delNotReplayed() {
+        client.set(a, "1");
+        client.set(b, "2");
+        cluster.dropOnce.add(a);
+        try {
+            client.del(a, b);
+            fail();
+        } catch (CacheClientException e) {
+            // 命令可能已执行, 不重发
+        }
+        assertNull(client.get(a));
+    }
+
+    @Test
+    public void idempotentFanoutRetried() {
+        client.set(a, "1");
+        client.set(b, "2");
+        cluster.dropOnce.add(a);
+        assertEquals(Arrays.asList("1", "2"), client.mget(a, b));
+        assertFalse(cluster.dropOnce.contains(a));
+    }
+}
@@ -0,0 +1,92 @@
+package com.paas.cache.jedis;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * hash tag 的解析, 同tag的key落在同一分片, 分片变化时key的迁移量
+ */
+public class ShardRingTest {
+
+    @Test
+    public void tag() {
+        assertTag("user1", "{user1}.name");
+        assertTag("a", "x{a}{b}");
+        assertTag("{}.a", "{}.a");
+        assertTag("a{b", "a{b");
+        assertTag("plain", "plain");
+    }
+
+    @Test
+    public void sameTagSameShard() {
+        List<String> names = Arrays.asList("s0", "s1", "s2", "s3");
+        ShardRing<String> ring = new ShardRing<>(names, names, 160);
+        for (int i = 0; i < 100; i++) {
+            String tag = "{user" + i + "}";
+            assertEquals(ring.get(tag + ".name"), ring.get(tag + ".age"));
+            assertEquals(ring.get(tag), ring.get(("prefix" + tag).getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test
+    public void balanced() {
+        List<String> names = Arrays.asList("s0", "s1", "s2", "s3");
+        ShardRing<String> ring = new ShardRing<>(names, names, 160);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            counts.merge(ring.get("key" + i), 1, Integer::sum);
+        }
+        for (String name : names) {
+            int count = counts.getOrDefault(name, 0);
+            assertTrue(name + ": " + count, count > 1500 && count < 3500);
+        }
+    }
+
+    // 新增分片时只有迁往新分片的key改变归属
+    @Test
+    public void addShardMovesOnlyToNewShard() {
+        List<String> names = new ArrayList<>(Arrays.asList("s0", "s1", "s2", "s3"));
+        ShardRing<String> before = new ShardRing<>(names, names, 160);
+        names.add("s4");
+        ShardRing<String> after = new ShardRing<>(names, names, 160);
+        int moved = 0;
+        for (int i = 0; i < 10000; i++) {
+            String key = "key" + i;
+            String owner = after.get(key);
+            if (!owner.equals(before.get(key))) {
+                assertEquals("s4", owner);
+                moved++;
+            }
+        }
+        assertTrue("moved: " + moved, moved > 1000 && moved < 3000);
+    }
+
+    // 删除分片时其余分片上的key不迁移
+    @Test
+    public void removeShardKeepsOthers() {
+        List<String> names = new ArrayList<>(Arrays.asList("s0", "s1", "s2", "s3"));
+        ShardRing<String> before = new ShardRing<>(names, names, 160);
+        names.remove("s2");
+        ShardRing<String> after = new ShardRing<>(names, names, 160);
+        for (int i = 0; i < 10000; i++) {
+            String key = "key" + i;
+            String owner = before.get(key);
+            if (!owner.equals("s2")) {
+                assertEquals(owner, after.get(key));
+            }
+        }
+    }
+
+    private static void assertTag(String expected, String key) {
+        assertEquals(expected, new String(ShardRing.tag(key.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,112 @@
+package com.paas.cache.limit;
+
+import com.paas.cache.memory.InMemoryCacheClient;
+import com.paas.cache.script.CacheScript;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 脚本参数及本地预分配; 内存缓存不执行lua, 由 WindowClient 按脚本语义计算
+ */
+public class SlidingWindowLimiterTest {
+
+    private final WindowClient client = new WindowClient();
+
+    @After
+    public void tearDown() {
+        client.destroy();
+    }
+
+    @Test
+    public void limitWithinWindow() {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(client, 5, 60000);
+        for (int i = 0; i < 5; i++) {
+            assertTrue(limiter.tryAcquire("api"));
+        }
+        assertFalse(limiter.tryAcquire("api"));
+        assertFalse(limiter.tryAcquire("api", 2));
+        assertEquals(7, client.calls);
+        // 不足 need 时不扣减
+        assertEquals(5, client.used());
+    }
+
+    @Test
+    public void args() {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(client, 5, 60000);
+        limiter.tryAcquire("api", 2);
+        String[] args = client.lastArgs;
+        assertEquals(6, args.length);
+        assertEquals("60000", args[1]);
+        assertEquals("5", args[2]);
+        assertEquals("2", args[3]);
+        assertEquals("2", args[4]);
+        assertEquals("api", client.lastKey);
+    }
+
+    @Test
+    public void localLease() {
+        SlidingWindowLimiter limiter = new SlidingWindowLimiter(client, 25, 60000);
+        limiter.setLocalLease(10, 60000);
+        for (int i = 0; i < 25; i++) {
+            assertTrue(limiter.tryAcquire("api"));
+        }
+        assertFalse(limiter.tryAcquire("api"));
+        // 10 + 10 + 5 三次申请, 不足时再申请一次
+        assertEquals(4, client.calls);
+        assertEquals(1, limiter.getLocalBucketCount());
+    }
+
+    // 窗口内的许可总数不逐个累计成员
+    @Test
+    public void scriptKeepsRunningTotal() {
+        new SlidingWindowLimiter(client, 5, 60000).tryAcquire("api");
+        String source = client.lastScript.getSource();
+        assertFalse(source.contains("'zrange', KEYS[1], 0, -1"));
+        assertTrue(source.contains("'zscore', KEYS[1], 'total'"));
+    }
+
+    private static class WindowClient extends InMemoryCacheClient {
+        private final List<long[]> grants = new ArrayList<>();
+        int calls;
+        String lastKey;
+        String[] lastArgs;
+        CacheScript lastScript;
+
+        WindowClient() {
+            super("limit");
+        }
+
+        @Override
+        public Object eval(CacheScript script, String[] keys, String... args) {
+            calls++;
+            lastScript = script;
+            lastKey = keys[0];
+            lastArgs = args;
+            long now = Long.parseLong(args[0]);
+            long window = Long.parseLong(args[1]);
+            grants.removeIf(g -> g[0] <= now - window);
+            long available = Long.parseLong(args[2]) - used();
+            if (available < Long.parseLong(args[3])) {
+                return 0L;
+            }
+            long granted = Math.min(available, Long.parseLong(args[4]));
+            grants.add(new long[]{now, granted});
+            return granted;
+        }
+
+        long used() {
+            long used = 0;
+            for (long[] g : grants) {
+                used += g[1];
+            }
+            return used;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.paas.cache.load;
+
+import com.paas.cache.memory.InMemoryCacheClient;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+/**
+ * 空结果标记及单飞内的二次读取
+ */
+public class CacheAsideTest {
+
+    private final StaleClient client = new StaleClient();
+    private final CacheAside aside = new CacheAside();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @After
+    public void tearDown() {
+        client.destroy();
+    }
+
+    @Test
+    public void zeroByteIsValue() {
+        byte[] key = "zero".getBytes();
+        client.setex(key, 60, new byte[]{0x00});
+        assertArrayEquals(new byte[]{0x00}, aside.getOrLoad(client, key, 60, 60, () -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        client.setex("zero", 60, "\u0000");
+        assertEquals("\u0000", aside.getOrLoad(client, "zero", 60, 60, () -> null));
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    public void nullCached() {
+        for (int i = 0; i < 3; i++) {
+            assertNull(aside.getOrLoad(client, "missing", 60, 60, () -> {
+                loads.incrementAndGet();
+                return null;
+            }));
+            assertNull(aside.getOrLoad(client, "missing2".getBytes(), 60, 60, () -> {
+                loads.incrementAndGet();
+                return null;
+            }));
+        }
+        assertEquals(2, loads.get());
+    }
+
+    // 第一次读取未命中后, 其它调用方已写回: 单飞内再读一次, 不重复加载
+    @Test
+    public void recheckInsideFlight() {
+        client.setex("k", 60, "cached");
+        client.stale = 1;
+        assertEquals("cached", aside.getOrLoad(client, "k", 60, 60, () -> {
+            loads.incrementAndGet();
+            return "loaded";
+        }));
+        client.setex("b".getBytes(), 60, "cached".getBytes());
+        client.stale = 1;
+        assertArrayEquals("cached".getBytes(), aside.getOrLoad(client, "b".getBytes(), 60, 60, () -> {
+            loads.incrementAndGet();
+            return "loaded".getBytes();
+        }));
+        assertEquals(0, loads.get());
+    }
+
+    private static class StaleClient extends InMemoryCacheClient {
+        // 接下来返回未命中的读取次数
+        int stale;
+
+        StaleClient() {
+            super("aside");
+        }
+
+        @Override
+        public String get(String key) {
+            if (stale > 0) {
+                stale--;
+                return null;
+            }
+            return super.get(key);
+        }
+
+        @Override
+        public byte[] get(byte[] key) {
+            if (stale > 0) {
+                stale--;
+                return null;
+            }
+            return super.get(key);
+        }
+    }
+}
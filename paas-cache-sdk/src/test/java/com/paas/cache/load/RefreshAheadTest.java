@@ -0,0 +1,92 @@
+package com.paas.cache.load;
+
+import com.paas.cache.jedis.JedisConfig;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 刷新判断读取 ttl 的次数
+ */
+public class RefreshAheadTest {
+
+    private final RefreshAhead refresh = new RefreshAhead(config(), "test");
+
+    @After
+    public void tearDown() {
+        refresh.shutdown();
+    }
+
+    @Test
+    public void confirmAtMostOncePerInterval() throws InterruptedException {
+        AtomicInteger reads = new AtomicInteger();
+        Supplier<Long> ttl = () -> {
+            reads.incrementAndGet();
+            return 30L;
+        };
+        // 首次命中读取 ttl, 已进入刷新窗口
+        assertTrue(refresh.isDue("k", ttl));
+        assertEquals(1, reads.get());
+        for (int i = 0; i < 100; i++) {
+            assertFalse(refresh.isDue("k", ttl));
+        }
+        assertEquals(1, reads.get());
+        Thread.sleep(1100);
+        assertTrue(refresh.isDue("k", ttl));
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    public void skipWhileRefreshing() throws InterruptedException {
+        AtomicInteger reads = new AtomicInteger();
+        Supplier<Long> ttl = () -> {
+            reads.incrementAndGet();
+            return 30L;
+        };
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        refresh.submit("k", () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            done.countDown();
+        });
+        for (int i = 0; i < 100; i++) {
+            assertFalse(refresh.isDue("k", ttl));
+        }
+        assertEquals(0, reads.get());
+        release.countDown();
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void notDueOutsideWindow() {
+        AtomicInteger reads = new AtomicInteger();
+        refresh.loaded("k", 600, 0L);
+        for (int i = 0; i < 100; i++) {
+            assertFalse(refresh.isDue("k", () -> {
+                reads.incrementAndGet();
+                return 600L;
+            }));
+        }
+        assertEquals(0, reads.get());
+    }
+
+    private static JedisConfig.RefreshConfig config() {
+        JedisConfig.RefreshConfig config = new JedisConfig.RefreshConfig();
+        config.setEnabled(true);
+        config.setWindow(60);
+        config.setBeta(0d);
+        return config;
+    }
+}
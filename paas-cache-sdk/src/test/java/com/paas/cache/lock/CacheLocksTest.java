@@ -0,0 +1,165 @@
+package com.paas.cache.lock;
+
+import com.paas.cache.exception.CacheClientException;
+import com.paas.cache.memory.InMemoryCacheClient;
+import com.paas.cache.script.CacheScript;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 加锁、重入、按标识解锁及看门狗续期; 内存缓存不执行lua, 由 LockClient 按脚本语义执行
+ */
+public class CacheLocksTest {
+
+    private final LockClient client = new LockClient();
+    private final CacheLocks locks = new CacheLocks(client, 300);
+    private final ExecutorService other = Executors.newSingleThreadExecutor();
+
+    @After
+    public void tearDown() {
+        other.shutdownNow();
+        locks.shutdown();
+        client.destroy();
+    }
+
+    @Test
+    public void exclusive() throws Exception {
+        assertTrue(locks.tryLock("order", 10000, 0));
+        assertTrue(locks.isHeldByCurrentThread("order"));
+        assertFalse(inOther(() -> locks.tryLock("order", 10000, 0)));
+        assertFalse(inOther(() -> locks.isHeldByCurrentThread("order")));
+        locks.unlock("order");
+        assertNull(client.get("order"));
+        assertTrue(inOther(() -> locks.tryLock("order", 10000, 0)));
+    }
+
+    @Test
+    public void reentrant() {
+        assertTrue(locks.tryLock("order", 10000, 0));
+        String token = client.get("order");
+        // 本地租期覆盖本次租期时重入不访问redis
+        assertTrue(locks.tryLock("order", 5000, 0));
+        assertEquals(2, locks.getHoldCount("order"));
+        assertEquals(1, client.calls);
+        // 否则在redis中续期
+        assertTrue(locks.tryLock("order", 60000, 0));
+        assertEquals(3, locks.getHoldCount("order"));
+        assertEquals(2, client.calls);
+        assertTrue(client.ttl("order") > 50);
+        locks.unlock("order");
+        locks.unlock("order");
+        assertEquals(token, client.get("order"));
+        locks.unlock("order");
+        assertEquals(0, locks.getHoldCount("order"));
+        assertNull(client.get("order"));
+    }
+
+    @Test(expected = CacheClientException.class)
+    public void unlockNotHeld() {
+        locks.unlock("order");
+    }
+
+    @Test
+    public void waitForExpiry() throws Exception {
+        assertTrue(inOther(() -> locks.tryLock("order", 200, 0)));
+        assertFalse(locks.tryLock("order", 10000, 0));
+        long start = System.currentTimeMillis();
+        assertTrue(locks.tryLock("order", 10000, 2000));
+        assertTrue(System.currentTimeMillis() - start < 1500);
+    }
+
+    @Test
+    public void waitTimeout() throws Exception {
+        assertTrue(inOther(() -> locks.tryLock("order", 10000, 0)));
+        long start = System.currentTimeMillis();
+        assertFalse(locks.tryLock("order", 10000, 100));
+        assertTrue(System.currentTimeMillis() - start >= 100);
+    }
+
+    // 过期后被其它线程获得的锁不会被原持有者删除
+    @Test
+    public void expiredOwnerKeepsOthersLock() throws Exception {
+        assertTrue(locks.tryLock("order", 100, 0));
+        Thread.sleep(200);
+        assertFalse(locks.isHeldByCurrentThread("order"));
+        assertTrue(inOther(() -> locks.tryLock("order", 10000, 0)));
+        String token = client.get("order");
+        locks.unlock("order");
+        assertEquals(token, client.get("order"));
+    }
+
+    // 加锁命令执行后连接异常, 用同一标识重试视为成功
+    @Test
+    public void retrySameToken() {
+        client.failAfterLock = true;
+        assertTrue(locks.tryLock("order", 10000, 1000));
+        assertEquals(2, client.calls);
+        assertTrue(locks.isHeldByCurrentThread("order"));
+    }
+
+    @Test
+    public void watchdogRenews() throws Exception {
+        assertTrue(locks.tryLock("order"));
+        assertEquals(1, locks.getWatchedCount());
+        Thread.sleep(700);
+        assertNotNull(client.get("order"));
+        assertTrue(locks.isHeldByCurrentThread("order"));
+        locks.unlock("order");
+        assertEquals(0, locks.getWatchedCount());
+        assertNull(client.get("order"));
+    }
+
+    private <T> T inOther(Callable<T> task) throws Exception {
+        return other.submit(task).get();
+    }
+
+    private static class LockClient extends InMemoryCacheClient {
+        volatile int calls;
+        volatile boolean failAfterLock;
+
+        LockClient() {
+            super("lock");
+        }
+
+        @Override
+        public synchronized Object eval(CacheScript script, String[] keys, String... args) {
+            calls++;
+            String key = keys[0];
+            String value = get(key);
+            switch (script.getName()) {
+                case "lock":
+                    if (args[0].equals(value)) {
+                        pexpire(key, Long.parseLong(args[1]));
+                        return null;
+                    }
+                    if (value != null) {
+                        long ttl = ttl(key);
+                        return ttl < 0 ? ttl : ttl * 1000;
+                    }
+                    setnx(key, args[0]);
+                    pexpire(key, Long.parseLong(args[1]));
+                    if (failAfterLock) {
+                        failAfterLock = false;
+                        throw new CacheClientException("connection reset");
+                    }
+                    return null;
+                case "renew":
+                    return args[0].equals(value) ? pexpire(key, Long.parseLong(args[1])) : 0L;
+                case "unlock":
+                    return args[0].equals(value) ? del(key) : 0L;
+                default:
+                    throw new CacheClientException("unknown script: " + script.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.paas.cache.memory;
+
+import com.paas.cache.exception.CacheClientException;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 与redis一致的命令语义: 类型检查、溢出、负数下标、有序集合排序及有效期
+ */
+public class InMemoryCacheClientTest {
+
+    private final InMemoryCacheClient client = new InMemoryCacheClient("client");
+
+    @After
+    public void tearDown() {
+        client.destroy();
+    }
+
+    @Test
+    public void wrongType() {
+        client.rpush("list", "a");
+        try {
+            client.incr("list");
+            fail();
+        } catch (CacheClientException e) {
+            assertTrue(e.getMessage().startsWith("WRONGTYPE"));
+        }
+        assertEquals("a", client.lpop("list"));
+    }
+
+    @Test(expected = CacheClientException.class)
+    public void incrOverflow() {
+        client.incrBy("n", Long.MAX_VALUE);
+        client.incr("n");
+    }
+
+    @Test
+    public void listRange() {
+        client.rpush("list", "a", "b", "c", "d");
+        assertEquals(Arrays.asList("c", "d"), client.lrange("list", -2, -1));
+        assertEquals(Arrays.asList("a", "b", "c", "d"), client.lrange("list", 0, 100));
+        assertTrue(client.lrange("list", 3, 1).isEmpty());
+        // 弹出最后一个元素后删除key
+        for (int i = 0; i < 4; i++) {
+            client.lpop("list");
+        }
+        assertFalse(client.exists("list"));
+        assertEquals(Long.valueOf(0), client.llen("list"));
+    }
+
+    @Test
+    public void sortedSetOrder() {
+        Map<String, Double> members = new LinkedHashMap<>();
+        members.put("c", 1d);
+        members.put("b", 1d);
+        members.put("a", 2d);
+        assertEquals(Long.valueOf(3), client.zadd("z", members));
+        // 同分按成员字典序
+        assertEquals(Arrays.asList("b", "c", "a"), Arrays.asList(client.zrange("z", 0, -1).toArray()));
+        assertEquals(Arrays.asList("a"), Arrays.asList(client.zrangeByScore("z", "(1", "+inf").toArray()));
+        assertEquals(Long.valueOf(0), client.zrevrank("z", "a"));
+        assertEquals(Long.valueOf(0), client.zadd("z", 0d, "a"));
+        assertEquals(Arrays.asList("a", "b", "c"), Arrays.asList(client.zrange("z", 0, -1).toArray()));
+    }
+
+    @Test
+    public void expire() {
+        client.setex("k", 60, "v");
+        long ttl = client.ttl("k");
+        assertTrue(ttl > 58 && ttl <= 60);
+        assertEquals(Long.valueOf(1), client.pexpire("k", 500000));
+        assertTrue(client.ttl("k") > 490);
+        assertEquals(Long.valueOf(1), client.expireAt("k", System.currentTimeMillis() / 1000 - 1));
+        assertNull(client.get("k"));
+        assertEquals(Long.valueOf(-2), client.ttl("k"));
+        assertEquals(Long.valueOf(0), client.expire("k", 60));
+    }
+}
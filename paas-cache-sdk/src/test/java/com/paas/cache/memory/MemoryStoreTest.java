@@ -0,0 +1,71 @@
+package com.paas.cache.memory;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 过期的惰性删除及时间轮回收
+ */
+public class MemoryStoreTest {
+
+    private final MemoryStore store = new MemoryStore("test");
+
+    @After
+    public void tearDown() {
+        store.close();
+    }
+
+    @Test
+    public void expireOnAccess() throws InterruptedException {
+        byte[] key = "k".getBytes();
+        store.set(key, "v".getBytes(), System.currentTimeMillis() + 500);
+        assertArrayEquals("v".getBytes(), store.get(key));
+        long ttl = store.pttl(key);
+        assertTrue(ttl > 0 && ttl <= 500);
+        Thread.sleep(600);
+        assertNull(store.get(key));
+        assertEquals(-2L, store.pttl(key));
+    }
+
+    @Test
+    public void persistentAndPastExpire() {
+        byte[] key = "k".getBytes();
+        store.set(key, "v".getBytes(), 0);
+        assertEquals(-1L, store.pttl(key));
+        assertTrue(store.pexpireAt(key, System.currentTimeMillis() - 1));
+        assertFalse(store.exists(key));
+        assertFalse(store.pexpireAt(key, System.currentTimeMillis() + 1000));
+    }
+
+    // 不带有效期的覆盖写入清除原有效期
+    @Test
+    public void overwriteClearsExpire() throws InterruptedException {
+        byte[] key = "k".getBytes();
+        store.set(key, "v1".getBytes(), System.currentTimeMillis() + 200);
+        store.set(key, "v2".getBytes(), 0);
+        assertEquals(-1L, store.pttl(key));
+        Thread.sleep(300);
+        assertArrayEquals("v2".getBytes(), store.get(key));
+    }
+
+    @Test
+    public void wheelReclaims() throws InterruptedException {
+        byte[] key = "k".getBytes();
+        for (int i = 0; i < 100; i++) {
+            store.set(key, "v".getBytes(), System.currentTimeMillis() + 200);
+        }
+        assertEquals(1, store.pendingExpirations());
+        long deadline = System.currentTimeMillis() + 3000;
+        while (store.size() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, store.size());
+        assertEquals(0, store.pendingExpirations());
+    }
+}
@@ -0,0 +1,99 @@
+package com.paas.cache.near;
+
+import com.paas.cache.jedis.ClientProxy;
+import com.paas.cache.jedis.ClientTimeProxy;
+import com.paas.cache.jedis.JedisConfig;
+import com.paas.cache.memory.InMemoryCacheClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 两个代理共用同一内存存储, 模拟两个进程: 一方写入后另一方的本地副本经广播失效
+ */
+public class NearCacheTest {
+
+    private InMemoryCacheClient memory;
+    private ClientProxy writer;
+    private ClientProxy reader;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        memory = new InMemoryCacheClient("near");
+        JedisConfig.NearCacheConfig config = new JedisConfig.NearCacheConfig();
+        config.setEnabled(true);
+        config.setKeyPrefixes(new String[]{"user:"});
+        writer = (ClientProxy) ClientTimeProxy.getProxy(memory, "biz", 1000);
+        writer.enableNearCache(config);
+        reader = (ClientProxy) ClientTimeProxy.getProxy(memory, "biz", 1000);
+        reader.enableNearCache(config);
+        // 等待订阅线程就绪
+        Thread.sleep(300);
+    }
+
+    @After
+    public void tearDown() {
+        writer.getNearCache().close();
+        reader.getNearCache().close();
+        memory.destroy();
+    }
+
+    @Test
+    public void remoteWriteInvalidates() throws InterruptedException {
+        writer.setex("user:1", 60, "v1");
+        // 本次写入的失效消息可能晚于读取到达并清掉副本, 重复读取直到命中本地副本
+        for (int i = 0; i < 100 && reader.getNearCache().getHitCount() == 0; i++) {
+            assertEquals("v1", reader.get("user:1"));
+            Thread.sleep(20);
+        }
+        assertTrue(reader.getNearCache().getHitCount() > 0);
+
+        writer.setex("user:1", 60, "v2");
+        assertEquals("v2", await("user:1", "v2"));
+        writer.del("user:1");
+        assertNull(await("user:1", null));
+    }
+
+    @Test
+    public void localWriteInvalidatesImmediately() {
+        writer.setex("user:2", 60, "v1");
+        assertEquals("v1", writer.get("user:2"));
+        writer.setex("user:2", 60, "v2");
+        assertEquals("v2", writer.get("user:2"));
+    }
+
+    @Test
+    public void onlyConfiguredPrefixes() {
+        writer.setex("order:1", 60, "v");
+        reader.get("order:1");
+        reader.get("order:1");
+        assertEquals(0, reader.getNearCache().size());
+        assertEquals(0, reader.getNearCache().getHitCount());
+    }
+
+    @Test
+    public void ttlCappedByRedis() throws InterruptedException {
+        writer.setex("user:3", 1, "v");
+        assertEquals("v", reader.get("user:3"));
+        Thread.sleep(1100);
+        assertNull(reader.get("user:3"));
+    }
+
+    // 失效消息异步到达, 最多等待2秒
+    private String await(String key, String expected) throws InterruptedException {
+        String value = reader.get(key);
+        for (int i = 0; i < 100 && !equal(expected, value); i++) {
+            Thread.sleep(20);
+            value = reader.get(key);
+        }
+        return value;
+    }
+
+    private static boolean equal(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
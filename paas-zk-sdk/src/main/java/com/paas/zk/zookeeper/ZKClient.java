@@ -155,7 +155,7 @@ public class ZKClient {
 
 	public boolean exists(String path, Watcher watcher) throws Exception {
 		if (null != watcher) {
-			return null == client.checkExists().watched().forPath(path) ? false
+			return null == client.checkExists().usingWatcher(watcher).forPath(path) ? false
 					: true;
 		} else {
 			return null == client.checkExists().forPath(path) ? false : true;